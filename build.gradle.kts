@@ -10,12 +10,51 @@ repositories {
     mavenCentral()
 }
 
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
+val jmhImplementation: Configuration by configurations.getting
+val jmhAnnotationProcessor: Configuration by configurations.getting
+
 dependencies {
     testImplementation(platform("org.junit:junit-bom:5.10.0"))
     testImplementation("org.junit.jupiter:junit-jupiter")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+
+    jmhImplementation("org.openjdk.jmh:jmh-core:1.37")
+    jmhAnnotationProcessor("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
 
 tasks.test {
     useJUnitPlatform()
-}
\ No newline at end of file
+    // Production-strength password hashing would make every test fixture take seconds to build.
+    systemProperty("fincore.pbkdf2.iterations", "1000")
+}
+
+// Benchmarks are compiled as part of check so they cannot rot, but only run on demand:
+//   ./gradlew jmh -Pjmh="InMemoryRepositoryBenchmark -p users=1000"
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs the JMH benchmarks in src/jmh."
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    args = (project.findProperty("jmh") as String?)?.split(" ") ?: emptyList()
+}
+
+// Closed-loop HTTP load test against an in-process server:
+//   ./gradlew httpLoadTest -PloadTest="clients=64 seconds=20"
+tasks.register<JavaExec>("httpLoadTest") {
+    group = "benchmark"
+    description = "Load tests the HTTP front end and reports requests/sec and latency percentiles."
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.beaverbrooks.app.http.HttpLoadTest")
+    args = (project.findProperty("loadTest") as String?)?.split(" ") ?: emptyList()
+}
+
+tasks.check {
+    dependsOn(tasks.named("jmhClasses"))
+}
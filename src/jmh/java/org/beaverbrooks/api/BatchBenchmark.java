@@ -0,0 +1,70 @@
+package org.beaverbrooks.api;
+
+import org.beaverbrooks.domain.user.*;
+import org.beaverbrooks.repository.IDataRepository;
+import org.beaverbrooks.repository.StripedRepository;
+import org.beaverbrooks.service.auth.BasicAuthService;
+import org.beaverbrooks.service.auth.IAuthService;
+import org.beaverbrooks.service.data.UserDataService;
+import org.beaverbrooks.shared.BankCommand;
+import org.beaverbrooks.shared.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to apply a payroll-style run of deposits to one account, one IBankApi call per deposit
+ * against a single ExecuteBatch call for the lot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int commands;
+
+    private IBankApi api;
+    private IUser user;
+    private List<BankCommand> batch;
+    private Money amount;
+
+    @Setup(Level.Trial)
+    public void Setup() {
+        UUID id = new UUID(0x5EEDL, 1);
+        Customer customer = new Customer("payroll", "Bench", "Mark", id);
+        ArrayList<IUser> userData = new ArrayList<>(List.of(customer));
+        ArrayList<IUserAuth> authData = new ArrayList<>(List.of(UserAuth.FromHash(id, PasswordHasher.Hash("Pa55word!!", 1_000))));
+        IDataRepository repository = new StripedRepository(userData, authData);
+        IAuthService authService = new BasicAuthService(repository);
+        authService.CreateUserSession(authData.get(0));
+        api = new BankApi(authService, new UserDataService(repository, authService));
+        user = customer;
+        amount = Money.OfMinor(1_999);
+        ArrayList<BankCommand> commandList = new ArrayList<>(commands);
+        for (int i = 0; i < commands; i++) {
+            commandList.add(new BankCommand.Deposit(amount));
+        }
+        batch = commandList;
+    }
+
+    @Benchmark
+    public Money SingleCalls() {
+        Money balance = null;
+        for (int i = 0; i < commands; i++) {
+            balance = api.DepositToAccount(user, amount);
+        }
+        return balance;
+    }
+
+    @Benchmark
+    public Object Batch() {
+        return api.ExecuteBatch(user, batch);
+    }
+}
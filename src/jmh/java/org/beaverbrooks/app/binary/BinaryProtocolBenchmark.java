@@ -0,0 +1,93 @@
+package org.beaverbrooks.app.binary;
+
+import org.beaverbrooks.api.BankApi;
+import org.beaverbrooks.app.helper.Validation;
+import org.beaverbrooks.domain.user.*;
+import org.beaverbrooks.repository.IDataRepository;
+import org.beaverbrooks.repository.StripedRepository;
+import org.beaverbrooks.service.auth.BasicAuthService;
+import org.beaverbrooks.service.auth.IAuthService;
+import org.beaverbrooks.service.auth.PasswordHashingExecutor;
+import org.beaverbrooks.service.auth.SessionStore;
+import org.beaverbrooks.service.auth.TokenSigner;
+import org.beaverbrooks.service.data.UserDataService;
+import org.beaverbrooks.shared.AuthToken;
+import org.beaverbrooks.shared.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loopback round trips against BinaryProtocolServer. Balance and Deposit are one request waiting
+ * for its answer, so SampleTime gives the round-trip latency percentiles; PipelinedDeposits sends
+ * a window of deposits in one write and then reads every answer, which shows the per-request cost
+ * once system calls are shared across the window.
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BinaryProtocolBenchmark {
+
+    @Param({"16", "128"})
+    public int window;
+
+    private BinaryProtocolServer server;
+    private BinaryBankClient client;
+    private AuthToken token;
+    private Money amount;
+
+    @Setup(Level.Trial)
+    public void Setup() throws IOException {
+        UUID id = new UUID(0xB1BL, 1);
+        Customer customer = new Customer("binaryuser", "Bench", "Mark", id);
+        ArrayList<IUser> userData = new ArrayList<>(List.of(customer));
+        ArrayList<IUserAuth> authData = new ArrayList<>(List.of(UserAuth.FromHash(id, PasswordHasher.Hash("Pa55word!!1234", 1_000))));
+        IDataRepository repository = new StripedRepository(userData, authData);
+        PasswordHashingExecutor hashing = new PasswordHashingExecutor(1, PasswordHashingExecutor.DEFAULT_QUEUE_CAPACITY, 1_000);
+        IAuthService authService = new BasicAuthService(repository, new SessionStore(), TokenSigner.WithRandomKey(), hashing, null);
+        server = new BinaryProtocolServer(new BankApi(authService, new UserDataService(repository, authService)),
+                new Validation(), new InetSocketAddress("127.0.0.1", 0), true);
+        server.Start();
+        client = new BinaryBankClient(new InetSocketAddress("127.0.0.1", server.GetPort()));
+        token = client.Login("binaryuser", "Pa55word!!1234");
+        amount = Money.OfMinor(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void TearDown() throws IOException {
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public Money Balance() throws IOException {
+        return client.Balance(token);
+    }
+
+    @Benchmark
+    public Money Deposit() throws IOException {
+        return client.Deposit(token, amount);
+    }
+
+    // Reported per window, so divide by the window size for the cost of one request.
+    @Benchmark
+    public long PipelinedDeposits() throws IOException {
+        for (int i = 0; i < window; i++) {
+            client.SendDeposit(token, amount);
+        }
+        client.Flush();
+        long last = 0;
+        for (int i = 0; i < window; i++) {
+            last = client.Receive().CorrelationId();
+        }
+        return last;
+    }
+}
@@ -0,0 +1,213 @@
+package org.beaverbrooks.app.http;
+
+import org.beaverbrooks.api.BankApi;
+import org.beaverbrooks.app.helper.Validation;
+import org.beaverbrooks.domain.user.*;
+import org.beaverbrooks.repository.IDataRepository;
+import org.beaverbrooks.repository.StripedRepository;
+import org.beaverbrooks.service.auth.BasicAuthService;
+import org.beaverbrooks.service.auth.IAuthService;
+import org.beaverbrooks.service.auth.PasswordHashingExecutor;
+import org.beaverbrooks.service.auth.SessionStore;
+import org.beaverbrooks.service.auth.TokenSigner;
+import org.beaverbrooks.service.data.UserDataService;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load test for BankHttpServer over loopback. Starts the server in-process, then has
+ * every client log in and alternate deposits and balance reads on its own virtual thread and
+ * keep-alive connection, and reports requests/sec and latency percentiles. A warmup period runs
+ * first and is left out of the figures.
+ *
+ *   ./gradlew httpLoadTest -PloadTest="clients=64 seconds=20 warmup=5"
+ *
+ * Client and server share the machine, so treat the numbers as a comparison between builds rather
+ * than as what the server would do on its own.
+ */
+public class HttpLoadTest {
+
+    private static final String PASSWORD = "Pa55word!!1234";
+    private static final Pattern TOKEN = Pattern.compile("\"token\":\"([^\"]+)\"");
+
+    public static void main(String[] args) throws Exception {
+        int clients = 32;
+        int seconds = 10;
+        int warmup = 3;
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            switch (pair[0]) {
+                case "clients" -> clients = Integer.parseInt(pair[1]);
+                case "seconds" -> seconds = Integer.parseInt(pair[1]);
+                case "warmup" -> warmup = Integer.parseInt(pair[1]);
+                default -> throw new IllegalArgumentException("Unknown option " + arg + "; expected clients=, seconds= or warmup=");
+            }
+        }
+
+        try (BankHttpServer server = StartServer(clients)) {
+            long start = System.nanoTime();
+            long measureFrom = start + Duration.ofSeconds(warmup).toNanos();
+            long end = measureFrom + Duration.ofSeconds(seconds).toNanos();
+            AtomicLong errors = new AtomicLong();
+            List<Future<long[]>> results = new ArrayList<>(clients);
+            try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < clients; i++) {
+                    String username = "loaduser" + i;
+                    results.add(workers.submit(() -> RunClient(server.GetPort(), username, measureFrom, end, errors)));
+                }
+            }
+
+            long[] latencies = results.stream().map(HttpLoadTest::Join).flatMapToLong(Arrays::stream).sorted().toArray();
+            System.out.printf("clients=%d duration=%ds requests=%d errors=%d%n", clients, seconds, latencies.length, errors.get());
+            System.out.printf("throughput: %.0f requests/sec%n", latencies.length / (double) seconds);
+            System.out.printf("latency us: p50=%d p90=%d p99=%d p99.9=%d max=%d%n",
+                    Percentile(latencies, 0.50), Percentile(latencies, 0.90), Percentile(latencies, 0.99),
+                    Percentile(latencies, 0.999), Percentile(latencies, 1.0));
+        }
+    }
+
+    // The users' hashes are made once at a low cost that the hashing executor also targets, so the
+    // logins up front neither take long nor trigger a rehash, and no login limiter is in the way.
+    private static BankHttpServer StartServer(int users) throws Exception {
+        int iterations = 1_000;
+        String passwordHash = PasswordHasher.Hash(PASSWORD, iterations);
+        ArrayList<IUser> userData = new ArrayList<>(users);
+        ArrayList<IUserAuth> authData = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            UUID id = new UUID(0x10ADL, i);
+            userData.add(new Customer("loaduser" + i, "Load", "Test", id));
+            authData.add(UserAuth.FromHash(id, passwordHash));
+        }
+        IDataRepository repository = new StripedRepository(userData, authData);
+        PasswordHashingExecutor hashing = new PasswordHashingExecutor(
+                Runtime.getRuntime().availableProcessors(), PasswordHashingExecutor.DEFAULT_QUEUE_CAPACITY, iterations);
+        IAuthService authService = new BasicAuthService(repository, new SessionStore(), TokenSigner.WithRandomKey(), hashing, null);
+        BankHttpServer server = new BankHttpServer(new BankApi(authService, new UserDataService(repository, authService)),
+                new Validation(), new InetSocketAddress("127.0.0.1", 0));
+        server.Start();
+        return server;
+    }
+
+    // Logs in, then alternates deposits and balance reads over one keep-alive connection, recording
+    // latencies in nanoseconds for requests that start inside the measured window. The client is a
+    // bare socket writing prebuilt requests so that it costs far less than the server it measures.
+    private static long[] RunClient(int port, String username, long measureFrom, long end, AtomicLong errors) throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            OutputStream out = socket.getOutputStream();
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+
+            String login = "{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD + "\"}";
+            out.write(Request("POST", "/login", null, login));
+            StringBuilder body = new StringBuilder();
+            Matcher matcher = TOKEN.matcher(body);
+            if (ReadResponse(in, body) != 200 || !matcher.reset(body).find()) {
+                throw new IllegalStateException("Login failed for " + username + ": " + body);
+            }
+            byte[] deposit = Request("POST", "/deposit", matcher.group(1), "{\"amount\": 1.00}");
+            byte[] balance = Request("GET", "/balance", matcher.group(1), null);
+
+            long[] latencies = new long[1024];
+            int count = 0;
+            boolean depositNext = true;
+            while (true) {
+                long sent = System.nanoTime();
+                if (sent - end >= 0) {
+                    return Arrays.copyOf(latencies, count);
+                }
+                out.write(depositNext ? deposit : balance);
+                int status = ReadResponse(in, body);
+                long took = System.nanoTime() - sent;
+                depositNext = !depositNext;
+                if (sent - measureFrom < 0) {
+                    continue;
+                }
+                if (status != 200) {
+                    errors.incrementAndGet();
+                }
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = took;
+            }
+        }
+    }
+
+    private static byte[] Request(String method, String path, String token, String body) {
+        StringBuilder request = new StringBuilder(256)
+                .append(method).append(' ').append(path).append(" HTTP/1.1\r\nHost: 127.0.0.1\r\n");
+        if (token != null) {
+            request.append("Authorization: Bearer ").append(token).append("\r\n");
+        }
+        if (body != null) {
+            request.append("Content-Type: application/json\r\nContent-Length: ").append(body.length()).append("\r\n\r\n").append(body);
+        } else {
+            request.append("\r\n");
+        }
+        return request.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // Reads one response into body and returns its status. Only handles what BankHttpServer sends:
+    // a Content-Length body or none at all.
+    private static int ReadResponse(InputStream in, StringBuilder body) throws IOException {
+        String statusLine = ReadLine(in);
+        int status = Integer.parseInt(statusLine.substring(9, 12));
+        int length = 0;
+        for (String header = ReadLine(in); !header.isEmpty(); header = ReadLine(in)) {
+            if (header.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                length = Integer.parseInt(header.substring(15).trim());
+            }
+        }
+        body.setLength(0);
+        body.append(new String(in.readNBytes(length), StandardCharsets.UTF_8));
+        return status;
+    }
+
+    private static String ReadLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder(64);
+        for (int c = in.read(); c != '\n'; c = in.read()) {
+            if (c == -1) {
+                throw new EOFException("Server closed the connection");
+            }
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+
+    private static long[] Join(Future<long[]> result) {
+        try {
+            return result.get();
+        } catch (Exception e) {
+            throw new IllegalStateException("Load test client failed", e);
+        }
+    }
+
+    private static long Percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1_000;
+    }
+}
@@ -0,0 +1,64 @@
+package org.beaverbrooks.domain.account;
+
+import org.beaverbrooks.shared.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deposit/withdraw throughput of the BigDecimal account path against the long-backed Money path.
+ * Run with the GC profiler to compare allocation rates as well:
+ *   ./gradlew jmh -Pjmh="MoneyBenchmark -prof gc"
+ * and compare gc.alloc.rate.norm (bytes per operation) between the two representations.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoneyBenchmark {
+
+    private static final BigDecimal DEPOSIT = new BigDecimal("12.34");
+    private static final BigDecimal WITHDRAWAL = new BigDecimal("12.33");
+    private static final Money DEPOSIT_MONEY = Money.Of(DEPOSIT);
+    private static final Money WITHDRAWAL_MONEY = Money.Of(WITHDRAWAL);
+
+    private CustomerAccount bigDecimalAccount;
+    private OffHeapAccount moneyAccount;
+    private BigDecimal bigDecimalTotal;
+    private Money moneyTotal;
+
+    @Setup(Level.Iteration)
+    public void Setup() {
+        bigDecimalAccount = new CustomerAccount();
+        moneyAccount = new OffHeapAccount(new OffHeapBalanceStore());
+        bigDecimalTotal = BigDecimal.ZERO.setScale(2);
+        moneyTotal = Money.OfMinor(0);
+    }
+
+    @Benchmark
+    public BigDecimal DepositWithdraw_BigDecimalAccount() {
+        bigDecimalAccount.AddToAccount(DEPOSIT);
+        return bigDecimalAccount.SubtractFromAccount(WITHDRAWAL);
+    }
+
+    @Benchmark
+    public long DepositWithdraw_MoneyAccount() {
+        moneyAccount.AddToAccount(DEPOSIT_MONEY);
+        return moneyAccount.SubtractFromAccount(WITHDRAWAL_MONEY).MinorUnits();
+    }
+
+    @Benchmark
+    public BigDecimal AddSubtract_BigDecimalValue() {
+        bigDecimalTotal = bigDecimalTotal.add(DEPOSIT).subtract(WITHDRAWAL);
+        return bigDecimalTotal;
+    }
+
+    @Benchmark
+    public long AddSubtract_MoneyValue() {
+        moneyTotal = moneyTotal.Plus(DEPOSIT_MONEY).Minus(WITHDRAWAL_MONEY);
+        return moneyTotal.MinorUnits();
+    }
+}
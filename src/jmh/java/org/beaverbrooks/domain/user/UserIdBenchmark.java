@@ -0,0 +1,87 @@
+package org.beaverbrooks.domain.user;
+
+import org.beaverbrooks.repository.StripedRepository;
+import org.beaverbrooks.shared.UuidV7;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * New-user id generation with UUID.randomUUID (SecureRandom) against UuidV7.
+ * Generate_* measures the id alone, with one thread and with four contending;
+ * Signup_* creates a customer and inserts it into a StripedRepository, the sign-up path
+ * minus password hashing; SortedInsert_* puts ids into a TreeMap, standing in for a
+ * sorted index, where time-ordered ids always land at the right-hand edge.
+ *   ./gradlew jmh -Pjmh="UserIdBenchmark"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UserIdBenchmark {
+
+    // Hashed once up front; the hash is the same cost whichever id the user gets.
+    private static final String PASSWORD_HASH = PasswordHasher.Hash("Pa55word!!1234", 1_000);
+
+    private StripedRepository repository;
+    private TreeMap<UUID, Boolean> index;
+    private long sequence;
+
+    @Setup(Level.Iteration)
+    public void Setup() {
+        repository = new StripedRepository(new ArrayList<>(), new ArrayList<>());
+        index = new TreeMap<>();
+    }
+
+    @Benchmark
+    public UUID Generate_RandomUuid() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    public UUID Generate_UuidV7() {
+        return UuidV7.Generate();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public UUID Generate_RandomUuid_FourThreads() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public UUID Generate_UuidV7_FourThreads() {
+        return UuidV7.Generate();
+    }
+
+    @Benchmark
+    public boolean Signup_RandomUuid() {
+        return Signup(UUID.randomUUID());
+    }
+
+    @Benchmark
+    public boolean Signup_UuidV7() {
+        return Signup(UuidV7.Generate());
+    }
+
+    @Benchmark
+    public Boolean SortedInsert_RandomUuid() {
+        return index.put(UUID.randomUUID(), Boolean.TRUE);
+    }
+
+    @Benchmark
+    public Boolean SortedInsert_UuidV7() {
+        return index.put(UuidV7.Generate(), Boolean.TRUE);
+    }
+
+    private boolean Signup(UUID id) {
+        Customer customer = new Customer("user" + sequence++, "Bench", "Mark", id);
+        return repository.SaveNewUserIfAbsent(UserAuth.FromHash(id, PASSWORD_HASH), customer);
+    }
+}
@@ -0,0 +1,84 @@
+package org.beaverbrooks.repository;
+
+import org.beaverbrooks.domain.user.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures single lookups against InMemoryRepository as the number of stored users grows.
+ * With the hash indexes the cost per lookup should stay flat from 1k to 10M users; only
+ * cache-miss effects on the larger tables should show up.
+ * The 10M case needs a large heap, hence the fork arguments.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms12g", "-Xmx12g"})
+@State(Scope.Benchmark)
+public class InMemoryRepositoryBenchmark {
+
+    private static final int PROBES = 4096;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int users;
+
+    private IDataRepository repository;
+    private UUID[] probeIds;
+    private String[] probeNames;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void Setup() {
+        ArrayList<IUser> userData = new ArrayList<>(users);
+        ArrayList<IUserAuth> authData = new ArrayList<>(users);
+        // Hashing every fixture user would dominate setup, and no benchmark here checks passwords.
+        String passwordHash = PasswordHasher.Hash("Pa55word!!", 1_000);
+        for (int i = 0; i < users; i++) {
+            UUID id = new UUID(0x5EEDL, i);
+            userData.add(new Customer("user" + i, "Bench", "Mark", id));
+            authData.add(UserAuth.FromHash(id, passwordHash));
+        }
+        repository = new InMemoryRepository(userData, authData);
+
+        SplittableRandom random = new SplittableRandom(42);
+        probeIds = new UUID[PROBES];
+        probeNames = new String[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            int user = random.nextInt(users);
+            probeIds[i] = new UUID(0x5EEDL, user);
+            probeNames[i] = "USER" + user;
+        }
+    }
+
+    private int Next() {
+        cursor = (cursor + 1) & (PROBES - 1);
+        return cursor;
+    }
+
+    @Benchmark
+    public Optional<IUser> FindByName() {
+        return repository.FindByName(probeNames[Next()]);
+    }
+
+    @Benchmark
+    public Optional<IUser> GetUserById() {
+        return repository.GetUserById(probeIds[Next()]);
+    }
+
+    @Benchmark
+    public Optional<IUserAuth> GetUserAuthById() {
+        return repository.GetUserAuthById(probeIds[Next()]);
+    }
+
+    @Benchmark
+    public BigDecimal GetAccountBalance() {
+        return repository.GetAccountBalance(probeIds[Next()]);
+    }
+}
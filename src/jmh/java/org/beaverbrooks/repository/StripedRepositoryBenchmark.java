@@ -0,0 +1,82 @@
+package org.beaverbrooks.repository;
+
+import org.beaverbrooks.domain.user.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of a mixed read/write workload against StripedRepository at 1, 4, 16 and 64 threads.
+ * Each operation touches a random account: nine in ten read its balance, the rest save it back.
+ * Running with stripes=1 reduces the repository to a single global lock for comparison.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StripedRepositoryBenchmark {
+
+    @Param({"100000"})
+    public int users;
+
+    @Param({"1", "256"})
+    public int stripes;
+
+    private IDataRepository repository;
+    private IUser[] accounts;
+
+    @Setup(Level.Trial)
+    public void Setup() {
+        ArrayList<IUser> userData = new ArrayList<>(users);
+        ArrayList<IUserAuth> authData = new ArrayList<>(users);
+        // Hashing every fixture user would dominate setup, and no benchmark here checks passwords.
+        String passwordHash = PasswordHasher.Hash("Pa55word!!", 1_000);
+        accounts = new IUser[users];
+        for (int i = 0; i < users; i++) {
+            Customer customer = new Customer("user" + i, "Bench", "Mark", new UUID(0x5EEDL, i));
+            accounts[i] = customer;
+            userData.add(customer);
+            authData.add(UserAuth.FromHash(customer.GetID(), passwordHash));
+        }
+        repository = new StripedRepository(userData, authData, stripes);
+    }
+
+    private Object MixedOperation() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        IUser user = accounts[random.nextInt(accounts.length)];
+        if (random.nextInt(10) == 0) {
+            repository.SaveUpdateUser(user);
+            return user;
+        }
+        return repository.GetAccountBalance(user.GetID());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object Threads01() {
+        return MixedOperation();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object Threads04() {
+        return MixedOperation();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Object Threads16() {
+        return MixedOperation();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Object Threads64() {
+        return MixedOperation();
+    }
+}
@@ -0,0 +1,85 @@
+package org.beaverbrooks.repository;
+
+import org.beaverbrooks.domain.user.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of transfers between random pairs of accounts in StripedRepository at 1, 4, 16 and
+ * 64 threads. With few users most pairs collide on the same stripes, which is where lock ordering
+ * matters; stripes=1 gives the single global lock baseline.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransferBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("0.01");
+
+    @Param({"1000", "100000"})
+    public int users;
+
+    @Param({"1", "256"})
+    public int stripes;
+
+    private IDataRepository repository;
+    private UUID[] ids;
+
+    @Setup(Level.Trial)
+    public void Setup() {
+        ArrayList<IUser> userData = new ArrayList<>(users);
+        ArrayList<IUserAuth> authData = new ArrayList<>(users);
+        // Hashing every fixture user would dominate setup, and no benchmark here checks passwords.
+        String passwordHash = PasswordHasher.Hash("Pa55word!!", 1_000);
+        ids = new UUID[users];
+        for (int i = 0; i < users; i++) {
+            Customer customer = new Customer("user" + i, "Bench", "Mark", new UUID(0x5EEDL, i));
+            ids[i] = customer.GetID();
+            userData.add(customer);
+            authData.add(UserAuth.FromHash(customer.GetID(), passwordHash));
+        }
+        repository = new StripedRepository(userData, authData, stripes);
+    }
+
+    private Object RandomTransfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(ids.length);
+        int to = random.nextInt(ids.length - 1);
+        if (to >= from) {
+            to++;
+        }
+        return repository.TransferBetweenAccounts(ids[from], ids[to], AMOUNT);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object Threads01() {
+        return RandomTransfer();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object Threads04() {
+        return RandomTransfer();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Object Threads16() {
+        return RandomTransfer();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Object Threads64() {
+        return RandomTransfer();
+    }
+}
@@ -0,0 +1,76 @@
+package org.beaverbrooks.service.auth;
+
+import org.beaverbrooks.domain.user.*;
+import org.beaverbrooks.repository.InMemoryRepository;
+import org.beaverbrooks.shared.AuthToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of AuthAction at 1, 4 and 16 threads for session tokens, which are checked against
+ * the session store, and signed tokens, which are verified from the token alone.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthActionBenchmark {
+
+    @Param({"10000"})
+    public int users;
+
+    @Param({"session", "signed"})
+    public String mode;
+
+    private IAuthService authService;
+    private AuthToken[] tokens;
+
+    @Setup(Level.Trial)
+    public void Setup() {
+        ArrayList<IUser> userData = new ArrayList<>(users);
+        ArrayList<IUserAuth> authData = new ArrayList<>(users);
+        // Hashing every fixture user would dominate setup, and no benchmark here checks passwords.
+        String passwordHash = PasswordHasher.Hash("Pa55word!!", 1_000);
+        for (int i = 0; i < users; i++) {
+            Customer customer = new Customer("user" + i, "Bench", "Mark", new UUID(0x5EEDL, i));
+            userData.add(customer);
+            authData.add(UserAuth.FromHash(customer.GetID(), passwordHash));
+        }
+        TokenSigner signer = mode.equals("signed") ? TokenSigner.WithRandomKey() : null;
+        authService = new BasicAuthService(new InMemoryRepository(userData, authData), new SessionStore(), signer);
+        tokens = new AuthToken[users];
+        for (int i = 0; i < users; i++) {
+            authService.CreateUserSession(authData.get(i));
+            tokens[i] = authService.GetSessionToken(userData.get(i).GetID()).orElseThrow();
+        }
+    }
+
+    private boolean Authorise() {
+        AuthToken token = tokens[ThreadLocalRandom.current().nextInt(tokens.length)];
+        return authService.AuthAction(token.UserId(), token);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean Threads01() {
+        return Authorise();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean Threads04() {
+        return Authorise();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public boolean Threads16() {
+        return Authorise();
+    }
+}
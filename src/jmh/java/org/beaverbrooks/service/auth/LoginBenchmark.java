@@ -0,0 +1,56 @@
+package org.beaverbrooks.service.auth;
+
+import org.beaverbrooks.domain.user.*;
+import org.beaverbrooks.repository.StripedRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login throughput and latency percentiles (SampleTime reports p99) at several PBKDF2 costs, with
+ * more request threads than hashing threads so queueing in the hashing executor shows up in the
+ * tail. Stored hashes already match the target cost, so no login pays for a rehash, and the
+ * login rate limiter is off so it measures hashing alone.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class LoginBenchmark {
+
+    private static final int USERS = 16;
+    private static final String PASSWORD = "Pa55word!!1234";
+
+    @Param({"10000", "100000", "310000", "600000"})
+    public int iterations;
+
+    private IAuthService authService;
+    private String[] usernames;
+
+    @Setup(Level.Trial)
+    public void Setup() {
+        ArrayList<IUser> userData = new ArrayList<>(USERS);
+        ArrayList<IUserAuth> authData = new ArrayList<>(USERS);
+        usernames = new String[USERS];
+        for (int i = 0; i < USERS; i++) {
+            Customer customer = new Customer("user" + i, "Bench", "Mark", new UUID(0x5EEDL, i));
+            usernames[i] = customer.GetUsername();
+            userData.add(customer);
+            authData.add(UserAuth.FromPassword(customer.GetID(), PASSWORD, iterations));
+        }
+        PasswordHashingExecutor hashing = new PasswordHashingExecutor(
+                Runtime.getRuntime().availableProcessors(), PasswordHashingExecutor.DEFAULT_QUEUE_CAPACITY, iterations);
+        authService = new BasicAuthService(new StripedRepository(userData, authData), new SessionStore(), null, hashing, null);
+    }
+
+    @Benchmark
+    public IUser Login() throws Exception {
+        return authService.UserLogin(usernames[ThreadLocalRandom.current().nextInt(USERS)], PASSWORD);
+    }
+}
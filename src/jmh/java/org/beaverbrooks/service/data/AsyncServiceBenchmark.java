@@ -0,0 +1,109 @@
+package org.beaverbrooks.service.data;
+
+import org.beaverbrooks.domain.account.CustomerAccount;
+import org.beaverbrooks.domain.user.*;
+import org.beaverbrooks.repository.AsyncDataRepositoryAdapter;
+import org.beaverbrooks.repository.BlockingDataRepository;
+import org.beaverbrooks.repository.IAsyncDataRepository;
+import org.beaverbrooks.repository.StripedRepository;
+import org.beaverbrooks.service.auth.BasicAuthService;
+import org.beaverbrooks.service.auth.IAuthService;
+import org.beaverbrooks.shared.AuthToken;
+import org.beaverbrooks.shared.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deposits against storage that takes a millisecond to answer each call, served by a pool of
+ * four threads. BlockingDeposit is UserDataService over a BlockingDataRepository, one deposit per
+ * caller at 4 caller threads, so each thread waits out every round trip. AsyncDeposits is
+ * AsyncUserDataService with a window of deposits in flight from one caller; its scores are per
+ * window, so divide by the window size for the cost of one deposit.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AsyncServiceBenchmark {
+
+    @Param({"16"})
+    public int users;
+
+    @Param({"1024"})
+    public int window;
+
+    private ExecutorService storageThreads;
+    private UserDataService blockingService;
+    private AsyncUserDataService asyncService;
+    private IUser[] userArray;
+    private AuthToken[] tokens;
+    private Money amount;
+
+    @Setup(Level.Trial)
+    public void Setup() {
+        ArrayList<IUser> userData = new ArrayList<>(users);
+        ArrayList<IUserAuth> authData = new ArrayList<>(users);
+        String passwordHash = PasswordHasher.Hash("Pa55word!!", 1_000);
+        for (int i = 0; i < users; i++) {
+            UUID id = new UUID(0xA5CL, i);
+            userData.add(new Customer("user" + i, "Bench", "Mark", id));
+            authData.add(UserAuth.FromHash(id, passwordHash));
+        }
+        StripedRepository repository = new StripedRepository(userData, authData);
+        storageThreads = Executors.newFixedThreadPool(4);
+        IAsyncDataRepository slowRepository = new AsyncDataRepositoryAdapter(repository,
+                CompletableFuture.delayedExecutor(1, TimeUnit.MILLISECONDS, storageThreads));
+        IAuthService authService = new BasicAuthService(repository);
+        blockingService = new UserDataService(new BlockingDataRepository(slowRepository), authService, CustomerAccount::new);
+        asyncService = new AsyncUserDataService(slowRepository, authService, storageThreads);
+        userArray = userData.toArray(new IUser[0]);
+        tokens = new AuthToken[users];
+        for (int i = 0; i < users; i++) {
+            authService.CreateUserSession(authData.get(i));
+            tokens[i] = authService.GetSessionToken(userArray[i].GetID()).orElseThrow();
+        }
+        amount = Money.OfMinor(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void TearDown() {
+        storageThreads.shutdownNow();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Money BlockingDeposit(CallerIndex caller) {
+        int i = caller.Next(users);
+        return blockingService.AddToUserAccountBalance(userArray[i], amount, tokens[i]);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Money AsyncDeposits() {
+        CompletableFuture<Money>[] results = new CompletableFuture[window];
+        for (int w = 0; w < window; w++) {
+            int i = w % users;
+            results[w] = asyncService.AddToUserAccountBalance(userArray[i].GetID(), amount, tokens[i]);
+        }
+        CompletableFuture.allOf(results).join();
+        return results[window - 1].join();
+    }
+
+    @State(Scope.Thread)
+    public static class CallerIndex {
+        private int next;
+
+        int Next(int bound) {
+            next = (next + 1) % bound;
+            return next;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.beaverbrooks.service.data;
+
+import org.beaverbrooks.domain.account.CustomerAccount;
+import org.beaverbrooks.domain.user.*;
+import org.beaverbrooks.repository.IDataRepository;
+import org.beaverbrooks.repository.StripedRepository;
+import org.beaverbrooks.service.auth.BasicAuthService;
+import org.beaverbrooks.service.auth.IAuthService;
+import org.beaverbrooks.shared.AuthToken;
+import org.beaverbrooks.shared.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deposits through UserDataService on the caller's thread against the same deposits applied by
+ * AccountCommandEngine, at 4 caller threads over a small set of hot accounts. Throughput compares
+ * the paths and SampleTime gives their latency percentiles. EnginePipelined submits a window of
+ * deposits before waiting, which is where the writer's batching shows; its scores are per window.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class CommandEngineBenchmark {
+
+    private static final int WINDOW = 16;
+
+    @Param({"16"})
+    public int users;
+
+    private AccountCommandEngine engine;
+    private UserDataService synchronousService;
+    private UserDataService engineService;
+    private IUser[] userArray;
+    private AuthToken[] tokens;
+    private Money amount;
+
+    @Setup(Level.Trial)
+    public void Setup() {
+        ArrayList<IUser> userData = new ArrayList<>(users);
+        ArrayList<IUserAuth> authData = new ArrayList<>(users);
+        String passwordHash = PasswordHasher.Hash("Pa55word!!", 1_000);
+        for (int i = 0; i < users; i++) {
+            UUID id = new UUID(0xE46L, i);
+            userData.add(new Customer("user" + i, "Bench", "Mark", id));
+            authData.add(UserAuth.FromHash(id, passwordHash));
+        }
+        IDataRepository repository = new StripedRepository(userData, authData);
+        IAuthService authService = new BasicAuthService(repository);
+        engine = new AccountCommandEngine(repository);
+        synchronousService = new UserDataService(repository, authService);
+        engineService = new UserDataService(repository, authService, CustomerAccount::new, engine);
+        userArray = userData.toArray(new IUser[0]);
+        tokens = new AuthToken[users];
+        for (int i = 0; i < users; i++) {
+            authService.CreateUserSession(authData.get(i));
+            tokens[i] = authService.GetSessionToken(userArray[i].GetID()).orElseThrow();
+        }
+        amount = Money.OfMinor(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void TearDown() {
+        engine.close();
+    }
+
+    @Benchmark
+    public Money SynchronousDeposit() {
+        int i = ThreadLocalRandom.current().nextInt(users);
+        return synchronousService.AddToUserAccountBalance(userArray[i], amount, tokens[i]);
+    }
+
+    @Benchmark
+    public Money EngineDeposit() {
+        int i = ThreadLocalRandom.current().nextInt(users);
+        return engineService.AddToUserAccountBalance(userArray[i], amount, tokens[i]);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Money EnginePipelined() {
+        CompletableFuture<Money>[] results = new CompletableFuture[WINDOW];
+        for (int w = 0; w < WINDOW; w++) {
+            int i = ThreadLocalRandom.current().nextInt(users);
+            results[w] = engineService.SubmitDeposit(userArray[i].GetID(), amount, tokens[i]);
+        }
+        Money last = null;
+        for (CompletableFuture<Money> result : results) {
+            last = result.join();
+        }
+        return last;
+    }
+}
@@ -0,0 +1,104 @@
+package org.beaverbrooks.api;
+
+import org.beaverbrooks.domain.user.Business;
+import org.beaverbrooks.domain.user.Customer;
+import org.beaverbrooks.domain.user.IUser;
+import org.beaverbrooks.service.auth.IAuthService;
+import org.beaverbrooks.service.data.IAsyncUserDataService;
+import org.beaverbrooks.shared.AuthToken;
+import org.beaverbrooks.shared.BankCommand;
+import org.beaverbrooks.shared.CommandResult;
+import org.beaverbrooks.shared.Futures;
+import org.beaverbrooks.shared.Money;
+import org.beaverbrooks.shared.exceptions.UnauthorisedException;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+// BankApi's token operations over an IAsyncUserDataService. Login verifies a password hash and
+// reads through the auth service's own blocking repository, so it runs on the given executor; the
+// other operations are checked on the calling thread and then left to the data service.
+public class AsyncBankApi implements IAsyncBankApi {
+    private final IAuthService AuthService;
+    private final IAsyncUserDataService DataService;
+    private final Executor LoginExecutor;
+
+    public AsyncBankApi(IAuthService authService, IAsyncUserDataService dataService, Executor loginExecutor) {
+        AuthService = authService;
+        DataService = dataService;
+        LoginExecutor = loginExecutor;
+    }
+
+    @Override
+    public CompletableFuture<AuthToken> LoginUserForToken(String username, String password) {
+        return Futures.Call(() -> {
+            IUser user = AuthService.UserLogin(username, password);
+            return AuthService.GetSessionToken(user.GetID()).orElseThrow();
+        }, LoginExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Void> LogoutUser(AuthToken token) {
+        if (!token.IsAuthed() || !AuthService.AuthAction(token.UserId(), token)) {
+            return Unauthorised();
+        }
+        AuthService.UserLogout(token.UserId());
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Money> GetUserMoneyBalance(AuthToken token) {
+        if (!token.IsAuthed()) {
+            return Unauthorised();
+        }
+        return DataService.GetUserAccountMoneyBalance(token.UserId(), token);
+    }
+
+    @Override
+    public CompletableFuture<Money> DepositToAccount(AuthToken token, Money amount) {
+        if (!token.IsAuthed()) {
+            return Unauthorised();
+        }
+        return DataService.AddToUserAccountBalance(token.UserId(), amount, token);
+    }
+
+    @Override
+    public CompletableFuture<Money> WithdrawFromAccount(AuthToken token, Money amount) {
+        if (!token.IsAuthed()) {
+            return Unauthorised();
+        }
+        return DataService.WithdrawFromUserAccountBalance(token.UserId(), amount, token);
+    }
+
+    @Override
+    public CompletableFuture<Money> TransferToAccount(AuthToken token, UUID recipientID, Money amount) {
+        if (!token.IsAuthed()) {
+            return Unauthorised();
+        }
+        return DataService.TransferBetweenUserAccounts(token.UserId(), recipientID, amount, token);
+    }
+
+    @Override
+    public CompletableFuture<List<CommandResult>> ExecuteBatch(AuthToken token, List<BankCommand> commands) {
+        if (!token.IsAuthed()) {
+            return Unauthorised();
+        }
+        return DataService.ExecuteBatch(token.UserId(), commands, token);
+    }
+
+    @Override
+    public CompletableFuture<Customer> CreateCustomerAccount(String username, String password, String firstName, String lastName) {
+        return DataService.CreateCustomer(username, password, firstName, lastName);
+    }
+
+    @Override
+    public CompletableFuture<Business> CreateBusinessAccount(String businessName, String password) {
+        return DataService.CreateBusiness(businessName, password);
+    }
+
+    private static <T> CompletableFuture<T> Unauthorised() {
+        return CompletableFuture.failedFuture(new UnauthorisedException("Not authorised to perform this action!"));
+    }
+}
@@ -0,0 +1,76 @@
+package org.beaverbrooks.api;
+
+import org.beaverbrooks.domain.user.Business;
+import org.beaverbrooks.domain.user.Customer;
+import org.beaverbrooks.shared.AuthToken;
+import org.beaverbrooks.shared.BankCommand;
+import org.beaverbrooks.shared.CommandResult;
+import org.beaverbrooks.shared.Futures;
+import org.beaverbrooks.shared.Money;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+// Presents a blocking IBankApi as an IAsyncBankApi by running each call on the given executor.
+// The other direction needs no adapter of its own: BankApi over a BlockingUserDataService is the
+// blocking API on top of an asynchronous service.
+public class AsyncBankApiAdapter implements IAsyncBankApi {
+
+    private final IBankApi api;
+    private final Executor executor;
+
+    public AsyncBankApiAdapter(IBankApi api, Executor executor) {
+        this.api = api;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<AuthToken> LoginUserForToken(String username, String password) {
+        return Futures.Call(() -> api.LoginUserForToken(username, password), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> LogoutUser(AuthToken token) {
+        return Futures.Call(() -> {
+            api.LogoutUser(token);
+            return null;
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<Money> GetUserMoneyBalance(AuthToken token) {
+        return Futures.Call(() -> Money.Of(api.GetUserBalance(token)), executor);
+    }
+
+    @Override
+    public CompletableFuture<Money> DepositToAccount(AuthToken token, Money amount) {
+        return Futures.Call(() -> api.DepositToAccount(token, amount), executor);
+    }
+
+    @Override
+    public CompletableFuture<Money> WithdrawFromAccount(AuthToken token, Money amount) {
+        return Futures.Call(() -> api.WithdrawFromAccount(token, amount), executor);
+    }
+
+    @Override
+    public CompletableFuture<Money> TransferToAccount(AuthToken token, UUID recipientID, Money amount) {
+        return Futures.Call(() -> api.TransferToAccount(token, recipientID, amount), executor);
+    }
+
+    @Override
+    public CompletableFuture<List<CommandResult>> ExecuteBatch(AuthToken token, List<BankCommand> commands) {
+        return Futures.Call(() -> api.ExecuteBatch(token, commands), executor);
+    }
+
+    @Override
+    public CompletableFuture<Customer> CreateCustomerAccount(String username, String password, String firstName, String lastName) {
+        return Futures.Call(() -> api.CreateCustomerAccount(username, password, firstName, lastName), executor);
+    }
+
+    @Override
+    public CompletableFuture<Business> CreateBusinessAccount(String businessName, String password) {
+        return Futures.Call(() -> api.CreateBusinessAccount(businessName, password), executor);
+    }
+}
@@ -6,12 +6,16 @@ import org.beaverbrooks.domain.user.IUser;
 import org.beaverbrooks.service.auth.IAuthService;
 import org.beaverbrooks.service.data.IUserDataService;
 import org.beaverbrooks.shared.AuthToken;
+import org.beaverbrooks.shared.BankCommand;
+import org.beaverbrooks.shared.CommandResult;
+import org.beaverbrooks.shared.Money;
 import org.beaverbrooks.shared.exceptions.DuplicateUserException;
 import org.beaverbrooks.shared.exceptions.PasswordMismatchException;
 import org.beaverbrooks.shared.exceptions.UnauthorisedException;
 import org.beaverbrooks.shared.exceptions.UserNotFoundException;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.UUID;
@@ -58,6 +62,56 @@ public class BankApi implements IBankApi{
         DataService.WithdrawFromUserAccountBalance(user, amount, token.get());
     }
 
+    @Override
+    public Money GetUserMoneyBalance(UUID userID) throws UnauthorisedException {
+        Optional<AuthToken> token = AuthService.GetSessionToken(userID);
+
+        if(token.isEmpty() || !token.get().IsAuthed()){
+            throw new UnauthorisedException("Not authorised to perform this action!");
+        }
+        return DataService.GetUserAccountMoneyBalance(userID, token.get());
+    }
+
+    @Override
+    public Money DepositToAccount(IUser user, Money amount) throws UnauthorisedException {
+        Optional<AuthToken> token = AuthService.GetSessionToken(user.GetID());
+
+        if(token.isEmpty() || !token.get().IsAuthed()){
+            throw new UnauthorisedException("Not authorised to perform this action!");
+        }
+        return DataService.AddToUserAccountBalance(user, amount, token.get());
+    }
+
+    @Override
+    public Money WithdrawFromAccount(IUser user, Money amount) throws UnauthorisedException {
+        Optional<AuthToken> token = AuthService.GetSessionToken(user.GetID());
+
+        if(token.isEmpty() || !token.get().IsAuthed()){
+            throw new UnauthorisedException("Not authorised to perform this action!");
+        }
+        return DataService.WithdrawFromUserAccountBalance(user, amount, token.get());
+    }
+
+    @Override
+    public void TransferToAccount(IUser user, UUID recipientID, BigDecimal amount) throws UnauthorisedException {
+        Optional<AuthToken> token = AuthService.GetSessionToken(user.GetID());
+
+        if(token.isEmpty() || !token.get().IsAuthed()){
+            throw new UnauthorisedException("Not authorised to perform this action!");
+        }
+        DataService.TransferBetweenUserAccounts(user, recipientID, amount, token.get());
+    }
+
+    @Override
+    public Money TransferToAccount(IUser user, UUID recipientID, Money amount) throws UnauthorisedException {
+        Optional<AuthToken> token = AuthService.GetSessionToken(user.GetID());
+
+        if(token.isEmpty() || !token.get().IsAuthed()){
+            throw new UnauthorisedException("Not authorised to perform this action!");
+        }
+        return DataService.TransferBetweenUserAccounts(user, recipientID, amount, token.get());
+    }
+
     @Override
     public Customer CreateCustomerAccount(String username, String password, String firstName, String lastName) throws NoSuchElementException, DuplicateUserException{
        return DataService.CreateCustomer(username, password,firstName,lastName);
@@ -85,6 +139,74 @@ public class BankApi implements IBankApi{
 
     @Override
     public void LogoutUser(IUser user) {
+        AuthService.UserLogout(user.GetID());
+    }
+
+    // Logs in and hands the caller its token. In token mode the token is signed, and the overloads
+    // below that take it authorise without a session lookup.
+    @Override
+    public AuthToken LoginUserForToken(String username, String password) throws UserNotFoundException, PasswordMismatchException, NoSuchElementException {
+        IUser user = AuthService.UserLogin(username, password);
+        return AuthService.GetSessionToken(user.GetID()).orElseThrow();
+    }
+
+    @Override
+    public BigDecimal GetUserBalance(AuthToken token) throws UnauthorisedException {
+        if(!token.IsAuthed()){
+            throw new UnauthorisedException("Not authorised to perform this action!");
+        }
+        return DataService.GetUserAccountBalance(token.UserId(), token);
+    }
 
+    @Override
+    public Money DepositToAccount(AuthToken token, Money amount) throws UnauthorisedException {
+        return DataService.AddToUserAccountBalance(AuthorisedUser(token), amount, token);
+    }
+
+    @Override
+    public Money WithdrawFromAccount(AuthToken token, Money amount) throws UnauthorisedException {
+        return DataService.WithdrawFromUserAccountBalance(AuthorisedUser(token), amount, token);
+    }
+
+    @Override
+    public Money TransferToAccount(AuthToken token, UUID recipientID, Money amount) throws UnauthorisedException {
+        return DataService.TransferBetweenUserAccounts(AuthorisedUser(token), recipientID, amount, token);
+    }
+
+    @Override
+    public void LogoutUser(AuthToken token) throws UnauthorisedException {
+        if(!token.IsAuthed() || !AuthService.AuthAction(token.UserId(), token)){
+            throw new UnauthorisedException("Not authorised to perform this action!");
+        }
+        AuthService.UserLogout(token.UserId());
+    }
+
+    // Resolves the session once for the whole batch rather than once per command.
+    @Override
+    public List<CommandResult> ExecuteBatch(IUser user, List<BankCommand> commands) throws UnauthorisedException {
+        Optional<AuthToken> token = AuthService.GetSessionToken(user.GetID());
+
+        if(token.isEmpty() || !token.get().IsAuthed()){
+            throw new UnauthorisedException("Not authorised to perform this action!");
+        }
+        return DataService.ExecuteBatch(user, commands, token.get());
+    }
+
+    @Override
+    public List<CommandResult> ExecuteBatch(AuthToken token, List<BankCommand> commands) throws UnauthorisedException {
+        return DataService.ExecuteBatch(AuthorisedUser(token), commands, token);
+    }
+
+    // Checks the token before the user is looked up, so a token for an unknown user is refused the
+    // same way as any other and the response does not tell callers which user ids exist.
+    private IUser AuthorisedUser(AuthToken token) throws UnauthorisedException {
+        if(!AuthService.AuthAction(token.UserId(), token)){
+            throw new UnauthorisedException("Not authorised to perform this action!");
+        }
+        try {
+            return DataService.GetUserData(token.UserId());
+        } catch (NoSuchElementException e) {
+            throw new UnauthorisedException("Not authorised to perform this action!");
+        }
     }
 }
@@ -0,0 +1,36 @@
+package org.beaverbrooks.api;
+
+import org.beaverbrooks.domain.user.Business;
+import org.beaverbrooks.domain.user.Customer;
+import org.beaverbrooks.shared.AuthToken;
+import org.beaverbrooks.shared.BankCommand;
+import org.beaverbrooks.shared.CommandResult;
+import org.beaverbrooks.shared.Money;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+// Non-blocking counterpart of the token-based half of IBankApi. Every failure, including
+// UnauthorisedException, UserNotFoundException and PasswordMismatchException, fails the returned
+// future instead of being thrown.
+public interface IAsyncBankApi {
+
+    CompletableFuture<AuthToken> LoginUserForToken(String username, String password);
+
+    CompletableFuture<Void> LogoutUser(AuthToken token);
+
+    CompletableFuture<Money> GetUserMoneyBalance(AuthToken token);
+
+    CompletableFuture<Money> DepositToAccount(AuthToken token, Money amount);
+
+    CompletableFuture<Money> WithdrawFromAccount(AuthToken token, Money amount);
+
+    CompletableFuture<Money> TransferToAccount(AuthToken token, UUID recipientID, Money amount);
+
+    CompletableFuture<List<CommandResult>> ExecuteBatch(AuthToken token, List<BankCommand> commands);
+
+    CompletableFuture<Customer> CreateCustomerAccount(String username, String password, String firstName, String lastName);
+
+    CompletableFuture<Business> CreateBusinessAccount(String businessName, String password);
+}
@@ -3,12 +3,17 @@ package org.beaverbrooks.api;
 import org.beaverbrooks.domain.user.Business;
 import org.beaverbrooks.domain.user.Customer;
 import org.beaverbrooks.domain.user.IUser;
+import org.beaverbrooks.shared.AuthToken;
+import org.beaverbrooks.shared.BankCommand;
+import org.beaverbrooks.shared.CommandResult;
+import org.beaverbrooks.shared.Money;
 import org.beaverbrooks.shared.exceptions.DuplicateUserException;
 import org.beaverbrooks.shared.exceptions.PasswordMismatchException;
 import org.beaverbrooks.shared.exceptions.UnauthorisedException;
 import org.beaverbrooks.shared.exceptions.UserNotFoundException;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.UUID;
 
@@ -20,6 +25,16 @@ public interface IBankApi {
 
     void WithdrawFromAccount(IUser user, BigDecimal amount) throws UnauthorisedException;
 
+    Money GetUserMoneyBalance(UUID userID) throws UnauthorisedException;
+
+    Money DepositToAccount(IUser user, Money amount) throws UnauthorisedException;
+
+    Money WithdrawFromAccount(IUser user, Money amount) throws UnauthorisedException;
+
+    void TransferToAccount(IUser user, UUID recipientID, BigDecimal amount) throws UnauthorisedException;
+
+    Money TransferToAccount(IUser user, UUID recipientID, Money amount) throws UnauthorisedException;
+
     Customer CreateCustomerAccount(String username, String password, String firstName, String lastName) throws NoSuchElementException, DuplicateUserException;
 
     Business CreateBusinessAccount(String businessName, String password) throws NoSuchElementException, DuplicateUserException;
@@ -29,4 +44,20 @@ public interface IBankApi {
     IUser LoginUser(String username, String password) throws UserNotFoundException, PasswordMismatchException;
 
     void LogoutUser(IUser user) ;
+
+    AuthToken LoginUserForToken(String username, String password) throws UserNotFoundException, PasswordMismatchException;
+
+    BigDecimal GetUserBalance(AuthToken token) throws UnauthorisedException;
+
+    Money DepositToAccount(AuthToken token, Money amount) throws UnauthorisedException;
+
+    Money WithdrawFromAccount(AuthToken token, Money amount) throws UnauthorisedException;
+
+    Money TransferToAccount(AuthToken token, UUID recipientID, Money amount) throws UnauthorisedException;
+
+    void LogoutUser(AuthToken token) throws UnauthorisedException;
+
+    List<CommandResult> ExecuteBatch(IUser user, List<BankCommand> commands) throws UnauthorisedException;
+
+    List<CommandResult> ExecuteBatch(AuthToken token, List<BankCommand> commands) throws UnauthorisedException;
 }
@@ -3,26 +3,149 @@ package org.beaverbrooks.app;
 import org.beaverbrooks.api.BankApi;
 import org.beaverbrooks.api.IBankApi;
 import org.beaverbrooks.app.helper.Validation;
+import org.beaverbrooks.domain.account.CustomerAccount;
+import org.beaverbrooks.domain.account.IAccount;
+import org.beaverbrooks.domain.account.OffHeapAccount;
+import org.beaverbrooks.domain.account.OffHeapBalanceStore;
+import org.beaverbrooks.repository.CachingRepository;
 import org.beaverbrooks.repository.DummyData;
 import org.beaverbrooks.repository.InMemoryRepository;
 import org.beaverbrooks.repository.IDataRepository;
+import org.beaverbrooks.repository.SnapshotRepository;
+import org.beaverbrooks.repository.StripedRepository;
+import org.beaverbrooks.repository.WriteAheadLogRepository;
 import org.beaverbrooks.service.auth.BasicAuthService;
 import org.beaverbrooks.service.auth.IAuthService;
+import org.beaverbrooks.service.auth.SessionStore;
+import org.beaverbrooks.service.auth.TokenSigner;
+import org.beaverbrooks.service.data.AccountCommandEngine;
 import org.beaverbrooks.service.data.IUserDataService;
 import org.beaverbrooks.service.data.UserDataService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
 public class AppConfig {
 
-    private final IDataRepository dataRepository = new InMemoryRepository(DummyData.DummyUserData(), DummyData.DummyAuthData());
+    private final OffHeapBalanceStore balanceStore = CreateBalanceStore();
+
+    private final IDataRepository dataRepository = CreateRepository(balanceStore);
 
-    private final IAuthService authService = new BasicAuthService(dataRepository);
+    private final IAuthService authService = CreateAuthService(dataRepository);
 
     private final Validation validation = new Validation();
 
-    private final IUserDataService dataService = new UserDataService(dataRepository, authService);
+    private final IUserDataService dataService = new UserDataService(dataRepository, authService, CreateAccountFactory(balanceStore), CreateCommandEngine(dataRepository));
 
     private final IBankApi bankApi = new BankApi(authService, dataService);
 
+    // -Dfincore.snapshot=<file> serves accounts from a binary snapshot instead of the dummy data, and
+    // -Dfincore.wal=<file> keeps accounts across restarts by logging every write to that file.
+    // With both, -Dfincore.checkpoint=<seconds> writes the accounts back into the snapshot at that
+    // interval and empties the log, so a restart replays only the writes since the last checkpoint.
+    // -Dfincore.cache=<users> keeps that many users in memory in front of the store, and
+    // -Dfincore.writebehind=<ms> additionally batches account saves to the store at that interval.
+    private static IDataRepository CreateRepository(OffHeapBalanceStore balanceStore) {
+        IDataRepository repository = CreateStore(balanceStore);
+        Integer cacheSize = Integer.getInteger("fincore.cache");
+        if (cacheSize == null) {
+            return repository;
+        }
+        return CachingRepository.WithWriteBehind(repository, cacheSize, Long.getLong("fincore.writebehind", 0L));
+    }
+
+    private static IDataRepository CreateStore(OffHeapBalanceStore balanceStore) {
+        Function<BigDecimal, IAccount> openAccount = CreateRestoredAccountFactory(balanceStore);
+        String snapshotPath = System.getProperty("fincore.snapshot");
+        String walPath = System.getProperty("fincore.wal");
+        try {
+            if (snapshotPath == null && walPath == null) {
+                return new InMemoryRepository(DummyData.DummyUserData(), DummyData.DummyAuthData());
+            }
+            if (snapshotPath == null) {
+                return new WriteAheadLogRepository(Path.of(walPath),
+                        new StripedRepository(DummyData.DummyUserData(), DummyData.DummyAuthData()), 0, openAccount);
+            }
+            SnapshotRepository snapshot = new SnapshotRepository(Path.of(snapshotPath), openAccount);
+            if (walPath == null) {
+                return snapshot;
+            }
+            WriteAheadLogRepository repository = new WriteAheadLogRepository(Path.of(walPath), snapshot, snapshot.GetGeneration(), openAccount);
+            Long checkpointSeconds = Long.getLong("fincore.checkpoint");
+            if (checkpointSeconds != null) {
+                ScheduleCheckpoints(repository, Path.of(snapshotPath), checkpointSeconds);
+            }
+            return repository;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the account store", e);
+        }
+    }
+
+    // A checkpoint that fails is reported and tried again at the next interval; writes carry on into
+    // the log meanwhile, which keeps growing until a checkpoint succeeds. Any exception escaping the
+    // task would silently cancel the schedule, so none is let out.
+    private static void ScheduleCheckpoints(WriteAheadLogRepository repository, Path snapshotFile, long seconds) {
+        ScheduledExecutorService checkpointer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "fincore-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointer.scheduleWithFixedDelay(() -> {
+            try {
+                repository.Checkpoint(snapshotFile);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Checkpoint to " + snapshotFile + " failed, retrying in " + seconds + "s: " + e);
+            }
+        }, seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    // -Dfincore.tokens=true switches to signed tokens, keyed afresh on every start, so token
+    // requests are authorised without a session lookup. Serving HTTP or the binary protocol always
+    // uses them, since the token is the only thing that identifies a remote client.
+    private static IAuthService CreateAuthService(IDataRepository repository) {
+        if (!Boolean.getBoolean("fincore.tokens") && !ServesRemoteClients()) {
+            return new BasicAuthService(repository);
+        }
+        return new BasicAuthService(repository, new SessionStore(), TokenSigner.WithRandomKey());
+    }
+
+    public static boolean ServesRemoteClients() {
+        return System.getProperty("fincore.http") != null || System.getProperty("fincore.binary") != null;
+    }
+
+    // -Dfincore.offheap=true keeps account balances outside the Java heap, both for newly opened
+    // accounts and for those restored from a snapshot or log.
+    private static OffHeapBalanceStore CreateBalanceStore() {
+        return Boolean.getBoolean("fincore.offheap") ? new OffHeapBalanceStore() : null;
+    }
+
+    private static Supplier<IAccount> CreateAccountFactory(OffHeapBalanceStore store) {
+        if (store == null) {
+            return CustomerAccount::new;
+        }
+        return () -> new OffHeapAccount(store);
+    }
+
+    private static Function<BigDecimal, IAccount> CreateRestoredAccountFactory(OffHeapBalanceStore store) {
+        if (store == null) {
+            return CustomerAccount::new;
+        }
+        return balance -> new OffHeapAccount(store, balance);
+    }
+
+    // -Dfincore.engine=true applies deposits and withdrawals on one writer thread per partition of
+    // accounts, one partition per core.
+    private static AccountCommandEngine CreateCommandEngine(IDataRepository repository) {
+        return Boolean.getBoolean("fincore.engine") ? new AccountCommandEngine(repository) : null;
+    }
+
     public IAuthService GetAuthService(){
         return authService;
     }
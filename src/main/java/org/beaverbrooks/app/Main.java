@@ -1,15 +1,20 @@
 package org.beaverbrooks.app;
 
 import org.beaverbrooks.api.IBankApi;
+import org.beaverbrooks.app.binary.BinaryProtocolServer;
 import org.beaverbrooks.app.helper.Validation;
+import org.beaverbrooks.app.http.BankHttpServer;
 import org.beaverbrooks.shared.exceptions.PasswordMismatchException;
 import org.beaverbrooks.shared.exceptions.UnauthorisedException;
 import org.beaverbrooks.shared.exceptions.UserNotFoundException;
 import org.beaverbrooks.shared.exceptions.ValidationException;
 import org.beaverbrooks.domain.user.IUser;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.net.InetSocketAddress;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
 
@@ -19,6 +24,20 @@ public class Main {
         AppConfig app = new AppConfig();
         IBankApi api = app.GetApi();
         Validation validator = app.GetValidationService();
+
+        // -Dfincore.http=<port> serves the API as JSON over HTTP and -Dfincore.binary=<port> over the
+        // binary protocol, instead of running the menu. Either or both may be given.
+        if (AppConfig.ServesRemoteClients()) {
+            String httpPort = System.getProperty("fincore.http");
+            String binaryPort = System.getProperty("fincore.binary");
+            if (httpPort != null) {
+                ServeHttp(api, validator, Integer.parseInt(httpPort));
+            }
+            if (binaryPort != null) {
+                ServeBinary(api, validator, Integer.parseInt(binaryPort));
+            }
+            return;
+        }
         Scanner reader = new Scanner(System.in);
 
         IUser user = null;
@@ -127,6 +146,7 @@ public class Main {
                         }
                         break;
                     case AccountOptionsEnum.Logout:
+                        api.LogoutUser(user);
                         user = null;
                         break;
                     default:
@@ -136,6 +156,31 @@ public class Main {
         }
     }
 
+    private static void ServeHttp(IBankApi api, Validation validator, int port) {
+        try {
+            BankHttpServer server = new BankHttpServer(api, validator, new InetSocketAddress(port));
+            Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+            server.Start();
+            System.out.println("FinCORE HTTP API listening on port " + server.GetPort());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start the HTTP server", e);
+        }
+    }
+
+    // Writes to a write-ahead log wait for an fsync, and with the command engine every write waits
+    // for an account's writer thread, so in either case they are kept off the selector thread.
+    private static void ServeBinary(IBankApi api, Validation validator, int port) {
+        try {
+            boolean inlineWrites = System.getProperty("fincore.wal") == null && !Boolean.getBoolean("fincore.engine");
+            BinaryProtocolServer server = new BinaryProtocolServer(api, validator, new InetSocketAddress(port), inlineWrites);
+            Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+            server.Start();
+            System.out.println("FinCORE binary API listening on port " + server.GetPort());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start the binary protocol server", e);
+        }
+    }
+
     private static MainOptionsEnum ShowMainOptions(Scanner reader) {
 
         System.out.println(
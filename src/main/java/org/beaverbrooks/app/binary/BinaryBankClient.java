@@ -0,0 +1,221 @@
+package org.beaverbrooks.app.binary;
+
+import org.beaverbrooks.shared.AuthToken;
+import org.beaverbrooks.shared.Money;
+import org.beaverbrooks.shared.exceptions.RateLimitedException;
+import org.beaverbrooks.shared.exceptions.ServiceBusyException;
+import org.beaverbrooks.shared.exceptions.UnauthorisedException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.LinkedHashMap;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+// Blocking client for BinaryProtocolServer, for use by one thread at a time.
+//
+// The Send methods only buffer a request and return its correlation id; Flush sends everything
+// buffered in one write, and Receive returns responses in the order they arrive. That is how a
+// caller pipelines. The plain methods (Login, Balance, Deposit and so on) do all three for one
+// request and wait for its answer, keeping any other responses that arrive first for later.
+//
+// A pipelining caller should keep reading: the server stops reading from a connection once about
+// a megabyte of responses is waiting for it.
+public class BinaryBankClient implements AutoCloseable {
+
+    public record Response(long CorrelationId, byte Status, ByteBuffer Payload) {
+
+        public boolean IsOk() {
+            return Status == BinaryProtocol.STATUS_OK;
+        }
+
+        // Throws the exception matching a failed status, so callers can treat the plain methods
+        // like the API they front.
+        public Response ThrowIfFailed() {
+            if (IsOk()) {
+                return this;
+            }
+            String message = BinaryProtocol.GetString(Payload.duplicate());
+            throw switch (Status) {
+                case BinaryProtocol.STATUS_BAD_REQUEST -> new IllegalArgumentException(message);
+                case BinaryProtocol.STATUS_UNAUTHORISED -> new UnauthorisedException(message);
+                case BinaryProtocol.STATUS_NOT_FOUND -> new NoSuchElementException(message);
+                case BinaryProtocol.STATUS_RATE_LIMITED -> new RateLimitedException(message);
+                case BinaryProtocol.STATUS_BUSY -> new ServiceBusyException(message);
+                default -> new IllegalStateException(message);
+            };
+        }
+    }
+
+    private final SocketChannel channel;
+    private final ByteBuffer out = ByteBuffer.allocateDirect(64 * 1024);
+    private final ByteBuffer in = ByteBuffer.allocateDirect(BinaryProtocol.LENGTH_BYTES + BinaryProtocol.MAX_FRAME_BYTES);
+    private final LinkedHashMap<Long, Response> early = new LinkedHashMap<>();
+    private long nextCorrelationId = 1;
+
+    public BinaryBankClient(InetSocketAddress address) throws IOException {
+        channel = SocketChannel.open(address);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        in.flip();
+    }
+
+    public long SendLogin(String username, String password) throws IOException {
+        int start = Begin(BinaryProtocol.OP_LOGIN);
+        BinaryProtocol.PutString(out, username);
+        BinaryProtocol.PutString(out, password);
+        return End(start);
+    }
+
+    public long SendBalance(AuthToken token) throws IOException {
+        int start = Begin(BinaryProtocol.OP_BALANCE);
+        BinaryProtocol.PutToken(out, token);
+        return End(start);
+    }
+
+    public long SendDeposit(AuthToken token, Money amount) throws IOException {
+        int start = Begin(BinaryProtocol.OP_DEPOSIT);
+        BinaryProtocol.PutToken(out, token);
+        BinaryProtocol.PutMoney(out, amount);
+        return End(start);
+    }
+
+    public long SendWithdraw(AuthToken token, Money amount) throws IOException {
+        int start = Begin(BinaryProtocol.OP_WITHDRAW);
+        BinaryProtocol.PutToken(out, token);
+        BinaryProtocol.PutMoney(out, amount);
+        return End(start);
+    }
+
+    public long SendTransfer(AuthToken token, UUID recipientId, Money amount) throws IOException {
+        int start = Begin(BinaryProtocol.OP_TRANSFER);
+        BinaryProtocol.PutToken(out, token);
+        BinaryProtocol.PutUuid(out, recipientId);
+        BinaryProtocol.PutMoney(out, amount);
+        return End(start);
+    }
+
+    public long SendLogout(AuthToken token) throws IOException {
+        int start = Begin(BinaryProtocol.OP_LOGOUT);
+        BinaryProtocol.PutToken(out, token);
+        return End(start);
+    }
+
+    public long SendCreateCustomer(String username, String password, String firstName, String lastName) throws IOException {
+        int start = Begin(BinaryProtocol.OP_CREATE_CUSTOMER);
+        BinaryProtocol.PutString(out, username);
+        BinaryProtocol.PutString(out, password);
+        BinaryProtocol.PutString(out, firstName);
+        BinaryProtocol.PutString(out, lastName);
+        return End(start);
+    }
+
+    public long SendCreateBusiness(String businessName, String password) throws IOException {
+        int start = Begin(BinaryProtocol.OP_CREATE_BUSINESS);
+        BinaryProtocol.PutString(out, businessName);
+        BinaryProtocol.PutString(out, password);
+        return End(start);
+    }
+
+    public void Flush() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    // The next response off the wire, including any the plain methods set aside.
+    public Response Receive() throws IOException {
+        if (!early.isEmpty()) {
+            Long first = early.keySet().iterator().next();
+            return early.remove(first);
+        }
+        return ReadFrame();
+    }
+
+    public AuthToken Login(String username, String password) throws IOException {
+        ByteBuffer payload = Await(SendLogin(username, password));
+        return BinaryProtocol.GetToken(payload);
+    }
+
+    public Money Balance(AuthToken token) throws IOException {
+        return BinaryProtocol.GetMoney(Await(SendBalance(token)));
+    }
+
+    public Money Deposit(AuthToken token, Money amount) throws IOException {
+        return BinaryProtocol.GetMoney(Await(SendDeposit(token, amount)));
+    }
+
+    public Money Withdraw(AuthToken token, Money amount) throws IOException {
+        return BinaryProtocol.GetMoney(Await(SendWithdraw(token, amount)));
+    }
+
+    public Money Transfer(AuthToken token, UUID recipientId, Money amount) throws IOException {
+        return BinaryProtocol.GetMoney(Await(SendTransfer(token, recipientId, amount)));
+    }
+
+    public void Logout(AuthToken token) throws IOException {
+        Await(SendLogout(token));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int Begin(byte opcode) throws IOException {
+        if (out.remaining() < BinaryProtocol.LENGTH_BYTES + BinaryProtocol.MAX_FRAME_BYTES) {
+            Flush();
+        }
+        return BinaryProtocol.BeginFrame(out, nextCorrelationId, opcode);
+    }
+
+    private long End(int start) {
+        BinaryProtocol.EndFrame(out, start);
+        return nextCorrelationId++;
+    }
+
+    private ByteBuffer Await(long correlationId) throws IOException {
+        Flush();
+        Response response = early.remove(correlationId);
+        while (response == null) {
+            Response next = ReadFrame();
+            if (next.CorrelationId() == correlationId) {
+                response = next;
+            } else {
+                early.put(next.CorrelationId(), next);
+            }
+        }
+        return response.ThrowIfFailed().Payload();
+    }
+
+    // in is kept in read mode between calls.
+    private Response ReadFrame() throws IOException {
+        while (true) {
+            if (in.remaining() >= BinaryProtocol.LENGTH_BYTES) {
+                int length = in.getInt(in.position());
+                if (length < BinaryProtocol.HEADER_BYTES || length > BinaryProtocol.MAX_FRAME_BYTES) {
+                    throw new IOException("Bad frame length " + length);
+                }
+                if (in.remaining() >= BinaryProtocol.LENGTH_BYTES + length) {
+                    in.getInt();
+                    long correlationId = in.getLong();
+                    byte status = in.get();
+                    ByteBuffer payload = ByteBuffer.allocate(length - BinaryProtocol.HEADER_BYTES);
+                    in.get(payload.array());
+                    return new Response(correlationId, status, payload);
+                }
+            }
+            in.compact();
+            int read = channel.read(in);
+            in.flip();
+            if (read < 0) {
+                throw new EOFException("Server closed the connection");
+            }
+        }
+    }
+}
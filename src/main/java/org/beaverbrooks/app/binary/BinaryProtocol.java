@@ -0,0 +1,124 @@
+package org.beaverbrooks.app.binary;
+
+import org.beaverbrooks.shared.AuthToken;
+import org.beaverbrooks.shared.Money;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+// Wire format shared by BinaryProtocolServer and BinaryBankClient. Everything is big-endian.
+//
+//   request:  int length | long correlationId | byte opcode | payload
+//   response: int length | long correlationId | byte status | payload
+//
+// length counts the bytes after itself. The correlation id is chosen by the client and echoed back
+// unchanged, which is how a client with many requests in flight on one connection pairs up the
+// responses: requests the server hands off to a worker, such as logins, can overtake each other.
+//
+// Payload fields are strings (unsigned short byte length, then UTF-8), UUIDs (two longs), amounts
+// (long minor units, then a scale byte) and tokens (user UUID, issued-at and expires-at longs, then
+// the signature as a string). A failed request answers with a non-OK status and a message string.
+public final class BinaryProtocol {
+
+    public static final byte OP_LOGIN = 1;              // username, password -> token
+    public static final byte OP_BALANCE = 2;            // token -> amount
+    public static final byte OP_DEPOSIT = 3;            // token, amount -> amount
+    public static final byte OP_WITHDRAW = 4;           // token, amount -> amount
+    public static final byte OP_TRANSFER = 5;           // token, recipient UUID, amount -> amount
+    public static final byte OP_LOGOUT = 6;             // token -> nothing
+    public static final byte OP_CREATE_CUSTOMER = 7;    // username, password, first name, last name -> UUID
+    public static final byte OP_CREATE_BUSINESS = 8;    // business name, password -> UUID
+
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_BAD_REQUEST = 1;
+    public static final byte STATUS_UNAUTHORISED = 2;
+    public static final byte STATUS_NOT_FOUND = 3;
+    public static final byte STATUS_CONFLICT = 4;
+    public static final byte STATUS_RATE_LIMITED = 5;
+    public static final byte STATUS_BUSY = 6;
+    public static final byte STATUS_INTERNAL_ERROR = 7;
+
+    public static final int LENGTH_BYTES = Integer.BYTES;
+    public static final int HEADER_BYTES = Long.BYTES + 1;
+    // Largest frame either side accepts, length prefix excluded. A peer that announces more is
+    // disconnected rather than buffered.
+    public static final int MAX_FRAME_BYTES = 16 * 1024;
+
+    private BinaryProtocol() {
+    }
+
+    // Writes a frame header with a placeholder length and returns where the frame starts, for
+    // EndFrame to fill in once the payload is written.
+    public static int BeginFrame(ByteBuffer buffer, long correlationId, byte opcodeOrStatus) {
+        int start = buffer.position();
+        buffer.putInt(0).putLong(correlationId).put(opcodeOrStatus);
+        return start;
+    }
+
+    public static void EndFrame(ByteBuffer buffer, int start) {
+        buffer.putInt(start, buffer.position() - start - LENGTH_BYTES);
+    }
+
+    public static void PutString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("String too long for the binary protocol");
+        }
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+
+    public static String GetString(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        if (buffer.remaining() < length) {
+            throw new IllegalArgumentException("String runs past the end of the frame");
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void PutUuid(ByteBuffer buffer, UUID value) {
+        buffer.putLong(value.getMostSignificantBits()).putLong(value.getLeastSignificantBits());
+    }
+
+    public static UUID GetUuid(ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    public static void PutMoney(ByteBuffer buffer, Money value) {
+        buffer.putLong(value.MinorUnits()).put((byte) value.Scale());
+    }
+
+    public static Money GetMoney(ByteBuffer buffer) {
+        long minorUnits = buffer.getLong();
+        int scale = buffer.get();
+        if (scale < 0 || scale > Money.MAX_SCALE) {
+            throw new IllegalArgumentException("Amount scale must be between 0 and " + Money.MAX_SCALE + " but was " + scale);
+        }
+        return new Money(minorUnits, scale);
+    }
+
+    // An amount a request asks to move, as opposed to a balance: it must be positive and in whole
+    // cents, and a frame that breaks either rule is refused before it reaches the bank.
+    public static Money GetAmount(ByteBuffer buffer) {
+        return Money.RequireValidAmount(GetMoney(buffer));
+    }
+
+    public static void PutToken(ByteBuffer buffer, AuthToken token) {
+        if (!token.IsSigned()) {
+            throw new IllegalStateException("The binary protocol needs signed tokens");
+        }
+        PutUuid(buffer, token.UserId());
+        buffer.putLong(token.IssuedAt()).putLong(token.ExpiresAt());
+        PutString(buffer, token.Signature());
+    }
+
+    // Only rebuilds the token; whether it is genuine is for the auth service to decide.
+    public static AuthToken GetToken(ByteBuffer buffer) {
+        UUID userId = GetUuid(buffer);
+        long issuedAt = buffer.getLong();
+        long expiresAt = buffer.getLong();
+        return new AuthToken(userId, true, issuedAt, expiresAt, GetString(buffer));
+    }
+}
@@ -0,0 +1,373 @@
+package org.beaverbrooks.app.binary;
+
+import org.beaverbrooks.api.IBankApi;
+import org.beaverbrooks.app.helper.Validation;
+import org.beaverbrooks.shared.AuthToken;
+import org.beaverbrooks.shared.Money;
+import org.beaverbrooks.shared.exceptions.AuthorisationException;
+import org.beaverbrooks.shared.exceptions.DuplicateUserException;
+import org.beaverbrooks.shared.exceptions.PasswordMismatchException;
+import org.beaverbrooks.shared.exceptions.RateLimitedException;
+import org.beaverbrooks.shared.exceptions.ServiceBusyException;
+import org.beaverbrooks.shared.exceptions.UnauthorisedException;
+import org.beaverbrooks.shared.exceptions.UserNotFoundException;
+import org.beaverbrooks.shared.exceptions.ValidationException;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Serves IBankApi over BinaryProtocol from a single selector thread. Each connection owns a pair of
+// direct buffers: every frame that has arrived is decoded and answered in place, and all the
+// answers to one read go out in one write, so a client pipelining requests pays one system call
+// per batch rather than one per request.
+//
+// Balance reads and the in-memory writes finish in microseconds and run on the selector thread.
+// Logins and account creation wait on password hashing, so they run on virtual threads and their
+// responses are handed back to the selector when done. With inlineWrites off, deposits, withdrawals,
+// transfers and logouts are handed off the same way, which is what a write-ahead-logged repository
+// needs: its writes wait for an fsync that would otherwise stall every connection.
+public class BinaryProtocolServer implements AutoCloseable {
+
+    private static final int MAX_RESPONSE_BYTES = 1024;
+    // A client that keeps sending without reading stops being read once this much is waiting to go
+    // back to it.
+    private static final int MAX_PENDING_RESPONSE_BYTES = 1 << 20;
+
+    private final IBankApi api;
+    private final Validation validation;
+    private final boolean inlineWrites;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final ExecutorService blockingExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ConcurrentLinkedQueue<Completion> completions = new ConcurrentLinkedQueue<>();
+    private final ByteBuffer scratch = ByteBuffer.allocateDirect(MAX_RESPONSE_BYTES);
+    private final Thread selectorThread;
+    private volatile boolean running = true;
+
+    private record Completion(Connection Connection, ByteBuffer Frame) {}
+
+    public BinaryProtocolServer(IBankApi api, Validation validation, InetSocketAddress address, boolean inlineWrites) throws IOException {
+        this.api = api;
+        this.validation = validation;
+        this.inlineWrites = inlineWrites;
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address, 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        selectorThread = new Thread(this::Run, "fincore-binary-selector");
+    }
+
+    public void Start() {
+        selectorThread.start();
+    }
+
+    // The bound port, for when the server was given port 0.
+    public int GetPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            if (selectorThread.isAlive()) {
+                selectorThread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        blockingExecutor.close();
+    }
+
+    private void Run() {
+        try {
+            while (running) {
+                selector.select();
+                DrainCompletions();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        Accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            Read(connection);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            Flush(connection);
+                        }
+                    } catch (IOException | IllegalArgumentException e) {
+                        connection.Close();
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            running = false;
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection connection) {
+                    connection.Close();
+                }
+            }
+            try {
+                serverChannel.close();
+                selector.close();
+            } catch (IOException ignored) {
+                // Already shutting down.
+            }
+        }
+    }
+
+    private void Accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Connection connection = new Connection(channel);
+            connection.Key = channel.register(selector, SelectionKey.OP_READ, connection);
+        }
+    }
+
+    // Decodes every complete frame in the read buffer, then writes all the answers at once. A frame
+    // with an impossible length closes the connection, since nothing after it can be trusted.
+    private void Read(Connection connection) throws IOException {
+        ByteBuffer in = connection.In;
+        if (connection.Channel.read(in) < 0) {
+            connection.Close();
+            return;
+        }
+        in.flip();
+        while (in.remaining() >= BinaryProtocol.LENGTH_BYTES) {
+            int length = in.getInt(in.position());
+            if (length < BinaryProtocol.HEADER_BYTES || length > BinaryProtocol.MAX_FRAME_BYTES) {
+                throw new IllegalArgumentException("Bad frame length " + length);
+            }
+            if (in.remaining() < BinaryProtocol.LENGTH_BYTES + length) {
+                break;
+            }
+            int frameEnd = in.position() + BinaryProtocol.LENGTH_BYTES + length;
+            in.position(in.position() + BinaryProtocol.LENGTH_BYTES);
+            long correlationId = in.getLong();
+            byte opcode = in.get();
+            ByteBuffer payload = in.slice(in.position(), frameEnd - in.position());
+            in.position(frameEnd);
+
+            if (IsBlocking(opcode)) {
+                ByteBuffer copy = ByteBuffer.allocate(payload.remaining()).put(payload).flip();
+                blockingExecutor.execute(() -> {
+                    ByteBuffer frame = ByteBuffer.allocate(MAX_RESPONSE_BYTES);
+                    Execute(correlationId, opcode, copy, frame);
+                    completions.add(new Completion(connection, frame.flip()));
+                    selector.wakeup();
+                });
+            } else {
+                scratch.clear();
+                Execute(correlationId, opcode, payload, scratch);
+                connection.Queue(scratch.flip());
+            }
+        }
+        in.compact();
+        Flush(connection);
+    }
+
+    private void DrainCompletions() {
+        Completion completion;
+        while ((completion = completions.poll()) != null) {
+            Connection connection = completion.Connection();
+            if (!connection.Channel.isOpen()) {
+                continue;
+            }
+            connection.Queue(completion.Frame());
+            try {
+                Flush(connection);
+            } catch (IOException e) {
+                connection.Close();
+            }
+        }
+    }
+
+    // Writes as much as the socket takes, then asks to be told when it can take more. Reading stops
+    // while too much is waiting, so a client that never reads cannot grow the server's memory.
+    private void Flush(Connection connection) throws IOException {
+        ByteBuffer out = connection.Out;
+        boolean drained;
+        do {
+            out.flip();
+            connection.Channel.write(out);
+            drained = !out.hasRemaining();
+            out.compact();
+            while (!connection.Overflow.isEmpty() && out.remaining() >= connection.Overflow.peek().remaining()) {
+                ByteBuffer frame = connection.Overflow.poll();
+                connection.OverflowBytes -= frame.remaining();
+                out.put(frame);
+            }
+        } while (drained && out.position() > 0);
+
+        int interest = connection.OverflowBytes > MAX_PENDING_RESPONSE_BYTES ? 0 : SelectionKey.OP_READ;
+        if (out.position() > 0) {
+            interest |= SelectionKey.OP_WRITE;
+        }
+        if (connection.Key.isValid() && connection.Key.interestOps() != interest) {
+            connection.Key.interestOps(interest);
+        }
+    }
+
+    private boolean IsBlocking(byte opcode) {
+        return switch (opcode) {
+            case BinaryProtocol.OP_LOGIN, BinaryProtocol.OP_CREATE_CUSTOMER, BinaryProtocol.OP_CREATE_BUSINESS -> true;
+            case BinaryProtocol.OP_DEPOSIT, BinaryProtocol.OP_WITHDRAW, BinaryProtocol.OP_TRANSFER, BinaryProtocol.OP_LOGOUT -> !inlineWrites;
+            default -> false;
+        };
+    }
+
+    // Writes one complete response frame for the request into response. Any failure, including a
+    // payload too short for its opcode, becomes an error frame for that request alone.
+    private void Execute(long correlationId, byte opcode, ByteBuffer payload, ByteBuffer response) {
+        int start = BinaryProtocol.BeginFrame(response, correlationId, BinaryProtocol.STATUS_OK);
+        try {
+            switch (opcode) {
+                case BinaryProtocol.OP_LOGIN -> {
+                    String username = BinaryProtocol.GetString(payload);
+                    String password = BinaryProtocol.GetString(payload);
+                    BinaryProtocol.PutToken(response, api.LoginUserForToken(username, password));
+                }
+                case BinaryProtocol.OP_BALANCE -> {
+                    AuthToken token = BinaryProtocol.GetToken(payload);
+                    BinaryProtocol.PutMoney(response, Money.Of(api.GetUserBalance(token)));
+                }
+                case BinaryProtocol.OP_DEPOSIT -> {
+                    AuthToken token = BinaryProtocol.GetToken(payload);
+                    BinaryProtocol.PutMoney(response, api.DepositToAccount(token, BinaryProtocol.GetAmount(payload)));
+                }
+                case BinaryProtocol.OP_WITHDRAW -> {
+                    AuthToken token = BinaryProtocol.GetToken(payload);
+                    BinaryProtocol.PutMoney(response, api.WithdrawFromAccount(token, BinaryProtocol.GetAmount(payload)));
+                }
+                case BinaryProtocol.OP_TRANSFER -> {
+                    AuthToken token = BinaryProtocol.GetToken(payload);
+                    UUID recipient = BinaryProtocol.GetUuid(payload);
+                    BinaryProtocol.PutMoney(response, api.TransferToAccount(token, recipient, BinaryProtocol.GetAmount(payload)));
+                }
+                case BinaryProtocol.OP_LOGOUT -> api.LogoutUser(BinaryProtocol.GetToken(payload));
+                case BinaryProtocol.OP_CREATE_CUSTOMER -> {
+                    String username = BinaryProtocol.GetString(payload);
+                    String password = BinaryProtocol.GetString(payload);
+                    String firstName = BinaryProtocol.GetString(payload);
+                    String lastName = BinaryProtocol.GetString(payload);
+                    validation.ValidateUsername(username);
+                    validation.ValidatePassword(password);
+                    validation.ValidateName(firstName, lastName);
+                    BinaryProtocol.PutUuid(response, api.CreateCustomerAccount(username, password, firstName, lastName).GetID());
+                }
+                case BinaryProtocol.OP_CREATE_BUSINESS -> {
+                    String businessName = BinaryProtocol.GetString(payload);
+                    String password = BinaryProtocol.GetString(payload);
+                    validation.ValidateBusinessName(businessName);
+                    validation.ValidatePassword(password);
+                    BinaryProtocol.PutUuid(response, api.CreateBusinessAccount(businessName, password).GetID());
+                }
+                default -> throw new IllegalArgumentException("Unknown opcode " + opcode);
+            }
+            BinaryProtocol.EndFrame(response, start);
+        } catch (Exception e) {
+            response.position(start);
+            int errorStart = BinaryProtocol.BeginFrame(response, correlationId, StatusFor(e));
+            BinaryProtocol.PutString(response, MessageFor(e));
+            BinaryProtocol.EndFrame(response, errorStart);
+        }
+    }
+
+    private static byte StatusFor(Exception e) {
+        return switch (e) {
+            case BufferUnderflowException ignored -> BinaryProtocol.STATUS_BAD_REQUEST;
+            case ValidationException ignored -> BinaryProtocol.STATUS_BAD_REQUEST;
+            case IllegalArgumentException ignored -> BinaryProtocol.STATUS_BAD_REQUEST;
+            case ArithmeticException ignored -> BinaryProtocol.STATUS_BAD_REQUEST;
+            case UnauthorisedException ignored -> BinaryProtocol.STATUS_UNAUTHORISED;
+            case AuthorisationException ignored -> BinaryProtocol.STATUS_UNAUTHORISED;
+            case UserNotFoundException ignored -> BinaryProtocol.STATUS_UNAUTHORISED;
+            case PasswordMismatchException ignored -> BinaryProtocol.STATUS_UNAUTHORISED;
+            case NoSuchElementException ignored -> BinaryProtocol.STATUS_NOT_FOUND;
+            case DuplicateUserException ignored -> BinaryProtocol.STATUS_CONFLICT;
+            case RateLimitedException ignored -> BinaryProtocol.STATUS_RATE_LIMITED;
+            case ServiceBusyException ignored -> BinaryProtocol.STATUS_BUSY;
+            default -> BinaryProtocol.STATUS_INTERNAL_ERROR;
+        };
+    }
+
+    // Login failures share one message so the response does not reveal which usernames exist.
+    private static String MessageFor(Exception e) {
+        String message = switch (e) {
+            case BufferUnderflowException ignored -> "Request payload too short";
+            case ValidationException validationException -> validationException.Message;
+            case UserNotFoundException ignored -> "Username or password is incorrect.";
+            case PasswordMismatchException ignored -> "Username or password is incorrect.";
+            default -> StatusFor(e) == BinaryProtocol.STATUS_INTERNAL_ERROR ? "Internal server error" : e.getMessage();
+        };
+        if (message == null) {
+            return "";
+        }
+        // Keeps an error frame within the response buffer whatever the exception said.
+        return message.length() > 256 ? message.substring(0, 256) : message;
+    }
+
+    private static final class Connection {
+        private final SocketChannel Channel;
+        private final ByteBuffer In = ByteBuffer.allocateDirect(BinaryProtocol.LENGTH_BYTES + BinaryProtocol.MAX_FRAME_BYTES);
+        private final ByteBuffer Out = ByteBuffer.allocateDirect(64 * 1024);
+        // Responses that did not fit in Out, in order.
+        private final ArrayDeque<ByteBuffer> Overflow = new ArrayDeque<>();
+        private int OverflowBytes;
+        private SelectionKey Key;
+
+        private Connection(SocketChannel channel) {
+            Channel = channel;
+        }
+
+        // Only called on the selector thread.
+        private void Queue(ByteBuffer frame) {
+            if (Overflow.isEmpty() && Out.remaining() >= frame.remaining()) {
+                Out.put(frame);
+                return;
+            }
+            ByteBuffer copy = ByteBuffer.allocate(frame.remaining()).put(frame).flip();
+            Overflow.add(copy);
+            OverflowBytes += copy.remaining();
+        }
+
+        private void Close() {
+            if (Key != null) {
+                Key.cancel();
+            }
+            try {
+                Channel.close();
+            } catch (IOException ignored) {
+                // Nothing more to do for a connection that is going away.
+            }
+        }
+    }
+}
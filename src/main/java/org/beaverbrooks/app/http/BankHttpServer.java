@@ -0,0 +1,299 @@
+package org.beaverbrooks.app.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.beaverbrooks.api.IBankApi;
+import org.beaverbrooks.app.helper.Validation;
+import org.beaverbrooks.shared.AuthToken;
+import org.beaverbrooks.shared.Money;
+import org.beaverbrooks.shared.exceptions.AuthorisationException;
+import org.beaverbrooks.shared.exceptions.DuplicateUserException;
+import org.beaverbrooks.shared.exceptions.PasswordMismatchException;
+import org.beaverbrooks.shared.exceptions.RateLimitedException;
+import org.beaverbrooks.shared.exceptions.ServiceBusyException;
+import org.beaverbrooks.shared.exceptions.UnauthorisedException;
+import org.beaverbrooks.shared.exceptions.UserNotFoundException;
+import org.beaverbrooks.shared.exceptions.ValidationException;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Serves IBankApi as JSON over HTTP using the JDK's built-in server, with every request handled on
+// its own virtual thread so a request blocked on password hashing or the write-ahead log does not
+// hold up the others.
+//
+//   POST /accounts  {"username","password","firstName","lastName"} or {"businessName","password"}
+//   POST /login     {"username","password"}  -> {"userId","token","expiresAt"}
+//   GET  /balance                             -> {"balance"}
+//   POST /deposit   {"amount"}                -> {"balance"}
+//   POST /withdraw  {"amount"}                -> {"balance"}
+//   POST /logout
+//
+// Everything but /accounts and /login takes the login token as "Authorization: Bearer <token>".
+// The token is the signed AuthToken written out field by field, so the API needs to be running
+// with signed tokens; a plain session token would let anyone who knows a user id act as that user.
+public class BankHttpServer implements AutoCloseable {
+
+    public static final int MAX_BODY_CHARS = 4096;
+
+    private static final int BACKLOG = 1024;
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    // The JDK server leaves Nagle's algorithm on, so a response can sit behind the client's delayed
+    // ACK for tens of milliseconds. The setting is read once, when the first server is created, and
+    // an explicit -D on the command line still wins.
+    static {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    @FunctionalInterface
+    private interface Endpoint {
+        // Writes the response body and returns the status code.
+        int Handle(HttpExchange exchange, JsonWriter response) throws Exception;
+    }
+
+    private final IBankApi api;
+    private final Validation validation;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public BankHttpServer(IBankApi api, Validation validation, InetSocketAddress address) throws IOException {
+        this.api = api;
+        this.validation = validation;
+        server = HttpServer.create(address, BACKLOG);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        Route("/accounts", "POST", this::CreateAccount);
+        Route("/login", "POST", this::Login);
+        Route("/balance", "GET", this::Balance);
+        Route("/deposit", "POST", (exchange, response) -> WriteBalance(response, api.DepositToAccount(Authenticate(exchange), ReadAmount(exchange))));
+        Route("/withdraw", "POST", (exchange, response) -> WriteBalance(response, api.WithdrawFromAccount(Authenticate(exchange), ReadAmount(exchange))));
+        Route("/logout", "POST", this::Logout);
+    }
+
+    public void Start() {
+        server.start();
+    }
+
+    // The bound port, for when the server was given port 0.
+    public int GetPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    public static String EncodeToken(AuthToken token) {
+        if (!token.IsSigned()) {
+            throw new IllegalStateException("The HTTP front end needs signed tokens");
+        }
+        return token.UserId() + "." + token.IssuedAt() + "." + token.ExpiresAt() + "." + token.Signature();
+    }
+
+    // Only rebuilds the token; whether it is genuine is for the auth service to decide.
+    public static AuthToken DecodeToken(String encoded) throws UnauthorisedException {
+        String[] parts = encoded.split("\\.", -1);
+        if (parts.length != 4 || parts[3].isEmpty()) {
+            throw new UnauthorisedException("Malformed token");
+        }
+        try {
+            return new AuthToken(UUID.fromString(parts[0]), true, Long.parseLong(parts[1]), Long.parseLong(parts[2]), parts[3]);
+        } catch (IllegalArgumentException e) {
+            throw new UnauthorisedException("Malformed token");
+        }
+    }
+
+    private void Route(String path, String method, Endpoint endpoint) {
+        server.createContext(path, exchange -> {
+            StringBuilder body = new StringBuilder(128);
+            int status;
+            try {
+                if (!exchange.getRequestURI().getPath().equals(path)) {
+                    status = WriteError(body, 404, "Not found");
+                } else if (!exchange.getRequestMethod().equals(method)) {
+                    exchange.getResponseHeaders().set("Allow", method);
+                    status = WriteError(body, 405, "Method not allowed");
+                } else {
+                    status = endpoint.Handle(exchange, new JsonWriter(body));
+                }
+            } catch (Exception e) {
+                body.setLength(0);
+                status = WriteError(body, StatusFor(e), MessageFor(e));
+            }
+            Send(exchange, status, body);
+        });
+    }
+
+    private int CreateAccount(HttpExchange exchange, JsonWriter response) throws Exception {
+        String username = null, password = null, firstName = null, lastName = null, businessName = null;
+        JsonReader request = OpenBody(exchange);
+        request.BeginObject();
+        while (request.HasNext()) {
+            switch (request.NextName()) {
+                case "username" -> username = request.NextString();
+                case "password" -> password = request.NextString();
+                case "firstName" -> firstName = request.NextString();
+                case "lastName" -> lastName = request.NextString();
+                case "businessName" -> businessName = request.NextString();
+                default -> request.SkipValue();
+            }
+        }
+        request.EndObject();
+        request.EndDocument();
+
+        UUID id;
+        if (businessName != null) {
+            validation.ValidateBusinessName(businessName);
+            validation.ValidatePassword(Require("password", password));
+            id = api.CreateBusinessAccount(businessName, password).GetID();
+        } else {
+            validation.ValidateUsername(Require("username", username));
+            validation.ValidatePassword(Require("password", password));
+            validation.ValidateName(Require("firstName", firstName), Require("lastName", lastName));
+            id = api.CreateCustomerAccount(username, password, firstName, lastName).GetID();
+        }
+        response.BeginObject().Name("userId").Value(id.toString()).EndObject();
+        return 201;
+    }
+
+    private int Login(HttpExchange exchange, JsonWriter response) throws Exception {
+        String username = null, password = null;
+        JsonReader request = OpenBody(exchange);
+        request.BeginObject();
+        while (request.HasNext()) {
+            switch (request.NextName()) {
+                case "username" -> username = request.NextString();
+                case "password" -> password = request.NextString();
+                default -> request.SkipValue();
+            }
+        }
+        request.EndObject();
+        request.EndDocument();
+
+        AuthToken token = api.LoginUserForToken(Require("username", username), Require("password", password));
+        response.BeginObject()
+                .Name("userId").Value(token.UserId().toString())
+                .Name("token").Value(EncodeToken(token))
+                .Name("expiresAt").Value(token.ExpiresAt())
+                .EndObject();
+        return 200;
+    }
+
+    private int Balance(HttpExchange exchange, JsonWriter response) {
+        BigDecimal balance = api.GetUserBalance(Authenticate(exchange));
+        response.BeginObject().Name("balance").NumberValue(balance.toPlainString()).EndObject();
+        return 200;
+    }
+
+    private int Logout(HttpExchange exchange, JsonWriter response) {
+        api.LogoutUser(Authenticate(exchange));
+        return 204;
+    }
+
+    private static int WriteBalance(JsonWriter response, Money balance) {
+        response.BeginObject().Name("balance").NumberValue(balance.toString()).EndObject();
+        return 200;
+    }
+
+    private static AuthToken Authenticate(HttpExchange exchange) throws UnauthorisedException {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith(BEARER_PREFIX)) {
+            throw new UnauthorisedException("Missing bearer token");
+        }
+        return DecodeToken(header.substring(BEARER_PREFIX.length()).trim());
+    }
+
+    private static Money ReadAmount(HttpExchange exchange) throws IOException {
+        BigDecimal amount = null;
+        JsonReader request = OpenBody(exchange);
+        request.BeginObject();
+        while (request.HasNext()) {
+            if (request.NextName().equals("amount")) {
+                amount = request.NextDecimal();
+            } else {
+                request.SkipValue();
+            }
+        }
+        request.EndObject();
+        request.EndDocument();
+        try {
+            return Money.RequireValidAmount(Money.Of(Require("amount", amount), Money.DEFAULT_SCALE, RoundingMode.UNNECESSARY));
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amounts may have at most " + Money.DEFAULT_SCALE + " decimal places");
+        }
+    }
+
+    private static JsonReader OpenBody(HttpExchange exchange) {
+        return new JsonReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8), MAX_BODY_CHARS);
+    }
+
+    private static <T> T Require(String field, T value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Missing field: " + field);
+        }
+        return value;
+    }
+
+    private static int WriteError(StringBuilder body, int status, String message) {
+        new JsonWriter(body).BeginObject().Name("error").Value(message).EndObject();
+        return status;
+    }
+
+    private static int StatusFor(Exception e) {
+        return switch (e) {
+            case JsonReader.JsonException ignored -> 400;
+            case ValidationException ignored -> 400;
+            case IllegalArgumentException ignored -> 400;
+            case ArithmeticException ignored -> 400;
+            case UnauthorisedException ignored -> 401;
+            case AuthorisationException ignored -> 401;
+            case UserNotFoundException ignored -> 401;
+            case PasswordMismatchException ignored -> 401;
+            case NoSuchElementException ignored -> 404;
+            case DuplicateUserException ignored -> 409;
+            case RateLimitedException ignored -> 429;
+            case ServiceBusyException ignored -> 503;
+            default -> 500;
+        };
+    }
+
+    // Login failures share one message so the response does not reveal which usernames exist, and
+    // unexpected failures are not described to the client at all.
+    private static String MessageFor(Exception e) {
+        return switch (e) {
+            case ValidationException validationException -> validationException.Message;
+            case UserNotFoundException ignored -> "Username or password is incorrect.";
+            case PasswordMismatchException ignored -> "Username or password is incorrect.";
+            default -> StatusFor(e) == 500 ? "Internal server error" : e.getMessage();
+        };
+    }
+
+    private static void Send(HttpExchange exchange, int status, StringBuilder body) throws IOException {
+        try (exchange) {
+            if (body.isEmpty()) {
+                exchange.sendResponseHeaders(status, -1);
+                return;
+            }
+            byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package org.beaverbrooks.app.http;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+
+// Pull parser for the request bodies the HTTP front end accepts. It reads straight off the request
+// stream one token at a time, so nothing is buffered beyond the current string, and it stops with a
+// JsonException once the body passes maxChars instead of reading whatever a client sends.
+//
+// Numbers are handed back as BigDecimal from their exact text, never through a double, so an amount
+// of 0.10 arrives as 0.10.
+public class JsonReader {
+
+    public static class JsonException extends RuntimeException {
+        public JsonException(String message) {
+            super(message);
+        }
+    }
+
+    private static final int MAX_DEPTH = 32;
+
+    private final Reader reader;
+    private final int maxChars;
+    private final boolean[] firstInScope = new boolean[MAX_DEPTH];
+    private int depth;
+    private int charsRead;
+    private int peeked = -2;
+    private boolean expectingValue;
+
+    public JsonReader(Reader reader, int maxChars) {
+        this.reader = reader;
+        this.maxChars = maxChars;
+    }
+
+    public void BeginObject() throws IOException {
+        Expect('{');
+        if (depth == MAX_DEPTH) {
+            throw new JsonException("JSON nested too deeply");
+        }
+        firstInScope[depth++] = true;
+        expectingValue = false;
+    }
+
+    public void EndObject() throws IOException {
+        Expect('}');
+        depth--;
+    }
+
+    // True while the current object has another member to read.
+    public boolean HasNext() throws IOException {
+        int c = PeekSignificant();
+        if (c == '}' || c == ']') {
+            return false;
+        }
+        if (!firstInScope[depth - 1]) {
+            Expect(',');
+        }
+        firstInScope[depth - 1] = false;
+        return true;
+    }
+
+    public String NextName() throws IOException {
+        String name = ReadString();
+        Expect(':');
+        expectingValue = true;
+        return name;
+    }
+
+    public String NextString() throws IOException {
+        CheckValuePosition();
+        return ReadString();
+    }
+
+    // Accepts a JSON number or a string holding one, since clients often quote amounts.
+    public BigDecimal NextDecimal() throws IOException {
+        CheckValuePosition();
+        String text = PeekSignificant() == '"' ? ReadString() : ReadLiteral();
+        try {
+            return new BigDecimal(text);
+        } catch (NumberFormatException e) {
+            throw new JsonException("Expected a number but found " + text);
+        }
+    }
+
+    public void SkipValue() throws IOException {
+        CheckValuePosition();
+        int c = PeekSignificant();
+        if (c == '"') {
+            ReadString();
+        } else if (c == '{' || c == '[') {
+            int nesting = 0;
+            do {
+                c = Read();
+                if (c == '"') {
+                    peeked = c;
+                    ReadString();
+                } else if (c == '{' || c == '[') {
+                    nesting++;
+                } else if (c == '}' || c == ']') {
+                    nesting--;
+                }
+            } while (nesting > 0);
+        } else {
+            ReadLiteral();
+        }
+    }
+
+    // Rejects trailing content after the top-level value.
+    public void EndDocument() throws IOException {
+        if (PeekSignificant() != -1) {
+            throw new JsonException("Unexpected content after the JSON document");
+        }
+    }
+
+    private void CheckValuePosition() {
+        if (!expectingValue) {
+            throw new JsonException("Expected a member name");
+        }
+        expectingValue = false;
+    }
+
+    private String ReadString() throws IOException {
+        Expect('"');
+        StringBuilder text = new StringBuilder();
+        while (true) {
+            int c = Read();
+            if (c == '"') {
+                return text.toString();
+            }
+            if (c < 0x20) {
+                throw new JsonException("Unterminated or malformed string");
+            }
+            if (c != '\\') {
+                text.append((char) c);
+                continue;
+            }
+            int escape = Read();
+            switch (escape) {
+                case '"', '\\', '/' -> text.append((char) escape);
+                case 'b' -> text.append('\b');
+                case 'f' -> text.append('\f');
+                case 'n' -> text.append('\n');
+                case 'r' -> text.append('\r');
+                case 't' -> text.append('\t');
+                case 'u' -> {
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(Read(), 16);
+                        if (digit < 0) {
+                            throw new JsonException("Malformed unicode escape");
+                        }
+                        code = (code << 4) | digit;
+                    }
+                    text.append((char) code);
+                }
+                default -> throw new JsonException("Unknown escape \\" + (char) escape);
+            }
+        }
+    }
+
+    // Numbers, true, false and null: everything up to the next delimiter.
+    private String ReadLiteral() throws IOException {
+        StringBuilder text = new StringBuilder();
+        int c = PeekSignificant();
+        while (c != -1 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+            text.append((char) Read());
+            c = Peek();
+        }
+        if (text.isEmpty()) {
+            throw new JsonException("Expected a value");
+        }
+        return text.toString();
+    }
+
+    private void Expect(char expected) throws IOException {
+        int c = PeekSignificant();
+        if (c != expected) {
+            throw new JsonException("Expected '" + expected + "' but found " + (c == -1 ? "end of input" : "'" + (char) c + "'"));
+        }
+        Read();
+    }
+
+    private int PeekSignificant() throws IOException {
+        int c = Peek();
+        while (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+            Read();
+            c = Peek();
+        }
+        return c;
+    }
+
+    private int Peek() throws IOException {
+        if (peeked == -2) {
+            peeked = ReadRaw();
+        }
+        return peeked;
+    }
+
+    private int Read() throws IOException {
+        int c = Peek();
+        peeked = -2;
+        if (c == -1) {
+            throw new JsonException("Unexpected end of input");
+        }
+        return c;
+    }
+
+    private int ReadRaw() throws IOException {
+        int c = reader.read();
+        if (c != -1 && ++charsRead > maxChars) {
+            throw new JsonException("Request body too large");
+        }
+        return c;
+    }
+}
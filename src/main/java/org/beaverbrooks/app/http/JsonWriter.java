@@ -0,0 +1,107 @@
+package org.beaverbrooks.app.http;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+// Writes JSON straight into any Appendable, tracking only whether the current object still needs a
+// comma. The HTTP front end writes into a StringBuilder it reuses for the whole response.
+public class JsonWriter {
+
+    private static final int MAX_DEPTH = 32;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Appendable out;
+    private final boolean[] firstInScope = new boolean[MAX_DEPTH];
+    private int depth;
+
+    public JsonWriter(Appendable out) {
+        this.out = out;
+    }
+
+    public JsonWriter BeginObject() {
+        Append('{');
+        firstInScope[depth++] = true;
+        return this;
+    }
+
+    public JsonWriter EndObject() {
+        depth--;
+        Append('}');
+        return this;
+    }
+
+    public JsonWriter Name(String name) {
+        if (!firstInScope[depth - 1]) {
+            Append(',');
+        }
+        firstInScope[depth - 1] = false;
+        WriteString(name);
+        Append(':');
+        return this;
+    }
+
+    public JsonWriter Value(String value) {
+        if (value == null) {
+            Append("null");
+        } else {
+            WriteString(value);
+        }
+        return this;
+    }
+
+    public JsonWriter Value(long value) {
+        Append(Long.toString(value));
+        return this;
+    }
+
+    public JsonWriter Value(boolean value) {
+        Append(value ? "true" : "false");
+        return this;
+    }
+
+    // For numbers whose exact text matters, such as amounts, which must not pass through a double.
+    public JsonWriter NumberValue(String plainNumber) {
+        Append(plainNumber);
+        return this;
+    }
+
+    private void WriteString(String value) {
+        Append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> Append("\\\"");
+                case '\\' -> Append("\\\\");
+                case '\n' -> Append("\\n");
+                case '\r' -> Append("\\r");
+                case '\t' -> Append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        Append("\\u00");
+                        Append(HEX[c >> 4]);
+                        Append(HEX[c & 0xF]);
+                    } else {
+                        Append(c);
+                    }
+                }
+            }
+        }
+        Append('"');
+    }
+
+    private void Append(char c) {
+        try {
+            out.append(c);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void Append(String text) {
+        try {
+            out.append(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package org.beaverbrooks.domain.account;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+// Transaction history for one account, stored column-wise in chunks of primitive arrays so an
+// entry costs 49 bytes and no objects. Amounts and balances are signed minor units (cents).
+//
+// Only the most recent RetainedEntries are kept: the ledger is a ring, and an entry pushed out is
+// handed to the eviction visitor, if one was given, so it can be archived elsewhere. Each entry
+// stores the balance after it, so the current balance and any retained historical balance are
+// read directly rather than summed. A ledger can start from an opening balance, which is how a
+// restored account carries its balance over without inventing a deposit for it.
+//
+// Appends never lock. An append claims its index, timestamp and resulting balance in one CAS on
+// the tail, writes its slot, then publishes it. Readers see entries up to the first one still
+// being written, and validate each slot against its sequence so an entry overwritten mid-read is
+// treated as evicted rather than returned torn.
+public class AccountLedger {
+
+    public static final int DEFAULT_RETAINED_ENTRIES = 1 << 14;
+
+    private static final int FIRST_CHUNK_SHIFT = 3;
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    // Chunks double from 8 entries up to CHUNK_SIZE, so the many accounts with only a handful of
+    // transactions stay cheap; this many positions are covered before chunks reach full size.
+    private static final int GROWING_POSITIONS = CHUNK_SIZE * 2 - (1 << FIRST_CHUNK_SHIFT);
+    private static final LedgerEntryType[] TYPES = LedgerEntryType.values();
+    private static final VarHandle SEQUENCES = MethodHandles.arrayElementVarHandle(long[].class);
+
+    @FunctionalInterface
+    public interface EntryVisitor {
+        void Visit(long index, long timestampMillis, LedgerEntryType type, long amountMinor,
+                   long counterpartyHigh, long counterpartyLow);
+    }
+
+    private final LongSupplier clock;
+    private final long openingBalance;
+    private final int capacity;
+    private final int mask;
+    private final EntryVisitor evicted;
+    private final AtomicReferenceArray<Chunk> chunks;
+    private final AtomicReference<Tail> tail;
+    private final AtomicLong published = new AtomicLong();
+
+    public AccountLedger() {
+        this(System::currentTimeMillis);
+    }
+
+    public AccountLedger(LongSupplier clock) {
+        this(clock, 0L, DEFAULT_RETAINED_ENTRIES, null);
+    }
+
+    public AccountLedger(long openingBalanceMinor) {
+        this(System::currentTimeMillis, openingBalanceMinor, DEFAULT_RETAINED_ENTRIES, null);
+    }
+
+    // retainedEntries is rounded up to a power of two. evicted may be null to drop old entries.
+    public AccountLedger(LongSupplier clock, long openingBalanceMinor, int retainedEntries, EntryVisitor evicted) {
+        if (retainedEntries < 1) {
+            throw new IllegalArgumentException("A ledger must retain at least one entry");
+        }
+        this.clock = clock;
+        this.openingBalance = openingBalanceMinor;
+        this.capacity = Math.max(1, Integer.highestOneBit(retainedEntries - 1) << 1);
+        this.mask = capacity - 1;
+        this.evicted = evicted;
+        this.chunks = new AtomicReferenceArray<>(ChunkIndex(capacity - 1) + 1);
+        this.tail = new AtomicReference<>(new Tail(0L, Long.MIN_VALUE, openingBalanceMinor));
+    }
+
+    // Withdrawals and outgoing transfers are stored as negative amounts; amountMinor itself must
+    // be positive. Returns the entry's index.
+    public long Append(LedgerEntryType type, long amountMinor, UUID counterparty) {
+        if (amountMinor <= 0) {
+            throw new IllegalArgumentException("Ledger amounts must be positive but was " + amountMinor);
+        }
+        long signed = switch (type) {
+            case Deposit, TransferIn -> amountMinor;
+            case Withdrawal, TransferOut -> -amountMinor;
+        };
+
+        Tail claimed;
+        while (true) {
+            Tail current = tail.get();
+            // The slot this index reuses must have been published before it can be overwritten.
+            if (current.Next - published.get() >= capacity) {
+                Thread.yield();
+                continue;
+            }
+            claimed = new Tail(current.Next + 1, Math.max(clock.getAsLong(), current.Timestamp),
+                    Math.addExact(current.Balance, signed));
+            if (tail.compareAndSet(current, claimed)) {
+                break;
+            }
+        }
+
+        long index = claimed.Next - 1;
+        int position = (int) (index & mask);
+        Chunk chunk = ChunkAt(position);
+        int offset = Offset(position);
+        if (index >= capacity && evicted != null) {
+            VisitSlot(chunk, offset, index - capacity, evicted);
+        }
+        SEQUENCES.setOpaque(chunk.Sequences, offset, 0L);
+        VarHandle.storeStoreFence();
+        chunk.Amounts[offset] = signed;
+        chunk.Balances[offset] = claimed.Balance;
+        chunk.Timestamps[offset] = claimed.Timestamp;
+        chunk.Types[offset] = (byte) type.ordinal();
+        chunk.CounterpartyHigh[offset] = counterparty == null ? 0L : counterparty.getMostSignificantBits();
+        chunk.CounterpartyLow[offset] = counterparty == null ? 0L : counterparty.getLeastSignificantBits();
+        SEQUENCES.setRelease(chunk.Sequences, offset, index + 1);
+        Publish();
+        return index;
+    }
+
+    // Entries appended and published so far, including any no longer retained.
+    public long GetEntryCount() {
+        return published.get();
+    }
+
+    // Index of the oldest entry still retained.
+    public long GetFirstRetainedIndex() {
+        return Math.max(0L, published.get() - capacity);
+    }
+
+    public long GetOpeningBalanceMinor() {
+        return openingBalance;
+    }
+
+    public long GetBalanceMinor() {
+        while (true) {
+            long count = published.get();
+            if (count == 0) {
+                return openingBalance;
+            }
+            // Only fails if count - 1 was overwritten between the two reads; the next count is newer.
+            OptionalLong balance = ReadBalance(count - 1);
+            if (balance.isPresent()) {
+                return balance.getAsLong();
+            }
+        }
+    }
+
+    // Balance after the first count entries. Throws if entry count - 1 is no longer retained.
+    public long BalanceAfter(long count) {
+        long entries = published.get();
+        if (count < 0 || count > entries) {
+            throw new IndexOutOfBoundsException("Ledger has " + entries + " entries, asked for " + count);
+        }
+        if (count == 0) {
+            return openingBalance;
+        }
+        return ReadBalance(count - 1).orElseThrow(
+                () -> new IndexOutOfBoundsException("Entry " + (count - 1) + " is no longer retained"));
+    }
+
+    // Index of the first retained entry stamped at or after timestampMillis, or the entry count if
+    // none is.
+    public long FirstIndexAtOrAfter(long timestampMillis) {
+        while (true) {
+            long high = published.get();
+            long low = Math.max(0L, high - capacity);
+            boolean evictedDuringSearch = false;
+            while (low < high) {
+                long mid = (low + high) >>> 1;
+                long timestamp = ReadTimestamp(mid);
+                if (timestamp == Long.MIN_VALUE) {
+                    evictedDuringSearch = true;
+                    break;
+                }
+                if (timestamp < timestampMillis) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            if (!evictedDuringSearch) {
+                return low;
+            }
+        }
+    }
+
+    // Visits the retained entries in [fromIndex, toIndex), skipping any evicted while scanning.
+    public void Scan(long fromIndex, long toIndex, EntryVisitor visitor) {
+        long end = Math.min(toIndex, published.get());
+        for (long i = Math.max(fromIndex, GetFirstRetainedIndex()); i < end; i++) {
+            int position = (int) (i & mask);
+            VisitSlot(chunks.get(ChunkIndex(position)), Offset(position), i, visitor);
+        }
+    }
+
+    // Visits entries stamped in [fromMillis, toMillis).
+    public void ScanTimeRange(long fromMillis, long toMillis, EntryVisitor visitor) {
+        Scan(FirstIndexAtOrAfter(fromMillis), FirstIndexAtOrAfter(toMillis), visitor);
+    }
+
+    // Moves the published count past every contiguous written entry. Whichever appender finishes
+    // last carries the count past the others, so no appender waits for another.
+    private void Publish() {
+        while (true) {
+            long count = published.get();
+            int position = (int) (count & mask);
+            Chunk chunk = chunks.get(ChunkIndex(position));
+            if (chunk == null || (long) SEQUENCES.getAcquire(chunk.Sequences, Offset(position)) != count + 1) {
+                return;
+            }
+            published.compareAndSet(count, count + 1);
+        }
+    }
+
+    // Reads entry index under its sequence, visiting it only if it was not overwritten meanwhile.
+    private static void VisitSlot(Chunk chunk, int offset, long index, EntryVisitor visitor) {
+        long sequence = (long) SEQUENCES.getAcquire(chunk.Sequences, offset);
+        long timestamp = chunk.Timestamps[offset];
+        byte type = chunk.Types[offset];
+        long amount = chunk.Amounts[offset];
+        long high = chunk.CounterpartyHigh[offset];
+        long low = chunk.CounterpartyLow[offset];
+        VarHandle.loadLoadFence();
+        if (sequence == index + 1 && (long) SEQUENCES.getOpaque(chunk.Sequences, offset) == sequence) {
+            visitor.Visit(index, timestamp, TYPES[type], amount, high, low);
+        }
+    }
+
+    // The balance after entry index, or empty if that entry is no longer retained.
+    private OptionalLong ReadBalance(long index) {
+        int position = (int) (index & mask);
+        Chunk chunk = chunks.get(ChunkIndex(position));
+        int offset = Offset(position);
+        long sequence = (long) SEQUENCES.getAcquire(chunk.Sequences, offset);
+        long balance = chunk.Balances[offset];
+        VarHandle.loadLoadFence();
+        boolean valid = sequence == index + 1 && (long) SEQUENCES.getOpaque(chunk.Sequences, offset) == sequence;
+        return valid ? OptionalLong.of(balance) : OptionalLong.empty();
+    }
+
+    // The timestamp of entry index, or Long.MIN_VALUE if that entry is no longer retained.
+    private long ReadTimestamp(long index) {
+        int position = (int) (index & mask);
+        Chunk chunk = chunks.get(ChunkIndex(position));
+        int offset = Offset(position);
+        long sequence = (long) SEQUENCES.getAcquire(chunk.Sequences, offset);
+        long timestamp = chunk.Timestamps[offset];
+        VarHandle.loadLoadFence();
+        boolean valid = sequence == index + 1 && (long) SEQUENCES.getOpaque(chunk.Sequences, offset) == sequence;
+        return valid ? timestamp : Long.MIN_VALUE;
+    }
+
+    // Chunks are allocated on first use; appenders racing to create one keep whichever got in first.
+    private Chunk ChunkAt(int position) {
+        int chunkIndex = ChunkIndex(position);
+        Chunk chunk = chunks.get(chunkIndex);
+        if (chunk != null) {
+            return chunk;
+        }
+        int start = ChunkStart(chunkIndex);
+        int size = Math.min(ChunkSizeAt(chunkIndex), capacity - start);
+        chunks.compareAndSet(chunkIndex, null, new Chunk(size));
+        return chunks.get(chunkIndex);
+    }
+
+    private static int ChunkIndex(int position) {
+        if (position < GROWING_POSITIONS) {
+            return 31 - Integer.numberOfLeadingZeros((position >>> FIRST_CHUNK_SHIFT) + 1);
+        }
+        return CHUNK_SHIFT - FIRST_CHUNK_SHIFT + 1 + ((position - GROWING_POSITIONS) >>> CHUNK_SHIFT);
+    }
+
+    private static int ChunkStart(int chunkIndex) {
+        int growing = CHUNK_SHIFT - FIRST_CHUNK_SHIFT + 1;
+        if (chunkIndex < growing) {
+            return ((1 << chunkIndex) - 1) << FIRST_CHUNK_SHIFT;
+        }
+        return GROWING_POSITIONS + ((chunkIndex - growing) << CHUNK_SHIFT);
+    }
+
+    private static int ChunkSizeAt(int chunkIndex) {
+        return chunkIndex < CHUNK_SHIFT - FIRST_CHUNK_SHIFT ? 1 << (FIRST_CHUNK_SHIFT + chunkIndex) : CHUNK_SIZE;
+    }
+
+    private static int Offset(int position) {
+        return position - ChunkStart(ChunkIndex(position));
+    }
+
+    // Index of the next entry, with the timestamp and balance that entry ends on.
+    private record Tail(long Next, long Timestamp, long Balance) {
+    }
+
+    private static final class Chunk {
+        private final long[] Sequences;
+        private final long[] Amounts;
+        private final long[] Balances;
+        private final long[] Timestamps;
+        private final byte[] Types;
+        private final long[] CounterpartyHigh;
+        private final long[] CounterpartyLow;
+
+        private Chunk(int capacity) {
+            Sequences = new long[capacity];
+            Amounts = new long[capacity];
+            Balances = new long[capacity];
+            Timestamps = new long[capacity];
+            Types = new byte[capacity];
+            CounterpartyHigh = new long[capacity];
+            CounterpartyLow = new long[capacity];
+        }
+    }
+}
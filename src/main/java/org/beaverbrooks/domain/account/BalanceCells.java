@@ -0,0 +1,118 @@
+package org.beaverbrooks.domain.account;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+
+// Per-core deposit cells for a contended account, in the style of LongAdder: concurrent deposits
+// land in different cells instead of fighting over one balance field. The account's true balance
+// is its base plus the sum of all cells.
+final class BalanceCells {
+
+    private static final int MAX_CELLS = 64;
+    private static final VarHandle VALUE;
+    private static final VarHandle ADDS;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            VALUE = lookup.findVarHandle(CellValue.class, "Value", BigDecimal.class);
+            ADDS = lookup.findVarHandle(CellValue.class, "Adds", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Cell[] cells;
+    private final int mask;
+    private volatile boolean retired;
+    private long addsAtMark;
+
+    BalanceCells() {
+        int size = 1;
+        while (size < Math.min(Runtime.getRuntime().availableProcessors(), MAX_CELLS)) {
+            size <<= 1;
+        }
+        cells = new Cell[size];
+        for (int i = 0; i < size; i++) {
+            cells[i] = new Cell();
+        }
+        mask = size - 1;
+    }
+
+    void Add(BigDecimal amount) {
+        long probe = Thread.currentThread().threadId();
+        while (true) {
+            Cell cell = cells[Mix(probe) & mask];
+            BigDecimal current = cell.Value;
+            if (VALUE.compareAndSet(cell, current, current.add(amount))) {
+                ADDS.getAndAdd(cell, 1L);
+                return;
+            }
+            // Another thread hashed to the same cell; move this call to a different one.
+            probe += 0x9e3779b97f4a7c15L;
+        }
+    }
+
+    BigDecimal Sum(BigDecimal base) {
+        BigDecimal sum = base;
+        for (Cell cell : cells) {
+            sum = sum.add(cell.Value);
+        }
+        return sum;
+    }
+
+    // Empties every cell and returns what was in them. A deposit racing the drain either lands
+    // before its cell is swapped and is returned here, or after and stays in the cell.
+    BigDecimal Drain() {
+        BigDecimal drained = BigDecimal.ZERO;
+        for (Cell cell : cells) {
+            drained = drained.add((BigDecimal) VALUE.getAndSet(cell, BigDecimal.ZERO));
+        }
+        return drained;
+    }
+
+    // Deposits taken since the previous call. The per-cell counts sit beside the values, so
+    // counting adds no shared write to the deposit path. Called by one thread at a time.
+    long TakeAddsSinceMark() {
+        long adds = 0;
+        for (Cell cell : cells) {
+            adds += (long) ADDS.getVolatile(cell);
+        }
+        long since = adds - addsAtMark;
+        addsAtMark = adds;
+        return since;
+    }
+
+    // Marks the cells as no longer the account's. Set before the final drain, so a deposit whose
+    // add lands after that drain is guaranteed to see it.
+    void Retire() {
+        retired = true;
+    }
+
+    boolean IsRetired() {
+        return retired;
+    }
+
+    private static int Mix(long probe) {
+        long z = probe * 0xbf58476d1ce4e5b9L;
+        z ^= z >>> 31;
+        return (int) z;
+    }
+
+    // Padding on both sides keeps each cell's value on its own cache line.
+    @SuppressWarnings("unused")
+    private static class CellPadding {
+        long p0, p1, p2, p3, p4, p5, p6, p7;
+    }
+
+    private static class CellValue extends CellPadding {
+        volatile BigDecimal Value = BigDecimal.ZERO;
+        volatile long Adds;
+    }
+
+    @SuppressWarnings("unused")
+    private static final class Cell extends CellValue {
+        long q0, q1, q2, q3, q4, q5, q6, q7;
+    }
+}
@@ -1,30 +1,228 @@
 package org.beaverbrooks.domain.account;
 
+import org.beaverbrooks.shared.Money;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.UUID;
+import java.util.function.LongSupplier;
 
 public class CustomerAccount implements  IAccount
 {
 
-    private BigDecimal AccountBalance;
+    private static final VarHandle BALANCE;
+    private static final VarHandle WINDOW_START;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            BALANCE = lookup.findVarHandle(CustomerAccount.class, "AccountBalance", BigDecimal.class);
+            WINDOW_START = lookup.findVarHandle(CustomerAccount.class, "WindowStart", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // Failed balance CASes within one window that switch deposits to per-core cells. In
+    // contended mode, a window with fewer deposits than this switches them back.
+    public static final int DEFAULT_CONTENTION_THRESHOLD = 256;
+    public static final long DEFAULT_CONTENTION_WINDOW_NANOS = 100_000_000L;
+
+    private volatile BigDecimal AccountBalance;
+    private volatile BalanceCells Cells;
+    private final AccountLedger Ledger;
+    private final int ContentionThreshold;
+    private final long ContentionWindowNanos;
+    private final LongSupplier Clock;
+    private volatile long WindowStart;
+    private int ContentionCount;
 
     public CustomerAccount(){
+        this(DEFAULT_CONTENTION_THRESHOLD);
+    }
+
+    public CustomerAccount(int contentionThreshold){
+        this(contentionThreshold, DEFAULT_CONTENTION_WINDOW_NANOS, System::nanoTime);
+    }
+
+    public CustomerAccount(int contentionThreshold, long contentionWindowNanos, LongSupplier nanoClock){
         AccountBalance = BigDecimal.valueOf(0.00d);
+        Ledger = new AccountLedger();
+        ContentionThreshold = contentionThreshold;
+        ContentionWindowNanos = contentionWindowNanos;
+        Clock = nanoClock;
+        WindowStart = nanoClock.getAsLong();
+    }
+
+    // An account restored from a log or snapshot. The balance is carried over as the ledger's
+    // opening balance rather than recorded as a deposit that never happened.
+    public CustomerAccount(BigDecimal openingBalance){
+        AccountBalance = openingBalance;
+        Ledger = new AccountLedger(ExactMinor(openingBalance));
+        ContentionThreshold = DEFAULT_CONTENTION_THRESHOLD;
+        ContentionWindowNanos = DEFAULT_CONTENTION_WINDOW_NANOS;
+        Clock = System::nanoTime;
+        WindowStart = Clock.getAsLong();
     }
 
     @Override
     public BigDecimal AddToAccount(BigDecimal amount) {
-        this.AccountBalance = AccountBalance.add(amount);
-        return GetAccountBalance();
+        return Credit(amount, LedgerEntryType.Deposit, null);
     }
 
     @Override
     public BigDecimal SubtractFromAccount(BigDecimal amount) {
-        this.AccountBalance = AccountBalance.subtract(amount);
-        return GetAccountBalance();
+        return Debit(amount, LedgerEntryType.Withdrawal, null);
+    }
+
+    @Override
+    public BigDecimal TransferOut(BigDecimal amount, UUID counterparty) {
+        return Debit(amount, LedgerEntryType.TransferOut, counterparty);
+    }
+
+    @Override
+    public BigDecimal TransferIn(BigDecimal amount, UUID counterparty) {
+        return Credit(amount, LedgerEntryType.TransferIn, counterparty);
     }
 
     @Override
     public BigDecimal GetAccountBalance() {
-        return AccountBalance;
+        BalanceCells cells = Cells;
+        BigDecimal base = AccountBalance;
+        return cells == null ? base : cells.Sum(base);
+    }
+
+    // Recent deposits, withdrawals and transfers in the order the ledger accepted them, in cents.
+    public AccountLedger GetLedger() {
+        return Ledger;
+    }
+
+    public boolean IsContendedMode() {
+        return Cells != null;
+    }
+
+    // Hot accounts switch on their own once contention passes the threshold; this lets a caller
+    // who already knows an account will be hot, such as a large merchant, skip the warm-up. The
+    // account still switches back after a quiet window.
+    public synchronized void EnableContendedMode() {
+        if (Cells == null) {
+            Cells = new BalanceCells();
+            WindowStart = Clock.getAsLong();
+        }
+    }
+
+    // Retires the cells before folding them into the base. A deposit that already picked up the
+    // retired cells sees the flag after its own add and folds the cells again, so nothing is left
+    // stranded in them.
+    private synchronized void DisableContendedMode(BalanceCells cells) {
+        if (Cells != cells) {
+            return;
+        }
+        cells.Retire();
+        Cells = null;
+        ContentionCount = 0;
+        Apply(cells.Drain());
+    }
+
+    @Override
+    public Money AddToAccount(Money amount) {
+        return Money.Of(AddToAccount(amount.ToBigDecimal()));
+    }
+
+    @Override
+    public Money SubtractFromAccount(Money amount) {
+        return Money.Of(SubtractFromAccount(amount.ToBigDecimal()));
+    }
+
+    @Override
+    public Money GetMoneyBalance() {
+        return Money.Of(GetAccountBalance());
+    }
+
+    private BigDecimal Credit(BigDecimal amount, LedgerEntryType type, UUID counterparty) {
+        Ledger.Append(type, ToLedgerMinor(amount), counterparty);
+        BalanceCells cells = Cells;
+        if (cells == null) {
+            return Apply(amount);
+        }
+        cells.Add(amount);
+        if (cells.IsRetired()) {
+            Apply(cells.Drain());
+            return GetAccountBalance();
+        }
+        RelaxIfQuiet(cells);
+        return cells.Sum(AccountBalance);
+    }
+
+    // In contended mode the cells are folded into the base first, so the debit is applied
+    // against every deposit that had completed before it started.
+    private BigDecimal Debit(BigDecimal amount, LedgerEntryType type, UUID counterparty) {
+        Ledger.Append(type, ToLedgerMinor(amount), counterparty);
+        BalanceCells cells = Cells;
+        if (cells == null) {
+            return Apply(amount.negate());
+        }
+        BigDecimal base = Apply(cells.Drain().subtract(amount));
+        RelaxIfQuiet(cells);
+        return cells.Sum(base);
+    }
+
+    // Closes the window once it has run its length. Only the thread that wins the CAS on the
+    // window start looks at how many deposits the cells took since the last close.
+    private void RelaxIfQuiet(BalanceCells cells) {
+        long start = WindowStart;
+        long now = Clock.getAsLong();
+        if (now - start < ContentionWindowNanos || !WINDOW_START.compareAndSet(this, start, now)) {
+            return;
+        }
+        if (cells.TakeAddsSinceMark() < ContentionThreshold) {
+            DisableContendedMode(cells);
+        }
+    }
+
+    // Counts a failed balance CAS against the current window, starting a new window when the
+    // old one has run its length, so only a burst of contention switches the account over.
+    private void RecordContention() {
+        long now = Clock.getAsLong();
+        if (now - WindowStart >= ContentionWindowNanos) {
+            WindowStart = now;
+            ContentionCount = 0;
+        }
+        if (++ContentionCount > ContentionThreshold && Cells == null) {
+            EnableContendedMode();
+        }
+    }
+
+    // Amounts the ledger cannot hold exactly are rejected rather than rounded, so the ledger and
+    // the balance cannot drift apart. Runs before the balance changes.
+    private static long ToLedgerMinor(BigDecimal amount) {
+        if (amount.signum() <= 0) {
+            throw new IllegalArgumentException("Amount must be positive but was " + amount.toPlainString());
+        }
+        return ExactMinor(amount);
+    }
+
+    private static long ExactMinor(BigDecimal amount) {
+        if (amount.stripTrailingZeros().scale() > Money.DEFAULT_SCALE) {
+            throw new IllegalArgumentException("Amount " + amount.toPlainString() + " has more than "
+                    + Money.DEFAULT_SCALE + " decimal places");
+        }
+        return Money.Of(amount, Money.DEFAULT_SCALE, RoundingMode.UNNECESSARY).MinorUnits();
+    }
+
+    // Lock-free read-modify-write: a deposit racing another update retries against the newer
+    // balance instead of overwriting it. Returns the balance this update produced.
+    private BigDecimal Apply(BigDecimal delta) {
+        while (true) {
+            BigDecimal current = AccountBalance;
+            BigDecimal updated = current.add(delta);
+            if (BALANCE.compareAndSet(this, current, updated)) {
+                return updated;
+            }
+            // The count is only a heuristic, so lost increments from racing threads do not matter.
+            RecordContention();
+        }
     }
 }
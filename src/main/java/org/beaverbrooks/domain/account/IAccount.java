@@ -1,6 +1,9 @@
 package org.beaverbrooks.domain.account;
 
+import org.beaverbrooks.shared.Money;
+
 import java.math.BigDecimal;
+import java.util.UUID;
 
 public interface IAccount {
 
@@ -9,4 +12,18 @@ public interface IAccount {
     BigDecimal SubtractFromAccount(BigDecimal amount);
 
     BigDecimal GetAccountBalance();
+
+    Money AddToAccount(Money amount);
+
+    Money SubtractFromAccount(Money amount);
+
+    Money GetMoneyBalance();
+
+    BigDecimal TransferOut(BigDecimal amount, UUID counterparty);
+
+    BigDecimal TransferIn(BigDecimal amount, UUID counterparty);
+
+    // Frees anything the account holds outside the heap, once its user has been deleted.
+    default void Release() {
+    }
 }
@@ -0,0 +1,8 @@
+package org.beaverbrooks.domain.account;
+
+public enum LedgerEntryType {
+    Deposit,
+    Withdrawal,
+    TransferIn,
+    TransferOut
+}
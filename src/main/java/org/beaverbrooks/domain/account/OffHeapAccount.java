@@ -0,0 +1,94 @@
+package org.beaverbrooks.domain.account;
+
+import org.beaverbrooks.shared.Money;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class OffHeapAccount implements IAccount {
+
+    private final OffHeapBalanceStore Store;
+    private final int Slot;
+    private final AtomicBoolean Released = new AtomicBoolean();
+
+    public OffHeapAccount(OffHeapBalanceStore store) {
+        Store = store;
+        Slot = store.AllocateSlot();
+    }
+
+    // An account restored from a log or snapshot, opening at its saved balance.
+    public OffHeapAccount(OffHeapBalanceStore store, BigDecimal openingBalance) {
+        this(store);
+        Store.Add(Slot, ToMinorUnits(openingBalance));
+    }
+
+    public int GetSlot() {
+        return Slot;
+    }
+
+    // Gives the slot back to the store once, when the account is deleted. Any later use fails
+    // rather than touch a slot that may belong to another account by then.
+    @Override
+    public void Release() {
+        if (Released.compareAndSet(false, true)) {
+            Store.ReleaseSlot(Slot);
+        }
+    }
+
+    @Override
+    public BigDecimal AddToAccount(BigDecimal amount) {
+        return ToAmount(Store.Add(LiveSlot(), ToMinorUnits(amount)));
+    }
+
+    @Override
+    public BigDecimal SubtractFromAccount(BigDecimal amount) {
+        return ToAmount(Store.Add(LiveSlot(), Math.negateExact(ToMinorUnits(amount))));
+    }
+
+    @Override
+    public BigDecimal GetAccountBalance() {
+        return ToAmount(Store.Get(LiveSlot()));
+    }
+
+    @Override
+    public Money AddToAccount(Money amount) {
+        return Money.OfMinor(Store.Add(LiveSlot(), amount.MinorUnitsAt(OffHeapBalanceStore.SCALE)));
+    }
+
+    @Override
+    public Money SubtractFromAccount(Money amount) {
+        return Money.OfMinor(Store.Add(LiveSlot(), Math.negateExact(amount.MinorUnitsAt(OffHeapBalanceStore.SCALE))));
+    }
+
+    @Override
+    public Money GetMoneyBalance() {
+        return Money.OfMinor(Store.Get(LiveSlot()));
+    }
+
+    @Override
+    public BigDecimal TransferOut(BigDecimal amount, UUID counterparty) {
+        return SubtractFromAccount(amount);
+    }
+
+    @Override
+    public BigDecimal TransferIn(BigDecimal amount, UUID counterparty) {
+        return AddToAccount(amount);
+    }
+
+    private int LiveSlot() {
+        if (Released.get()) {
+            throw new IllegalStateException("Account has been deleted");
+        }
+        return Slot;
+    }
+
+    // Amounts with more decimal places than a slot can hold are rejected rather than rounded.
+    private static long ToMinorUnits(BigDecimal amount) {
+        return amount.movePointRight(OffHeapBalanceStore.SCALE).longValueExact();
+    }
+
+    private static BigDecimal ToAmount(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, OffHeapBalanceStore.SCALE);
+    }
+}
@@ -0,0 +1,113 @@
+package org.beaverbrooks.domain.account;
+
+import org.beaverbrooks.shared.Money;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Balances held outside the Java heap as 8-byte slots of minor units (cents). Slots live in direct
+// buffers of SLOTS_PER_CHUNK entries, allocated as the slot count grows, and are updated through a
+// VarHandle view so deposits and withdrawals are atomic and allocate nothing. The buffers are
+// direct ByteBuffers rather than segments of an FFM Arena, since java.lang.foreign is still a
+// preview API on the JDK 21 the build runs on.
+//
+// Slots released by deleted accounts go on a free list and are handed out again before the store
+// grows, so churn in accounts does not keep growing it.
+public class OffHeapBalanceStore {
+
+    public static final int SCALE = Money.DEFAULT_SCALE;
+
+    private static final int CHUNK_SHIFT = 20;
+    private static final int SLOTS_PER_CHUNK = 1 << CHUNK_SHIFT;
+    private static final int SLOT_MASK = SLOTS_PER_CHUNK - 1;
+    private static final VarHandle SLOT = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    // A new slot always starts at zero, whether it is fresh or was released.
+    public int AllocateSlot() {
+        int released = TakeFreeSlot();
+        if (released >= 0) {
+            return released;
+        }
+        int slot = nextSlot.getAndIncrement();
+        if (slot < 0) {
+            throw new IllegalStateException("Off-heap balance store is full");
+        }
+        int chunk = slot >>> CHUNK_SHIFT;
+        if (chunk >= chunks.length) {
+            Grow(chunk);
+        }
+        SLOT.setVolatile(chunks[chunk], Offset(slot), 0L);
+        return slot;
+    }
+
+    public long Get(int slot) {
+        return (long) SLOT.getVolatile(chunks[slot >>> CHUNK_SHIFT], Offset(slot));
+    }
+
+    // Adds delta to the slot and returns the new balance. Fails instead of wrapping on overflow.
+    public long Add(int slot, long delta) {
+        ByteBuffer chunk = chunks[slot >>> CHUNK_SHIFT];
+        int offset = Offset(slot);
+        while (true) {
+            long current = (long) SLOT.getVolatile(chunk, offset);
+            long updated = Math.addExact(current, delta);
+            if (SLOT.compareAndSet(chunk, offset, current, updated)) {
+                return updated;
+            }
+        }
+    }
+
+    // Zeroes the slot and returns it to the free list. The caller must make sure nothing writes
+    // to the slot afterwards, since its next owner would see the write; OffHeapAccount refuses
+    // to be used once it has been released for that reason.
+    public synchronized void ReleaseSlot(int slot) {
+        SLOT.setVolatile(chunks[slot >>> CHUNK_SHIFT], Offset(slot), 0L);
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount << 1);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    // Slots held by accounts, not counting those on the free list.
+    public synchronized int GetSlotCount() {
+        return nextSlot.get() - freeCount;
+    }
+
+    public synchronized int GetFreeSlotCount() {
+        return freeCount;
+    }
+
+    public long GetOffHeapBytes() {
+        return (long) chunks.length * SLOTS_PER_CHUNK * Long.BYTES;
+    }
+
+    private synchronized int TakeFreeSlot() {
+        return freeCount == 0 ? -1 : freeSlots[--freeCount];
+    }
+
+    private synchronized void Grow(int chunk) {
+        ByteBuffer[] current = chunks;
+        if (chunk < current.length) {
+            return;
+        }
+        ByteBuffer[] grown = new ByteBuffer[chunk + 1];
+        System.arraycopy(current, 0, grown, 0, current.length);
+        for (int i = current.length; i < grown.length; i++) {
+            grown[i] = ByteBuffer.allocateDirect(SLOTS_PER_CHUNK * Long.BYTES).order(ByteOrder.nativeOrder());
+        }
+        chunks = grown;
+    }
+
+    private static int Offset(int slot) {
+        return (slot & SLOT_MASK) << 3;
+    }
+}
@@ -1,5 +1,7 @@
 package org.beaverbrooks.domain.user;
 
+import org.beaverbrooks.domain.account.IAccount;
+
 import java.util.UUID;
 
 public class Business extends User{
@@ -11,8 +13,19 @@ public class Business extends User{
         BusinessName = username;
     }
 
+    public Business(String username, IAccount account) {
+        super(username, account);
+        BusinessName = username;
+    }
+
     public Business(String username, UUID id){
         super(username, id);
+        BusinessName = username;
+    }
+
+    public Business(String username, UUID id, IAccount account){
+        super(username, id, account);
+        BusinessName = username;
     }
 
     @Override
@@ -1,4 +1,6 @@
 package org.beaverbrooks.domain.user;
+import org.beaverbrooks.domain.account.IAccount;
+
 import java.util.UUID;
 
 public class Customer extends User{
@@ -12,12 +14,32 @@ public class Customer extends User{
         LastName = lastName;
     }
 
+    public Customer(String username, String firstName, String lastName, IAccount account){
+        super(username, account);
+        FirstName = firstName;
+        LastName = lastName;
+    }
+
     public Customer(String username, String firstName, String lastName, UUID id){
         super(username, id);
         FirstName = firstName;
         LastName = lastName;
     }
 
+    public Customer(String username, String firstName, String lastName, UUID id, IAccount account){
+        super(username, id, account);
+        FirstName = firstName;
+        LastName = lastName;
+    }
+
+
+    public String GetFirstName() {
+        return FirstName;
+    }
+
+    public String GetLastName() {
+        return LastName;
+    }
 
     @Override
     public String GetName() {
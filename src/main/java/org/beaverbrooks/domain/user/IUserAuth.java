@@ -6,6 +6,8 @@ import java.util.UUID;
 public interface IUserAuth {
 
     Boolean ComparePassword(String password);
+    // True when the stored hash was made at a different cost, so the next login should replace it.
+    boolean NeedsRehash(int targetIterations);
     Optional<UUID> GetID();
 
 }
@@ -0,0 +1,73 @@
+package org.beaverbrooks.domain.user;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+// Salted PBKDF2-HMAC-SHA256 password hashes, encoded as "pbkdf2-sha256$<iterations>$<salt>$<hash>"
+// so the cost a hash was made with travels with it and can be raised later without a migration.
+public final class PasswordHasher {
+
+    public static final String PREFIX = "pbkdf2-sha256$";
+
+    // -Dfincore.pbkdf2.iterations overrides the cost of new hashes; the default follows current
+    // OWASP guidance for PBKDF2-HMAC-SHA256.
+    public static final int DEFAULT_ITERATIONS = Integer.getInteger("fincore.pbkdf2.iterations", 600_000);
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private PasswordHasher() {
+    }
+
+    public static String Hash(String password, int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Iterations must be positive");
+        }
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + "$" + encoder.encodeToString(salt) + "$"
+                + encoder.encodeToString(Derive(password, salt, iterations, HASH_BITS));
+    }
+
+    public static boolean Verify(String password, String encoded) {
+        String[] parts = Split(encoded);
+        Base64.Decoder decoder = Base64.getDecoder();
+        byte[] expected = decoder.decode(parts[3]);
+        byte[] actual = Derive(password, decoder.decode(parts[2]), Integer.parseInt(parts[1]), expected.length * 8);
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    public static int IterationsOf(String encoded) {
+        return Integer.parseInt(Split(encoded)[1]);
+    }
+
+    public static boolean IsHash(String value) {
+        return value != null && value.startsWith(PREFIX);
+    }
+
+    private static String[] Split(String encoded) {
+        String[] parts = encoded.split("\\$");
+        if (parts.length != 4 || !IsHash(encoded)) {
+            throw new IllegalArgumentException("Not a PBKDF2 password hash");
+        }
+        return parts;
+    }
+
+    private static byte[] Derive(String password, byte[] salt, int iterations, int bits) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, bits);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2WithHmacSHA256 is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.beaverbrooks.domain.user;
 
 import org.beaverbrooks.domain.account.CustomerAccount;
 import org.beaverbrooks.domain.account.IAccount;
+import org.beaverbrooks.shared.UuidV7;
 
 import java.util.Optional;
 import java.util.UUID;
@@ -13,11 +14,17 @@ public abstract class User implements  IUser{
     private final IAccount Account;
 
     public User(String username){
-        UserID = UUID.randomUUID();
+        UserID = UuidV7.Generate();
         Username = username;
         Account = new CustomerAccount();
     }
 
+    public User(String username, IAccount account){
+        UserID = UuidV7.Generate();
+        Username = username;
+        Account = account;
+    }
+
     //For testing purposes/creating dummy data
     public User(String username, UUID id){
         UserID = id;
@@ -25,6 +32,13 @@ public abstract class User implements  IUser{
         Account = new CustomerAccount();
     }
 
+    // For users restored from storage, whose id and account already exist.
+    public User(String username, UUID id, IAccount account){
+        UserID = id;
+        Username = username;
+        Account = account;
+    }
+
     @Override
     public UUID GetID() {
         return UserID;
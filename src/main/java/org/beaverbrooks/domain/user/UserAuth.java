@@ -1,22 +1,40 @@
 package org.beaverbrooks.domain.user;
 
-import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 
 public class UserAuth implements IUserAuth {
 
     private final UUID UserID;
-    private final String Password;
+    private final String PasswordHash;
 
-    public UserAuth(UUID userID, String password){
+    private UserAuth(UUID userID, String passwordHash){
         UserID = userID;
-        Password = password;
+        PasswordHash = passwordHash;
+    }
+
+    // Hashes password on the calling thread, which at production cost takes a core for a large
+    // fraction of a second. Request paths go through PasswordHashingExecutor instead.
+    public static UserAuth FromPassword(UUID userID, String password, int iterations){
+        return new UserAuth(userID, PasswordHasher.Hash(password, iterations));
+    }
+
+    // Rebuilds a UserAuth from a hash written by GetPasswordHash, without hashing it again.
+    public static UserAuth FromHash(UUID userID, String passwordHash){
+        if (!PasswordHasher.IsHash(passwordHash)) {
+            throw new IllegalArgumentException("Not a PBKDF2 password hash");
+        }
+        return new UserAuth(userID, passwordHash);
     }
 
     @Override
     public Boolean ComparePassword(String password) {
-        return Objects.equals(this.Password, password);
+        return password != null && PasswordHasher.Verify(password, PasswordHash);
+    }
+
+    @Override
+    public boolean NeedsRehash(int targetIterations) {
+        return PasswordHasher.IterationsOf(PasswordHash) != targetIterations;
     }
 
     @Override
@@ -24,5 +42,9 @@ public class UserAuth implements IUserAuth {
         return Optional.ofNullable(UserID);
     }
 
+    public String GetPasswordHash() {
+        return PasswordHash;
+    }
+
 
 }
@@ -0,0 +1,40 @@
+package org.beaverbrooks.repository;
+
+import org.beaverbrooks.domain.account.IAccount;
+import org.beaverbrooks.domain.user.IUser;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// The account half of a transfer, shared by the repositories. Callers are responsible for holding
+// whatever locks make the two user records stable for the duration.
+final class AccountTransfer {
+
+    private AccountTransfer() {
+    }
+
+    static void Validate(UUID fromId, UUID toId, BigDecimal amount) {
+        if (fromId.equals(toId)) {
+            throw new IllegalArgumentException("Cannot transfer from an account to itself");
+        }
+        if (amount.signum() <= 0) {
+            throw new IllegalArgumentException("Transfer amount must be positive");
+        }
+    }
+
+    // Debits the source then credits the target. If the credit is refused, for example because an
+    // off-heap balance would overflow, the debit is reversed so neither side changes.
+    // Returns the source balance after the transfer.
+    static BigDecimal Apply(IUser from, IUser to, BigDecimal amount) {
+        IAccount source = from.GetAccount().orElseThrow();
+        IAccount target = to.GetAccount().orElseThrow();
+        BigDecimal balance = source.TransferOut(amount, to.GetID());
+        try {
+            target.TransferIn(amount, from.GetID());
+        } catch (RuntimeException e) {
+            source.TransferIn(amount, to.GetID());
+            throw e;
+        }
+        return balance;
+    }
+}
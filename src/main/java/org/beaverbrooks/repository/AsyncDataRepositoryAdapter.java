@@ -0,0 +1,119 @@
+package org.beaverbrooks.repository;
+
+import org.beaverbrooks.domain.user.IUser;
+import org.beaverbrooks.domain.user.IUserAuth;
+import org.beaverbrooks.shared.Futures;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+// Presents a blocking IDataRepository as an IAsyncDataRepository by running each call on the given
+// executor. The in-memory repositories answer quickly enough to pass a direct executor
+// (Runnable::run); a repository that waits on disk or the network wants a pool of its own so the
+// caller's thread is not the one that waits.
+public class AsyncDataRepositoryAdapter implements IAsyncDataRepository {
+
+    private final IDataRepository repository;
+    private final Executor executor;
+
+    public AsyncDataRepositoryAdapter(IDataRepository repository, Executor executor) {
+        this.repository = repository;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Optional<IUser>> FindByName(String name) {
+        return Futures.Call(() -> repository.FindByName(name), executor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> MightContainUsername(String name) {
+        return Futures.Call(() -> repository.MightContainUsername(name), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> SaveNewUser(IUserAuth auth, IUser user) {
+        return Futures.Call(() -> {
+            repository.SaveNewUser(auth, user);
+            return null;
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> SaveNewUserIfAbsent(IUserAuth auth, IUser user) {
+        return Futures.Call(() -> repository.SaveNewUserIfAbsent(auth, user), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> SaveUpdateUser(IUser user) {
+        return Futures.Call(() -> {
+            repository.SaveUpdateUser(user);
+            return null;
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<Long> SaveUpdateUser(IUser user, long expectedVersion) {
+        return Futures.Call(() -> repository.SaveUpdateUser(user, expectedVersion), executor);
+    }
+
+    @Override
+    public CompletableFuture<Long> GetUserVersion(UUID id) {
+        return Futures.Call(() -> repository.GetUserVersion(id), executor);
+    }
+
+    @Override
+    public CompletableFuture<Optional<IUser>> GetUserById(UUID id) {
+        return Futures.Call(() -> repository.GetUserById(id), executor);
+    }
+
+    @Override
+    public CompletableFuture<Optional<IUserAuth>> GetUserAuthById(UUID id) {
+        return Futures.Call(() -> repository.GetUserAuthById(id), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> SaveUpdateUserAuth(IUserAuth auth) {
+        return Futures.Call(() -> {
+            repository.SaveUpdateUserAuth(auth);
+            return null;
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<BigDecimal> GetAccountBalance(UUID id) {
+        return Futures.Call(() -> repository.GetAccountBalance(id), executor);
+    }
+
+    @Override
+    public CompletableFuture<BigDecimal> TransferBetweenAccounts(UUID fromId, UUID toId, BigDecimal amount) {
+        return Futures.Call(() -> repository.TransferBetweenAccounts(fromId, toId, amount), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> DeleteAccount(IUser user) {
+        return Futures.Call(() -> {
+            repository.DeleteAccount(user);
+            return null;
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<ArrayList<IUser>> GetAllUsers() {
+        return Futures.Call(repository::GetAllUsers, executor);
+    }
+
+    @Override
+    public CompletableFuture<UserPage> GetUsersPage(UserCursor cursor, int limit) {
+        return Futures.Call(() -> repository.GetUsersPage(cursor, limit), executor);
+    }
+
+    @Override
+    public CompletableFuture<ArrayList<IUserAuth>> GetAllUserAuth() {
+        return Futures.Call(repository::GetAllUserAuth, executor);
+    }
+}
@@ -0,0 +1,104 @@
+package org.beaverbrooks.repository;
+
+import org.beaverbrooks.domain.user.IUser;
+import org.beaverbrooks.domain.user.IUserAuth;
+import org.beaverbrooks.shared.Futures;
+import org.beaverbrooks.shared.exceptions.VersionConflictException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.UUID;
+
+// Presents an IAsyncDataRepository as a blocking IDataRepository, so the synchronous services and
+// the auth service can run over an asynchronous backend. Each call waits for its future and
+// rethrows the backend's own exception.
+public class BlockingDataRepository implements IDataRepository {
+
+    private final IAsyncDataRepository repository;
+
+    public BlockingDataRepository(IAsyncDataRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public Optional<IUser> FindByName(String name) {
+        return Futures.Join(repository.FindByName(name));
+    }
+
+    @Override
+    public boolean MightContainUsername(String name) {
+        return Futures.Join(repository.MightContainUsername(name));
+    }
+
+    @Override
+    public void SaveNewUser(IUserAuth auth, IUser user) {
+        Futures.Join(repository.SaveNewUser(auth, user));
+    }
+
+    @Override
+    public boolean SaveNewUserIfAbsent(IUserAuth auth, IUser user) {
+        return Futures.Join(repository.SaveNewUserIfAbsent(auth, user));
+    }
+
+    @Override
+    public void SaveUpdateUser(IUser user) {
+        Futures.Join(repository.SaveUpdateUser(user));
+    }
+
+    @Override
+    public long SaveUpdateUser(IUser user, long expectedVersion) throws VersionConflictException {
+        return Futures.Join(repository.SaveUpdateUser(user, expectedVersion));
+    }
+
+    @Override
+    public long GetUserVersion(UUID id) {
+        return Futures.Join(repository.GetUserVersion(id));
+    }
+
+    @Override
+    public Optional<IUser> GetUserById(UUID id) {
+        return Futures.Join(repository.GetUserById(id));
+    }
+
+    @Override
+    public Optional<IUserAuth> GetUserAuthById(UUID id) {
+        return Futures.Join(repository.GetUserAuthById(id));
+    }
+
+    @Override
+    public void SaveUpdateUserAuth(IUserAuth auth) throws NoSuchElementException {
+        Futures.Join(repository.SaveUpdateUserAuth(auth));
+    }
+
+    @Override
+    public BigDecimal GetAccountBalance(UUID id) {
+        return Futures.Join(repository.GetAccountBalance(id));
+    }
+
+    @Override
+    public BigDecimal TransferBetweenAccounts(UUID fromId, UUID toId, BigDecimal amount) {
+        return Futures.Join(repository.TransferBetweenAccounts(fromId, toId, amount));
+    }
+
+    @Override
+    public void DeleteAccount(IUser user) {
+        Futures.Join(repository.DeleteAccount(user));
+    }
+
+    @Override
+    public ArrayList<IUser> GetAllUsers() {
+        return Futures.Join(repository.GetAllUsers());
+    }
+
+    @Override
+    public UserPage GetUsersPage(UserCursor cursor, int limit) {
+        return Futures.Join(repository.GetUsersPage(cursor, limit));
+    }
+
+    @Override
+    public ArrayList<IUserAuth> GetAllUserAuth() {
+        return Futures.Join(repository.GetAllUserAuth());
+    }
+}
@@ -0,0 +1,557 @@
+package org.beaverbrooks.repository;
+
+import org.beaverbrooks.domain.user.IUser;
+import org.beaverbrooks.domain.user.IUserAuth;
+import org.beaverbrooks.shared.exceptions.VersionConflictException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Keeps a bounded set of users in front of a slower repository, so the logins and balance reads of
+// the customers currently active are answered from memory.
+//
+// Eviction is segmented LRU. A user read from the delegate enters the probation segment and moves
+// to the protected segment, four fifths of the capacity, the next time it is read. Eviction takes
+// from probation first, so one pass over many users read once (a report, a scan) cannot push out
+// the hot set. Names looked up and not found are remembered as well, since failed logins and
+// availability checks for new usernames would otherwise all reach storage.
+//
+// With a write-behind interval, SaveUpdateUser only marks the user dirty and a background thread
+// saves each dirty user once per interval, however many times it changed in between. That
+// gives up durability for the interval: an acknowledged deposit is lost if the process dies before
+// the flush. Creations, deletions, transfers, versioned saves and renames are always written
+// through, after any pending write for the users they touch, so the delegate still decides who
+// holds each name.
+//
+// Saves that fail are left pending and retried, and counted in CacheStats.FlushFailures, so a
+// store that keeps refusing them shows up there even though the background flusher has no caller
+// to report to.
+//
+// This must be the only writer to the delegate, since changes made around it are not seen.
+public class CachingRepository implements IDataRepository, AutoCloseable {
+
+    public record CacheStats(long Hits, long Misses, long NegativeHits, long Evictions, long WritesCoalesced, long WritesFlushed,
+                             long FlushFailures) {
+    }
+
+    private final IDataRepository delegate;
+    private final int capacity;
+    private final int protectedCapacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<UUID, IUser> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<UUID, IUser> protectedUsers = new LinkedHashMap<>(16, 0.75f, true);
+    private final HashMap<String, UUID> idsByName = new HashMap<>();
+    private final LinkedHashMap<String, Boolean> unknownNames;
+    private final LinkedHashMap<UUID, IUser> dirty = new LinkedHashMap<>();
+    // Bumped by every write that could make a load already in flight stale, so that load is
+    // returned to its caller but not cached.
+    private long generation;
+
+    // A full flush holds the write lock, and written-through operations hold the read lock while they
+    // save the pending writes of the users they touch, so neither overtakes the save of a user's
+    // earlier state. Operations on different users still run side by side.
+    private final ReentrantReadWriteLock flushLock = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService flusher;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder writesCoalesced = new LongAdder();
+    private final LongAdder writesFlushed = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+
+    public CachingRepository(IDataRepository delegate, int capacity) {
+        this(delegate, capacity, 0);
+    }
+
+    // A writeBehindMillis of 0 writes every save through to the delegate before returning, as the
+    // two-argument constructor does. The background flusher is only handed this repository once
+    // it is fully constructed.
+    public static CachingRepository WithWriteBehind(IDataRepository delegate, int capacity, long writeBehindMillis) {
+        CachingRepository repository = new CachingRepository(delegate, capacity, writeBehindMillis);
+        if (repository.flusher != null) {
+            repository.flusher.scheduleWithFixedDelay(repository::FlushQuietly, writeBehindMillis, writeBehindMillis, TimeUnit.MILLISECONDS);
+        }
+        return repository;
+    }
+
+    private CachingRepository(IDataRepository delegate, int capacity, long writeBehindMillis) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be at least 1");
+        }
+        if (writeBehindMillis < 0) {
+            throw new IllegalArgumentException("Write-behind interval cannot be negative");
+        }
+        this.delegate = delegate;
+        this.capacity = capacity;
+        protectedCapacity = capacity * 4 / 5;
+        unknownNames = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > CachingRepository.this.capacity;
+            }
+        };
+        if (writeBehindMillis == 0) {
+            flusher = null;
+        } else {
+            flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "fincore-cache-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @Override
+    public Optional<IUser> FindByName(String name) {
+        if (name == null) {
+            return Optional.empty();
+        }
+        String key = UsernameKey.Normalise(name);
+        long loadGeneration;
+        lock.lock();
+        try {
+            UUID id = idsByName.get(key);
+            if (id != null) {
+                hits.increment();
+                return Optional.of(Touch(id));
+            }
+            if (unknownNames.get(key) != null) {
+                negativeHits.increment();
+                return Optional.empty();
+            }
+            misses.increment();
+            loadGeneration = generation;
+        } finally {
+            lock.unlock();
+        }
+
+        Optional<IUser> loaded = delegate.FindByName(name);
+        lock.lock();
+        try {
+            if (loaded.isPresent()) {
+                return Optional.of(Loaded(loaded.get(), loadGeneration));
+            }
+            if (generation == loadGeneration) {
+                unknownNames.put(key, Boolean.TRUE);
+            }
+            return loaded;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Names the cache has already resolved either way are answered without asking the delegate.
+    @Override
+    public boolean MightContainUsername(String name) {
+        if (name == null) {
+            return false;
+        }
+        String key = UsernameKey.Normalise(name);
+        lock.lock();
+        try {
+            if (idsByName.containsKey(key)) {
+                return true;
+            }
+            if (unknownNames.containsKey(key)) {
+                return false;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return delegate.MightContainUsername(name);
+    }
+
+    @Override
+    public void SaveNewUser(IUserAuth auth, IUser user) {
+        delegate.SaveNewUser(auth, user);
+        CacheNewUser(user);
+    }
+
+    // The delegate decides who wins the name; a negative entry here only means the name was free
+    // when it was cached, so it is never taken as the answer.
+    @Override
+    public boolean SaveNewUserIfAbsent(IUserAuth auth, IUser user) {
+        if (!delegate.SaveNewUserIfAbsent(auth, user)) {
+            return false;
+        }
+        CacheNewUser(user);
+        return true;
+    }
+
+    // Only a save that keeps the username of the cached user is held back. A user that is not
+    // cached may be getting a new name, so its save is written through as well.
+    @Override
+    public void SaveUpdateUser(IUser user) {
+        if (flusher != null) {
+            lock.lock();
+            try {
+                if (user.GetUsername().equals(CachedUsername(user.GetID()))) {
+                    if (dirty.put(user.GetID(), user) != null) {
+                        writesCoalesced.increment();
+                    }
+                    Insert(user);
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        flushLock.readLock().lock();
+        try {
+            FlushPending(user.GetID());
+            delegate.SaveUpdateUser(user);
+            lock.lock();
+            try {
+                Insert(user);
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long SaveUpdateUser(IUser user, long expectedVersion) throws VersionConflictException {
+        flushLock.readLock().lock();
+        try {
+            FlushPending(user.GetID());
+            long version = delegate.SaveUpdateUser(user, expectedVersion);
+            lock.lock();
+            try {
+                Insert(user);
+            } finally {
+                lock.unlock();
+            }
+            return version;
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    // Versions are counted by the delegate, so any pending write is saved first to bring it up to date.
+    @Override
+    public long GetUserVersion(UUID id) {
+        flushLock.readLock().lock();
+        try {
+            FlushPending(id);
+            return delegate.GetUserVersion(id);
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<IUser> GetUserById(UUID id) {
+        long loadGeneration;
+        lock.lock();
+        try {
+            IUser cached = Touch(id);
+            if (cached != null) {
+                hits.increment();
+                return Optional.of(cached);
+            }
+            misses.increment();
+            loadGeneration = generation;
+        } finally {
+            lock.unlock();
+        }
+
+        Optional<IUser> loaded = delegate.GetUserById(id);
+        if (loaded.isEmpty()) {
+            return loaded;
+        }
+        lock.lock();
+        try {
+            return Optional.of(Loaded(loaded.get(), loadGeneration));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<IUserAuth> GetUserAuthById(UUID id) {
+        return delegate.GetUserAuthById(id);
+    }
+
+    @Override
+    public void SaveUpdateUserAuth(IUserAuth auth) throws NoSuchElementException {
+        delegate.SaveUpdateUserAuth(auth);
+    }
+
+    @Override
+    public BigDecimal GetAccountBalance(UUID id) {
+        return GetUserById(id)
+                .orElseThrow()
+                .GetAccount()
+                .orElseThrow()
+                .GetAccountBalance();
+    }
+
+    // The delegate changes both users, so neither cached copy is trusted afterwards.
+    @Override
+    public BigDecimal TransferBetweenAccounts(UUID fromId, UUID toId, BigDecimal amount) {
+        flushLock.readLock().lock();
+        try {
+            FlushPending(fromId);
+            FlushPending(toId);
+            BigDecimal balance = delegate.TransferBetweenAccounts(fromId, toId, amount);
+            lock.lock();
+            try {
+                generation++;
+                Invalidate(fromId);
+                Invalidate(toId);
+            } finally {
+                lock.unlock();
+            }
+            return balance;
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void DeleteAccount(IUser user) {
+        flushLock.readLock().lock();
+        try {
+            lock.lock();
+            try {
+                dirty.remove(user.GetID());
+                generation++;
+                Invalidate(user.GetID());
+            } finally {
+                lock.unlock();
+            }
+            delegate.DeleteAccount(user);
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public ArrayList<IUser> GetAllUsers() {
+        Flush();
+        return delegate.GetAllUsers();
+    }
+
+    @Override
+    public UserPage GetUsersPage(UserCursor cursor, int limit) {
+        Flush();
+        return delegate.GetUsersPage(cursor, limit);
+    }
+
+    @Override
+    public ArrayList<IUserAuth> GetAllUserAuth() {
+        return delegate.GetAllUserAuth();
+    }
+
+    // Saves every pending write now. A user whose save fails stays pending for the next flush, and
+    // the first failure is rethrown once the others have been tried.
+    public void Flush() {
+        flushLock.writeLock().lock();
+        try {
+            ArrayList<IUser> pending;
+            lock.lock();
+            try {
+                pending = new ArrayList<>(dirty.values());
+                dirty.clear();
+            } finally {
+                lock.unlock();
+            }
+            RuntimeException failure = null;
+            for (IUser user : pending) {
+                try {
+                    delegate.SaveUpdateUser(user);
+                    writesFlushed.increment();
+                } catch (RuntimeException e) {
+                    flushFailures.increment();
+                    Redirty(user);
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    public CacheStats GetStats() {
+        return new CacheStats(hits.sum(), misses.sum(), negativeHits.sum(), evictions.sum(), writesCoalesced.sum(), writesFlushed.sum(),
+                flushFailures.sum());
+    }
+
+    public int GetCachedUserCount() {
+        lock.lock();
+        try {
+            return probation.size() + protectedUsers.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Stops the background flusher and saves whatever is still pending.
+    @Override
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        Flush();
+    }
+
+    // Failures are left pending and retried on the next tick. They are counted in FlushFailures as
+    // they happen, and Flush and close rethrow them.
+    private void FlushQuietly() {
+        try {
+            Flush();
+        } catch (RuntimeException ignored) {
+        }
+    }
+
+    // Caller holds flushLock. Removing the entry under lock means only one caller saves it.
+    private void FlushPending(UUID id) {
+        IUser user;
+        lock.lock();
+        try {
+            user = dirty.remove(id);
+        } finally {
+            lock.unlock();
+        }
+        if (user == null) {
+            return;
+        }
+        try {
+            delegate.SaveUpdateUser(user);
+            writesFlushed.increment();
+        } catch (RuntimeException e) {
+            Redirty(user);
+            throw e;
+        }
+    }
+
+    private void Redirty(IUser user) {
+        lock.lock();
+        try {
+            dirty.putIfAbsent(user.GetID(), user);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Caller holds lock. Returns the cached user and records the hit in the eviction order, or
+    // null. A pending write counts as cached even once its entry has been evicted.
+    private IUser Touch(UUID id) {
+        IUser user = protectedUsers.get(id);
+        if (user != null) {
+            return user;
+        }
+        user = probation.remove(id);
+        if (user == null) {
+            user = dirty.get(id);
+            if (user != null) {
+                Insert(user);
+            }
+            return user;
+        }
+        protectedUsers.put(id, user);
+        if (protectedUsers.size() > protectedCapacity) {
+            Iterator<Map.Entry<UUID, IUser>> eldest = protectedUsers.entrySet().iterator();
+            Map.Entry<UUID, IUser> demoted = eldest.next();
+            eldest.remove();
+            probation.put(demoted.getKey(), demoted.getValue());
+        }
+        return user;
+    }
+
+    // Caller holds lock. A pending write is newer than what the delegate returned, so it wins.
+    private IUser Loaded(IUser loaded, long loadGeneration) {
+        IUser pending = dirty.get(loaded.GetID());
+        if (pending != null) {
+            Insert(pending);
+            return pending;
+        }
+        if (generation == loadGeneration) {
+            Insert(loaded);
+        }
+        return loaded;
+    }
+
+    private void CacheNewUser(IUser user) {
+        lock.lock();
+        try {
+            generation++;
+            Insert(user);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Caller holds lock. The name in the newest state the cache holds for a user, pending or cached,
+    // or null if it holds none.
+    private String CachedUsername(UUID id) {
+        IUser user = dirty.get(id);
+        if (user == null) {
+            user = protectedUsers.get(id);
+        }
+        if (user == null) {
+            user = probation.get(id);
+        }
+        return user == null ? null : user.GetUsername();
+    }
+
+    // Caller holds lock. Replaces a cached user in place, or adds a new one on probation. A user
+    // saved under a new name is no longer found by the old one, and the new one is no longer unknown.
+    private void Insert(IUser user) {
+        UUID id = user.GetID();
+        IUser previous = protectedUsers.containsKey(id) ? protectedUsers.put(id, user) : probation.put(id, user);
+        String key = UsernameKey.Normalise(user.GetUsername());
+        if (previous != null) {
+            idsByName.remove(UsernameKey.Normalise(previous.GetUsername()), id);
+        }
+        idsByName.put(key, id);
+        unknownNames.remove(key);
+        while (probation.size() + protectedUsers.size() > capacity) {
+            LinkedHashMap<UUID, IUser> segment = probation.isEmpty() ? protectedUsers : probation;
+            Iterator<Map.Entry<UUID, IUser>> eldest = segment.entrySet().iterator();
+            Map.Entry<UUID, IUser> evicted = eldest.next();
+            eldest.remove();
+            idsByName.remove(UsernameKey.Normalise(evicted.getValue().GetUsername()), evicted.getKey());
+            evictions.increment();
+        }
+    }
+
+    // Caller holds lock.
+    private void Invalidate(UUID id) {
+        IUser removed = probation.remove(id);
+        if (removed == null) {
+            removed = protectedUsers.remove(id);
+        }
+        if (removed != null) {
+            idsByName.remove(UsernameKey.Normalise(removed.GetUsername()), id);
+        }
+    }
+}
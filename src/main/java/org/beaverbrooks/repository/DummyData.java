@@ -17,12 +17,16 @@ public class DummyData {
 
         return dummyUserData;
     }
+    // The passwords are Pa55word!!123$1, $2 and $3, stored pre-hashed so startup does no hashing.
     public static ArrayList<IUserAuth> DummyAuthData()
     {
         ArrayList<IUserAuth> dummyAuthData = new ArrayList<>();
-        dummyAuthData.add(new UserAuth(UUID.fromString("e29b41d4-e89b-12d3-a456-426614174000"), "Pa55word!!123$1"));
-        dummyAuthData.add(new UserAuth(UUID.fromString("e29b41d4-e89b-12d3-a456-426614174001"), "Pa55word!!123$2"));
-        dummyAuthData.add(new UserAuth(UUID.fromString("e29b41d4-e89b-12d3-a456-426614174002"), "Pa55word!!123$3"));
+        dummyAuthData.add(UserAuth.FromHash(UUID.fromString("e29b41d4-e89b-12d3-a456-426614174000"),
+                "pbkdf2-sha256$600000$eskIE2lz6sWfXjRfEGjpTA$Qh/5UmxADS8ejWUjKvoZSLv8ZYProxvrolE2BfQ5BrU"));
+        dummyAuthData.add(UserAuth.FromHash(UUID.fromString("e29b41d4-e89b-12d3-a456-426614174001"),
+                "pbkdf2-sha256$600000$qKE/FTgM4FryHTNgA+XDdQ$nmk71y+EsR9uZNgCWz7Elyv88SHuZhHtbqEc8V/Dwiw"));
+        dummyAuthData.add(UserAuth.FromHash(UUID.fromString("e29b41d4-e89b-12d3-a456-426614174002"),
+                "pbkdf2-sha256$600000$VKHA/0Zpo/g/Xwth0Fnvfw$KVxz7gf9i6fWD4Kpvv3qoI93kcwVhBIbI/1aVvl2c7c"));
 
         return dummyAuthData;
     }
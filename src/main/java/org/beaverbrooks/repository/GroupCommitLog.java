@@ -0,0 +1,238 @@
+package org.beaverbrooks.repository;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+// Append-only record log. Every record is framed as [int length][int crc32c][body].
+// Writers append into a shared in-memory batch and then wait for it to become durable; whichever
+// waiter finds no flush in progress writes and fsyncs everything appended so far on behalf of all
+// of them, so concurrent writers share one fsync. A record's sequence is its position in the file,
+// counting from 1, so a later record can refer back to an earlier one and replay can match them up.
+final class GroupCommitLog implements AutoCloseable {
+
+    private static final int HEADER_BYTES = 8;
+
+    interface RecordWriter {
+        void Write(DataOutput out) throws IOException;
+    }
+
+    interface RecordReader {
+        void Read(DataInputStream in) throws IOException;
+    }
+
+    private final FileChannel channel;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushCompleted = lock.newCondition();
+
+    private Batch pending = new Batch();
+    private Batch spare = new Batch();
+    private long appendedSequence;
+    private long durableSequence;
+    private boolean flushing;
+    private IOException failure;
+
+    GroupCommitLog(Path file, RecordReader replay) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long validLength = Replay(replay);
+        durableSequence = appendedSequence;
+        if (validLength < channel.size()) {
+            // A crash mid-append leaves a torn record at the tail; drop it so new records follow valid ones.
+            channel.truncate(validLength);
+        }
+        channel.position(validLength);
+    }
+
+    // Encodes the record under the log lock, so records for the same user land in the log in the
+    // order their state was read.
+    // A writer that fails partway, with any exception, leaves nothing of its record in the batch.
+    long Append(RecordWriter writer) {
+        lock.lock();
+        boolean begun = false;
+        boolean completed = false;
+        try {
+            CheckHealthy();
+            pending.BeginRecord();
+            begun = true;
+            writer.Write(pending.Out);
+            pending.EndRecord();
+            completed = true;
+            return ++appendedSequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (begun && !completed) {
+                pending.AbortRecord();
+            }
+            lock.unlock();
+        }
+    }
+
+    void AwaitDurable(long sequence) {
+        lock.lock();
+        try {
+            while (durableSequence < sequence) {
+                CheckHealthy();
+                if (flushing) {
+                    flushCompleted.awaitUninterruptibly();
+                    continue;
+                }
+                flushing = true;
+                Batch batch = pending;
+                pending = spare;
+                long batchSequence = appendedSequence;
+                IOException flushFailure = null;
+                lock.unlock();
+                try {
+                    batch.WriteTo(channel);
+                    channel.force(false);
+                } catch (IOException e) {
+                    flushFailure = e;
+                } finally {
+                    lock.lock();
+                }
+                batch.reset();
+                spare = batch;
+                flushing = false;
+                if (flushFailure == null) {
+                    durableSequence = batchSequence;
+                } else {
+                    // Records in the failed batch may or may not be on disk; nothing later can be
+                    // acknowledged safely, so every current and future writer sees the failure.
+                    failure = flushFailure;
+                }
+                flushCompleted.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void Sync() {
+        lock.lock();
+        long sequence;
+        try {
+            sequence = appendedSequence;
+        } finally {
+            lock.unlock();
+        }
+        AwaitDurable(sequence);
+    }
+
+    // Empties the log once everything appended so far is durable. The caller keeps appends out until
+    // this returns, as a checkpoint does by holding every write lock. A log that could not be
+    // emptied refuses further writes, since records after its stale ones would be skipped on replay.
+    void Truncate() throws IOException {
+        Sync();
+        lock.lock();
+        try {
+            CheckHealthy();
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(true);
+            appendedSequence = 0;
+            durableSequence = 0;
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            Sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void CheckHealthy() {
+        if (failure != null) {
+            throw new UncheckedIOException("Write-ahead log failed earlier; refusing further writes", failure);
+        }
+    }
+
+    private long Replay(RecordReader replay) throws IOException {
+        channel.position(0);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        long offset = 0;
+        CRC32C crc = new CRC32C();
+        while (true) {
+            int length;
+            int checksum;
+            byte[] body;
+            try {
+                length = in.readInt();
+                checksum = in.readInt();
+                if (length < 0 || length > channel.size() - offset - HEADER_BYTES) {
+                    return offset;
+                }
+                body = new byte[length];
+                in.readFully(body);
+            } catch (EOFException e) {
+                return offset;
+            }
+            crc.reset();
+            crc.update(body);
+            if ((int) crc.getValue() != checksum) {
+                return offset;
+            }
+            replay.Read(new DataInputStream(new ByteArrayInputStream(body)));
+            appendedSequence++;
+            offset += HEADER_BYTES + length;
+        }
+    }
+
+    private static final class Batch extends ByteArrayOutputStream {
+        private final DataOutputStream Out = new DataOutputStream(this);
+        private final CRC32C crc = new CRC32C();
+        private int recordStart;
+
+        private Batch() {
+            super(64 * 1024);
+        }
+
+        private void BeginRecord() throws IOException {
+            recordStart = count;
+            Out.writeLong(0L);
+        }
+
+        private void EndRecord() {
+            int bodyStart = recordStart + HEADER_BYTES;
+            int length = count - bodyStart;
+            crc.reset();
+            crc.update(buf, bodyStart, length);
+            ByteBuffer header = ByteBuffer.wrap(buf, recordStart, HEADER_BYTES);
+            header.putInt(length);
+            header.putInt((int) crc.getValue());
+        }
+
+        private void AbortRecord() {
+            count = recordStart;
+        }
+
+        private void WriteTo(FileChannel channel) throws IOException {
+            ByteBuffer data = ByteBuffer.wrap(buf, 0, count);
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        }
+    }
+}
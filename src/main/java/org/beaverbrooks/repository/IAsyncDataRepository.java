@@ -0,0 +1,49 @@
+package org.beaverbrooks.repository;
+
+import org.beaverbrooks.domain.user.IUser;
+import org.beaverbrooks.domain.user.IUserAuth;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+// Non-blocking counterpart of IDataRepository for storage that answers later rather than on the
+// calling thread. Each method means the same as its IDataRepository namesake; failures, including
+// VersionConflictException and NoSuchElementException, fail the returned future instead of being
+// thrown.
+public interface IAsyncDataRepository {
+
+    CompletableFuture<Optional<IUser>> FindByName(String name);
+
+    CompletableFuture<Boolean> MightContainUsername(String name);
+
+    CompletableFuture<Void> SaveNewUser(IUserAuth auth, IUser user);
+
+    CompletableFuture<Boolean> SaveNewUserIfAbsent(IUserAuth auth, IUser user);
+
+    CompletableFuture<Void> SaveUpdateUser(IUser user);
+
+    CompletableFuture<Long> SaveUpdateUser(IUser user, long expectedVersion);
+
+    CompletableFuture<Long> GetUserVersion(UUID id);
+
+    CompletableFuture<Optional<IUser>> GetUserById(UUID id);
+
+    CompletableFuture<Optional<IUserAuth>> GetUserAuthById(UUID id);
+
+    CompletableFuture<Void> SaveUpdateUserAuth(IUserAuth auth);
+
+    CompletableFuture<BigDecimal> GetAccountBalance(UUID id);
+
+    CompletableFuture<BigDecimal> TransferBetweenAccounts(UUID fromId, UUID toId, BigDecimal amount);
+
+    CompletableFuture<Void> DeleteAccount(IUser user);
+
+    CompletableFuture<ArrayList<IUser>> GetAllUsers();
+
+    CompletableFuture<UserPage> GetUsersPage(UserCursor cursor, int limit);
+
+    CompletableFuture<ArrayList<IUserAuth>> GetAllUserAuth();
+}
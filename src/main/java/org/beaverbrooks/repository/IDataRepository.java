@@ -2,29 +2,62 @@ package org.beaverbrooks.repository;
 
 import org.beaverbrooks.domain.user.IUser;
 import org.beaverbrooks.domain.user.IUserAuth;
+import org.beaverbrooks.shared.exceptions.VersionConflictException;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public interface IDataRepository {
 
     Optional<IUser> FindByName(String name);
 
+    // False means no user has this name; true means one may, and FindByName gives the answer.
+    // Lets account creation skip the lookup for names that are definitely new.
+    boolean MightContainUsername(String name);
+
     void SaveNewUser(IUserAuth auth, IUser user);
 
+    // Saves a new user only if no user holds its normalised username, deciding both in one step.
+    // Returns false, saving nothing, when the name is taken. Concurrent calls for the same name
+    // have exactly one winner; calls for different names do not wait on each other.
+    boolean SaveNewUserIfAbsent(IUserAuth auth, IUser user);
+
     void SaveUpdateUser(IUser user);
 
+    long SaveUpdateUser(IUser user, long expectedVersion) throws VersionConflictException;
+
+    long GetUserVersion(UUID id);
+
     Optional<IUser> GetUserById(UUID id);
 
     Optional<IUserAuth> GetUserAuthById(UUID id);
 
+    // Replaces the stored credentials of an existing user, for example after rehashing on login.
+    void SaveUpdateUserAuth(IUserAuth auth) throws NoSuchElementException;
+
     BigDecimal GetAccountBalance(UUID id);
 
+    // Moves amount between two accounts as one operation and returns the source balance after it.
+    BigDecimal TransferBetweenAccounts(UUID fromId, UUID toId, BigDecimal amount);
+
     void DeleteAccount(IUser user);
 
     ArrayList<IUser> GetAllUsers();
 
+    // Up to limit users with ids after cursor, in id order. See UserPage for what a page promises.
+    UserPage GetUsersPage(UserCursor cursor, int limit);
+
+    // Every user after from, in id order, fetched pageSize at a time so a scan of any size holds one
+    // page. Users added or deleted during the scan may or may not be seen. A sequential scan can
+    // stop after any user and resume later from UserCursor.After of that user's id.
+    default Stream<IUser> StreamUsers(UserCursor from, int pageSize) {
+        return StreamSupport.stream(new UserSpliterator(this, from, pageSize), false);
+    }
+
     ArrayList<IUserAuth> GetAllUserAuth();
 }
@@ -1,86 +1,207 @@
 package org.beaverbrooks.repository;
 
 import org.beaverbrooks.domain.user.*;
+import org.beaverbrooks.shared.exceptions.DuplicateUserException;
+import org.beaverbrooks.shared.exceptions.VersionConflictException;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.Objects;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.TreeMap;
 import java.util.UUID;
 
 public class InMemoryRepository implements IDataRepository {
 
+    private final LinkedHashMap<UUID, UserEntry> usersById;
+    private final HashMap<String, UserEntry> usersByName;
+    private final TreeMap<UUID, UserEntry> usersInIdOrder = new TreeMap<>();
+    private final LinkedHashMap<UUID, IUserAuth> authById;
+    private final UsernameFilter usernameFilter;
 
-    public ArrayList<IUser> dummyUserData;
-    public ArrayList<IUserAuth> dummyAuthData;
     public InMemoryRepository(ArrayList<IUser> userData, ArrayList<IUserAuth> userAuthData) {
-        dummyUserData = userData;
-        dummyAuthData = userAuthData;
+        usersById = LinkedHashMap.newLinkedHashMap(userData.size());
+        usersByName = HashMap.newHashMap(userData.size());
+        authById = LinkedHashMap.newLinkedHashMap(userAuthData.size());
+        usernameFilter = new UsernameFilter(userData.size());
+
+        for (IUser user : userData) {
+            if (!usersById.containsKey(user.GetID())) {
+                Upsert(user);
+            }
+        }
+        for (IUserAuth auth : userAuthData) {
+            authById.putIfAbsent(auth.GetID().orElseThrow(), auth);
+        }
     }
 
 
     @Override
     public Optional<IUser> FindByName(String name) {
-        return dummyUserData.stream()
-                .filter(x -> x.GetUsername().equalsIgnoreCase(name))
-                .findFirst();
+        if (name == null) {
+            return Optional.empty();
+        }
+        UserEntry entry = usersByName.get(UsernameKey.Normalise(name));
+        return entry == null ? Optional.empty() : Optional.of(entry.User);
+    }
+
+    @Override
+    public boolean MightContainUsername(String name) {
+        return name != null && usernameFilter.MightContain(UsernameKey.Normalise(name));
     }
 
     @Override
     public void SaveNewUser(IUserAuth auth, IUser user) {
-        dummyAuthData.add(auth);
-        dummyUserData.add(user);
+        Upsert(user);
+        authById.put(auth.GetID().orElseThrow(), auth);
+    }
 
+    @Override
+    public boolean SaveNewUserIfAbsent(IUserAuth auth, IUser user) {
+        if (usersByName.containsKey(UsernameKey.Normalise(user.GetUsername()))) {
+            return false;
+        }
+        SaveNewUser(auth, user);
+        return true;
     }
 
     @Override
     public void SaveUpdateUser(IUser user) {
-        dummyUserData.add(user);
+        Upsert(user);
+    }
 
+    @Override
+    public long SaveUpdateUser(IUser user, long expectedVersion) throws VersionConflictException {
+        long currentVersion = GetUserVersion(user.GetID());
+        if (currentVersion != expectedVersion) {
+            throw new VersionConflictException("User " + user.GetID() + " is at version " + currentVersion
+                    + " but version " + expectedVersion + " was expected");
+        }
+        return Upsert(user);
+    }
 
+    @Override
+    public long GetUserVersion(UUID id) {
+        UserEntry entry = usersById.get(id);
+        return entry == null ? 0L : entry.Version;
     }
 
     @Override
     public Optional<IUser> GetUserById(UUID id) {
-        return dummyUserData.stream()
-                .filter(x -> Objects.equals(x.GetID(), id))
-                .findFirst();
+        UserEntry entry = usersById.get(id);
+        return entry == null ? Optional.empty() : Optional.of(entry.User);
     }
 
     @Override
     public Optional<IUserAuth> GetUserAuthById(UUID id) {
+        return Optional.ofNullable(authById.get(id));
+    }
 
-        return dummyAuthData.stream()
-                .filter(x -> x.GetID().orElseThrow().equals(id))
-                .findFirst();
+    @Override
+    public void SaveUpdateUserAuth(IUserAuth auth) throws NoSuchElementException {
+        UUID id = auth.GetID().orElseThrow();
+        if (authById.replace(id, auth) == null) {
+            throw new NoSuchElementException("No auth record for user " + id);
+        }
     }
 
     @Override
     public BigDecimal GetAccountBalance(UUID id) {
-        return dummyUserData.stream()
-                .filter(x -> x.GetID().equals(id))
-                .findFirst()
+        return GetUserById(id)
                 .orElseThrow()
                 .GetAccount()
                 .orElseThrow()
                 .GetAccountBalance();
     }
 
+    @Override
+    public BigDecimal TransferBetweenAccounts(UUID fromId, UUID toId, BigDecimal amount) {
+        AccountTransfer.Validate(fromId, toId, amount);
+        UserEntry from = usersById.get(fromId);
+        UserEntry to = usersById.get(toId);
+        if (from == null || to == null) {
+            throw new NoSuchElementException("No user " + (from == null ? fromId : toId));
+        }
+        BigDecimal balance = AccountTransfer.Apply(from.User, to.User, amount);
+        from.Version++;
+        to.Version++;
+        return balance;
+    }
+
     @Override
     public void DeleteAccount(IUser user) {
-        dummyUserData.remove(user);
-        dummyAuthData.remove(GetUserAuthById(user.GetID()).orElseThrow());
+        UserEntry entry = usersById.remove(user.GetID());
+        if (entry != null) {
+            usersInIdOrder.remove(user.GetID());
+            String key = UsernameKey.Normalise(entry.User.GetUsername());
+            usersByName.remove(key, entry);
+            usernameFilter.Remove(key);
+        }
+        IUserAuth auth = GetUserAuthById(user.GetID()).orElseThrow();
+        authById.remove(user.GetID(), auth);
+        if (entry != null) {
+            entry.ReleaseAccount();
+        }
     }
 
     @Override
     public ArrayList<IUser> GetAllUsers() {
-        return dummyUserData;
+        ArrayList<IUser> users = new ArrayList<>(usersById.size());
+        for (UserEntry entry : usersById.values()) {
+            users.add(entry.User);
+        }
+        return users;
+    }
+
+    @Override
+    public UserPage GetUsersPage(UserCursor cursor, int limit) {
+        Map<UUID, UserEntry> remaining = cursor.IsStart() ? usersInIdOrder : usersInIdOrder.tailMap(cursor.LastId(), false);
+        return UserPage.Collect(remaining.values().stream().map(entry -> entry.User).iterator(), cursor, limit);
     }
 
     @Override
     public ArrayList<IUserAuth> GetAllUserAuth() {
-        return dummyAuthData;
+        return new ArrayList<>(authById.values());
     }
 
+    // Writes the user into its existing entry when there is one, so repeated saves of the same
+    // account cost a version bump rather than a new record.
+    private long Upsert(IUser user) {
+        UserEntry entry = usersById.get(user.GetID());
+        if (entry == null) {
+            entry = new UserEntry(user);
+            String key = UsernameKey.Normalise(user.GetUsername());
+            ClaimName(key, entry);
+            usersById.put(user.GetID(), entry);
+            usersInIdOrder.put(user.GetID(), entry);
+            usernameFilter.Add(key);
+            return entry.Version;
+        }
+
+        if (entry.User != user && !entry.User.GetUsername().equals(user.GetUsername())) {
+            String oldKey = UsernameKey.Normalise(entry.User.GetUsername());
+            String newKey = UsernameKey.Normalise(user.GetUsername());
+            if (!oldKey.equals(newKey)) {
+                ClaimName(newKey, entry);
+                usersByName.remove(oldKey, entry);
+                usernameFilter.Remove(oldKey);
+                usernameFilter.Add(newKey);
+            }
+        }
+        entry.User = user;
+        entry.Version++;
+        return entry.Version;
+    }
 
+    // Takes the name for entry unless another user already holds it. Runs before anything else
+    // changes, so a clash leaves the repository as it was.
+    private void ClaimName(String key, UserEntry entry) {
+        UserEntry holder = usersByName.putIfAbsent(key, entry);
+        if (holder != null && holder != entry) {
+            throw new DuplicateUserException("Username " + key + " is already taken");
+        }
+    }
 }
@@ -0,0 +1,367 @@
+package org.beaverbrooks.repository;
+
+import org.beaverbrooks.domain.account.CustomerAccount;
+import org.beaverbrooks.domain.account.IAccount;
+import org.beaverbrooks.domain.user.IUser;
+import org.beaverbrooks.domain.user.IUserAuth;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.function.Function;
+
+// Read-only binary snapshot of users, auth records and balances, opened with FileChannel.map.
+//
+// Layout (big-endian):
+//   header      magic, format version, user count, section offsets,         HEADER_BYTES
+//               checkpoint generation
+//   id index    (msb, lsb, record offset) sorted by signed msb, then lsb    24 bytes per user
+//   name index  (hash of case-folded username, record offset) sorted by hash 16 bytes per user
+//   records     [int length][auth][user incl. balance] as UserRecordCodec writes them
+//
+// Opening only maps the file and reads the header; lookups binary-search the indexes in place and
+// decode just the record they land on.
+//
+// The generation counts the checkpoints a WriteAheadLogRepository has written into the snapshot,
+// so the log can tell which of its records the snapshot already holds. Version 1 files have no
+// generation and read as generation 0, and may hold plaintext passwords; Open rewrites them.
+public final class SnapshotFile implements AutoCloseable {
+
+    public static final int FORMAT_VERSION = 2;
+
+    private static final int MAGIC = 0x46435350; // "FCSP"
+    private static final int HEADER_BYTES = 64;
+    private static final int ID_ENTRY_BYTES = 24;
+    private static final int NAME_ENTRY_BYTES = 16;
+    private static final int MAX_RECORD_BYTES = 4096;
+    private static final int REGION_SHIFT = 30;
+    private static final long REGION_BYTES = 1L << REGION_SHIFT;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] regions;
+    private final int userCount;
+    private final long idIndexOffset;
+    private final long nameIndexOffset;
+    private final int version;
+    private final long generation;
+
+    public SnapshotFile(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        long size = channel.size();
+        if (size < HEADER_BYTES) {
+            channel.close();
+            throw new IOException("Snapshot " + file + " is too short to contain a header");
+        }
+
+        // A single MappedByteBuffer tops out at 2GB, so the file is mapped as 1GB regions that
+        // overlap by MAX_RECORD_BYTES; any index entry or record starting in a region ends in it.
+        int regionCount = (int) ((size + REGION_BYTES - 1) >>> REGION_SHIFT);
+        regions = new MappedByteBuffer[regionCount];
+        for (int i = 0; i < regionCount; i++) {
+            long start = (long) i << REGION_SHIFT;
+            long length = Math.min(REGION_BYTES + MAX_RECORD_BYTES, size - start);
+            regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        }
+
+        if (regions[0].getInt(0) != MAGIC) {
+            close();
+            throw new IOException(file + " is not a snapshot file");
+        }
+        version = regions[0].getInt(4);
+        if (version != 1 && version != FORMAT_VERSION) {
+            close();
+            throw new IOException("Unsupported snapshot format version " + version);
+        }
+        userCount = regions[0].getInt(8);
+        idIndexOffset = regions[0].getLong(16);
+        nameIndexOffset = regions[0].getLong(24);
+        generation = version == 1 ? 0 : regions[0].getLong(48);
+    }
+
+    // Opens file, first rewriting it at the current version if it is older. Version 1 files can hold
+    // plaintext passwords from before they were hashed; each is hashed once here rather than on
+    // every lookup that decodes its record.
+    public static SnapshotFile Open(Path file) throws IOException {
+        SnapshotFile snapshot = new SnapshotFile(file);
+        if (snapshot.version == FORMAT_VERSION) {
+            return snapshot;
+        }
+        ArrayList<IUser> users = new ArrayList<>(snapshot.userCount);
+        ArrayList<IUserAuth> auths = new ArrayList<>(snapshot.userCount);
+        long generation = snapshot.generation;
+        try (snapshot) {
+            for (int i = 0; i < snapshot.userCount; i++) {
+                Record record = snapshot.ReadRecord(snapshot.FindRecordById(snapshot.IdAt(i)));
+                users.add(record.User());
+                auths.add(record.Auth());
+            }
+        }
+        Write(file, new InMemoryRepository(users, auths), generation);
+        return new SnapshotFile(file);
+    }
+
+    public int GetUserCount() {
+        return userCount;
+    }
+
+    public long GetGeneration() {
+        return generation;
+    }
+
+    // Returns the offset of the record for id, or -1 when the snapshot does not contain it.
+    public long FindRecordById(UUID id) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        int low = 0;
+        int high = userCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long entry = idIndexOffset + (long) mid * ID_ENTRY_BYTES;
+            int compare = Long.compare(GetLong(entry), msb);
+            if (compare == 0) {
+                compare = Long.compare(GetLong(entry + 8), lsb);
+            }
+            if (compare < 0) {
+                low = mid + 1;
+            } else if (compare > 0) {
+                high = mid - 1;
+            } else {
+                return GetLong(entry + 16);
+            }
+        }
+        return -1;
+    }
+
+    // Returns the offset of the record whose case-folded username equals normalisedName, or -1.
+    public long FindRecordByName(String normalisedName) throws IOException {
+        long hash = NameHash(normalisedName);
+        int low = 0;
+        int high = userCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (GetLong(nameIndexOffset + (long) mid * NAME_ENTRY_BYTES) < hash) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < userCount; i++) {
+            long entry = nameIndexOffset + (long) i * NAME_ENTRY_BYTES;
+            if (GetLong(entry) != hash) {
+                break;
+            }
+            long recordOffset = GetLong(entry + 8);
+            if (UsernameKey.Normalise(ReadUsername(recordOffset)).equals(normalisedName)) {
+                return recordOffset;
+            }
+        }
+        return -1;
+    }
+
+    // Whether the name index holds the hash of normalisedName. Only the index is read, so a miss
+    // costs a binary search over mapped pages and no record is decoded; a hit may be another name
+    // with the same 64-bit hash, or a user since renamed or deleted.
+    public boolean MightContainName(String normalisedName) {
+        long hash = NameHash(normalisedName);
+        int low = 0;
+        int high = userCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long entry = GetLong(nameIndexOffset + (long) mid * NAME_ENTRY_BYTES);
+            if (entry < hash) {
+                low = mid + 1;
+            } else if (entry > hash) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Index in the id index of the first id greater than id, or of the first entry when id is null;
+    // GetUserCount when every id is smaller.
+    public int IndexAfter(UUID id) {
+        if (id == null) {
+            return 0;
+        }
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        int low = 0;
+        int high = userCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            long entry = idIndexOffset + (long) mid * ID_ENTRY_BYTES;
+            int compare = Long.compare(GetLong(entry), msb);
+            if (compare == 0) {
+                compare = Long.compare(GetLong(entry + 8), lsb);
+            }
+            if (compare <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // User ids in index order, for callers that need to visit every record.
+    public UUID IdAt(int index) {
+        long entry = idIndexOffset + (long) index * ID_ENTRY_BYTES;
+        return new UUID(GetLong(entry), GetLong(entry + 8));
+    }
+
+    public Record ReadRecord(long offset) throws IOException {
+        return ReadRecord(offset, CustomerAccount::new);
+    }
+
+    public Record ReadRecord(long offset, Function<BigDecimal, IAccount> openAccount) throws IOException {
+        DataInputStream in = OpenRecord(offset);
+        IUserAuth auth = version == 1 ? UserRecordCodec.ReadLegacyAuth(in) : UserRecordCodec.ReadAuth(in);
+        return new Record(auth, UserRecordCodec.ReadUser(in, openAccount));
+    }
+
+    // Name lookups only compare usernames, so the auth part of each candidate is skipped undecoded.
+    private String ReadUsername(long offset) throws IOException {
+        DataInputStream in = OpenRecord(offset);
+        UserRecordCodec.SkipAuth(in);
+        return UserRecordCodec.ReadUser(in).GetUsername();
+    }
+
+    private DataInputStream OpenRecord(long offset) {
+        MappedByteBuffer region = regions[(int) (offset >>> REGION_SHIFT)];
+        int position = (int) (offset & (REGION_BYTES - 1));
+        int length = region.getInt(position);
+        byte[] body = new byte[length];
+        region.get(position + 4, body);
+        return new DataInputStream(new ByteArrayInputStream(body));
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Mappings are released by the GC once the buffers become unreachable.
+        channel.close();
+    }
+
+    public static void Write(Path file, IDataRepository source) throws IOException {
+        Write(file, source, 0);
+    }
+
+    public static void Write(Path file, IDataRepository source, long generation) throws IOException {
+        ArrayList<IUser> users = source.GetAllUsers();
+        int count = users.size();
+        long idIndexOffset = HEADER_BYTES;
+        long nameIndexOffset = idIndexOffset + (long) count * ID_ENTRY_BYTES;
+        long recordsOffset = nameIndexOffset + (long) count * NAME_ENTRY_BYTES;
+
+        IdEntry[] idEntries = new IdEntry[count];
+        long[][] nameEntries = new long[count][];
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.position(recordsOffset);
+            OutputStream records = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+            ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(256);
+            DataOutputStream recordOut = new DataOutputStream(recordBytes);
+            DataOutputStream out = new DataOutputStream(records);
+            long offset = recordsOffset;
+            for (int i = 0; i < count; i++) {
+                IUser user = users.get(i);
+                IUserAuth auth = source.GetUserAuthById(user.GetID()).orElseThrow();
+                recordBytes.reset();
+                UserRecordCodec.WriteAuth(recordOut, auth);
+                UserRecordCodec.WriteUser(recordOut, user);
+                if (recordBytes.size() + 4 > MAX_RECORD_BYTES) {
+                    throw new IOException("Record for user " + user.GetID() + " exceeds " + MAX_RECORD_BYTES + " bytes");
+                }
+                out.writeInt(recordBytes.size());
+                recordBytes.writeTo(out);
+
+                idEntries[i] = new IdEntry(user.GetID(), offset);
+                nameEntries[i] = new long[]{NameHash(UsernameKey.Normalise(user.GetUsername())), offset};
+                offset += 4 + recordBytes.size();
+            }
+            out.flush();
+
+            Arrays.sort(idEntries, Comparator.<IdEntry>comparingLong(entry -> entry.Id().getMostSignificantBits())
+                    .thenComparingLong(entry -> entry.Id().getLeastSignificantBits()));
+            Arrays.sort(nameEntries, Comparator.<long[]>comparingLong(entry -> entry[0]).thenComparingLong(entry -> entry[1]));
+
+            ByteBuffer index = ByteBuffer.allocate(1 << 16);
+            long position = idIndexOffset;
+            for (IdEntry entry : idEntries) {
+                position = PutIndexEntry(channel, index, position, ID_ENTRY_BYTES);
+                index.putLong(entry.Id().getMostSignificantBits()).putLong(entry.Id().getLeastSignificantBits()).putLong(entry.Offset());
+            }
+            for (long[] entry : nameEntries) {
+                position = PutIndexEntry(channel, index, position, NAME_ENTRY_BYTES);
+                index.putLong(entry[0]).putLong(entry[1]);
+            }
+            FlushIndex(channel, index, position);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(count).putInt(0)
+                    .putLong(idIndexOffset).putLong(nameIndexOffset).putLong(recordsOffset).putLong(offset - recordsOffset)
+                    .putLong(generation);
+            header.clear();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static long NameHash(String normalisedName) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < normalisedName.length(); i++) {
+            hash ^= normalisedName.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private long GetLong(long offset) {
+        return regions[(int) (offset >>> REGION_SHIFT)].getLong((int) (offset & (REGION_BYTES - 1)));
+    }
+
+    private static long PutIndexEntry(FileChannel channel, ByteBuffer index, long position, int entryBytes) throws IOException {
+        if (index.remaining() < entryBytes) {
+            return FlushIndex(channel, index, position);
+        }
+        return position;
+    }
+
+    private static long FlushIndex(FileChannel channel, ByteBuffer index, long position) throws IOException {
+        index.flip();
+        while (index.hasRemaining()) {
+            position += channel.write(index, position);
+        }
+        index.clear();
+        return position;
+    }
+
+    public record Record(IUserAuth Auth, IUser User) {
+    }
+
+    private record IdEntry(UUID Id, long Offset) {
+    }
+}
@@ -0,0 +1,275 @@
+package org.beaverbrooks.repository;
+
+import org.beaverbrooks.domain.account.CustomerAccount;
+import org.beaverbrooks.domain.account.IAccount;
+import org.beaverbrooks.domain.user.IUser;
+import org.beaverbrooks.domain.user.IUserAuth;
+import org.beaverbrooks.shared.exceptions.VersionConflictException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// Serves users from a SnapshotFile, materialising each one into an in-memory repository the first
+// time it is touched. Everything written after startup lives only in the in-memory repository, so
+// pair this with a WriteAheadLogRepository to keep those writes across restarts.
+public class SnapshotRepository implements IDataRepository, AutoCloseable {
+
+    private static final int MATERIALISE_LOCKS = 64;
+
+    private final SnapshotFile snapshot;
+    private final StripedRepository live = new StripedRepository(new ArrayList<>(), new ArrayList<>());
+    private final Set<UUID> deleted = ConcurrentHashMap.newKeySet();
+    private final Object[] materialiseLocks = new Object[MATERIALISE_LOCKS];
+    private final Function<BigDecimal, IAccount> openAccount;
+
+    public SnapshotRepository(Path snapshotFile) throws IOException {
+        this(snapshotFile, CustomerAccount::new);
+    }
+
+    // Materialised users get their accounts from openAccount, given the balance in the file.
+    public SnapshotRepository(Path snapshotFile, Function<BigDecimal, IAccount> openAccount) throws IOException {
+        snapshot = SnapshotFile.Open(snapshotFile);
+        this.openAccount = openAccount;
+        for (int i = 0; i < MATERIALISE_LOCKS; i++) {
+            materialiseLocks[i] = new Object();
+        }
+    }
+
+    // The checkpoint generation of the snapshot file, for a WriteAheadLogRepository in front of this.
+    public long GetGeneration() {
+        return snapshot.GetGeneration();
+    }
+
+    @Override
+    public Optional<IUser> FindByName(String name) {
+        if (name == null) {
+            return Optional.empty();
+        }
+        Optional<IUser> user = live.FindByName(name);
+        if (user.isPresent()) {
+            return user;
+        }
+
+        String key = UsernameKey.Normalise(name);
+        long offset;
+        SnapshotFile.Record record;
+        try {
+            offset = snapshot.FindRecordByName(key);
+            if (offset < 0) {
+                return Optional.empty();
+            }
+            record = snapshot.ReadRecord(offset);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // The snapshot still indexes the name a user had when it was written; once the user is
+        // live it may have been renamed, so only the live copy's name counts.
+        return Materialise(record.User().GetID())
+                .filter(candidate -> UsernameKey.Normalise(candidate.GetUsername()).equals(key));
+    }
+
+    // Users written since startup are in the live repository's filter; the snapshot's own name
+    // index answers for the rest without materialising anyone.
+    @Override
+    public boolean MightContainUsername(String name) {
+        if (name == null) {
+            return false;
+        }
+        return live.MightContainUsername(name) || snapshot.MightContainName(UsernameKey.Normalise(name));
+    }
+
+    @Override
+    public void SaveNewUser(IUserAuth auth, IUser user) {
+        MaterialiseNameOwner(user);
+        live.SaveNewUser(auth, user);
+    }
+
+    // Looking the name up first materialises any snapshot user that holds it, so by the time the
+    // live repository makes its atomic check every current owner of the name is live.
+    @Override
+    public boolean SaveNewUserIfAbsent(IUserAuth auth, IUser user) {
+        if (FindByName(user.GetUsername()).isPresent()) {
+            return false;
+        }
+        return live.SaveNewUserIfAbsent(auth, user);
+    }
+
+    @Override
+    public void SaveUpdateUser(IUser user) {
+        Materialise(user.GetID());
+        MaterialiseNameOwner(user);
+        live.SaveUpdateUser(user);
+    }
+
+    @Override
+    public long SaveUpdateUser(IUser user, long expectedVersion) throws VersionConflictException {
+        Materialise(user.GetID());
+        MaterialiseNameOwner(user);
+        return live.SaveUpdateUser(user, expectedVersion);
+    }
+
+    @Override
+    public long GetUserVersion(UUID id) {
+        Materialise(id);
+        return live.GetUserVersion(id);
+    }
+
+    @Override
+    public Optional<IUser> GetUserById(UUID id) {
+        return Materialise(id);
+    }
+
+    @Override
+    public Optional<IUserAuth> GetUserAuthById(UUID id) {
+        Materialise(id);
+        return live.GetUserAuthById(id);
+    }
+
+    @Override
+    public void SaveUpdateUserAuth(IUserAuth auth) throws NoSuchElementException {
+        Materialise(auth.GetID().orElseThrow());
+        live.SaveUpdateUserAuth(auth);
+    }
+
+    @Override
+    public BigDecimal GetAccountBalance(UUID id) {
+        Materialise(id);
+        return live.GetAccountBalance(id);
+    }
+
+    @Override
+    public BigDecimal TransferBetweenAccounts(UUID fromId, UUID toId, BigDecimal amount) {
+        Materialise(fromId);
+        Materialise(toId);
+        return live.TransferBetweenAccounts(fromId, toId, amount);
+    }
+
+    @Override
+    public void DeleteAccount(IUser user) {
+        Materialise(user.GetID());
+        deleted.add(user.GetID());
+        live.DeleteAccount(user);
+    }
+
+    @Override
+    public ArrayList<IUser> GetAllUsers() {
+        MaterialiseAll();
+        return live.GetAllUsers();
+    }
+
+    // Merges a page of the live repository with the snapshot's id index. Users that were never
+    // touched are decoded straight from the file without being materialised, so a scan leaves the
+    // live repository as it found it. When the live page is not the last, snapshot ids past its
+    // final user are left for the next page, since live users not fetched yet may come before them.
+    @Override
+    public UserPage GetUsersPage(UserCursor cursor, int limit) {
+        UserPage livePage = live.GetUsersPage(cursor, limit);
+        List<IUser> liveUsers = livePage.Users();
+        UUID bound = livePage.HasMore() ? livePage.Next().LastId() : null;
+        int count = snapshot.GetUserCount();
+
+        ArrayList<IUser> users = new ArrayList<>(Math.min(limit, 1024));
+        UUID last = cursor.LastId();
+        int i = 0;
+        int j = snapshot.IndexAfter(last);
+        while (users.size() < limit) {
+            IUser liveUser = i < liveUsers.size() ? liveUsers.get(i) : null;
+            UUID snapshotId = j < count ? snapshot.IdAt(j) : null;
+            if (snapshotId != null && bound != null && snapshotId.compareTo(bound) > 0) {
+                snapshotId = null;
+            }
+            if (liveUser == null && snapshotId == null) {
+                break;
+            }
+            int order = liveUser == null ? 1 : snapshotId == null ? -1 : liveUser.GetID().compareTo(snapshotId);
+            if (order <= 0) {
+                users.add(liveUser);
+                last = liveUser.GetID();
+                i++;
+                if (order == 0) {
+                    j++;
+                }
+            } else {
+                ReadUnmaterialised(snapshotId).ifPresent(users::add);
+                last = snapshotId;
+                j++;
+            }
+        }
+        boolean hasMore = i < liveUsers.size() || livePage.HasMore() || j < count;
+        return new UserPage(users, last == null ? cursor : UserCursor.After(last), hasMore);
+    }
+
+    @Override
+    public ArrayList<IUserAuth> GetAllUserAuth() {
+        MaterialiseAll();
+        return live.GetAllUserAuth();
+    }
+
+    @Override
+    public void close() throws IOException {
+        snapshot.close();
+    }
+
+    private Optional<IUser> Materialise(UUID id) {
+        Optional<IUser> user = live.GetUserById(id);
+        if (user.isPresent() || deleted.contains(id)) {
+            return user;
+        }
+        long offset = snapshot.FindRecordById(id);
+        if (offset < 0) {
+            return Optional.empty();
+        }
+
+        synchronized (materialiseLocks[(id.hashCode() & 0x7fffffff) % MATERIALISE_LOCKS]) {
+            user = live.GetUserById(id);
+            if (user.isPresent() || deleted.contains(id)) {
+                return user;
+            }
+            SnapshotFile.Record record;
+            try {
+                record = snapshot.ReadRecord(offset, openAccount);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            live.SaveNewUser(record.Auth(), record.User());
+            return Optional.of(record.User());
+        }
+    }
+
+    // The live repository only sees name clashes between live users, so a snapshot user still
+    // holding the name is made live first; the live claim then fails instead of overwriting it.
+    // For a save that keeps the user's name the lookup is answered by the live index.
+    private void MaterialiseNameOwner(IUser user) {
+        FindByName(user.GetUsername());
+    }
+
+    // The live copy when the user has been materialised since, nothing when it was deleted, and
+    // otherwise the user as the file has it.
+    private Optional<IUser> ReadUnmaterialised(UUID id) {
+        Optional<IUser> user = live.GetUserById(id);
+        if (user.isPresent() || deleted.contains(id)) {
+            return user;
+        }
+        try {
+            return Optional.of(snapshot.ReadRecord(snapshot.FindRecordById(id)).User());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void MaterialiseAll() {
+        for (int i = 0; i < snapshot.GetUserCount(); i++) {
+            Materialise(snapshot.IdAt(i));
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package org.beaverbrooks.repository;
+
+import org.beaverbrooks.domain.user.IUser;
+import org.beaverbrooks.domain.user.IUserAuth;
+import org.beaverbrooks.shared.exceptions.DuplicateUserException;
+import org.beaverbrooks.shared.exceptions.VersionConflictException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class StripedRepository implements IDataRepository {
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final ConcurrentHashMap<String, UserEntry> usersByName = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<UUID, UserEntry> usersInIdOrder = new ConcurrentSkipListMap<>();
+    private final UsernameFilter usernameFilter;
+
+    public StripedRepository(ArrayList<IUser> userData, ArrayList<IUserAuth> userAuthData) {
+        this(userData, userAuthData, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    public StripedRepository(ArrayList<IUser> userData, ArrayList<IUserAuth> userAuthData, int stripeCount) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("At least one stripe is required");
+        }
+        int size = 1;
+        while (size < stripeCount) {
+            size <<= 1;
+        }
+        stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+        stripeMask = size - 1;
+        usernameFilter = new UsernameFilter(userData.size());
+
+        for (IUser user : userData) {
+            Stripe stripe = StripeFor(user.GetID());
+            if (!stripe.Users.containsKey(user.GetID())) {
+                Upsert(stripe, user);
+            }
+        }
+        for (IUserAuth auth : userAuthData) {
+            UUID id = auth.GetID().orElseThrow();
+            StripeFor(id).Auth.putIfAbsent(id, auth);
+        }
+    }
+
+    @Override
+    public Optional<IUser> FindByName(String name) {
+        if (name == null) {
+            return Optional.empty();
+        }
+        UserEntry entry = usersByName.get(UsernameKey.Normalise(name));
+        if (entry == null) {
+            return Optional.empty();
+        }
+        Stripe stripe = StripeFor(entry.User.GetID());
+        stripe.Lock.readLock().lock();
+        try {
+            return Optional.of(entry.User);
+        } finally {
+            stripe.Lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean MightContainUsername(String name) {
+        return name != null && usernameFilter.MightContain(UsernameKey.Normalise(name));
+    }
+
+    @Override
+    public void SaveNewUser(IUserAuth auth, IUser user) {
+        Stripe stripe = StripeFor(user.GetID());
+        stripe.Lock.writeLock().lock();
+        try {
+            Upsert(stripe, user);
+            stripe.Auth.put(auth.GetID().orElseThrow(), auth);
+        } finally {
+            stripe.Lock.writeLock().unlock();
+        }
+    }
+
+    // The name is claimed with putIfAbsent on the name index, which only contends with other
+    // claims on the same key. The claim is made under the new user's stripe lock, so a reader that
+    // finds the entry by name waits on that lock until the user and its auth are both in place.
+    @Override
+    public boolean SaveNewUserIfAbsent(IUserAuth auth, IUser user) {
+        UUID id = user.GetID();
+        Stripe stripe = StripeFor(id);
+        stripe.Lock.writeLock().lock();
+        try {
+            if (stripe.Users.containsKey(id)) {
+                throw new IllegalArgumentException("User " + id + " already exists");
+            }
+            String key = UsernameKey.Normalise(user.GetUsername());
+            UserEntry entry = new UserEntry(user);
+            if (usersByName.putIfAbsent(key, entry) != null) {
+                return false;
+            }
+            stripe.Auth.put(auth.GetID().orElseThrow(), auth);
+            stripe.Users.put(id, entry);
+            usersInIdOrder.put(id, entry);
+            usernameFilter.Add(key);
+            return true;
+        } finally {
+            stripe.Lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void SaveUpdateUser(IUser user) {
+        Stripe stripe = StripeFor(user.GetID());
+        stripe.Lock.writeLock().lock();
+        try {
+            Upsert(stripe, user);
+        } finally {
+            stripe.Lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public long SaveUpdateUser(IUser user, long expectedVersion) throws VersionConflictException {
+        Stripe stripe = StripeFor(user.GetID());
+        stripe.Lock.writeLock().lock();
+        try {
+            UserEntry entry = stripe.Users.get(user.GetID());
+            long currentVersion = entry == null ? 0L : entry.Version;
+            if (currentVersion != expectedVersion) {
+                throw new VersionConflictException("User " + user.GetID() + " is at version " + currentVersion
+                        + " but version " + expectedVersion + " was expected");
+            }
+            return Upsert(stripe, user);
+        } finally {
+            stripe.Lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public long GetUserVersion(UUID id) {
+        Stripe stripe = StripeFor(id);
+        stripe.Lock.readLock().lock();
+        try {
+            UserEntry entry = stripe.Users.get(id);
+            return entry == null ? 0L : entry.Version;
+        } finally {
+            stripe.Lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<IUser> GetUserById(UUID id) {
+        Stripe stripe = StripeFor(id);
+        stripe.Lock.readLock().lock();
+        try {
+            UserEntry entry = stripe.Users.get(id);
+            return entry == null ? Optional.empty() : Optional.of(entry.User);
+        } finally {
+            stripe.Lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<IUserAuth> GetUserAuthById(UUID id) {
+        Stripe stripe = StripeFor(id);
+        stripe.Lock.readLock().lock();
+        try {
+            return Optional.ofNullable(stripe.Auth.get(id));
+        } finally {
+            stripe.Lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void SaveUpdateUserAuth(IUserAuth auth) throws NoSuchElementException {
+        UUID id = auth.GetID().orElseThrow();
+        Stripe stripe = StripeFor(id);
+        stripe.Lock.writeLock().lock();
+        try {
+            if (stripe.Auth.replace(id, auth) == null) {
+                throw new NoSuchElementException("No auth record for user " + id);
+            }
+        } finally {
+            stripe.Lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public BigDecimal GetAccountBalance(UUID id) {
+        return GetUserById(id)
+                .orElseThrow()
+                .GetAccount()
+                .orElseThrow()
+                .GetAccountBalance();
+    }
+
+    // Both stripes are write-locked in index order, so opposing transfers between the same pair of
+    // stripes queue behind each other instead of deadlocking.
+    @Override
+    public BigDecimal TransferBetweenAccounts(UUID fromId, UUID toId, BigDecimal amount) {
+        AccountTransfer.Validate(fromId, toId, amount);
+        int fromIndex = StripeIndex(fromId);
+        int toIndex = StripeIndex(toId);
+        Stripe first = stripes[Math.min(fromIndex, toIndex)];
+        Stripe second = stripes[Math.max(fromIndex, toIndex)];
+        first.Lock.writeLock().lock();
+        try {
+            if (second != first) {
+                second.Lock.writeLock().lock();
+            }
+            try {
+                UserEntry from = stripes[fromIndex].Users.get(fromId);
+                UserEntry to = stripes[toIndex].Users.get(toId);
+                if (from == null || to == null) {
+                    throw new NoSuchElementException("No user " + (from == null ? fromId : toId));
+                }
+                BigDecimal balance = AccountTransfer.Apply(from.User, to.User, amount);
+                from.Version++;
+                to.Version++;
+                return balance;
+            } finally {
+                if (second != first) {
+                    second.Lock.writeLock().unlock();
+                }
+            }
+        } finally {
+            first.Lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void DeleteAccount(IUser user) {
+        Stripe stripe = StripeFor(user.GetID());
+        stripe.Lock.writeLock().lock();
+        try {
+            UserEntry entry = stripe.Users.remove(user.GetID());
+            if (entry != null) {
+                usersInIdOrder.remove(user.GetID());
+                String key = UsernameKey.Normalise(entry.User.GetUsername());
+                usersByName.remove(key, entry);
+                usernameFilter.Remove(key);
+            }
+            if (stripe.Auth.remove(user.GetID()) == null) {
+                throw new NoSuchElementException("No auth record for user " + user.GetID());
+            }
+            if (entry != null) {
+                entry.ReleaseAccount();
+            }
+        } finally {
+            stripe.Lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public ArrayList<IUser> GetAllUsers() {
+        ArrayList<IUser> users = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            stripe.Lock.readLock().lock();
+            try {
+                for (UserEntry entry : stripe.Users.values()) {
+                    users.add(entry.User);
+                }
+            } finally {
+                stripe.Lock.readLock().unlock();
+            }
+        }
+        return users;
+    }
+
+    // The id index is walked without locks; each user is read under its stripe's read lock, as
+    // FindByName does.
+    @Override
+    public UserPage GetUsersPage(UserCursor cursor, int limit) {
+        Map<UUID, UserEntry> remaining = cursor.IsStart() ? usersInIdOrder : usersInIdOrder.tailMap(cursor.LastId(), false);
+        return UserPage.Collect(remaining.values().stream().map(this::ReadUser).iterator(), cursor, limit);
+    }
+
+    @Override
+    public ArrayList<IUserAuth> GetAllUserAuth() {
+        ArrayList<IUserAuth> auths = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            stripe.Lock.readLock().lock();
+            try {
+                auths.addAll(stripe.Auth.values());
+            } finally {
+                stripe.Lock.readLock().unlock();
+            }
+        }
+        return auths;
+    }
+
+    private IUser ReadUser(UserEntry entry) {
+        Stripe stripe = StripeFor(entry.User.GetID());
+        stripe.Lock.readLock().lock();
+        try {
+            return entry.User;
+        } finally {
+            stripe.Lock.readLock().unlock();
+        }
+    }
+
+    private Stripe StripeFor(UUID id) {
+        return stripes[StripeIndex(id)];
+    }
+
+    private int StripeIndex(UUID id) {
+        int hash = id.hashCode();
+        return (hash ^ (hash >>> 16)) & stripeMask;
+    }
+
+    // Caller must hold the stripe's write lock, or be the constructor.
+    private long Upsert(Stripe stripe, IUser user) {
+        UserEntry entry = stripe.Users.get(user.GetID());
+        if (entry == null) {
+            entry = new UserEntry(user);
+            String key = UsernameKey.Normalise(user.GetUsername());
+            ClaimName(key, entry);
+            stripe.Users.put(user.GetID(), entry);
+            usersInIdOrder.put(user.GetID(), entry);
+            usernameFilter.Add(key);
+            return entry.Version;
+        }
+
+        if (entry.User != user && !entry.User.GetUsername().equals(user.GetUsername())) {
+            String oldKey = UsernameKey.Normalise(entry.User.GetUsername());
+            String newKey = UsernameKey.Normalise(user.GetUsername());
+            if (!oldKey.equals(newKey)) {
+                ClaimName(newKey, entry);
+                usersByName.remove(oldKey, entry);
+                usernameFilter.Remove(oldKey);
+                usernameFilter.Add(newKey);
+            }
+        }
+        entry.User = user;
+        entry.Version++;
+        return entry.Version;
+    }
+
+    // Takes the name for entry unless another user already holds it. Runs before anything else
+    // changes, so a clash leaves the repository as it was.
+    private void ClaimName(String key, UserEntry entry) {
+        UserEntry holder = usersByName.putIfAbsent(key, entry);
+        if (holder != null && holder != entry) {
+            throw new DuplicateUserException("Username " + key + " is already taken");
+        }
+    }
+
+    private static final class Stripe {
+        private final ReentrantReadWriteLock Lock = new ReentrantReadWriteLock();
+        private final HashMap<UUID, UserEntry> Users = new HashMap<>();
+        private final HashMap<UUID, IUserAuth> Auth = new HashMap<>();
+    }
+}
@@ -0,0 +1,58 @@
+package org.beaverbrooks.repository;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.UUID;
+
+// A position in a scan of users in id order: the scan carries on with the first user whose id is
+// greater than LastId, or from the first user when LastId is null. It names an id rather than an
+// offset, so it stays valid while users are added and deleted, including the one it names.
+//
+// ToToken gives an opaque string for handing to a client or storing between runs of a job.
+public record UserCursor(UUID LastId) {
+
+    private static final UserCursor START = new UserCursor(null);
+
+    public static UserCursor Start() {
+        return START;
+    }
+
+    public static UserCursor After(UUID id) {
+        return new UserCursor(id);
+    }
+
+    public boolean IsStart() {
+        return LastId == null;
+    }
+
+    // Whether id comes after this position, that is, whether a scan from here still has it ahead.
+    public boolean Precedes(UUID id) {
+        return LastId == null || id.compareTo(LastId) > 0;
+    }
+
+    public String ToToken() {
+        if (LastId == null) {
+            return "";
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(16);
+        bytes.putLong(LastId.getMostSignificantBits()).putLong(LastId.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.array());
+    }
+
+    public static UserCursor FromToken(String token) {
+        if (token.isEmpty()) {
+            return START;
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor token", e);
+        }
+        if (bytes.length != 16) {
+            throw new IllegalArgumentException("Malformed cursor token");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UserCursor(new UUID(buffer.getLong(), buffer.getLong()));
+    }
+}
@@ -0,0 +1,19 @@
+package org.beaverbrooks.repository;
+
+import org.beaverbrooks.domain.account.IAccount;
+import org.beaverbrooks.domain.user.IUser;
+
+final class UserEntry {
+    IUser User;
+    long Version;
+
+    UserEntry(IUser user) {
+        User = user;
+        Version = 1L;
+    }
+
+    // Called once the user has been deleted, so an off-heap balance slot can be reused.
+    void ReleaseAccount() {
+        User.GetAccount().ifPresent(IAccount::Release);
+    }
+}
@@ -0,0 +1,35 @@
+package org.beaverbrooks.repository;
+
+import org.beaverbrooks.domain.user.IUser;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+// One page of a scan in id order. Next resumes the scan after this page. A page can be shorter
+// than the limit asked for, or empty, while HasMore is still true; only HasMore false means the
+// scan has reached the last user. Next stays usable after that too, for picking up users added
+// later.
+public record UserPage(List<IUser> Users, UserCursor Next, boolean HasMore) {
+
+    public UserPage {
+        Users = List.copyOf(Users);
+    }
+
+    // Takes up to limit users from an iterator already positioned after cursor, in id order.
+    static UserPage Collect(Iterator<IUser> users, UserCursor cursor, int limit) {
+        CheckLimit(limit);
+        ArrayList<IUser> page = new ArrayList<>(Math.min(limit, 1024));
+        while (page.size() < limit && users.hasNext()) {
+            page.add(users.next());
+        }
+        UserCursor next = page.isEmpty() ? cursor : UserCursor.After(page.getLast().GetID());
+        return new UserPage(page, next, users.hasNext());
+    }
+
+    static void CheckLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page limit must be at least 1");
+        }
+    }
+}
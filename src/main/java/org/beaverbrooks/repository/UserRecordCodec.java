@@ -0,0 +1,121 @@
+package org.beaverbrooks.repository;
+
+import org.beaverbrooks.domain.account.CustomerAccount;
+import org.beaverbrooks.domain.account.IAccount;
+import org.beaverbrooks.domain.user.Business;
+import org.beaverbrooks.domain.user.Customer;
+import org.beaverbrooks.domain.user.IUser;
+import org.beaverbrooks.domain.user.IUserAuth;
+import org.beaverbrooks.domain.user.PasswordHasher;
+import org.beaverbrooks.domain.user.UserAuth;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.UUID;
+import java.util.function.Function;
+
+final class UserRecordCodec {
+
+    private static final byte CUSTOMER = 1;
+    private static final byte BUSINESS = 2;
+
+    private UserRecordCodec() {
+    }
+
+    static void WriteUser(DataOutput out, IUser user) throws IOException {
+        if (user instanceof Customer customer) {
+            out.writeByte(CUSTOMER);
+            WriteId(out, customer.GetID());
+            out.writeUTF(customer.GetUsername());
+            out.writeUTF(customer.GetFirstName());
+            out.writeUTF(customer.GetLastName());
+        } else if (user instanceof Business business) {
+            out.writeByte(BUSINESS);
+            WriteId(out, business.GetID());
+            out.writeUTF(business.GetUsername());
+        } else {
+            throw new IllegalArgumentException("Cannot encode user type " + user.getClass().getName());
+        }
+        WriteAmount(out, user.GetAccount().orElseThrow().GetAccountBalance());
+    }
+
+    static IUser ReadUser(DataInput in) throws IOException {
+        return ReadUser(in, CustomerAccount::new);
+    }
+
+    // The balance is restored as the account's opening balance, not replayed as a deposit.
+    // openAccount builds the account from it, so restored users get the same kind of account as
+    // newly opened ones.
+    static IUser ReadUser(DataInput in, Function<BigDecimal, IAccount> openAccount) throws IOException {
+        byte type = in.readByte();
+        UUID id = ReadId(in);
+        String username = in.readUTF();
+        return switch (type) {
+            case CUSTOMER -> {
+                String firstName = in.readUTF();
+                String lastName = in.readUTF();
+                yield new Customer(username, firstName, lastName, id, openAccount.apply(ReadAmount(in)));
+            }
+            case BUSINESS -> new Business(username, id, openAccount.apply(ReadAmount(in)));
+            default -> throw new IOException("Unknown user type " + type);
+        };
+    }
+
+    static void WriteAuth(DataOutput out, IUserAuth auth) throws IOException {
+        if (!(auth instanceof UserAuth userAuth)) {
+            throw new IllegalArgumentException("Cannot encode auth type " + auth.getClass().getName());
+        }
+        WriteId(out, userAuth.GetID().orElseThrow());
+        out.writeUTF(userAuth.GetPasswordHash());
+    }
+
+    static IUserAuth ReadAuth(DataInput in) throws IOException {
+        UUID id = ReadId(in);
+        String stored = in.readUTF();
+        if (!PasswordHasher.IsHash(stored)) {
+            throw new IOException("Auth record for user " + id + " holds no password hash");
+        }
+        return UserAuth.FromHash(id, stored);
+    }
+
+    // Logs and version 1 snapshots written before passwords were hashed hold the plaintext. It is
+    // hashed here as the log is replayed or the snapshot rewritten, never on a lookup, and never
+    // reaches memory unhashed again.
+    static IUserAuth ReadLegacyAuth(DataInput in) throws IOException {
+        UUID id = ReadId(in);
+        String stored = in.readUTF();
+        return PasswordHasher.IsHash(stored) ? UserAuth.FromHash(id, stored)
+                : UserAuth.FromPassword(id, stored, PasswordHasher.DEFAULT_ITERATIONS);
+    }
+
+    static void SkipAuth(DataInput in) throws IOException {
+        ReadId(in);
+        in.skipBytes(in.readUnsignedShort());
+    }
+
+    static void WriteId(DataOutput out, UUID id) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    static UUID ReadId(DataInput in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    static void WriteAmount(DataOutput out, BigDecimal amount) throws IOException {
+        byte[] unscaled = amount.unscaledValue().toByteArray();
+        out.writeInt(amount.scale());
+        out.writeByte(unscaled.length);
+        out.write(unscaled);
+    }
+
+    static BigDecimal ReadAmount(DataInput in) throws IOException {
+        int scale = in.readInt();
+        byte[] unscaled = new byte[in.readUnsignedByte()];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+}
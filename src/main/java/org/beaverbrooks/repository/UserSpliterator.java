@@ -0,0 +1,74 @@
+package org.beaverbrooks.repository;
+
+import org.beaverbrooks.domain.user.IUser;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+// Walks a repository's users in id order one page at a time, so a scan never holds more than a
+// page of them. Splitting hands the rest of the current page, or the next page when that is used
+// up, to the other side; each page is fetched by whichever thread owns this spliterator, and the
+// pages it hands out split further by index.
+final class UserSpliterator implements Spliterator<IUser> {
+
+    private final IDataRepository repository;
+    private final int pageSize;
+    private UserCursor cursor;
+    private boolean exhausted;
+    private List<IUser> page = List.of();
+    private int next;
+
+    UserSpliterator(IDataRepository repository, UserCursor from, int pageSize) {
+        UserPage.CheckLimit(pageSize);
+        this.repository = repository;
+        this.cursor = from;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super IUser> action) {
+        while (next == page.size()) {
+            if (!FetchPage()) {
+                return false;
+            }
+        }
+        action.accept(page.get(next++));
+        return true;
+    }
+
+    @Override
+    public Spliterator<IUser> trySplit() {
+        while (next == page.size()) {
+            if (!FetchPage()) {
+                return null;
+            }
+        }
+        Spliterator<IUser> prefix = page.subList(next, page.size()).spliterator();
+        page = List.of();
+        next = 0;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return exhausted ? page.size() - next : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | DISTINCT | NONNULL;
+    }
+
+    private boolean FetchPage() {
+        if (exhausted) {
+            return false;
+        }
+        UserPage fetched = repository.GetUsersPage(cursor, pageSize);
+        page = fetched.Users();
+        next = 0;
+        cursor = fetched.Next();
+        exhausted = !fetched.HasMore();
+        return true;
+    }
+}
@@ -0,0 +1,286 @@
+package org.beaverbrooks.repository;
+
+import java.util.ArrayList;
+
+// Approximate set of case-folded usernames, used to skip the FindByName that proves a new name is
+// free. MightContain never answers false for a name that was added and not removed; it answers true
+// for an absent name about once in 8,000 lookups per table at full load, and proportionally less
+// below it.
+//
+// Each table is a cuckoo filter: every name has a 16-bit fingerprint that lives in one of two
+// buckets of four slots, and one bucket is packed into a long. Unlike a Bloom filter a name can be
+// removed again, which deleting an account and renaming a user need. Removing a name that was never
+// added can remove another name's fingerprint, so callers only remove names they added.
+//
+// A cuckoo table cannot be resized without the names it was built from, so when the newest table
+// fills up a new one of twice the size takes the further additions. Lookups check every table;
+// with doubling there are only a handful even after many times the initial expected count.
+//
+// The tables are split into shards by name hash, each behind its own lock, so concurrent sign-ups
+// and availability checks only wait on each other when their names land in the same shard.
+final class UsernameFilter {
+
+    private static final int SLOTS_PER_BUCKET = 4;
+    private static final int FINGERPRINT_BITS = 16;
+    private static final long FINGERPRINT_MASK = (1L << FINGERPRINT_BITS) - 1;
+    private static final double MAX_LOAD = 0.95;
+    private static final int MAX_KICKS = 500;
+    private static final int MIN_BUCKETS = 64;
+    private static final int SHARDS = 16;
+
+    private final Shard[] shards = new Shard[SHARDS];
+
+    UsernameFilter(int expectedNames) {
+        // Names do not split evenly, so each shard is sized with a few standard deviations to spare.
+        int perShard = expectedNames / SHARDS;
+        perShard += 4 * (int) Math.sqrt(perShard);
+        int buckets = MIN_BUCKETS;
+        while (buckets * SLOTS_PER_BUCKET * MAX_LOAD < perShard) {
+            buckets <<= 1;
+        }
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard(buckets);
+        }
+    }
+
+    void Add(String normalisedName) {
+        long hash = Hash(normalisedName);
+        ShardFor(hash).Add(hash);
+    }
+
+    // Returns whether a fingerprint for the name was found and removed.
+    boolean Remove(String normalisedName) {
+        long hash = Hash(normalisedName);
+        return ShardFor(hash).Remove(hash);
+    }
+
+    boolean MightContain(String normalisedName) {
+        long hash = Hash(normalisedName);
+        return ShardFor(hash).MightContain(hash);
+    }
+
+    long GetCount() {
+        long count = 0;
+        for (Shard shard : shards) {
+            count += shard.GetCount();
+        }
+        return count;
+    }
+
+    long GetMemoryBytes() {
+        long bytes = 0;
+        for (Shard shard : shards) {
+            bytes += shard.GetMemoryBytes();
+        }
+        return bytes;
+    }
+
+    // The most tables any one shard has grown to.
+    int GetTableCount() {
+        int tables = 0;
+        for (Shard shard : shards) {
+            tables = Math.max(tables, shard.GetTableCount());
+        }
+        return tables;
+    }
+
+    // Bits 40 to 43 of the hash, which neither the bucket index (the low bits) nor the fingerprint
+    // (the top 16) uses, so every shard still sees evenly spread buckets and fingerprints.
+    private Shard ShardFor(long hash) {
+        return shards[(int) (hash >>> 40) & (SHARDS - 1)];
+    }
+
+    // The snapshot's FNV-1a name hash, finished with a 64-bit mixer so that the bucket index and
+    // fingerprint bits are independent even for short names differing in one character.
+    private static long Hash(String normalisedName) {
+        long hash = SnapshotFile.NameHash(normalisedName);
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    // The tables for one slice of the hash space. Each shard has its own lock, so names in
+    // different shards are added, removed and looked up side by side.
+    private static final class Shard {
+        private final ArrayList<Table> tables = new ArrayList<>();
+
+        private Shard(int buckets) {
+            tables.add(new Table(buckets));
+        }
+
+        private synchronized void Add(long hash) {
+            Table newest = tables.getLast();
+            if (newest.IsFull()) {
+                newest = new Table(newest.buckets.length << 1);
+                tables.add(newest);
+            }
+            newest.Add(hash);
+        }
+
+        private synchronized boolean Remove(long hash) {
+            for (int i = tables.size() - 1; i >= 0; i--) {
+                if (tables.get(i).Remove(hash)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private synchronized boolean MightContain(long hash) {
+            for (Table table : tables) {
+                if (table.Contains(hash)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private synchronized long GetCount() {
+            long count = 0;
+            for (Table table : tables) {
+                count += table.count;
+            }
+            return count;
+        }
+
+        private synchronized long GetMemoryBytes() {
+            long bytes = 0;
+            for (Table table : tables) {
+                bytes += (long) table.buckets.length * Long.BYTES;
+            }
+            return bytes;
+        }
+
+        private synchronized int GetTableCount() {
+            return tables.size();
+        }
+    }
+
+    // Guarded by its shard's lock.
+    private static final class Table {
+        // Four 16-bit fingerprints per bucket; 0 marks an empty slot, so no fingerprint is 0.
+        private final long[] buckets;
+        private final int mask;
+        private final int limit;
+        private int count;
+        // A fingerprint left over when an insertion ran out of kicks. It is still a member, so the
+        // table takes no more additions until a removal makes room for it.
+        private long victim;
+        private int victimBucket;
+        private long random = 0x9E3779B97F4A7C15L;
+
+        private Table(int bucketCount) {
+            buckets = new long[bucketCount];
+            mask = bucketCount - 1;
+            limit = (int) (bucketCount * SLOTS_PER_BUCKET * MAX_LOAD);
+        }
+
+        private boolean IsFull() {
+            return victim != 0 || count >= limit;
+        }
+
+        private void Add(long hash) {
+            long fingerprint = Fingerprint(hash);
+            int first = (int) hash & mask;
+            int second = AlternateBucket(first, fingerprint);
+            count++;
+            if (Put(first, fingerprint) || Put(second, fingerprint)) {
+                return;
+            }
+            int bucket = (NextRandom() & 1) == 0 ? first : second;
+            for (int kick = 0; kick < MAX_KICKS; kick++) {
+                int shift = (NextRandom() & (SLOTS_PER_BUCKET - 1)) * FINGERPRINT_BITS;
+                long evicted = (buckets[bucket] >>> shift) & FINGERPRINT_MASK;
+                buckets[bucket] = (buckets[bucket] & ~(FINGERPRINT_MASK << shift)) | (fingerprint << shift);
+                fingerprint = evicted;
+                bucket = AlternateBucket(bucket, fingerprint);
+                if (Put(bucket, fingerprint)) {
+                    return;
+                }
+            }
+            victim = fingerprint;
+            victimBucket = bucket;
+        }
+
+        private boolean Remove(long hash) {
+            long fingerprint = Fingerprint(hash);
+            int first = (int) hash & mask;
+            int second = AlternateBucket(first, fingerprint);
+            if (victim == fingerprint && (victimBucket == first || victimBucket == second)) {
+                victim = 0;
+                count--;
+                return true;
+            }
+            if (!Take(first, fingerprint) && !Take(second, fingerprint)) {
+                return false;
+            }
+            count--;
+            if (victim != 0 && (Put(victimBucket, victim) || Put(AlternateBucket(victimBucket, victim), victim))) {
+                victim = 0;
+            }
+            return true;
+        }
+
+        private boolean Contains(long hash) {
+            long fingerprint = Fingerprint(hash);
+            int first = (int) hash & mask;
+            int second = AlternateBucket(first, fingerprint);
+            if (victim == fingerprint && (victimBucket == first || victimBucket == second)) {
+                return true;
+            }
+            return Holds(buckets[first], fingerprint) || Holds(buckets[second], fingerprint);
+        }
+
+        private boolean Put(int bucket, long fingerprint) {
+            long slots = buckets[bucket];
+            for (int shift = 0; shift < Long.SIZE; shift += FINGERPRINT_BITS) {
+                if (((slots >>> shift) & FINGERPRINT_MASK) == 0) {
+                    buckets[bucket] = slots | (fingerprint << shift);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean Take(int bucket, long fingerprint) {
+            long slots = buckets[bucket];
+            for (int shift = 0; shift < Long.SIZE; shift += FINGERPRINT_BITS) {
+                if (((slots >>> shift) & FINGERPRINT_MASK) == fingerprint) {
+                    buckets[bucket] = slots & ~(FINGERPRINT_MASK << shift);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int NextRandom() {
+            random ^= random << 13;
+            random ^= random >>> 7;
+            random ^= random << 17;
+            return (int) (random >>> 32);
+        }
+
+        // The two buckets of a fingerprint are each other's alternate, so a fingerprint can be
+        // moved without knowing the name it came from.
+        private int AlternateBucket(int bucket, long fingerprint) {
+            return (bucket ^ (int) (fingerprint * 0x5bd1e995L)) & mask;
+        }
+    }
+
+    private static boolean Holds(long slots, long fingerprint) {
+        for (int shift = 0; shift < Long.SIZE; shift += FINGERPRINT_BITS) {
+            if (((slots >>> shift) & FINGERPRINT_MASK) == fingerprint) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long Fingerprint(long hash) {
+        long fingerprint = (hash >>> (Long.SIZE - FINGERPRINT_BITS)) & FINGERPRINT_MASK;
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+}
@@ -0,0 +1,33 @@
+package org.beaverbrooks.repository;
+
+public final class UsernameKey {
+
+    private UsernameKey() {
+    }
+
+    // Folds each code point the same way String.equalsIgnoreCase compares them, so two names
+    // share a key exactly when equalsIgnoreCase would consider them equal.
+    public static String Normalise(String username) {
+        int length = username.length();
+        int i = 0;
+        while (i < length) {
+            char c = username.charAt(i);
+            if (c >= 0x80 || (c >= 'A' && c <= 'Z')) {
+                break;
+            }
+            i++;
+        }
+        if (i == length) {
+            return username;
+        }
+
+        StringBuilder folded = new StringBuilder(length);
+        folded.append(username, 0, i);
+        while (i < length) {
+            int codePoint = username.codePointAt(i);
+            folded.appendCodePoint(Character.toLowerCase(Character.toUpperCase(codePoint)));
+            i += Character.charCount(codePoint);
+        }
+        return folded.toString();
+    }
+}
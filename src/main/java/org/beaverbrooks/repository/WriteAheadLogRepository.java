@@ -0,0 +1,454 @@
+package org.beaverbrooks.repository;
+
+import org.beaverbrooks.domain.account.CustomerAccount;
+import org.beaverbrooks.domain.account.IAccount;
+import org.beaverbrooks.domain.user.IUser;
+import org.beaverbrooks.domain.user.IUserAuth;
+import org.beaverbrooks.shared.exceptions.DuplicateUserException;
+import org.beaverbrooks.shared.exceptions.VersionConflictException;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Makes a delegate's writes durable. Every write is logged, and waits for the log to reach disk,
+// before the delegate applies it, so nothing a reader can see through the repository is lost in a
+// crash. Balances are the exception: callers change an account in place and then save the user,
+// so a reader holding the user can see the new balance before its update is durable. The callers
+// (UserDataService, AccountCommandEngine) take the change back out if the save fails. Writes that
+// touch the same user or username hold the same locks while they are checked, logged and applied,
+// so the log has them in the order the delegate applied them and replay reaches the same outcome.
+// Checks that can be made up front are, so a write that is bound to fail is refused without being
+// logged. A logged write the delegate still turns down is followed by a REFUSED record; replay
+// expects exactly those writes to fail again, and refuses to open a log whose outcomes differ.
+//
+// Checkpoint writes the delegate's state to a snapshot file and empties the log, which then starts
+// with a CHECKPOINT record naming the snapshot's generation. Reopened over that snapshot, the log
+// skips any records from an earlier generation, which a crash partway through a checkpoint leaves
+// behind, since the snapshot already holds them.
+public class WriteAheadLogRepository implements IDataRepository, AutoCloseable {
+
+    private static final byte NEW_USER = 1;
+    private static final byte UPDATE_USER = 2;
+    private static final byte DELETE_USER = 3;
+    // Both users' state after the transfer; only found in logs written before TRANSFER_AMOUNT.
+    private static final byte TRANSFER = 4;
+    private static final byte UPDATE_AUTH = 5;
+    private static final byte TRANSFER_AMOUNT = 6;
+    private static final byte CHECKPOINT = 7;
+    // The position of an earlier record whose write the delegate turned down.
+    private static final byte REFUSED = 8;
+
+    private static final int WRITE_LOCKS = 256;
+
+    private final IDataRepository delegate;
+    private final ReentrantLock[] writeLocks = new ReentrantLock[WRITE_LOCKS];
+    private final GroupCommitLog log;
+    private final Function<BigDecimal, IAccount> openAccount;
+    private final TreeMap<Long, RuntimeException> replayFailures = new TreeMap<>();
+    private long generation;
+    private long replayGeneration;
+    private long replayPosition;
+
+    // Replays the log at logFile into the delegate before accepting writes. The delegate holds
+    // the live state; this class only makes its mutations durable.
+    public WriteAheadLogRepository(Path logFile, IDataRepository delegate) throws IOException {
+        this(logFile, delegate, 0);
+    }
+
+    // baseGeneration is the generation of the snapshot the delegate was loaded from; records the
+    // log holds from before that snapshot's checkpoint are skipped, and the log is then emptied.
+    public WriteAheadLogRepository(Path logFile, IDataRepository delegate, long baseGeneration) throws IOException {
+        this(logFile, delegate, baseGeneration, CustomerAccount::new);
+    }
+
+    // Replayed users get their accounts from openAccount, given the balance in the log.
+    public WriteAheadLogRepository(Path logFile, IDataRepository delegate, long baseGeneration,
+                                   Function<BigDecimal, IAccount> openAccount) throws IOException {
+        this.delegate = delegate;
+        this.openAccount = openAccount;
+        for (int i = 0; i < WRITE_LOCKS; i++) {
+            writeLocks[i] = new ReentrantLock();
+        }
+        generation = baseGeneration;
+        log = new GroupCommitLog(logFile, this::Apply);
+        if (!replayFailures.isEmpty()) {
+            log.close();
+            Map.Entry<Long, RuntimeException> first = replayFailures.firstEntry();
+            throw new IOException("Log record " + first.getKey() + " failed on replay but was applied when written",
+                    first.getValue());
+        }
+        if (replayGeneration != generation) {
+            log.Truncate();
+            AppendCheckpoint();
+        }
+    }
+
+    // Writes everything applied so far to snapshotFile as the next generation, then empties the log
+    // so it only holds writes made after the snapshot. Writes wait while this runs. Reopen with a
+    // SnapshotRepository over snapshotFile and pass its GetGeneration as the base generation.
+    public void Checkpoint(Path snapshotFile) throws IOException {
+        int[] all = new int[WRITE_LOCKS];
+        Arrays.setAll(all, i -> i);
+        LockIndices(all);
+        try {
+            log.Sync();
+            SnapshotFile.Write(snapshotFile, delegate, generation + 1);
+            generation++;
+            log.Truncate();
+            AppendCheckpoint();
+        } finally {
+            Unlock(all);
+        }
+    }
+
+    public long GetGeneration() {
+        return generation;
+    }
+
+    @Override
+    public Optional<IUser> FindByName(String name) {
+        return delegate.FindByName(name);
+    }
+
+    @Override
+    public boolean MightContainUsername(String name) {
+        return delegate.MightContainUsername(name);
+    }
+
+    @Override
+    public void SaveNewUser(IUserAuth auth, IUser user) {
+        int[] held = Lock(user.GetID(), UsernameKey.Normalise(user.GetUsername()));
+        try {
+            CheckNameFree(user);
+            ApplyLogged(AppendNewUser(auth, user), () -> delegate.SaveNewUser(auth, user));
+        } finally {
+            Unlock(held);
+        }
+    }
+
+    // A name that is already taken changes nothing, so it is turned away before anything is logged.
+    @Override
+    public boolean SaveNewUserIfAbsent(IUserAuth auth, IUser user) {
+        int[] held = Lock(user.GetID(), UsernameKey.Normalise(user.GetUsername()));
+        try {
+            if (delegate.FindByName(user.GetUsername()).isPresent()) {
+                return false;
+            }
+            long sequence = AppendNewUser(auth, user);
+            boolean saved = ApplyLogged(sequence, () -> delegate.SaveNewUserIfAbsent(auth, user));
+            if (!saved) {
+                AppendRefused(sequence);
+            }
+            return saved;
+        } finally {
+            Unlock(held);
+        }
+    }
+
+    @Override
+    public void SaveUpdateUser(IUser user) {
+        int[] held = LockUser(user);
+        try {
+            CheckNameFree(user);
+            ApplyLogged(AppendUpdate(user), () -> delegate.SaveUpdateUser(user));
+        } finally {
+            Unlock(held);
+        }
+    }
+
+    @Override
+    public long SaveUpdateUser(IUser user, long expectedVersion) throws VersionConflictException {
+        int[] held = LockUser(user);
+        try {
+            long currentVersion = delegate.GetUserVersion(user.GetID());
+            if (currentVersion != expectedVersion) {
+                throw new VersionConflictException("User " + user.GetID() + " is at version " + currentVersion
+                        + " but version " + expectedVersion + " was expected");
+            }
+            CheckNameFree(user);
+            return ApplyLogged(AppendUpdate(user), () -> delegate.SaveUpdateUser(user, expectedVersion));
+        } finally {
+            Unlock(held);
+        }
+    }
+
+    @Override
+    public long GetUserVersion(UUID id) {
+        return delegate.GetUserVersion(id);
+    }
+
+    @Override
+    public Optional<IUser> GetUserById(UUID id) {
+        return delegate.GetUserById(id);
+    }
+
+    @Override
+    public Optional<IUserAuth> GetUserAuthById(UUID id) {
+        return delegate.GetUserAuthById(id);
+    }
+
+    @Override
+    public void SaveUpdateUserAuth(IUserAuth auth) throws NoSuchElementException {
+        UUID id = auth.GetID().orElseThrow();
+        int[] held = Lock(id);
+        try {
+            if (delegate.GetUserAuthById(id).isEmpty()) {
+                throw new NoSuchElementException("No auth record for user " + id);
+            }
+            long sequence = log.Append(out -> {
+                out.writeByte(UPDATE_AUTH);
+                UserRecordCodec.WriteAuth(out, auth);
+            });
+            ApplyLogged(sequence, () -> delegate.SaveUpdateUserAuth(auth));
+        } finally {
+            Unlock(held);
+        }
+    }
+
+    @Override
+    public BigDecimal GetAccountBalance(UUID id) {
+        return delegate.GetAccountBalance(id);
+    }
+
+    // Logged as the two ids and the amount, in one record so a crash can never replay one side of
+    // a transfer. Replay runs the transfer again, which lands on the same balances because every
+    // other write to either user is logged in the order it was applied.
+    @Override
+    public BigDecimal TransferBetweenAccounts(UUID fromId, UUID toId, BigDecimal amount) {
+        AccountTransfer.Validate(fromId, toId, amount);
+        int[] held = Lock(fromId, toId);
+        try {
+            for (UUID id : new UUID[]{fromId, toId}) {
+                if (delegate.GetUserById(id).isEmpty()) {
+                    throw new NoSuchElementException("No user " + id);
+                }
+            }
+            long sequence = log.Append(out -> {
+                out.writeByte(TRANSFER_AMOUNT);
+                UserRecordCodec.WriteId(out, fromId);
+                UserRecordCodec.WriteId(out, toId);
+                UserRecordCodec.WriteAmount(out, amount);
+            });
+            return ApplyLogged(sequence, () -> delegate.TransferBetweenAccounts(fromId, toId, amount));
+        } finally {
+            Unlock(held);
+        }
+    }
+
+    @Override
+    public void DeleteAccount(IUser user) {
+        int[] held = LockUser(user);
+        try {
+            if (delegate.GetUserAuthById(user.GetID()).isEmpty()) {
+                throw new NoSuchElementException("No auth record for user " + user.GetID());
+            }
+            long sequence = log.Append(out -> {
+                out.writeByte(DELETE_USER);
+                UserRecordCodec.WriteId(out, user.GetID());
+            });
+            ApplyLogged(sequence, () -> delegate.DeleteAccount(user));
+        } finally {
+            Unlock(held);
+        }
+    }
+
+    @Override
+    public ArrayList<IUser> GetAllUsers() {
+        return delegate.GetAllUsers();
+    }
+
+    @Override
+    public UserPage GetUsersPage(UserCursor cursor, int limit) {
+        return delegate.GetUsersPage(cursor, limit);
+    }
+
+    @Override
+    public ArrayList<IUserAuth> GetAllUserAuth() {
+        return delegate.GetAllUserAuth();
+    }
+
+    @Override
+    public void close() throws IOException {
+        log.close();
+    }
+
+    // Update records carry the full user including its balance, so replaying the last record for
+    // a user restores it regardless of how many deposits or withdrawals came before.
+    private long AppendNewUser(IUserAuth auth, IUser user) {
+        return log.Append(out -> {
+            out.writeByte(NEW_USER);
+            UserRecordCodec.WriteAuth(out, auth);
+            UserRecordCodec.WriteUser(out, user);
+        });
+    }
+
+    // Applies a logged write once its record is durable. If the delegate turns it down, that is
+    // logged too, so replay knows to expect the same.
+    private void ApplyLogged(long sequence, Runnable apply) {
+        ApplyLogged(sequence, () -> {
+            apply.run();
+            return null;
+        });
+    }
+
+    private <T> T ApplyLogged(long sequence, Supplier<T> apply) {
+        log.AwaitDurable(sequence);
+        try {
+            return apply.get();
+        } catch (RuntimeException e) {
+            try {
+                AppendRefused(sequence);
+            } catch (RuntimeException logFailure) {
+                e.addSuppressed(logFailure);
+            }
+            throw e;
+        }
+    }
+
+    private void AppendRefused(long sequence) {
+        log.AwaitDurable(log.Append(out -> {
+            out.writeByte(REFUSED);
+            out.writeLong(sequence);
+        }));
+    }
+
+    private void AppendCheckpoint() {
+        long checkpoint = generation;
+        log.AwaitDurable(log.Append(out -> {
+            out.writeByte(CHECKPOINT);
+            out.writeLong(checkpoint);
+        }));
+    }
+
+    private long AppendUpdate(IUser user) {
+        return log.Append(out -> {
+            out.writeByte(UPDATE_USER);
+            UserRecordCodec.WriteUser(out, user);
+        });
+    }
+
+    // The name being given up, the name being taken and the user itself. The current name is read
+    // before the locks are taken, so it is read again afterwards and the locks retaken if a rename
+    // got in between.
+    private int[] LockUser(IUser user) {
+        while (true) {
+            String current = CurrentUsername(user);
+            int[] held = Lock(user.GetID(), UsernameKey.Normalise(current), UsernameKey.Normalise(user.GetUsername()));
+            if (CurrentUsername(user).equals(current)) {
+                return held;
+            }
+            Unlock(held);
+        }
+    }
+
+    private String CurrentUsername(IUser user) {
+        return delegate.GetUserById(user.GetID()).map(IUser::GetUsername).orElse(user.GetUsername());
+    }
+
+    // Keys are user ids and normalised usernames. The locks are taken in index order, so two writes
+    // never wait on each other in a cycle.
+    private int[] Lock(Object... keys) {
+        int[] indices = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            int hash = keys[i].hashCode();
+            indices[i] = (hash ^ (hash >>> 16)) & (WRITE_LOCKS - 1);
+        }
+        Arrays.sort(indices);
+        LockIndices(indices);
+        return indices;
+    }
+
+    private void LockIndices(int[] indices) {
+        for (int i = 0; i < indices.length; i++) {
+            if (i == 0 || indices[i] != indices[i - 1]) {
+                writeLocks[indices[i]].lock();
+            }
+        }
+    }
+
+    private void Unlock(int[] indices) {
+        for (int i = indices.length - 1; i >= 0; i--) {
+            if (i == 0 || indices[i] != indices[i - 1]) {
+                writeLocks[indices[i]].unlock();
+            }
+        }
+    }
+
+    private void CheckNameFree(IUser user) {
+        Optional<IUser> holder = delegate.FindByName(user.GetUsername());
+        if (holder.isPresent() && !holder.get().GetID().equals(user.GetID())) {
+            throw new DuplicateUserException("Username " + UsernameKey.Normalise(user.GetUsername()) + " is already taken");
+        }
+    }
+
+    // A record whose write the delegate turned down fails the same way on replay, since the writes
+    // before it are replayed in the order they were applied. Its failure is held until the REFUSED
+    // record that follows it turns up; any left over once the log is read stop it from opening.
+    private void Apply(DataInputStream in) throws IOException {
+        long position = ++replayPosition;
+        byte type = in.readByte();
+        if (type == CHECKPOINT) {
+            replayGeneration = in.readLong();
+            if (replayGeneration > generation) {
+                throw new IOException("Log follows checkpoint " + replayGeneration
+                        + " but the snapshot is at generation " + generation);
+            }
+            return;
+        }
+        if (replayGeneration < generation) {
+            return;
+        }
+        if (type == REFUSED) {
+            long refused = in.readLong();
+            if (replayFailures.remove(refused) == null) {
+                throw new IOException("Log record " + refused + " was refused when written but applies on replay");
+            }
+            return;
+        }
+        try {
+            ApplyRecord(type, in);
+        } catch (RuntimeException e) {
+            replayFailures.put(position, e);
+        }
+    }
+
+    private void ApplyRecord(byte type, DataInputStream in) throws IOException {
+        switch (type) {
+            case NEW_USER -> {
+                IUserAuth auth = UserRecordCodec.ReadLegacyAuth(in);
+                delegate.SaveNewUser(auth, UserRecordCodec.ReadUser(in, openAccount));
+            }
+            case UPDATE_USER -> delegate.SaveUpdateUser(UserRecordCodec.ReadUser(in, openAccount));
+            case TRANSFER -> {
+                IUser from = UserRecordCodec.ReadUser(in, openAccount);
+                IUser to = UserRecordCodec.ReadUser(in, openAccount);
+                delegate.SaveUpdateUser(from);
+                delegate.SaveUpdateUser(to);
+            }
+            case TRANSFER_AMOUNT -> {
+                UUID fromId = UserRecordCodec.ReadId(in);
+                UUID toId = UserRecordCodec.ReadId(in);
+                delegate.TransferBetweenAccounts(fromId, toId, UserRecordCodec.ReadAmount(in));
+            }
+            case UPDATE_AUTH -> delegate.SaveUpdateUserAuth(UserRecordCodec.ReadLegacyAuth(in));
+            case DELETE_USER -> {
+                UUID id = UserRecordCodec.ReadId(in);
+                delegate.DeleteAccount(delegate.GetUserById(id)
+                        .orElseThrow(() -> new NoSuchElementException("No user " + id)));
+            }
+            default -> throw new IOException("Unknown log record type " + type);
+        }
+    }
+}
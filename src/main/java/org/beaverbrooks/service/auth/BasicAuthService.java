@@ -5,6 +5,7 @@ import org.beaverbrooks.domain.user.IUserAuth;
 import org.beaverbrooks.repository.IDataRepository;
 import org.beaverbrooks.shared.AuthToken;
 import org.beaverbrooks.shared.exceptions.PasswordMismatchException;
+import org.beaverbrooks.shared.exceptions.RateLimitedException;
 import org.beaverbrooks.shared.exceptions.UserNotFoundException;
 
 import java.util.*;
@@ -12,20 +13,55 @@ import java.util.*;
 public class BasicAuthService implements IAuthService {
 
 
-    private final Map<UUID, AuthToken> sessions = new HashMap<>();
+    private final SessionStore sessions;
     private final IDataRepository dataRepository;
+    private final TokenSigner tokenSigner;
+    private final PasswordHashingExecutor passwordHashing;
+    private final LoginRateLimiter loginLimiter;
 
     public BasicAuthService(IDataRepository repository) {
+        this(repository, new SessionStore());
+    }
+
+    public BasicAuthService(IDataRepository repository, SessionStore sessionStore) {
+        this(repository, sessionStore, null);
+    }
+
+    // Token mode: sessions hand out signed tokens, and AuthAction verifies a signed token on its
+    // own instead of looking up the session.
+    public BasicAuthService(IDataRepository repository, SessionStore sessionStore, TokenSigner signer) {
+        this(repository, sessionStore, signer, new PasswordHashingExecutor());
+    }
+
+    public BasicAuthService(IDataRepository repository, SessionStore sessionStore, TokenSigner signer, PasswordHashingExecutor hashingExecutor) {
+        this(repository, sessionStore, signer, hashingExecutor, new LoginRateLimiter());
+    }
+
+    // A null limiter lets every login attempt through.
+    public BasicAuthService(IDataRepository repository, SessionStore sessionStore, TokenSigner signer, PasswordHashingExecutor hashingExecutor, LoginRateLimiter limiter) {
         dataRepository = repository;
+        sessions = sessionStore;
+        tokenSigner = signer;
+        passwordHashing = hashingExecutor;
+        loginLimiter = limiter;
     }
 
     @Override
     public void CreateUserSession(IUserAuth userAuth) throws NoSuchElementException {
-        sessions.put(userAuth.GetID().orElseThrow(), new AuthToken(userAuth.GetID().orElseThrow(), true));
+        UUID userID = userAuth.GetID().orElseThrow();
+        sessions.Put(userID, NewToken(userID));
     }
 
     @Override
-    public IUser UserLogin(String username, String password) throws UserNotFoundException, PasswordMismatchException, NoSuchElementException {
+    public IUserAuth CreateUserAuth(UUID userID, String password) {
+        return passwordHashing.Hash(userID, password);
+    }
+
+    @Override
+    public IUser UserLogin(String username, String password) throws UserNotFoundException, PasswordMismatchException, NoSuchElementException, RateLimitedException {
+        if (loginLimiter != null) {
+            loginLimiter.Acquire(username);
+        }
         Optional<IUser> optionalUser = dataRepository.FindByName(username);
         if (optionalUser.isEmpty()) {
             throw new UserNotFoundException("User does not exist in the database.");
@@ -36,17 +72,25 @@ public class BasicAuthService implements IAuthService {
             throw new UserNotFoundException("User exists but has no auth information!");
         }
 
-        Boolean passwordMatch = ComparePasswords(auth.get(), password);
+        boolean passwordMatch = passwordHashing.Verify(auth.get(), password);
         if (!passwordMatch) {
             throw new PasswordMismatchException("Username or password is incorrect.");
         }
-        sessions.put(user.GetID(),new AuthToken(user.GetID(), true));
+        // The plaintext is only ever in hand at login, so that is when a hash made at an old cost
+        // is replaced with one at the current cost.
+        if (auth.get().NeedsRehash(passwordHashing.GetTargetIterations())) {
+            dataRepository.SaveUpdateUserAuth(passwordHashing.Hash(user.GetID(), password));
+        }
+        sessions.Put(user.GetID(), NewToken(user.GetID()));
         return user;
     }
 
     @Override
-    public void UserLogout() {
-
+    public void UserLogout(UUID userID) {
+        sessions.Remove(userID);
+        if (tokenSigner != null) {
+            tokenSigner.Revoke(userID);
+        }
     }
 
 //    @Override
@@ -66,12 +110,17 @@ public class BasicAuthService implements IAuthService {
         if (!token.IsAuthed()){
             return false;
         }
-        return token.UserId().equals(userID);
+        if (token.IsSigned()) {
+            return tokenSigner != null && token.UserId().equals(userID) && tokenSigner.Verify(token);
+        }
+        // A token only authorises while the session it came from is live, so logout and expiry
+        // revoke it.
+        return token.UserId().equals(userID) && sessions.Get(userID).filter(token::equals).isPresent();
     }
 
     @Override
     public Optional<AuthToken> GetSessionToken(UUID userID) {
-        return Optional.ofNullable(sessions.get(userID));
+        return sessions.Get(userID);
     }
 
     @Override
@@ -79,7 +128,7 @@ public class BasicAuthService implements IAuthService {
         return "";
     }
 
-    private Boolean ComparePasswords(IUserAuth auth, String inputPassword) {
-        return auth.ComparePassword(inputPassword);
+    private AuthToken NewToken(UUID userID) {
+        return tokenSigner == null ? new AuthToken(userID, true) : tokenSigner.Issue(userID);
     }
 }
@@ -16,7 +16,9 @@ public interface IAuthService {
 
     void CreateUserSession(IUserAuth userAuth) throws NoSuchElementException;
 
-    void UserLogout();
+    IUserAuth CreateUserAuth(UUID userID, String password);
+
+    void UserLogout(UUID userID);
 
     String GetPassword(String username);
 
@@ -0,0 +1,127 @@
+package org.beaverbrooks.service.auth;
+
+import org.beaverbrooks.repository.UsernameKey;
+import org.beaverbrooks.shared.exceptions.RateLimitedException;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Caps login attempts per username and across the whole service, so a credential-stuffing burst is
+// turned away before it costs a repository lookup or a password hash.
+//
+// Each bucket is a single AtomicLong holding the bucket's theoretical arrival time (the generic cell
+// rate algorithm): an attempt is allowed while that time is no more than the burst ahead of now, and
+// pushes it one interval further. That makes a check one read and one CAS with no locks. A bucket
+// whose time has fallen behind now is full again and indistinguishable from a new one, so the sweep
+// simply drops it; the per-user map only ever holds usernames attempted within the last burst window.
+public class LoginRateLimiter {
+
+    public static final Duration DEFAULT_USER_INTERVAL = Duration.ofSeconds(12);
+    public static final int DEFAULT_USER_BURST = 5;
+    public static final Duration DEFAULT_GLOBAL_INTERVAL = Duration.ofMillis(10);
+    public static final int DEFAULT_GLOBAL_BURST = 200;
+    public static final int DEFAULT_MAX_TRACKED_USERS = 1_000_000;
+
+    private static final long SWEEP_INTERVAL_NANOS = Duration.ofSeconds(10).toNanos();
+    // How soon a full map may be swept again, so a cap full of live buckets is not rescanned on
+    // every attempt.
+    private static final long MIN_SWEEP_GAP_NANOS = Duration.ofSeconds(1).toNanos();
+
+    private final ConcurrentHashMap<String, AtomicLong> userBuckets = new ConcurrentHashMap<>();
+    private final AtomicLong globalBucket;
+    private final long userIntervalNanos;
+    private final long userToleranceNanos;
+    private final long globalIntervalNanos;
+    private final long globalToleranceNanos;
+    private final int maxTrackedUsers;
+    private final LongSupplier nanoClock;
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private volatile long nextSweepNanos;
+    private volatile long lastSweepNanos;
+
+    public LoginRateLimiter() {
+        this(DEFAULT_USER_INTERVAL, DEFAULT_USER_BURST, DEFAULT_GLOBAL_INTERVAL, DEFAULT_GLOBAL_BURST,
+                DEFAULT_MAX_TRACKED_USERS, System::nanoTime);
+    }
+
+    // Each username may make userBurst attempts at once and then one per userInterval; the service
+    // as a whole the same with the global settings.
+    public LoginRateLimiter(Duration userInterval, int userBurst, Duration globalInterval, int globalBurst,
+                            int maxTrackedUsers, LongSupplier nanoClock) {
+        if (userBurst < 1 || globalBurst < 1) {
+            throw new IllegalArgumentException("Bursts must allow at least one attempt");
+        }
+        userIntervalNanos = userInterval.toNanos();
+        userToleranceNanos = userIntervalNanos * (userBurst - 1);
+        globalIntervalNanos = globalInterval.toNanos();
+        globalToleranceNanos = globalIntervalNanos * (globalBurst - 1);
+        this.maxTrackedUsers = maxTrackedUsers;
+        this.nanoClock = nanoClock;
+        long now = nanoClock.getAsLong();
+        globalBucket = new AtomicLong(now);
+        nextSweepNanos = now + SWEEP_INTERVAL_NANOS;
+        lastSweepNanos = now;
+    }
+
+    // The per-user bucket is checked first so one hammered username cannot use up the global budget.
+    // An attempt the global bucket then refuses gets its user token back, so a burst across the
+    // service does not also lock out the usernames that happened to be tried during it.
+    public void Acquire(String username) throws RateLimitedException {
+        long now = nanoClock.getAsLong();
+        if (now - nextSweepNanos >= 0
+                || (now - lastSweepNanos >= MIN_SWEEP_GAP_NANOS && userBuckets.size() >= maxTrackedUsers)) {
+            Sweep(now);
+        }
+
+        String key = username == null ? "" : UsernameKey.Normalise(username);
+        AtomicLong bucket = userBuckets.get(key);
+        if (bucket == null && userBuckets.size() < maxTrackedUsers) {
+            bucket = userBuckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        // Past the cap, untracked usernames are only held to the global limit until a sweep frees room.
+        if (bucket != null && !TryTake(bucket, now, userIntervalNanos, userToleranceNanos)) {
+            throw new RateLimitedException("Too many login attempts for this user, please try again later.");
+        }
+        if (!TryTake(globalBucket, now, globalIntervalNanos, globalToleranceNanos)) {
+            if (bucket != null) {
+                bucket.addAndGet(-userIntervalNanos);
+            }
+            throw new RateLimitedException("Too many login attempts, please try again later.");
+        }
+    }
+
+    public int GetTrackedUserCount() {
+        return userBuckets.size();
+    }
+
+    private static boolean TryTake(AtomicLong bucket, long now, long interval, long tolerance) {
+        while (true) {
+            long arrival = bucket.get();
+            long start = arrival - now > 0 ? arrival : now;
+            if (start - now > tolerance) {
+                return false;
+            }
+            if (bucket.compareAndSet(arrival, start + interval)) {
+                return true;
+            }
+        }
+    }
+
+    // One thread sweeps at a time and the rest carry on. A bucket refilled between the check and the
+    // removal loses at most that one attempt's worth of history.
+    private void Sweep(long now) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            userBuckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+            lastSweepNanos = now;
+            nextSweepNanos = now + SWEEP_INTERVAL_NANOS;
+        } finally {
+            sweeping.set(false);
+        }
+    }
+}
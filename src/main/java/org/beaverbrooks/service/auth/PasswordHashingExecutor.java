@@ -0,0 +1,111 @@
+package org.beaverbrooks.service.auth;
+
+import org.beaverbrooks.domain.user.IUserAuth;
+import org.beaverbrooks.domain.user.PasswordHasher;
+import org.beaverbrooks.domain.user.UserAuth;
+import org.beaverbrooks.shared.exceptions.ServiceBusyException;
+
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Runs password hashing on its own small pool so a burst of logins cannot take every request
+// thread's CPU. The queue is bounded: once it is full, further work is refused straight away with
+// ServiceBusyException rather than queueing up latency.
+public class PasswordHashingExecutor implements AutoCloseable {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+    private static final long IDLE_THREAD_SECONDS = 30;
+
+    public record Metrics(int QueueDepth, int PeakQueueDepth, long Completed, long Rejected, long TotalHashNanos) {}
+
+    private final ThreadPoolExecutor executor;
+    private final int targetIterations;
+    private final AtomicInteger peakQueueDepth = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+
+    public PasswordHashingExecutor() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY, PasswordHasher.DEFAULT_ITERATIONS);
+    }
+
+    // targetIterations is the cost of every new hash; stored hashes at any other cost are replaced
+    // the next time their owner logs in.
+    public PasswordHashingExecutor(int threads, int queueCapacity, int targetIterations) {
+        if (threads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Hashing needs at least one thread and one queue slot");
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, IDLE_THREAD_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        this.targetIterations = targetIterations;
+    }
+
+    public boolean Verify(IUserAuth auth, String password) throws ServiceBusyException {
+        return Run(() -> auth.ComparePassword(password));
+    }
+
+    public IUserAuth Hash(UUID userID, String password) throws ServiceBusyException {
+        return Run(() -> UserAuth.FromPassword(userID, password, targetIterations));
+    }
+
+    public int GetTargetIterations() {
+        return targetIterations;
+    }
+
+    public Metrics GetMetrics() {
+        return new Metrics(executor.getQueue().size(), peakQueueDepth.get(), completed.sum(), rejected.sum(), hashNanos.sum());
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    // Blocks the caller until the work is done, but only one pool thread per core burns CPU on it.
+    private <T> T Run(Callable<T> work) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    return work.call();
+                } finally {
+                    hashNanos.add(System.nanoTime() - start);
+                    completed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceBusyException("Too many logins in progress, please try again shortly.");
+        }
+        peakQueueDepth.accumulateAndGet(executor.getQueue().size(), Math::max);
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Interrupted while waiting for password hashing.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package org.beaverbrooks.service.auth;
+
+import org.beaverbrooks.shared.AuthToken;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+// Thread-safe store of one session per user. A session ends when it has been idle for the idle TTL
+// or has existed for the absolute TTL, whichever comes first, and the store never holds more than
+// maxSessions: a login beyond that evicts the session closest to expiry.
+//
+// Lookups are lock-free. Expiry is driven by a hierarchical timing wheel so a sweep only touches
+// sessions that are due, instead of scanning the whole map. Touching a session on lookup only
+// bumps its last-access time; the wheel reschedules it when its old deadline comes round.
+public class SessionStore {
+
+    public static final Duration DEFAULT_IDLE_TTL = Duration.ofMinutes(15);
+    public static final Duration DEFAULT_ABSOLUTE_TTL = Duration.ofHours(12);
+    public static final int DEFAULT_MAX_SESSIONS = 1_000_000;
+
+    private static final long TICK_MILLIS = 1_000;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    // Deadlines further out than the wheel spans (about 194 days) are parked in the top level and
+    // rescheduled when they come round.
+    private static final long MAX_SPAN_TICKS = 1L << (SLOT_BITS * LEVELS);
+
+    private final ConcurrentHashMap<UUID, Session> sessions = new ConcurrentHashMap<>();
+    private final ReentrantLock wheelLock = new ReentrantLock();
+    private final Session[][] wheel = new Session[LEVELS][SLOTS];
+    private final long idleTtlMillis;
+    private final long absoluteTtlMillis;
+    private final int maxSessions;
+    private final LongSupplier clock;
+    private long currentTick;
+    private volatile long nextSweepMillis;
+    private int sessionCount;
+
+    public SessionStore() {
+        this(DEFAULT_IDLE_TTL, DEFAULT_ABSOLUTE_TTL, DEFAULT_MAX_SESSIONS, System::currentTimeMillis);
+    }
+
+    public SessionStore(Duration idleTtl, Duration absoluteTtl, int maxSessions, LongSupplier clock) {
+        if (idleTtl.isNegative() || idleTtl.isZero() || absoluteTtl.isNegative() || absoluteTtl.isZero()) {
+            throw new IllegalArgumentException("Session TTLs must be positive");
+        }
+        if (maxSessions < 1) {
+            throw new IllegalArgumentException("At least one session must be allowed");
+        }
+        this.idleTtlMillis = idleTtl.toMillis();
+        this.absoluteTtlMillis = absoluteTtl.toMillis();
+        this.maxSessions = maxSessions;
+        this.clock = clock;
+        long now = clock.getAsLong();
+        currentTick = now / TICK_MILLIS;
+        nextSweepMillis = (currentTick + 1) * TICK_MILLIS;
+    }
+
+    // Starts a session for userId, replacing any session the user already has.
+    public void Put(UUID userId, AuthToken token) {
+        long now = clock.getAsLong();
+        Session session = new Session(userId, token, now);
+        wheelLock.lock();
+        try {
+            Advance(now);
+            Session previous = sessions.put(userId, session);
+            if (previous != null) {
+                Unlink(previous);
+            } else if (++sessionCount > maxSessions) {
+                // The new session is not in the wheel yet, so it cannot be the one evicted.
+                EvictEarliest();
+            }
+            Schedule(session, session.Deadline(idleTtlMillis, absoluteTtlMillis));
+        } finally {
+            wheelLock.unlock();
+        }
+    }
+
+    // Returns the user's token if the session is still live, counting the lookup as activity.
+    public Optional<AuthToken> Get(UUID userId) {
+        long now = clock.getAsLong();
+        MaybeSweep(now);
+        Session session = sessions.get(userId);
+        if (session == null) {
+            return Optional.empty();
+        }
+        if (session.Deadline(idleTtlMillis, absoluteTtlMillis) <= now) {
+            RemoveSession(session);
+            return Optional.empty();
+        }
+        session.LastAccess = now;
+        return Optional.of(session.Token);
+    }
+
+    public boolean Remove(UUID userId) {
+        Session session = sessions.get(userId);
+        return session != null && RemoveSession(session);
+    }
+
+    public int Size() {
+        return sessions.size();
+    }
+
+    // Drops every session whose deadline has passed. Lookups and logins call this as time moves on,
+    // so it only needs calling directly when the store may sit idle.
+    public void ExpireDue() {
+        long now = clock.getAsLong();
+        wheelLock.lock();
+        try {
+            Advance(now);
+        } finally {
+            wheelLock.unlock();
+        }
+    }
+
+    private void MaybeSweep(long now) {
+        if (now >= nextSweepMillis && wheelLock.tryLock()) {
+            try {
+                Advance(now);
+            } finally {
+                wheelLock.unlock();
+            }
+        }
+    }
+
+    private boolean RemoveSession(Session session) {
+        wheelLock.lock();
+        try {
+            if (!sessions.remove(session.UserId, session)) {
+                return false;
+            }
+            Unlink(session);
+            sessionCount--;
+            return true;
+        } finally {
+            wheelLock.unlock();
+        }
+    }
+
+    // Caller holds wheelLock. Moves straight to the current tick however many were missed. At each
+    // level, every slot whose time came round in between is detached, at most all of that level's
+    // slots, and the sessions they held are then expired or rescheduled from the new tick. A long
+    // idle spell costs one pass over the wheel rather than a step per missed tick under the lock.
+    private void Advance(long now) {
+        long targetTick = now / TICK_MILLIS;
+        if (targetTick <= currentTick) {
+            return;
+        }
+        ArrayList<Session> due = new ArrayList<>();
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = SLOT_BITS * level;
+            long first = (currentTick >>> shift) + 1;
+            long last = Math.min(targetTick >>> shift, first + SLOTS - 1);
+            for (long position = first; position <= last; position++) {
+                Session head = DetachSlot(level, (int) (position & SLOT_MASK));
+                if (head != null) {
+                    due.add(head);
+                }
+            }
+        }
+        currentTick = targetTick;
+        for (Session head : due) {
+            Reschedule(head, now);
+        }
+        nextSweepMillis = (currentTick + 1) * TICK_MILLIS;
+    }
+
+    // Caller holds wheelLock. Sessions past their deadline are dropped; the rest, typically ones
+    // touched since they were scheduled, go back into the wheel at their new deadline.
+    private void Reschedule(Session head, long now) {
+        Session session = head;
+        while (session != null) {
+            Session next = session.Next;
+            session.Next = null;
+            session.Previous = null;
+            session.Level = -1;
+            long deadline = session.Deadline(idleTtlMillis, absoluteTtlMillis);
+            if (deadline <= now) {
+                if (sessions.remove(session.UserId, session)) {
+                    sessionCount--;
+                }
+            } else {
+                Schedule(session, deadline);
+            }
+            session = next;
+        }
+    }
+
+    // Caller holds wheelLock.
+    private void Schedule(Session session, long deadlineMillis) {
+        long deadlineTick = Math.ceilDiv(deadlineMillis, TICK_MILLIS);
+        deadlineTick = Math.max(deadlineTick, currentTick + 1);
+        deadlineTick = Math.min(deadlineTick, currentTick + MAX_SPAN_TICKS - 1);
+        long delta = deadlineTick - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        int slot = (int) ((deadlineTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        session.Level = level;
+        session.Slot = slot;
+        session.Previous = null;
+        session.Next = wheel[level][slot];
+        if (session.Next != null) {
+            session.Next.Previous = session;
+        }
+        wheel[level][slot] = session;
+    }
+
+    // Caller holds wheelLock.
+    private void Unlink(Session session) {
+        if (session.Level < 0) {
+            return;
+        }
+        if (session.Previous != null) {
+            session.Previous.Next = session.Next;
+        } else {
+            wheel[session.Level][session.Slot] = session.Next;
+        }
+        if (session.Next != null) {
+            session.Next.Previous = session.Previous;
+        }
+        session.Next = null;
+        session.Previous = null;
+        session.Level = -1;
+    }
+
+    // Caller holds wheelLock.
+    private Session DetachSlot(int level, int slot) {
+        Session head = wheel[level][slot];
+        wheel[level][slot] = null;
+        return head;
+    }
+
+    // Caller holds wheelLock. Walks the wheel outwards from the current tick and evicts the first
+    // session it finds, which is the one scheduled soonest to within a slot's width. The slot at
+    // the current position of a level holds deadlines a full turn of that level ahead, the latest
+    // the level has, so each level is scanned from the slot after it and that slot comes last.
+    private void EvictEarliest() {
+        for (int level = 0; level < LEVELS; level++) {
+            int start = (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+            for (int i = 1; i <= SLOTS; i++) {
+                Session candidate = wheel[level][(start + i) & SLOT_MASK];
+                if (candidate != null) {
+                    Unlink(candidate);
+                    sessions.remove(candidate.UserId, candidate);
+                    sessionCount--;
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final class Session {
+        private final UUID UserId;
+        private final AuthToken Token;
+        private final long CreatedAt;
+        private volatile long LastAccess;
+        private Session Previous;
+        private Session Next;
+        private int Level = -1;
+        private int Slot;
+
+        private Session(UUID userId, AuthToken token, long now) {
+            UserId = userId;
+            Token = token;
+            CreatedAt = now;
+            LastAccess = now;
+        }
+
+        private long Deadline(long idleTtlMillis, long absoluteTtlMillis) {
+            return Math.min(LastAccess + idleTtlMillis, CreatedAt + absoluteTtlMillis);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.beaverbrooks.service.auth;
+
+import org.beaverbrooks.shared.AuthToken;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Issues and verifies HMAC-SHA256 signed AuthTokens. Verification only reads the token, a
+// thread-local Mac and the revocation map, so it scales with cores instead of queueing on a
+// session lookup.
+//
+// Revoking a user invalidates every token issued to them so far. The revocation map holds one entry
+// per revoked user and drops it once every token it could match has expired, so it stays
+// proportional to logouts within one token lifetime.
+public class TokenSigner {
+
+    // Matches the session store's absolute TTL so a token never dies before the session it backs.
+    public static final Duration DEFAULT_TOKEN_TTL = SessionStore.DEFAULT_ABSOLUTE_TTL;
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_PRUNE_THRESHOLD = 1024;
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final AtomicLong lastIssuedAt = new AtomicLong();
+    private final ConcurrentHashMap<UUID, Long> revokedUpTo = new ConcurrentHashMap<>();
+    private volatile int pruneThreshold = MIN_PRUNE_THRESHOLD;
+
+    public TokenSigner(byte[] secret) {
+        this(secret, DEFAULT_TOKEN_TTL, System::currentTimeMillis);
+    }
+
+    public TokenSigner(byte[] secret, Duration tokenTtl, LongSupplier clock) {
+        if (secret.length < 32) {
+            throw new IllegalArgumentException("Signing key must be at least 256 bits");
+        }
+        key = new SecretKeySpec(secret.clone(), ALGORITHM);
+        macs = ThreadLocal.withInitial(this::NewMac);
+        NewMac();
+        ttlMillis = tokenTtl.toMillis();
+        this.clock = clock;
+    }
+
+    public static TokenSigner WithRandomKey() {
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        return new TokenSigner(secret);
+    }
+
+    // Issue times are strictly increasing, so a token issued after a revocation is never caught
+    // by it even within the same millisecond.
+    public AuthToken Issue(UUID userId) {
+        long now = clock.getAsLong();
+        long issuedAt = lastIssuedAt.accumulateAndGet(now, (last, time) -> Math.max(last + 1, time));
+        long expiresAt = issuedAt + ttlMillis;
+        return new AuthToken(userId, true, issuedAt, expiresAt,
+                Base64.getUrlEncoder().withoutPadding().encodeToString(Sign(userId, true, issuedAt, expiresAt)));
+    }
+
+    public boolean Verify(AuthToken token) {
+        if (!token.IsSigned() || token.ExpiresAt() <= clock.getAsLong()) {
+            return false;
+        }
+        byte[] presented;
+        try {
+            presented = Base64.getUrlDecoder().decode(token.Signature());
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        byte[] expected = Sign(token.UserId(), token.IsAuthed(), token.IssuedAt(), token.ExpiresAt());
+        if (!MessageDigest.isEqual(expected, presented)) {
+            return false;
+        }
+        Long revoked = revokedUpTo.get(token.UserId());
+        return revoked == null || token.IssuedAt() > revoked;
+    }
+
+    public void Revoke(UUID userId) {
+        revokedUpTo.merge(userId, lastIssuedAt.get(), Math::max);
+        if (revokedUpTo.size() > pruneThreshold) {
+            PruneRevocations();
+        }
+    }
+
+    public int GetRevocationCount() {
+        return revokedUpTo.size();
+    }
+
+    // A revocation only matters while a token issued before it can still be live.
+    private synchronized void PruneRevocations() {
+        long cutoff = clock.getAsLong() - ttlMillis;
+        revokedUpTo.values().removeIf(revokedAt -> revokedAt < cutoff);
+        pruneThreshold = Math.max(MIN_PRUNE_THRESHOLD, revokedUpTo.size() * 2);
+    }
+
+    private byte[] Sign(UUID userId, boolean isAuthed, long issuedAt, long expiresAt) {
+        ByteBuffer message = ByteBuffer.allocate(Long.BYTES * 4 + 1)
+                .putLong(userId.getMostSignificantBits())
+                .putLong(userId.getLeastSignificantBits())
+                .putLong(issuedAt)
+                .putLong(expiresAt)
+                .put((byte) (isAuthed ? 1 : 0));
+        return macs.get().doFinal(message.array());
+    }
+
+    private Mac NewMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package org.beaverbrooks.service.data;
+
+import org.beaverbrooks.domain.account.IAccount;
+import org.beaverbrooks.domain.user.IUser;
+import org.beaverbrooks.repository.IDataRepository;
+import org.beaverbrooks.shared.Money;
+
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Applies deposits and withdrawals on a fixed set of writer threads, each of which owns the
+// accounts that hash to it. Every partition has a ring of preallocated command slots: callers claim
+// a sequence number, fill in the slot and publish it, and the partition's single writer drains
+// whatever has been published in order. Deposits and withdrawals for an account are only ever
+// applied by its writer, so the writer takes no locks and applies them in the order claimed.
+// Transfers still go through the repository, which the account's own atomic balance tolerates.
+//
+// The writer handles a whole run of published commands at once and saves each account it touched
+// once per run before completing the callers' futures, so a burst against a write-ahead-logged
+// repository costs one save per account rather than one per command. When an account's save fails,
+// the run's commands on it are reversed before their futures fail, so a caller that retries does
+// not have the first attempt applied as well.
+//
+// Futures are completed on the writer thread. Callers that chain work onto them should use the
+// async variants so that work does not hold up the writer.
+public class AccountCommandEngine implements AutoCloseable {
+
+    public static final int DEFAULT_RING_SIZE = 1024;
+
+    private static final byte DEPOSIT = 1;
+    private static final byte WITHDRAW = 2;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final IDataRepository repository;
+    private final Partition[] partitions;
+    private volatile boolean closed;
+
+    public AccountCommandEngine(IDataRepository repository) {
+        this(repository, Runtime.getRuntime().availableProcessors(), DEFAULT_RING_SIZE);
+    }
+
+    public AccountCommandEngine(IDataRepository repository, int partitionCount, int ringSize) {
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("At least one partition is needed");
+        }
+        if (ringSize < 2 || Integer.bitCount(ringSize) != 1) {
+            throw new IllegalArgumentException("Ring size must be a power of two");
+        }
+        this.repository = repository;
+        partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new Partition(ringSize);
+            Thread writer = new Thread(partitions[i], "fincore-account-writer-" + i);
+            writer.setDaemon(true);
+            partitions[i].writer = writer;
+            writer.start();
+        }
+    }
+
+    public CompletableFuture<Money> Deposit(UUID userId, Money amount) {
+        return Submit(DEPOSIT, userId, amount);
+    }
+
+    public CompletableFuture<Money> Withdraw(UUID userId, Money amount) {
+        return Submit(WITHDRAW, userId, amount);
+    }
+
+    public int GetPartitionCount() {
+        return partitions.length;
+    }
+
+    // Stops taking commands, lets every writer finish what has already been submitted, then waits
+    // for the writers to exit.
+    @Override
+    public void close() {
+        closed = true;
+        for (Partition partition : partitions) {
+            LockSupport.unpark(partition.writer);
+        }
+        for (Partition partition : partitions) {
+            try {
+                partition.writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private CompletableFuture<Money> Submit(byte type, UUID userId, Money amount) {
+        if (closed) {
+            throw new IllegalStateException("Command engine is closed");
+        }
+        CompletableFuture<Money> completion = new CompletableFuture<>();
+        partitions[Math.floorMod(userId.hashCode(), partitions.length)].Publish(type, userId, amount, completion);
+        return completion;
+    }
+
+    private static final class Slot {
+        private byte Type;
+        private UUID UserId;
+        private Money Amount;
+        private CompletableFuture<Money> Completion;
+        private Money Result;
+        private RuntimeException Error;
+    }
+
+    private final class Partition implements Runnable {
+        private final Slot[] slots;
+        private final int mask;
+        // The sequence last published into each slot; the writer only reads a slot once its entry
+        // matches the sequence it expects there.
+        private final AtomicLongArray published;
+        private final AtomicLong claimed = new AtomicLong();
+        // Every sequence below this has been applied and its slot may be reused.
+        private volatile long consumed;
+        private volatile boolean sleeping;
+        private Thread writer;
+
+        // Writer-only scratch for the accounts touched in the current run.
+        private final HashMap<UUID, IUser> touched = new HashMap<>();
+        private final HashMap<UUID, IUser> unsaved = new HashMap<>();
+        private final HashMap<UUID, RuntimeException> failedSaves = new HashMap<>();
+
+        private Partition(int ringSize) {
+            slots = new Slot[ringSize];
+            published = new AtomicLongArray(ringSize);
+            for (int i = 0; i < ringSize; i++) {
+                slots[i] = new Slot();
+                published.set(i, -1);
+            }
+            mask = ringSize - 1;
+        }
+
+        // A full ring makes callers wait for the writer rather than queueing without bound.
+        private void Publish(byte type, UUID userId, Money amount, CompletableFuture<Money> completion) {
+            long sequence = claimed.getAndIncrement();
+            while (sequence - consumed >= slots.length) {
+                if (closed && !writer.isAlive()) {
+                    completion.completeExceptionally(new IllegalStateException("Command engine is closed"));
+                    return;
+                }
+                Thread.onSpinWait();
+                Thread.yield();
+            }
+            Slot slot = slots[(int) (sequence & mask)];
+            slot.Type = type;
+            slot.UserId = userId;
+            slot.Amount = amount;
+            slot.Completion = completion;
+            published.set((int) (sequence & mask), sequence);
+            if (sleeping) {
+                LockSupport.unpark(writer);
+            }
+            // A claim made just as the engine closed may land after the writer's last look; wait
+            // for the writer to finish and fail the command if it never got to it.
+            if (closed) {
+                try {
+                    writer.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (consumed <= sequence) {
+                    completion.completeExceptionally(new IllegalStateException("Command engine is closed"));
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            long next = 0;
+            while (!closed || next < claimed.get()) {
+                long end = next;
+                while (end - next < slots.length && published.get((int) (end & mask)) == end) {
+                    end++;
+                }
+                if (end == next) {
+                    Idle(next);
+                    continue;
+                }
+                for (long sequence = next; sequence < end; sequence++) {
+                    Apply(slots[(int) (sequence & mask)]);
+                }
+                SaveTouched();
+                if (!failedSaves.isEmpty()) {
+                    for (long sequence = end - 1; sequence >= next; sequence--) {
+                        Reverse(slots[(int) (sequence & mask)]);
+                    }
+                }
+                for (long sequence = next; sequence < end; sequence++) {
+                    Complete(slots[(int) (sequence & mask)]);
+                }
+                unsaved.clear();
+                failedSaves.clear();
+                next = end;
+                consumed = end;
+            }
+        }
+
+        // Publishers check sleeping after publishing, and the writer checks for a publication after
+        // setting it, so one of them always sees the other; the timed park is only a backstop.
+        private void Idle(long next) {
+            sleeping = true;
+            if (published.get((int) (next & mask)) != next && !closed) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            sleeping = false;
+        }
+
+        private void Apply(Slot slot) {
+            try {
+                IUser user = touched.get(slot.UserId);
+                if (user == null) {
+                    user = repository.GetUserById(slot.UserId).orElseThrow();
+                }
+                IAccount account = user.GetAccount().orElseThrow();
+                slot.Result = slot.Type == DEPOSIT ? account.AddToAccount(slot.Amount) : account.SubtractFromAccount(slot.Amount);
+                touched.put(slot.UserId, user);
+            } catch (RuntimeException e) {
+                slot.Error = e;
+            }
+        }
+
+        private void SaveTouched() {
+            for (IUser user : touched.values()) {
+                try {
+                    repository.SaveUpdateUser(user);
+                } catch (RuntimeException e) {
+                    unsaved.put(user.GetID(), user);
+                    failedSaves.put(user.GetID(), e);
+                }
+            }
+            touched.clear();
+        }
+
+        // Undoes an applied command on an account whose save failed, leaving the account as it was
+        // saved last apart from transfers made meanwhile. Called newest first.
+        private void Reverse(Slot slot) {
+            IUser user = unsaved.get(slot.UserId);
+            if (user == null || slot.Error != null) {
+                return;
+            }
+            IAccount account = user.GetAccount().orElseThrow();
+            if (slot.Type == DEPOSIT) {
+                account.SubtractFromAccount(slot.Amount);
+            } else {
+                account.AddToAccount(slot.Amount);
+            }
+        }
+
+        private void Complete(Slot slot) {
+            CompletableFuture<Money> completion = slot.Completion;
+            RuntimeException error = slot.Error != null ? slot.Error : failedSaves.get(slot.UserId);
+            Money result = slot.Result;
+            slot.UserId = null;
+            slot.Amount = null;
+            slot.Completion = null;
+            slot.Result = null;
+            slot.Error = null;
+            if (error != null) {
+                completion.completeExceptionally(error);
+            } else {
+                completion.complete(result);
+            }
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package org.beaverbrooks.service.data;
+
+import org.beaverbrooks.domain.account.CustomerAccount;
+import org.beaverbrooks.domain.account.IAccount;
+import org.beaverbrooks.domain.user.*;
+import org.beaverbrooks.repository.IAsyncDataRepository;
+import org.beaverbrooks.service.auth.IAuthService;
+import org.beaverbrooks.shared.AuthToken;
+import org.beaverbrooks.shared.BankCommand;
+import org.beaverbrooks.shared.CommandResult;
+import org.beaverbrooks.shared.Futures;
+import org.beaverbrooks.shared.Money;
+import org.beaverbrooks.shared.exceptions.AuthorisationException;
+import org.beaverbrooks.shared.exceptions.DuplicateUserException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+// The user data operations of UserDataService composed over an IAsyncDataRepository, so no thread
+// waits on storage: an operation holds a thread only while it touches the account, and a slow
+// backend can have thousands of them in flight at once.
+//
+// Authorisation and session checks are in-memory and stay on the calling thread. Password hashing
+// is the one step that is slow by design, so CreateUserAuth runs on the given executor instead.
+// Continuations run on whichever thread completes the repository's future.
+public class AsyncUserDataService implements IAsyncUserDataService {
+    private final IAsyncDataRepository DataRepository;
+    private final IAuthService AuthService;
+    private final Supplier<IAccount> AccountFactory;
+    private final Executor HashingExecutor;
+
+    public AsyncUserDataService(IAsyncDataRepository repository, IAuthService authService, Executor hashingExecutor) {
+        this(repository, authService, CustomerAccount::new, hashingExecutor);
+    }
+
+    public AsyncUserDataService(IAsyncDataRepository repository, IAuthService authService, Supplier<IAccount> accountFactory, Executor hashingExecutor) {
+        DataRepository = repository;
+        AuthService = authService;
+        AccountFactory = accountFactory;
+        HashingExecutor = hashingExecutor;
+    }
+
+    @Override
+    public CompletableFuture<IUser> GetUserData(UUID id) {
+        return DataRepository.GetUserById(id).thenApply(Optional::orElseThrow);
+    }
+
+    @Override
+    public CompletableFuture<IUser> GetUserData(String username) {
+        return DataRepository.FindByName(username).thenApply(Optional::orElseThrow);
+    }
+
+    @Override
+    public CompletableFuture<Customer> CreateCustomer(String username, String password, String firstName, String lastName) {
+        return UsernameTaken(username).thenCompose(taken -> {
+            if (taken) {
+                return CompletableFuture.<IUser>failedFuture(new DuplicateUserException("User already exists"));
+            }
+            return SaveNewUser(new Customer(username, firstName, lastName, AccountFactory.get()), password, "User already exists");
+        }).thenApply(Customer.class::cast);
+    }
+
+    @Override
+    public CompletableFuture<Business> CreateBusiness(String username, String password) {
+        return UsernameTaken(username).thenCompose(taken -> {
+            if (taken) {
+                return CompletableFuture.<IUser>failedFuture(new DuplicateUserException("Business already exists"));
+            }
+            return SaveNewUser(new Business(username, AccountFactory.get()), password, "Business already exists");
+        }).thenApply(Business.class::cast);
+    }
+
+    @Override
+    public CompletableFuture<Money> GetUserAccountMoneyBalance(UUID id, AuthToken token) {
+        return AuthorisedUser(id, token).thenApply(user -> user.GetAccount().orElseThrow().GetMoneyBalance());
+    }
+
+    @Override
+    public CompletableFuture<Money> AddToUserAccountBalance(UUID id, Money amount, AuthToken token) {
+        return AuthorisedUser(id, token).thenCompose(user -> {
+            Money balance = user.GetAccount().orElseThrow().AddToAccount(Money.RequireValidAmount(amount));
+            return SaveChange(user, amount).thenApply(saved -> balance);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Money> WithdrawFromUserAccountBalance(UUID id, Money amount, AuthToken token) {
+        return AuthorisedUser(id, token).thenCompose(user -> {
+            Money balance = user.GetAccount().orElseThrow().SubtractFromAccount(Money.RequireValidAmount(amount));
+            return SaveChange(user, amount.Negate()).thenApply(saved -> balance);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Money> TransferBetweenUserAccounts(UUID fromId, UUID toId, Money amount, AuthToken token) {
+        if (!AuthService.AuthAction(fromId, token)) {
+            return CompletableFuture.failedFuture(new AuthorisationException("Not authorised to perform this action"));
+        }
+        return CompletableFuture.completedFuture(amount)
+                .thenApply(Money::RequireValidAmount)
+                .thenCompose(valid -> DataRepository.TransferBetweenAccounts(fromId, toId, valid.ToBigDecimal()))
+                .thenApply(Money::Of);
+    }
+
+    // Same semantics as UserDataService.ExecuteBatch: one save for each run of deposits and
+    // withdrawals, made before the next transfer or at the end, transfers one by one in order, a
+    // failed command reported in its result, and a failed save taking its changes back out.
+    @Override
+    public CompletableFuture<List<CommandResult>> ExecuteBatch(UUID id, List<BankCommand> commands, AuthToken token) {
+        return AuthorisedUser(id, token).thenCompose(user -> {
+            ArrayList<CommandResult> results = new ArrayList<>(commands.size());
+            return RunBatch(user, user.GetAccount().orElseThrow(), commands, 0, results, null)
+                    .thenCompose(unsavedChange -> SaveChange(user, unsavedChange))
+                    .thenApply(saved -> results);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> DeleteUserAccount(UUID id, AuthToken token) {
+        return AuthorisedUser(id, token).thenCompose(DataRepository::DeleteAccount);
+    }
+
+    private CompletableFuture<IUser> AuthorisedUser(UUID id, AuthToken token) {
+        if (!AuthService.AuthAction(id, token)) {
+            return CompletableFuture.failedFuture(new AuthorisationException("Not authorised to perform this action"));
+        }
+        return GetUserData(id);
+    }
+
+    private CompletableFuture<Boolean> UsernameTaken(String username) {
+        return DataRepository.MightContainUsername(username).thenCompose(mightExist -> mightExist
+                ? DataRepository.FindByName(username).thenApply(Optional::isPresent)
+                : CompletableFuture.completedFuture(false));
+    }
+
+    // UsernameTaken only turns existing names away early; the repository's SaveNewUserIfAbsent
+    // settles a race between two sign-ups for the same name.
+    private CompletableFuture<IUser> SaveNewUser(IUser newUser, String password, String duplicateMessage) {
+        return Futures.Call(() -> AuthService.CreateUserAuth(newUser.GetID(), password), HashingExecutor)
+                .thenCompose(newAuth -> DataRepository.SaveNewUserIfAbsent(newAuth, newUser)
+                        .thenCompose(saved -> saved
+                                ? DataRepository.GetUserById(newUser.GetID())
+                                : CompletableFuture.<Optional<IUser>>failedFuture(new DuplicateUserException(duplicateMessage)))
+                        .thenApply(stored -> {
+                            AuthService.CreateUserSession(newAuth);
+                            return stored.orElseThrow();
+                        }));
+    }
+
+    // Applies commands in place until it reaches a transfer, then saves what came before it and
+    // makes the transfer. A transfer the repository answered straight away is recorded and the loop
+    // carries on; only one still in flight makes it return, continuing from the next command once
+    // the repository answers. Either way the stack stays flat however many transfers the batch has.
+    // Completes with the net change to the account since the last save, or null when it has not
+    // changed.
+    private CompletableFuture<Money> RunBatch(IUser user, IAccount account, List<BankCommand> commands, int start,
+                                              ArrayList<CommandResult> results, Money unsavedChange) {
+        for (int i = start; i < commands.size(); i++) {
+            switch (commands.get(i)) {
+                case BankCommand.Deposit deposit -> {
+                    CommandResult result = Attempt(() -> account.AddToAccount(Money.RequireValidAmount(deposit.Amount())));
+                    results.add(result);
+                    if (result.Succeeded()) {
+                        unsavedChange = unsavedChange == null ? deposit.Amount() : unsavedChange.Plus(deposit.Amount());
+                    }
+                }
+                case BankCommand.Withdraw withdraw -> {
+                    CommandResult result = Attempt(() -> account.SubtractFromAccount(Money.RequireValidAmount(withdraw.Amount())));
+                    results.add(result);
+                    if (result.Succeeded()) {
+                        unsavedChange = unsavedChange == null ? withdraw.Amount().Negate() : unsavedChange.Minus(withdraw.Amount());
+                    }
+                }
+                case BankCommand.Balance balance -> results.add(CommandResult.Success(account.GetMoneyBalance()));
+                case BankCommand.Transfer transfer -> {
+                    CompletableFuture<CommandResult> transferred = Transfer(user, transfer, unsavedChange);
+                    unsavedChange = null;
+                    if (!transferred.isDone()) {
+                        int next = i + 1;
+                        return transferred.thenCompose(result -> {
+                            results.add(result);
+                            return RunBatch(user, account, commands, next, results, null);
+                        });
+                    }
+                    if (transferred.isCompletedExceptionally()) {
+                        return transferred.thenApply(result -> null);
+                    }
+                    results.add(transferred.join());
+                }
+            }
+        }
+        return CompletableFuture.completedFuture(unsavedChange);
+    }
+
+    // Saves the changes made before the transfer, then makes it. A transfer the repository refuses
+    // becomes a failed result.
+    private CompletableFuture<CommandResult> Transfer(IUser user, BankCommand.Transfer transfer, Money unsavedChange) {
+        return SaveChange(user, unsavedChange)
+                .thenApply(ignored -> Money.RequireValidAmount(transfer.Amount()))
+                .thenCompose(amount -> DataRepository.TransferBetweenAccounts(user.GetID(), transfer.RecipientId(), amount.ToBigDecimal()))
+                .handle((balance, failure) -> failure == null ? CommandResult.Success(Money.Of(balance)) : FailedCommand(failure));
+    }
+
+    // Saves a change already made to the account in place, taking it back out if the save fails,
+    // as UserDataService does. A null change means there is nothing to save.
+    private CompletableFuture<Void> SaveChange(IUser user, Money change) {
+        if (change == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return DataRepository.SaveUpdateUser(user).whenComplete((saved, failure) -> {
+            if (failure == null) {
+                return;
+            }
+            IAccount account = user.GetAccount().orElseThrow();
+            if (change.Signum() > 0) {
+                account.SubtractFromAccount(change);
+            } else if (change.Signum() < 0) {
+                account.AddToAccount(change.Negate());
+            }
+        });
+    }
+
+    private static CommandResult Attempt(Supplier<Money> command) {
+        try {
+            return CommandResult.Success(command.get());
+        } catch (IllegalArgumentException | NoSuchElementException | ArithmeticException e) {
+            return CommandResult.Failure(e.getMessage());
+        }
+    }
+
+    // The failures a synchronous batch reports per command become results; anything else still
+    // fails the batch.
+    private static CommandResult FailedCommand(Throwable failure) {
+        Throwable cause = Futures.Cause(failure);
+        if (cause instanceof IllegalArgumentException || cause instanceof NoSuchElementException || cause instanceof ArithmeticException) {
+            return CommandResult.Failure(cause.getMessage());
+        }
+        throw new CompletionException(cause);
+    }
+}
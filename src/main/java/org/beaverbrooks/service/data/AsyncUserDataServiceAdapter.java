@@ -0,0 +1,83 @@
+package org.beaverbrooks.service.data;
+
+import org.beaverbrooks.domain.user.Business;
+import org.beaverbrooks.domain.user.Customer;
+import org.beaverbrooks.domain.user.IUser;
+import org.beaverbrooks.shared.AuthToken;
+import org.beaverbrooks.shared.BankCommand;
+import org.beaverbrooks.shared.CommandResult;
+import org.beaverbrooks.shared.Futures;
+import org.beaverbrooks.shared.Money;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+// Presents a blocking IUserDataService as an IAsyncUserDataService by running each call on the
+// given executor. Deposits and withdrawals go through SubmitDeposit and SubmitWithdrawal, so a
+// service with a command engine completes them from the account's writer rather than holding an
+// executor thread while they wait in its ring.
+public class AsyncUserDataServiceAdapter implements IAsyncUserDataService {
+
+    private final IUserDataService service;
+    private final Executor executor;
+
+    public AsyncUserDataServiceAdapter(IUserDataService service, Executor executor) {
+        this.service = service;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<IUser> GetUserData(UUID id) {
+        return Futures.Call(() -> service.GetUserData(id), executor);
+    }
+
+    @Override
+    public CompletableFuture<IUser> GetUserData(String username) {
+        return Futures.Call(() -> service.GetUserData(username), executor);
+    }
+
+    @Override
+    public CompletableFuture<Customer> CreateCustomer(String username, String password, String firstName, String lastName) {
+        return Futures.Call(() -> service.CreateCustomer(username, password, firstName, lastName), executor);
+    }
+
+    @Override
+    public CompletableFuture<Business> CreateBusiness(String username, String password) {
+        return Futures.Call(() -> service.CreateBusiness(username, password), executor);
+    }
+
+    @Override
+    public CompletableFuture<Money> GetUserAccountMoneyBalance(UUID id, AuthToken token) {
+        return Futures.Call(() -> service.GetUserAccountMoneyBalance(id, token), executor);
+    }
+
+    @Override
+    public CompletableFuture<Money> AddToUserAccountBalance(UUID id, Money amount, AuthToken token) {
+        return Futures.Call(() -> service.SubmitDeposit(id, amount, token), executor).thenCompose(result -> result);
+    }
+
+    @Override
+    public CompletableFuture<Money> WithdrawFromUserAccountBalance(UUID id, Money amount, AuthToken token) {
+        return Futures.Call(() -> service.SubmitWithdrawal(id, amount, token), executor).thenCompose(result -> result);
+    }
+
+    @Override
+    public CompletableFuture<Money> TransferBetweenUserAccounts(UUID fromId, UUID toId, Money amount, AuthToken token) {
+        return Futures.Call(() -> service.TransferBetweenUserAccounts(service.GetUserData(fromId), toId, amount, token), executor);
+    }
+
+    @Override
+    public CompletableFuture<List<CommandResult>> ExecuteBatch(UUID id, List<BankCommand> commands, AuthToken token) {
+        return Futures.Call(() -> service.ExecuteBatch(service.GetUserData(id), commands, token), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> DeleteUserAccount(UUID id, AuthToken token) {
+        return Futures.Call(() -> {
+            service.DeleteUserAccount(service.GetUserData(id), token);
+            return null;
+        }, executor);
+    }
+}
@@ -0,0 +1,111 @@
+package org.beaverbrooks.service.data;
+
+import org.beaverbrooks.domain.user.Business;
+import org.beaverbrooks.domain.user.Customer;
+import org.beaverbrooks.domain.user.IUser;
+import org.beaverbrooks.shared.AuthToken;
+import org.beaverbrooks.shared.BankCommand;
+import org.beaverbrooks.shared.CommandResult;
+import org.beaverbrooks.shared.Futures;
+import org.beaverbrooks.shared.Money;
+import org.beaverbrooks.shared.exceptions.DuplicateUserException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+// Presents an IAsyncUserDataService as a blocking IUserDataService, so BankApi and the front ends
+// built on it can run over an asynchronous service unchanged. Each call waits for its future and
+// rethrows the service's own exception. Operations on an IUser act on the stored user with its id.
+public class BlockingUserDataService implements IUserDataService {
+
+    private final IAsyncUserDataService service;
+
+    public BlockingUserDataService(IAsyncUserDataService service) {
+        this.service = service;
+    }
+
+    @Override
+    public IUser GetUserData(UUID id) throws NoSuchElementException {
+        return Futures.Join(service.GetUserData(id));
+    }
+
+    @Override
+    public IUser GetUserData(String username) throws NoSuchElementException {
+        return Futures.Join(service.GetUserData(username));
+    }
+
+    @Override
+    public Customer CreateCustomer(String username, String password, String firstName, String lastName) throws NoSuchElementException, DuplicateUserException {
+        return Futures.Join(service.CreateCustomer(username, password, firstName, lastName), DuplicateUserException.class);
+    }
+
+    @Override
+    public Business CreateBusiness(String username, String password) throws NoSuchElementException, DuplicateUserException {
+        return Futures.Join(service.CreateBusiness(username, password), DuplicateUserException.class);
+    }
+
+    @Override
+    public BigDecimal GetUserAccountBalance(UUID id, AuthToken token) {
+        return Futures.Join(service.GetUserAccountMoneyBalance(id, token)).ToBigDecimal();
+    }
+
+    @Override
+    public void AddToUserAccountBalance(IUser user, BigDecimal amount, AuthToken token) {
+        Futures.Join(service.AddToUserAccountBalance(user.GetID(), Money.Of(amount), token));
+    }
+
+    @Override
+    public void WithdrawFromUserAccountBalance(IUser user, BigDecimal amount, AuthToken token) {
+        Futures.Join(service.WithdrawFromUserAccountBalance(user.GetID(), Money.Of(amount), token));
+    }
+
+    @Override
+    public Money GetUserAccountMoneyBalance(UUID id, AuthToken token) {
+        return Futures.Join(service.GetUserAccountMoneyBalance(id, token));
+    }
+
+    @Override
+    public Money AddToUserAccountBalance(IUser user, Money amount, AuthToken token) {
+        return Futures.Join(service.AddToUserAccountBalance(user.GetID(), amount, token));
+    }
+
+    @Override
+    public Money WithdrawFromUserAccountBalance(IUser user, Money amount, AuthToken token) {
+        return Futures.Join(service.WithdrawFromUserAccountBalance(user.GetID(), amount, token));
+    }
+
+    // Already asynchronous, so handed straight through; unlike UserDataService an unauthorised
+    // call fails the future rather than throwing.
+    @Override
+    public CompletableFuture<Money> SubmitDeposit(UUID userId, Money amount, AuthToken token) {
+        return service.AddToUserAccountBalance(userId, amount, token);
+    }
+
+    @Override
+    public CompletableFuture<Money> SubmitWithdrawal(UUID userId, Money amount, AuthToken token) {
+        return service.WithdrawFromUserAccountBalance(userId, amount, token);
+    }
+
+    @Override
+    public void TransferBetweenUserAccounts(IUser from, UUID toId, BigDecimal amount, AuthToken token) {
+        Futures.Join(service.TransferBetweenUserAccounts(from.GetID(), toId, Money.Of(amount), token));
+    }
+
+    @Override
+    public Money TransferBetweenUserAccounts(IUser from, UUID toId, Money amount, AuthToken token) {
+        return Futures.Join(service.TransferBetweenUserAccounts(from.GetID(), toId, amount, token));
+    }
+
+    @Override
+    public List<CommandResult> ExecuteBatch(IUser user, List<BankCommand> commands, AuthToken token) {
+        return Futures.Join(service.ExecuteBatch(user.GetID(), commands, token));
+    }
+
+    @Override
+    public void DeleteUserAccount(IUser user, AuthToken token) {
+        Futures.Join(service.DeleteUserAccount(user.GetID(), token));
+    }
+}
@@ -0,0 +1,39 @@
+package org.beaverbrooks.service.data;
+
+import org.beaverbrooks.domain.user.Business;
+import org.beaverbrooks.domain.user.Customer;
+import org.beaverbrooks.domain.user.IUser;
+import org.beaverbrooks.shared.AuthToken;
+import org.beaverbrooks.shared.BankCommand;
+import org.beaverbrooks.shared.CommandResult;
+import org.beaverbrooks.shared.Money;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+// Non-blocking counterpart of IUserDataService. Users are named by id, since an asynchronous caller
+// rarely holds the IUser, and amounts are Money. Every failure, including AuthorisationException
+// and DuplicateUserException, fails the returned future instead of being thrown.
+public interface IAsyncUserDataService {
+
+    CompletableFuture<IUser> GetUserData(UUID id);
+
+    CompletableFuture<IUser> GetUserData(String username);
+
+    CompletableFuture<Customer> CreateCustomer(String username, String password, String firstName, String lastName);
+
+    CompletableFuture<Business> CreateBusiness(String username, String password);
+
+    CompletableFuture<Money> GetUserAccountMoneyBalance(UUID id, AuthToken token);
+
+    CompletableFuture<Money> AddToUserAccountBalance(UUID id, Money amount, AuthToken token);
+
+    CompletableFuture<Money> WithdrawFromUserAccountBalance(UUID id, Money amount, AuthToken token);
+
+    CompletableFuture<Money> TransferBetweenUserAccounts(UUID fromId, UUID toId, Money amount, AuthToken token);
+
+    CompletableFuture<List<CommandResult>> ExecuteBatch(UUID id, List<BankCommand> commands, AuthToken token);
+
+    CompletableFuture<Void> DeleteUserAccount(UUID id, AuthToken token);
+}
@@ -4,17 +4,22 @@ import org.beaverbrooks.domain.user.Business;
 import org.beaverbrooks.domain.user.Customer;
 import org.beaverbrooks.domain.user.IUser;
 import org.beaverbrooks.shared.AuthToken;
+import org.beaverbrooks.shared.BankCommand;
+import org.beaverbrooks.shared.CommandResult;
+import org.beaverbrooks.shared.Money;
 import org.beaverbrooks.shared.exceptions.DuplicateUserException;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public interface IUserDataService {
 
-    IUser GetUserData(UUID id);
+    IUser GetUserData(UUID id) throws NoSuchElementException;
 
-    IUser GetUserData(String username);
+    IUser GetUserData(String username) throws NoSuchElementException;
 
     Customer CreateCustomer(String username, String password, String firstName, String lastName) throws NoSuchElementException, DuplicateUserException;
 
@@ -26,5 +31,21 @@ public interface IUserDataService {
 
     void WithdrawFromUserAccountBalance(IUser user, BigDecimal amount, AuthToken token);
 
+    Money GetUserAccountMoneyBalance(UUID id, AuthToken token);
+
+    Money AddToUserAccountBalance(IUser user, Money amount, AuthToken token);
+
+    Money WithdrawFromUserAccountBalance(IUser user, Money amount, AuthToken token);
+
+    CompletableFuture<Money> SubmitDeposit(UUID userId, Money amount, AuthToken token);
+
+    CompletableFuture<Money> SubmitWithdrawal(UUID userId, Money amount, AuthToken token);
+
+    void TransferBetweenUserAccounts(IUser from, UUID toId, BigDecimal amount, AuthToken token);
+
+    Money TransferBetweenUserAccounts(IUser from, UUID toId, Money amount, AuthToken token);
+
+    List<CommandResult> ExecuteBatch(IUser user, List<BankCommand> commands, AuthToken token);
+
     void DeleteUserAccount(IUser user, AuthToken token);
 }
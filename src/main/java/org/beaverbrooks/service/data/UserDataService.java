@@ -1,49 +1,73 @@
 package org.beaverbrooks.service.data;
 
+import org.beaverbrooks.domain.account.CustomerAccount;
+import org.beaverbrooks.domain.account.IAccount;
 import org.beaverbrooks.domain.user.*;
 import org.beaverbrooks.repository.IDataRepository;
 import org.beaverbrooks.service.auth.IAuthService;
 import org.beaverbrooks.shared.AuthToken;
+import org.beaverbrooks.shared.BankCommand;
+import org.beaverbrooks.shared.CommandResult;
+import org.beaverbrooks.shared.Futures;
+import org.beaverbrooks.shared.Money;
 import org.beaverbrooks.shared.exceptions.AuthorisationException;
 import org.beaverbrooks.shared.exceptions.DuplicateUserException;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 public class UserDataService implements IUserDataService {
     private final IDataRepository DataRepository;
     private final IAuthService AuthService;
+    private final Supplier<IAccount> AccountFactory;
+    private final AccountCommandEngine CommandEngine;
 
     public UserDataService(IDataRepository repository, IAuthService authService) {
+        this(repository, authService, CustomerAccount::new);
+    }
+
+    public UserDataService(IDataRepository repository, IAuthService authService, Supplier<IAccount> accountFactory) {
+        this(repository, authService, accountFactory, null);
+    }
+
+    // With a command engine, deposits and withdrawals are applied by the account's writer thread
+    // instead of the caller's; without one they run on the caller's thread as before.
+    public UserDataService(IDataRepository repository, IAuthService authService, Supplier<IAccount> accountFactory, AccountCommandEngine commandEngine) {
 
         DataRepository = repository;
         AuthService = authService;
+        AccountFactory = accountFactory;
+        CommandEngine = commandEngine;
     }
 
     @Override
-    public IUser GetUserData(UUID id) {
-        return null;
+    public IUser GetUserData(UUID id) throws NoSuchElementException {
+        return DataRepository.GetUserById(id).orElseThrow();
     }
 
     @Override
-    public IUser GetUserData(String username) {
-        return null;
+    public IUser GetUserData(String username) throws NoSuchElementException {
+        return DataRepository.FindByName(username).orElseThrow();
     }
 
 
     @Override
     public Customer CreateCustomer(String username, String password, String firstName, String lastName) throws NoSuchElementException, DuplicateUserException {
         Customer newCustomer;
-        UserAuth newAuth;
-        Optional<IUser> existingUser = DataRepository.FindByName(username);
-        if (existingUser.isPresent()) {
+        IUserAuth newAuth;
+        if (UsernameTaken(username)) {
+            throw new DuplicateUserException("User already exists");
+        }
+        newCustomer = new Customer(username, firstName, lastName, AccountFactory.get());
+        newAuth = AuthService.CreateUserAuth(newCustomer.GetID(), password);
+        if (!DataRepository.SaveNewUserIfAbsent(newAuth, newCustomer)) {
             throw new DuplicateUserException("User already exists");
         }
-        newCustomer = new Customer(username, firstName, lastName);
-        newAuth = new UserAuth(newCustomer.GetID(), password);
-        DataRepository.SaveNewUser(newAuth, newCustomer);
 
         IUser newUser = DataRepository.GetUserById(newCustomer.GetID()).orElseThrow();
         AuthService.CreateUserSession(newAuth);
@@ -53,15 +77,15 @@ public class UserDataService implements IUserDataService {
     @Override
     public Business CreateBusiness(String username, String password) throws NoSuchElementException, DuplicateUserException {
         Business newBusiness;
-        UserAuth newAuth;
-        Optional<IUser> existingBusiness = DataRepository.FindByName(username);
-        if (existingBusiness.isPresent()) {
+        IUserAuth newAuth;
+        if (UsernameTaken(username)) {
+            throw new DuplicateUserException("Business already exists");
+        }
+        newBusiness = new Business(username, AccountFactory.get());
+        newAuth = AuthService.CreateUserAuth(newBusiness.GetID(), password);
+        if (!DataRepository.SaveNewUserIfAbsent(newAuth, newBusiness)) {
             throw new DuplicateUserException("Business already exists");
         }
-        newBusiness = new Business(username);
-        newAuth = new UserAuth(newBusiness.GetID(), password);
-
-        DataRepository.SaveNewUser(newAuth, newBusiness);
 
         AuthService.CreateUserSession(newAuth);
         return (Business) DataRepository.GetUserById(newBusiness.GetID()).orElseThrow();
@@ -80,8 +104,13 @@ public class UserDataService implements IUserDataService {
         if (!AuthService.AuthAction(user.GetID(), token)) {
             throw new AuthorisationException("Not authorised to perform this action");
         }
+        Money.RequireValidAmount(amount);
+        if (CommandEngine != null) {
+            Await(CommandEngine.Deposit(user.GetID(), Money.Of(amount)));
+            return;
+        }
         user.GetAccount().orElseThrow().AddToAccount(amount);
-        DataRepository.SaveUpdateUser(user);
+        SaveChange(user, Money.Of(amount));
     }
 
     @Override
@@ -89,8 +118,171 @@ public class UserDataService implements IUserDataService {
         if (!AuthService.AuthAction(user.GetID(), token)) {
             throw new AuthorisationException("Not authorised to perform this action");
         }
+        Money.RequireValidAmount(amount);
+        if (CommandEngine != null) {
+            Await(CommandEngine.Withdraw(user.GetID(), Money.Of(amount)));
+            return;
+        }
         user.GetAccount().orElseThrow().SubtractFromAccount(amount);
-        DataRepository.SaveUpdateUser(user);
+        SaveChange(user, Money.Of(amount).Negate());
+    }
+
+    @Override
+    public Money GetUserAccountMoneyBalance(UUID id, AuthToken token) {
+        if (!AuthService.AuthAction(id, token)) {
+            throw new AuthorisationException("Not authorised to perform this action");
+        }
+        return DataRepository.GetUserById(id).orElseThrow().GetAccount().orElseThrow().GetMoneyBalance();
+    }
+
+    @Override
+    public Money AddToUserAccountBalance(IUser user, Money amount, AuthToken token) {
+        if (!AuthService.AuthAction(user.GetID(), token)) {
+            throw new AuthorisationException("Not authorised to perform this action");
+        }
+        Money.RequireValidAmount(amount);
+        if (CommandEngine != null) {
+            return Await(CommandEngine.Deposit(user.GetID(), amount));
+        }
+        Money balance = user.GetAccount().orElseThrow().AddToAccount(amount);
+        SaveChange(user, amount);
+        return balance;
+    }
+
+    @Override
+    public Money WithdrawFromUserAccountBalance(IUser user, Money amount, AuthToken token) {
+        if (!AuthService.AuthAction(user.GetID(), token)) {
+            throw new AuthorisationException("Not authorised to perform this action");
+        }
+        Money.RequireValidAmount(amount);
+        if (CommandEngine != null) {
+            return Await(CommandEngine.Withdraw(user.GetID(), amount));
+        }
+        Money balance = user.GetAccount().orElseThrow().SubtractFromAccount(amount);
+        SaveChange(user, amount.Negate());
+        return balance;
+    }
+
+    // Authorisation and the amount are checked before the command is queued, so an unauthorised or
+    // invalid call throws here rather than failing the future. Without a command engine the work
+    // is done before returning.
+    @Override
+    public CompletableFuture<Money> SubmitDeposit(UUID userId, Money amount, AuthToken token) {
+        if (!AuthService.AuthAction(userId, token)) {
+            throw new AuthorisationException("Not authorised to perform this action");
+        }
+        Money.RequireValidAmount(amount);
+        if (CommandEngine != null) {
+            return CommandEngine.Deposit(userId, amount);
+        }
+        try {
+            return CompletableFuture.completedFuture(AddToUserAccountBalance(GetUserData(userId), amount, token));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Money> SubmitWithdrawal(UUID userId, Money amount, AuthToken token) {
+        if (!AuthService.AuthAction(userId, token)) {
+            throw new AuthorisationException("Not authorised to perform this action");
+        }
+        Money.RequireValidAmount(amount);
+        if (CommandEngine != null) {
+            return CommandEngine.Withdraw(userId, amount);
+        }
+        try {
+            return CompletableFuture.completedFuture(WithdrawFromUserAccountBalance(GetUserData(userId), amount, token));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public void TransferBetweenUserAccounts(IUser from, UUID toId, BigDecimal amount, AuthToken token) {
+        if (!AuthService.AuthAction(from.GetID(), token)) {
+            throw new AuthorisationException("Not authorised to perform this action");
+        }
+        DataRepository.TransferBetweenAccounts(from.GetID(), toId, Money.RequireValidAmount(amount));
+    }
+
+    @Override
+    public Money TransferBetweenUserAccounts(IUser from, UUID toId, Money amount, AuthToken token) {
+        if (!AuthService.AuthAction(from.GetID(), token)) {
+            throw new AuthorisationException("Not authorised to perform this action");
+        }
+        return Money.Of(DataRepository.TransferBetweenAccounts(from.GetID(), toId, Money.RequireValidAmount(amount).ToBigDecimal()));
+    }
+
+    // Authorises once and saves the user once for each run of deposits and withdrawals, however
+    // many it holds. Transfers still go to the repository one by one since each touches another
+    // account, and the changes before a transfer are saved first so the transfer's log record never
+    // carries unsaved state. A failed command is reported in its result and the rest of the batch
+    // carries on; if the batch is cut short by anything else, the changes made so far are saved
+    // before the exception leaves. A save that fails takes the unsaved changes back out.
+    //
+    // With a command engine, deposits and withdrawals are all queued before any is waited on, so
+    // the batch costs one round trip to the writer thread rather than one per command. Queued
+    // commands are waited on before a balance or transfer, which must see them.
+    @Override
+    public List<CommandResult> ExecuteBatch(IUser user, List<BankCommand> commands, AuthToken token) {
+        if (!AuthService.AuthAction(user.GetID(), token)) {
+            throw new AuthorisationException("Not authorised to perform this action");
+        }
+        IAccount account = user.GetAccount().orElseThrow();
+        CommandResult[] results = new CommandResult[commands.size()];
+        ArrayList<QueuedCommand> queued = new ArrayList<>();
+        boolean accountChanged = false;
+        Money unsavedChange = Money.OfMinor(0);
+        try {
+            for (int i = 0; i < commands.size(); i++) {
+                BankCommand command = commands.get(i);
+                try {
+                    if (CommandEngine != null && command instanceof BankCommand.Deposit deposit) {
+                        queued.add(new QueuedCommand(i, CommandEngine.Deposit(user.GetID(), Money.RequireValidAmount(deposit.Amount()))));
+                        continue;
+                    }
+                    if (CommandEngine != null && command instanceof BankCommand.Withdraw withdraw) {
+                        queued.add(new QueuedCommand(i, CommandEngine.Withdraw(user.GetID(), Money.RequireValidAmount(withdraw.Amount()))));
+                        continue;
+                    }
+                    AwaitQueued(queued, results);
+                    if (command instanceof BankCommand.Transfer && accountChanged) {
+                        Money change = unsavedChange;
+                        accountChanged = false;
+                        unsavedChange = Money.OfMinor(0);
+                        SaveChange(user, change);
+                    }
+                    results[i] = switch (command) {
+                        case BankCommand.Deposit deposit -> {
+                            Money.RequireValidAmount(deposit.Amount());
+                            Money balance = account.AddToAccount(deposit.Amount());
+                            accountChanged = true;
+                            unsavedChange = unsavedChange.Plus(deposit.Amount());
+                            yield CommandResult.Success(balance);
+                        }
+                        case BankCommand.Withdraw withdraw -> {
+                            Money.RequireValidAmount(withdraw.Amount());
+                            Money balance = account.SubtractFromAccount(withdraw.Amount());
+                            accountChanged = true;
+                            unsavedChange = unsavedChange.Minus(withdraw.Amount());
+                            yield CommandResult.Success(balance);
+                        }
+                        case BankCommand.Balance balance -> CommandResult.Success(account.GetMoneyBalance());
+                        case BankCommand.Transfer transfer -> CommandResult.Success(Money.Of(DataRepository.TransferBetweenAccounts(
+                                user.GetID(), transfer.RecipientId(), Money.RequireValidAmount(transfer.Amount()).ToBigDecimal())));
+                    };
+                } catch (IllegalArgumentException | NoSuchElementException | ArithmeticException e) {
+                    results[i] = CommandResult.Failure(e.getMessage());
+                }
+            }
+            AwaitQueued(queued, results);
+        } finally {
+            if (accountChanged) {
+                SaveChange(user, unsavedChange);
+            }
+        }
+        return List.of(results);
     }
 
     @Override
@@ -101,5 +293,50 @@ public class UserDataService implements IUserDataService {
         DataRepository.DeleteAccount(user);
     }
 
+    // Most names offered at sign-up are new, and the repository's filter can say so without a lookup.
+    // This only turns existing names away before the password is hashed; SaveNewUserIfAbsent is
+    // what keeps two concurrent sign-ups from both getting the name.
+    private boolean UsernameTaken(String username) {
+        return DataRepository.MightContainUsername(username) && DataRepository.FindByName(username).isPresent();
+    }
+
+    // Accounts are changed in place before the save that makes the change durable, so a save that
+    // fails takes the change back out again, as the command engine does, rather than leave a balance
+    // nothing on disk accounts for.
+    private void SaveChange(IUser user, Money change) {
+        try {
+            DataRepository.SaveUpdateUser(user);
+        } catch (RuntimeException e) {
+            IAccount account = user.GetAccount().orElseThrow();
+            if (change.Signum() > 0) {
+                account.SubtractFromAccount(change);
+            } else if (change.Signum() < 0) {
+                account.AddToAccount(change.Negate());
+            }
+            throw e;
+        }
+    }
+
+    private record QueuedCommand(int Index, CompletableFuture<Money> Result) {
+    }
+
+    // Fills in the results of engine commands queued so far, in the order they were queued.
+    private static void AwaitQueued(ArrayList<QueuedCommand> queued, CommandResult[] results) {
+        for (QueuedCommand command : queued) {
+            try {
+                results[command.Index()] = CommandResult.Success(Await(command.Result()));
+            } catch (IllegalArgumentException | NoSuchElementException | ArithmeticException e) {
+                results[command.Index()] = CommandResult.Failure(e.getMessage());
+            }
+        }
+        queued.clear();
+    }
+
+    // Rethrows a failed command's own exception so the synchronous methods fail as they did before
+    // the engine existed.
+    private static Money Await(CompletableFuture<Money> result) {
+        return Futures.Join(result);
+    }
+
 
 }
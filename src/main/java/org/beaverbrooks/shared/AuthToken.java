@@ -2,4 +2,16 @@ package org.beaverbrooks.shared;
 
 import java.util.UUID;
 
-public record AuthToken (UUID UserId, boolean IsAuthed) {}
\ No newline at end of file
+// Session tokens carry only the user and whether they are authenticated, and are checked against
+// the session store. Signed tokens also carry their issue time, expiry and an HMAC signature, so
+// they can be verified without touching any shared state.
+public record AuthToken (UUID UserId, boolean IsAuthed, long IssuedAt, long ExpiresAt, String Signature) {
+
+    public AuthToken(UUID UserId, boolean IsAuthed) {
+        this(UserId, IsAuthed, 0L, 0L, null);
+    }
+
+    public boolean IsSigned() {
+        return Signature != null;
+    }
+}
@@ -0,0 +1,16 @@
+package org.beaverbrooks.shared;
+
+import java.util.UUID;
+
+// One operation in a batch submitted through IBankApi.ExecuteBatch. Every command acts on the
+// account of the user the batch is authorised for.
+public sealed interface BankCommand {
+
+    record Deposit(Money Amount) implements BankCommand {}
+
+    record Withdraw(Money Amount) implements BankCommand {}
+
+    record Balance() implements BankCommand {}
+
+    record Transfer(UUID RecipientId, Money Amount) implements BankCommand {}
+}
@@ -0,0 +1,13 @@
+package org.beaverbrooks.shared;
+
+// Outcome of one BankCommand: the account balance after it on success, or why it failed.
+public record CommandResult(boolean Succeeded, Money Balance, String Error) {
+
+    public static CommandResult Success(Money balance) {
+        return new CommandResult(true, balance, null);
+    }
+
+    public static CommandResult Failure(String error) {
+        return new CommandResult(false, null, error);
+    }
+}
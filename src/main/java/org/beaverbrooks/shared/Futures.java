@@ -0,0 +1,77 @@
+package org.beaverbrooks.shared;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+// Glue between the blocking and CompletableFuture-based layers. The asynchronous interfaces report
+// every failure through the future they return, never by throwing, and the blocking adapters hand
+// the future's own exception back rather than the CompletionException wrapped around it.
+public final class Futures {
+
+    private Futures() {
+    }
+
+    // Waits for the result, rethrowing an unchecked failure as itself. A checked failure stays
+    // wrapped in the CompletionException unless the caller names it with the overload below.
+    public static <T> T Join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw Unchecked(e);
+        }
+    }
+
+    // As Join, but rethrows a failure of the declared checked type as itself too.
+    public static <T, X extends Exception> T Join(CompletableFuture<T> future, Class<X> declared) throws X {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = Cause(e);
+            if (declared.isInstance(cause)) {
+                throw declared.cast(cause);
+            }
+            throw Unchecked(e);
+        }
+    }
+
+    // The exception a future failed with, without the CompletionException layers that
+    // composition adds around it.
+    public static Throwable Cause(Throwable failure) {
+        while (failure instanceof CompletionException && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        return failure;
+    }
+
+    // Runs a blocking call on the executor and completes with its result or with whatever it threw.
+    public static <T> CompletableFuture<T> Call(Callable<T> call, Executor executor) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> Complete(result, call));
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private static RuntimeException Unchecked(CompletionException failure) {
+        Throwable cause = Cause(failure);
+        if (cause instanceof RuntimeException unchecked) {
+            return unchecked;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return failure;
+    }
+
+    private static <T> void Complete(CompletableFuture<T> result, Callable<T> call) {
+        try {
+            result.complete(call.call());
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.beaverbrooks.shared;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Fixed-point amount: MinorUnits / 10^Scale, e.g. Money(1050, 2) is 10.50. Arithmetic is exact and
+// throws ArithmeticException on overflow; the only operations that can lose precision take an
+// explicit RoundingMode.
+//
+// Equality is by value, like compareTo: Money(100, 2) equals Money(1000, 3). The scale is kept as
+// given so amounts still print with the decimals they were made with.
+public record Money(long MinorUnits, int Scale) implements Comparable<Money> {
+
+    public static final int DEFAULT_SCALE = 2;
+    public static final int MAX_SCALE = 18;
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1L;
+        for (int i = 1; i <= MAX_SCALE; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10L;
+        }
+    }
+
+    public Money {
+        if (Scale < 0 || Scale > MAX_SCALE) {
+            throw new IllegalArgumentException("Scale must be between 0 and " + MAX_SCALE + " but was " + Scale);
+        }
+    }
+
+    public static Money OfMinor(long minorUnits) {
+        return new Money(minorUnits, DEFAULT_SCALE);
+    }
+
+    // Keeps the amount's own scale; throws if it has more than MAX_SCALE decimals or does not fit.
+    public static Money Of(BigDecimal amount) {
+        int scale = Math.max(amount.scale(), 0);
+        return new Money(amount.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact(), scale);
+    }
+
+    public static Money Of(BigDecimal amount, int scale, RoundingMode rounding) {
+        return new Money(amount.setScale(scale, rounding).unscaledValue().longValueExact(), scale);
+    }
+
+    public static Money Parse(String amount, RoundingMode rounding) {
+        return Of(new BigDecimal(amount.trim()), DEFAULT_SCALE, rounding);
+    }
+
+    // An amount a caller may deposit, withdraw or transfer: more than zero, with no more decimal
+    // places than an account holds. Services check this before touching any account, so every
+    // front end rejects the same amounts.
+    public static Money RequireValidAmount(Money amount) {
+        if (amount.Signum() <= 0) {
+            throw new IllegalArgumentException("Amount must be positive but was " + amount);
+        }
+        if (amount.Scale > DEFAULT_SCALE && amount.MinorUnits % POWERS_OF_TEN[amount.Scale - DEFAULT_SCALE] != 0) {
+            throw new IllegalArgumentException("Amounts may have at most " + DEFAULT_SCALE + " decimal places");
+        }
+        return amount;
+    }
+
+    public static BigDecimal RequireValidAmount(BigDecimal amount) {
+        if (amount.signum() <= 0) {
+            throw new IllegalArgumentException("Amount must be positive but was " + amount.toPlainString());
+        }
+        if (amount.stripTrailingZeros().scale() > DEFAULT_SCALE) {
+            throw new IllegalArgumentException("Amounts may have at most " + DEFAULT_SCALE + " decimal places");
+        }
+        return amount;
+    }
+
+    public Money Plus(Money other) {
+        if (Scale == other.Scale) {
+            return new Money(Math.addExact(MinorUnits, other.MinorUnits), Scale);
+        }
+        int scale = Math.max(Scale, other.Scale);
+        return new Money(Math.addExact(MinorUnitsAt(scale), other.MinorUnitsAt(scale)), scale);
+    }
+
+    public Money Minus(Money other) {
+        if (Scale == other.Scale) {
+            return new Money(Math.subtractExact(MinorUnits, other.MinorUnits), Scale);
+        }
+        int scale = Math.max(Scale, other.Scale);
+        return new Money(Math.subtractExact(MinorUnitsAt(scale), other.MinorUnitsAt(scale)), scale);
+    }
+
+    public Money Negate() {
+        return new Money(Math.negateExact(MinorUnits), Scale);
+    }
+
+    public Money Rescale(int scale, RoundingMode rounding) {
+        if (scale >= Scale) {
+            return new Money(MinorUnitsAt(scale), scale);
+        }
+        long divisor = POWERS_OF_TEN[Scale - scale];
+        long quotient = MinorUnits / divisor;
+        long remainder = MinorUnits % divisor;
+        if (remainder == 0) {
+            return new Money(quotient, scale);
+        }
+        return Of(ToBigDecimal(), scale, rounding);
+    }
+
+    // Minor units of this amount expressed at a scale at least as large as its own.
+    public long MinorUnitsAt(int scale) {
+        if (scale < Scale) {
+            throw new ArithmeticException("Cannot express " + this + " at scale " + scale + " without rounding");
+        }
+        if (scale > MAX_SCALE) {
+            throw new IllegalArgumentException("Scale must be at most " + MAX_SCALE);
+        }
+        return Math.multiplyExact(MinorUnits, POWERS_OF_TEN[scale - Scale]);
+    }
+
+    public int Signum() {
+        return Long.signum(MinorUnits);
+    }
+
+    public BigDecimal ToBigDecimal() {
+        return BigDecimal.valueOf(MinorUnits, Scale);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        if (Scale == other.Scale) {
+            return Long.compare(MinorUnits, other.MinorUnits);
+        }
+        return ToBigDecimal().compareTo(other.ToBigDecimal());
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Money money && compareTo(money) == 0;
+    }
+
+    // Hashes the value with trailing zero decimals stripped, so equal amounts at different scales
+    // hash alike.
+    @Override
+    public int hashCode() {
+        long minorUnits = MinorUnits;
+        int scale = Scale;
+        while (scale > 0 && minorUnits % 10 == 0) {
+            minorUnits /= 10;
+            scale--;
+        }
+        return 31 * Long.hashCode(minorUnits) + scale;
+    }
+
+    @Override
+    public String toString() {
+        return ToBigDecimal().toPlainString();
+    }
+}
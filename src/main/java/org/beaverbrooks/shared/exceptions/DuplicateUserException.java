@@ -0,0 +1,7 @@
+package org.beaverbrooks.shared.exceptions;
+
+public class DuplicateUserException extends RuntimeException {
+    public DuplicateUserException(String message) {
+        super(message);
+    }
+}
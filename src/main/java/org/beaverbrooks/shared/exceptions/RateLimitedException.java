@@ -0,0 +1,8 @@
+package org.beaverbrooks.shared.exceptions;
+
+public class RateLimitedException extends RuntimeException {
+    // Thrown on every rejected attempt during a flood, so it skips the stack trace to stay cheap.
+    public RateLimitedException(String message) {
+        super(message, null, false, false);
+    }
+}
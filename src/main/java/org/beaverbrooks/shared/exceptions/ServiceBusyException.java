@@ -0,0 +1,7 @@
+package org.beaverbrooks.shared.exceptions;
+
+public class ServiceBusyException extends RuntimeException {
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
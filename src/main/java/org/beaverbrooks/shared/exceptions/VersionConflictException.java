@@ -0,0 +1,7 @@
+package org.beaverbrooks.shared.exceptions;
+
+public class VersionConflictException extends RuntimeException {
+    public VersionConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,115 @@
+package org.beaverbrooks.api;
+
+import org.beaverbrooks.domain.user.*;
+import org.beaverbrooks.repository.AsyncDataRepositoryAdapter;
+import org.beaverbrooks.repository.IDataRepository;
+import org.beaverbrooks.repository.StripedRepository;
+import org.beaverbrooks.service.auth.BasicAuthService;
+import org.beaverbrooks.service.auth.IAuthService;
+import org.beaverbrooks.service.auth.SessionStore;
+import org.beaverbrooks.service.auth.TokenSigner;
+import org.beaverbrooks.service.data.AsyncUserDataService;
+import org.beaverbrooks.service.data.UserDataService;
+import org.beaverbrooks.shared.AuthToken;
+import org.beaverbrooks.shared.Money;
+import org.beaverbrooks.shared.exceptions.PasswordMismatchException;
+import org.beaverbrooks.shared.exceptions.UnauthorisedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AsyncBankApi and AsyncBankApiAdapter.
+ * Uses signed tokens, as the remote front ends do.
+ */
+public class AsyncBankApiTest {
+
+    private static final String PASSWORD = "Pa55word!!1234";
+
+    private IDataRepository repository;
+    private IAuthService authService;
+    private ExecutorService executor;
+    private UUID testUser1Id;
+    private UUID testUser2Id;
+
+    /**
+     * Sets up test data before each test method.
+     * Creates a repository with two customers and a token-mode auth service.
+     */
+    @BeforeEach
+    void SetupRepository() {
+        testUser1Id = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        testUser2Id = UUID.fromString("00000000-0000-0000-0000-000000000002");
+        ArrayList<IUser> userData = new ArrayList<>();
+        ArrayList<IUserAuth> authData = new ArrayList<>();
+        userData.add(new Customer("TestUser1", "Test", "Tester", testUser1Id));
+        userData.add(new Customer("TestUser2", "Test", "Tester", testUser2Id));
+        authData.add(UserAuth.FromPassword(testUser1Id, PASSWORD, 1_000));
+        authData.add(UserAuth.FromPassword(testUser2Id, PASSWORD, 1_000));
+        repository = new StripedRepository(userData, authData);
+        authService = new BasicAuthService(repository, new SessionStore(), TokenSigner.WithRandomKey());
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void StopExecutor() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Tests a whole session through the asynchronous API over the asynchronous service.
+     * Verifies login, deposit, transfer and balance, and that the token is refused after logout.
+     */
+    @Test
+    void AsyncBankApi_ShouldServeSession_WhenLoggedIn() {
+        // Arrange
+        IAsyncBankApi api = new AsyncBankApi(authService,
+                new AsyncUserDataService(new AsyncDataRepositoryAdapter(repository, executor), authService, executor), executor);
+
+        // Act
+        AuthToken token = api.LoginUserForToken("TestUser1", PASSWORD).join();
+        Money afterDeposit = api.DepositToAccount(token, Money.OfMinor(10_000)).join();
+        Money afterTransfer = api.TransferToAccount(token, testUser2Id, Money.OfMinor(2_500)).join();
+        Money balance = api.GetUserMoneyBalance(token).join();
+        api.LogoutUser(token).join();
+
+        // Assert
+        assertEquals(testUser1Id, token.UserId());
+        assertEquals(0, Money.OfMinor(10_000).compareTo(afterDeposit));
+        assertEquals(0, Money.OfMinor(7_500).compareTo(afterTransfer));
+        assertEquals(0, Money.OfMinor(7_500).compareTo(balance));
+        assertEquals(0, new BigDecimal("25.00").compareTo(repository.GetAccountBalance(testUser2Id)));
+        CompletionException thrown = assertThrows(CompletionException.class, () -> api.LogoutUser(token).join());
+        assertInstanceOf(UnauthorisedException.class, thrown.getCause());
+    }
+
+    /**
+     * Tests the adapter over the blocking BankApi.
+     * Verifies that results and checked failures both arrive through the future.
+     */
+    @Test
+    void AsyncBankApiAdapter_ShouldCompleteFutures_FromBlockingApi() {
+        // Arrange
+        IAsyncBankApi api = new AsyncBankApiAdapter(new BankApi(authService, new UserDataService(repository, authService)), executor);
+
+        // Act
+        AuthToken token = api.LoginUserForToken("TestUser1", PASSWORD).join();
+        Money afterDeposit = api.DepositToAccount(token, Money.OfMinor(1_000)).join();
+        Money balance = api.GetUserMoneyBalance(token).join();
+
+        // Assert
+        assertEquals(0, Money.OfMinor(1_000).compareTo(afterDeposit));
+        assertEquals(0, Money.OfMinor(1_000).compareTo(balance));
+        CompletionException thrown = assertThrows(CompletionException.class, () -> api.LoginUserForToken("TestUser1", "wrong").join());
+        assertInstanceOf(PasswordMismatchException.class, thrown.getCause());
+    }
+}
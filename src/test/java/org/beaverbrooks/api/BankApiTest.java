@@ -5,9 +5,15 @@ import org.beaverbrooks.repository.IDataRepository;
 import org.beaverbrooks.repository.InMemoryRepository;
 import org.beaverbrooks.service.auth.BasicAuthService;
 import org.beaverbrooks.service.auth.IAuthService;
+import org.beaverbrooks.service.auth.SessionStore;
+import org.beaverbrooks.service.auth.TokenSigner;
 import org.beaverbrooks.service.data.IUserDataService;
 import org.beaverbrooks.service.data.UserDataService;
 import org.beaverbrooks.shared.AuthToken;
+import org.beaverbrooks.shared.BankCommand;
+import org.beaverbrooks.shared.CommandResult;
+import org.beaverbrooks.shared.Money;
+import org.beaverbrooks.shared.exceptions.AuthorisationException;
 import org.beaverbrooks.shared.exceptions.DuplicateUserException;
 import org.beaverbrooks.shared.exceptions.PasswordMismatchException;
 import org.beaverbrooks.shared.exceptions.UnauthorisedException;
@@ -17,6 +23,7 @@ import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.UUID;
@@ -56,8 +63,8 @@ public class BankApiTest {
         User testUser1 = new Customer("TestUser1", "Test", "Tester", testUser1Id);
         User testUser2 = new Customer("TestUser2", "Test", "Tester", testUser2Id);
         
-        UserAuth testUserAuth1 = new UserAuth(testUser1Id, testUser1Password);
-        UserAuth testUserAuth2 = new UserAuth(testUser2Id, testUser2Password);
+        UserAuth testUserAuth1 = UserAuth.FromPassword(testUser1Id, testUser1Password, 1_000);
+        UserAuth testUserAuth2 = UserAuth.FromPassword(testUser2Id, testUser2Password, 1_000);
 
         userData.add(testUser1);
         userData.add(testUser2);
@@ -389,10 +396,10 @@ public class BankApiTest {
 
     /**
      * Tests user logout.
-     * Note: Current implementation is empty, so this test verifies that behavior.
+     * Verifies that the session is removed and further actions are refused.
      */
     @Test
-    void LogoutUser_ShouldComplete_WhenCalled() {
+    void LogoutUser_ShouldEndSession_WhenCalled() {
         // Arrange
         IUser user = repository.GetUserById(testUser1Id).get();
         
@@ -404,9 +411,9 @@ public class BankApiTest {
         bankApi.LogoutUser(user);
         
         // Assert
-        // Note: Current implementation doesn't clear sessions, so session still exists
         Optional<AuthToken> sessionAfter = authService.GetSessionToken(testUser1Id);
-        assertTrue(sessionAfter.isPresent()); // Current implementation doesn't clear sessions
+        assertFalse(sessionAfter.isPresent());
+        assertThrows(UnauthorisedException.class, () -> bankApi.GetUserBalance(testUser1Id));
     }
 
     /**
@@ -450,4 +457,66 @@ public class BankApiTest {
         // Assert
         assertEquals(expectedBalance, balance);
     }
+
+    /**
+     * Tests the token overloads in token mode.
+     * Verifies that a signed token from login authorises deposits and balance reads until logout.
+     */
+    @Test
+    void TokenOperations_ShouldWork_WhenUsingSignedToken() throws UserNotFoundException, PasswordMismatchException {
+        // Arrange
+        IAuthService tokenAuthService = new BasicAuthService(repository, new SessionStore(), TokenSigner.WithRandomKey());
+        IBankApi tokenApi = new BankApi(tokenAuthService, new UserDataService(repository, tokenAuthService));
+        AuthToken token = tokenApi.LoginUserForToken("TestUser1", testUser1Password);
+
+        // Act
+        Money afterDeposit = tokenApi.DepositToAccount(token, Money.OfMinor(2_500));
+        Money afterTransfer = tokenApi.TransferToAccount(token, testUser2Id, Money.OfMinor(1_000));
+        tokenApi.LogoutUser(token);
+
+        // Assert
+        assertTrue(token.IsSigned());
+        assertEquals(0, Money.OfMinor(2_500).compareTo(afterDeposit));
+        assertEquals(0, Money.OfMinor(1_500).compareTo(afterTransfer));
+        assertThrows(AuthorisationException.class, () -> tokenApi.GetUserBalance(token));
+    }
+
+    /**
+     * Tests the token overloads with forged tokens, one for an existing user and one for an unknown id.
+     * Verifies that both are refused the same way, so the response does not reveal which ids exist.
+     */
+    @Test
+    void TokenOperations_ShouldRefuseUnknownAndKnownIdsAlike_WhenTokenForged() {
+        // Arrange
+        AuthToken forgedKnown = new AuthToken(testUser2Id, true);
+        AuthToken forgedUnknown = new AuthToken(UUID.fromString("00000000-0000-0000-0000-000000000099"), true);
+
+        // Act & Assert
+        for (AuthToken token : List.of(forgedKnown, forgedUnknown)) {
+            assertThrows(UnauthorisedException.class, () -> bankApi.DepositToAccount(token, Money.OfMinor(100)));
+            assertThrows(UnauthorisedException.class, () -> bankApi.WithdrawFromAccount(token, Money.OfMinor(100)));
+            assertThrows(UnauthorisedException.class, () -> bankApi.TransferToAccount(token, testUser1Id, Money.OfMinor(100)));
+            assertThrows(UnauthorisedException.class, () -> bankApi.ExecuteBatch(token, List.of(new BankCommand.Balance())));
+        }
+    }
+
+    /**
+     * Tests submitting a batch for a logged-in user, and for one without a session.
+     * Verifies that the batch runs once authorised and is refused otherwise.
+     */
+    @Test
+    void ExecuteBatch_ShouldRunCommands_WhenUserIsAuthenticated() {
+        // Arrange
+        IUser user = repository.GetUserById(testUser1Id).get();
+        IUser loggedOut = repository.GetUserById(testUser2Id).get();
+        List<BankCommand> commands = List.of(new BankCommand.Deposit(Money.OfMinor(500)), new BankCommand.Balance());
+
+        // Act
+        List<CommandResult> results = bankApi.ExecuteBatch(user, commands);
+
+        // Assert
+        assertTrue(results.get(0).Succeeded());
+        assertEquals(0, Money.OfMinor(500).compareTo(results.get(1).Balance()));
+        assertThrows(UnauthorisedException.class, () -> bankApi.ExecuteBatch(loggedOut, commands));
+    }
 }
@@ -0,0 +1,186 @@
+package org.beaverbrooks.app;
+
+import org.beaverbrooks.api.BankApi;
+import org.beaverbrooks.app.helper.Validation;
+import org.beaverbrooks.app.http.BankHttpServer;
+import org.beaverbrooks.domain.user.*;
+import org.beaverbrooks.repository.IDataRepository;
+import org.beaverbrooks.repository.StripedRepository;
+import org.beaverbrooks.service.auth.BasicAuthService;
+import org.beaverbrooks.service.auth.IAuthService;
+import org.beaverbrooks.service.auth.SessionStore;
+import org.beaverbrooks.service.auth.TokenSigner;
+import org.beaverbrooks.service.data.UserDataService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for BankHttpServer.
+ * Drives the server over loopback with the JDK HTTP client and checks status codes and bodies.
+ */
+public class BankHttpServerTest {
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\":\"([^\"]+)\"");
+
+    private BankHttpServer server;
+    private HttpClient client;
+    private String baseUrl;
+
+    /**
+     * Sets up test data before each test method.
+     * Starts a server on an ephemeral port backed by one customer, with signed tokens enabled.
+     */
+    @BeforeEach
+    void SetupServer() throws IOException {
+        UUID userId = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        ArrayList<IUser> userData = new ArrayList<>();
+        ArrayList<IUserAuth> authData = new ArrayList<>();
+        userData.add(new Customer("TestUser", "Test", "Tester", userId));
+        authData.add(UserAuth.FromPassword(userId, "Pa55word!!1234", 1_000));
+        IDataRepository repository = new StripedRepository(userData, authData);
+        IAuthService authService = new BasicAuthService(repository, new SessionStore(), TokenSigner.WithRandomKey());
+        BankApi api = new BankApi(authService, new UserDataService(repository, authService));
+
+        server = new BankHttpServer(api, new Validation(), new InetSocketAddress("127.0.0.1", 0));
+        server.Start();
+        client = HttpClient.newHttpClient();
+        baseUrl = "http://127.0.0.1:" + server.GetPort();
+    }
+
+    @AfterEach
+    void StopServer() {
+        server.close();
+    }
+
+    /**
+     * Tests a full session: login, deposit, withdraw, balance and logout.
+     * Verifies each step's response and that the token stops working after logout.
+     */
+    @Test
+    void Endpoints_ShouldServeSession_WhenLoggedIn() throws Exception {
+        // Arrange
+        String token = Login("TestUser", "Pa55word!!1234");
+
+        // Act
+        HttpResponse<String> deposit = Post("/deposit", "{\"amount\": 25.50}", token);
+        HttpResponse<String> withdraw = Post("/withdraw", "{\"amount\": \"5.25\"}", token);
+        HttpResponse<String> balance = Get("/balance", token);
+        HttpResponse<String> logout = Post("/logout", "", token);
+        HttpResponse<String> afterLogout = Get("/balance", token);
+
+        // Assert
+        assertEquals(200, deposit.statusCode());
+        assertEquals("{\"balance\":25.50}", deposit.body());
+        assertEquals("{\"balance\":20.25}", withdraw.body());
+        assertEquals(200, balance.statusCode());
+        assertEquals("{\"balance\":20.25}", balance.body());
+        assertEquals(204, logout.statusCode());
+        assertEquals(401, afterLogout.statusCode());
+    }
+
+    /**
+     * Tests creating a customer account and logging in with it.
+     * Verifies that the account is created once and a duplicate username is refused.
+     */
+    @Test
+    void CreateAccount_ShouldCreateCustomer_WhenDetailsValid() throws Exception {
+        // Arrange
+        String body = "{\"username\":\"NewCustomer\",\"password\":\"Pa55word!!9999\",\"firstName\":\"New\",\"lastName\":\"Customer\"}";
+
+        // Act
+        HttpResponse<String> created = Post("/accounts", body, null);
+        HttpResponse<String> duplicate = Post("/accounts", body, null);
+
+        // Assert
+        assertEquals(201, created.statusCode());
+        assertTrue(created.body().startsWith("{\"userId\":\""));
+        assertEquals(409, duplicate.statusCode());
+        assertNotNull(Login("NewCustomer", "Pa55word!!9999"));
+    }
+
+    /**
+     * Tests requests that should be refused.
+     * Verifies the status code for bad credentials, missing or forged tokens, malformed JSON,
+     * sub-penny amounts, invalid account details and the wrong method.
+     */
+    @Test
+    void Endpoints_ShouldReturnErrors_WhenRequestInvalid() throws Exception {
+        // Arrange
+        String token = Login("TestUser", "Pa55word!!1234");
+        String forged = token.substring(0, token.lastIndexOf('.') + 1) + "AAAA";
+
+        // Act & Assert
+        assertEquals(401, Post("/login", "{\"username\":\"TestUser\",\"password\":\"wrong\"}", null).statusCode());
+        assertEquals(401, Post("/login", "{\"username\":\"Nobody\",\"password\":\"wrong\"}", null).statusCode());
+        assertEquals(401, Get("/balance", null).statusCode());
+        assertEquals(401, Get("/balance", forged).statusCode());
+        assertEquals(400, Post("/deposit", "{\"amount\": 1.00", token).statusCode());
+        assertEquals(400, Post("/deposit", "{\"amount\": 1.001}", token).statusCode());
+        assertEquals(400, Post("/deposit", "{}", token).statusCode());
+        assertEquals(400, Post("/accounts", "{\"username\":\"ab\",\"password\":\"short\",\"firstName\":\"A\",\"lastName\":\"B\"}", null).statusCode());
+        assertEquals(405, Get("/deposit", token).statusCode());
+        assertEquals(404, Get("/balance/extra", token).statusCode());
+    }
+
+    /**
+     * Tests withdrawing and depositing a negative or zero amount.
+     * Verifies that each is refused with 400 and the balance does not move.
+     */
+    @Test
+    void Withdraw_ShouldReturn400_WhenAmountNotPositive() throws Exception {
+        // Arrange
+        String token = Login("TestUser", "Pa55word!!1234");
+        Post("/deposit", "{\"amount\": 10.00}", token);
+
+        // Act
+        HttpResponse<String> negativeWithdraw = Post("/withdraw", "{\"amount\": -100.00}", token);
+        HttpResponse<String> negativeDeposit = Post("/deposit", "{\"amount\": \"-1.00\"}", token);
+        HttpResponse<String> zeroDeposit = Post("/deposit", "{\"amount\": 0}", token);
+        HttpResponse<String> balance = Get("/balance", token);
+
+        // Assert
+        assertEquals(400, negativeWithdraw.statusCode());
+        assertTrue(negativeWithdraw.body().contains("positive"));
+        assertEquals(400, negativeDeposit.statusCode());
+        assertEquals(400, zeroDeposit.statusCode());
+        assertEquals("{\"balance\":10.00}", balance.body());
+    }
+
+    private String Login(String username, String password) throws Exception {
+        HttpResponse<String> response = Post("/login", "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}", null);
+        assertEquals(200, response.statusCode(), response.body());
+        Matcher matcher = TOKEN.matcher(response.body());
+        assertTrue(matcher.find());
+        return matcher.group(1);
+    }
+
+    private HttpResponse<String> Get(String path, String token) throws Exception {
+        return client.send(Request(path, token).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> Post(String path, String body, String token) throws Exception {
+        return client.send(Request(path, token).POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest.Builder Request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+}
@@ -0,0 +1,219 @@
+package org.beaverbrooks.app;
+
+import org.beaverbrooks.api.BankApi;
+import org.beaverbrooks.app.binary.BinaryBankClient;
+import org.beaverbrooks.app.binary.BinaryProtocol;
+import org.beaverbrooks.app.binary.BinaryProtocolServer;
+import org.beaverbrooks.app.helper.Validation;
+import org.beaverbrooks.domain.user.*;
+import org.beaverbrooks.repository.IDataRepository;
+import org.beaverbrooks.repository.StripedRepository;
+import org.beaverbrooks.service.auth.BasicAuthService;
+import org.beaverbrooks.service.auth.IAuthService;
+import org.beaverbrooks.service.auth.SessionStore;
+import org.beaverbrooks.service.auth.TokenSigner;
+import org.beaverbrooks.service.data.UserDataService;
+import org.beaverbrooks.shared.AuthToken;
+import org.beaverbrooks.shared.Money;
+import org.beaverbrooks.shared.exceptions.UnauthorisedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for BinaryProtocolServer and BinaryBankClient.
+ * Drives the server over loopback, with writes both on the selector thread and handed off.
+ */
+public class BinaryProtocolServerTest {
+
+    private static final UUID USER_1 = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final UUID USER_2 = UUID.fromString("00000000-0000-0000-0000-000000000002");
+    private static final String PASSWORD = "Pa55word!!1234";
+
+    private IDataRepository repository;
+    private BinaryProtocolServer server;
+    private BinaryBankClient client;
+
+    /**
+     * Sets up test data before each test method.
+     * Creates a repository with two customers and an API with signed tokens enabled.
+     */
+    @BeforeEach
+    void SetupRepository() {
+        ArrayList<IUser> userData = new ArrayList<>();
+        ArrayList<IUserAuth> authData = new ArrayList<>();
+        userData.add(new Customer("TestUser1", "Test", "Tester", USER_1));
+        userData.add(new Customer("TestUser2", "Test", "Tester", USER_2));
+        authData.add(UserAuth.FromPassword(USER_1, PASSWORD, 1_000));
+        authData.add(UserAuth.FromPassword(USER_2, PASSWORD, 1_000));
+        repository = new StripedRepository(userData, authData);
+    }
+
+    @AfterEach
+    void StopServer() throws IOException {
+        if (client != null) {
+            client.close();
+        }
+        server.close();
+    }
+
+    /**
+     * Tests a session of single request/response calls.
+     * Verifies login, deposit, withdraw, transfer, balance and logout results.
+     */
+    @Test
+    void Client_ShouldServeSession_WhenLoggedIn() throws IOException {
+        // Arrange
+        Start(true);
+        AuthToken token = client.Login("TestUser1", PASSWORD);
+
+        // Act
+        Money afterDeposit = client.Deposit(token, Money.OfMinor(10_000));
+        Money afterWithdraw = client.Withdraw(token, Money.OfMinor(2_500));
+        Money afterTransfer = client.Transfer(token, USER_2, Money.OfMinor(500));
+        Money balance = client.Balance(token);
+        client.Logout(token);
+
+        // Assert
+        assertEquals(USER_1, token.UserId());
+        assertEquals(Money.OfMinor(10_000), afterDeposit);
+        assertEquals(Money.OfMinor(7_500), afterWithdraw);
+        assertEquals(Money.OfMinor(7_000), afterTransfer);
+        assertEquals(0, new BigDecimal("70.00").compareTo(balance.ToBigDecimal()));
+        assertEquals(0, new BigDecimal("5.00").compareTo(repository.GetAccountBalance(USER_2)));
+        assertThrows(UnauthorisedException.class, () -> client.Balance(token));
+    }
+
+    /**
+     * Tests many requests pipelined on one connection and sent in a single write.
+     * Verifies that every request is answered once, matched by correlation id, and all applied.
+     */
+    @Test
+    void Client_ShouldMatchResponses_WhenRequestsPipelined() throws IOException {
+        AssertPipelinedRequestsAnswered(true);
+    }
+
+    /**
+     * Tests pipelined requests when writes are handed off the selector thread.
+     * Verifies that responses completing out of order are still matched and all applied.
+     */
+    @Test
+    void Client_ShouldMatchResponses_WhenWritesHandedOff() throws IOException {
+        AssertPipelinedRequestsAnswered(false);
+    }
+
+    /**
+     * Tests a frame whose length prefix is larger than the protocol allows.
+     * Verifies that the server drops the connection and keeps serving others.
+     */
+    @Test
+    void Server_ShouldCloseConnection_WhenFrameTooLarge() throws IOException {
+        // Arrange
+        Start(true);
+        ByteBuffer frame = ByteBuffer.allocate(BinaryProtocol.LENGTH_BYTES + BinaryProtocol.HEADER_BYTES)
+                .putInt(BinaryProtocol.MAX_FRAME_BYTES + 1).putLong(1L).put(BinaryProtocol.OP_BALANCE).flip();
+
+        // Act
+        int read;
+        try (SocketChannel raw = SocketChannel.open(new InetSocketAddress("127.0.0.1", server.GetPort()))) {
+            raw.write(frame);
+            read = raw.read(ByteBuffer.allocate(16));
+        }
+
+        // Assert
+        assertEquals(-1, read);
+        assertEquals(USER_1, client.Login("TestUser1", PASSWORD).UserId());
+    }
+
+    /**
+     * Tests deposit, withdraw and transfer frames carrying negative, zero, sub-cent and
+     * out-of-range-scale amounts.
+     * Verifies that each is answered with a bad-request error frame and no balance moves.
+     */
+    @Test
+    void Server_ShouldReturnBadRequest_WhenAmountInvalid() throws IOException {
+        // Arrange
+        Start(true);
+        AuthToken token = client.Login("TestUser1", PASSWORD);
+        client.Deposit(token, Money.OfMinor(1_000));
+        ByteBuffer badScale = ByteBuffer.allocate(256);
+        int start = BinaryProtocol.BeginFrame(badScale, 99L, BinaryProtocol.OP_DEPOSIT);
+        BinaryProtocol.PutToken(badScale, token);
+        badScale.putLong(100L).put((byte) -1);
+        BinaryProtocol.EndFrame(badScale, start);
+        badScale.flip();
+
+        // Act
+        IllegalArgumentException negativeWithdraw = assertThrows(IllegalArgumentException.class,
+                () -> client.Withdraw(token, Money.OfMinor(-10_000)));
+        assertThrows(IllegalArgumentException.class, () -> client.Deposit(token, Money.OfMinor(0)));
+        assertThrows(IllegalArgumentException.class, () -> client.Deposit(token, new Money(1, 3)));
+        assertThrows(IllegalArgumentException.class, () -> client.Transfer(token, USER_2, Money.OfMinor(-500)));
+        ByteBuffer reply = ByteBuffer.allocate(BinaryProtocol.LENGTH_BYTES + BinaryProtocol.HEADER_BYTES);
+        try (SocketChannel raw = SocketChannel.open(new InetSocketAddress("127.0.0.1", server.GetPort()))) {
+            raw.write(badScale);
+            while (reply.hasRemaining() && raw.read(reply) >= 0) {
+                // Reads until the header is in.
+            }
+        }
+        reply.flip();
+
+        // Assert
+        assertTrue(negativeWithdraw.getMessage().contains("positive"));
+        assertEquals(99L, reply.getLong(BinaryProtocol.LENGTH_BYTES));
+        assertEquals(BinaryProtocol.STATUS_BAD_REQUEST, reply.get(BinaryProtocol.LENGTH_BYTES + Long.BYTES));
+        assertEquals(0, Money.OfMinor(1_000).compareTo(client.Balance(token)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(repository.GetAccountBalance(USER_2)));
+    }
+
+    private void AssertPipelinedRequestsAnswered(boolean inlineWrites) throws IOException {
+        // Arrange
+        Start(inlineWrites);
+        AuthToken token = client.Login("TestUser1", PASSWORD);
+        int requests = 500;
+        HashMap<Long, Integer> pending = new HashMap<>();
+
+        // Act
+        for (int i = 0; i < requests; i++) {
+            pending.put(i % 2 == 0 ? client.SendDeposit(token, Money.OfMinor(100)) : client.SendBalance(token), i);
+        }
+        long badToken = client.SendBalance(new AuthToken(USER_1, true, 1L, Long.MAX_VALUE, "forged"));
+        client.Flush();
+        int answered = 0;
+        boolean badTokenRefused = false;
+        for (int i = 0; i <= requests; i++) {
+            BinaryBankClient.Response response = client.Receive();
+            if (response.CorrelationId() == badToken) {
+                badTokenRefused = response.Status() == BinaryProtocol.STATUS_UNAUTHORISED;
+                continue;
+            }
+            assertNotNull(pending.remove(response.CorrelationId()));
+            assertTrue(response.IsOk());
+            answered++;
+        }
+
+        // Assert
+        assertEquals(requests, answered);
+        assertTrue(badTokenRefused);
+        assertEquals(0, Money.OfMinor(25_000).compareTo(client.Balance(token)));
+    }
+
+    private void Start(boolean inlineWrites) throws IOException {
+        IAuthService authService = new BasicAuthService(repository, new SessionStore(), TokenSigner.WithRandomKey());
+        BankApi api = new BankApi(authService, new UserDataService(repository, authService));
+        server = new BinaryProtocolServer(api, new Validation(), new InetSocketAddress("127.0.0.1", 0), inlineWrites);
+        server.Start();
+        client = new BinaryBankClient(new InetSocketAddress("127.0.0.1", server.GetPort()));
+    }
+}
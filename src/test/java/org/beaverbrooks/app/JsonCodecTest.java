@@ -0,0 +1,98 @@
+package org.beaverbrooks.app;
+
+import org.beaverbrooks.app.http.JsonReader;
+import org.beaverbrooks.app.http.JsonWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the JsonReader and JsonWriter used by the HTTP front end.
+ */
+public class JsonCodecTest {
+
+    /**
+     * Tests reading an object with strings, escapes, an exact decimal and members to skip.
+     * Verifies each value and that skipped members do not disturb the rest.
+     */
+    @Test
+    void JsonReader_ShouldReadMembers_WhenObjectValid() throws IOException {
+        // Arrange
+        String json = " { \"name\" : \"Ann \\\"A\\\" \\u00e9\", \"skip\": {\"a\": [1, {\"b\": \"}\"}]}, \"amount\": 0.10, \"flag\": true } ";
+        JsonReader reader = new JsonReader(new StringReader(json), 1024);
+        String name = null;
+        BigDecimal amount = null;
+
+        // Act
+        reader.BeginObject();
+        while (reader.HasNext()) {
+            switch (reader.NextName()) {
+                case "name" -> name = reader.NextString();
+                case "amount" -> amount = reader.NextDecimal();
+                default -> reader.SkipValue();
+            }
+        }
+        reader.EndObject();
+        reader.EndDocument();
+
+        // Assert
+        assertEquals("Ann \"A\" \u00e9", name);
+        assertEquals(new BigDecimal("0.10"), amount);
+    }
+
+    /**
+     * Tests malformed and oversized input.
+     * Verifies that each is rejected with a JsonException.
+     */
+    @Test
+    void JsonReader_ShouldThrowException_WhenInputMalformed() {
+        assertThrows(JsonReader.JsonException.class, () -> ReadAmount("{\"amount\": 1"));
+        assertThrows(JsonReader.JsonException.class, () -> ReadAmount("{\"amount\" 1}"));
+        assertThrows(JsonReader.JsonException.class, () -> ReadAmount("{\"amount\": abc}"));
+        assertThrows(JsonReader.JsonException.class, () -> ReadAmount("{\"amount\": 1} extra"));
+        assertThrows(JsonReader.JsonException.class, () -> ReadAmount("{\"amount\": 1 \"other\": 2}"));
+        assertThrows(JsonReader.JsonException.class, () -> ReadAmount("{\"amount\": \"" + "9".repeat(100) + "\"}"));
+    }
+
+    /**
+     * Tests writing an object with every value type.
+     * Verifies commas, escaping and that number text is written unchanged.
+     */
+    @Test
+    void JsonWriter_ShouldWriteObject_WhenValuesGiven() {
+        // Arrange
+        StringBuilder out = new StringBuilder();
+
+        // Act
+        new JsonWriter(out).BeginObject()
+                .Name("text").Value("line\n\"quoted\"\u0001")
+                .Name("count").Value(42)
+                .Name("ok").Value(true)
+                .Name("balance").NumberValue("0.10")
+                .Name("missing").Value((String) null)
+                .EndObject();
+
+        // Assert
+        assertEquals("{\"text\":\"line\\n\\\"quoted\\\"\\u0001\",\"count\":42,\"ok\":true,\"balance\":0.10,\"missing\":null}", out.toString());
+    }
+
+    private static BigDecimal ReadAmount(String json) throws IOException {
+        JsonReader reader = new JsonReader(new StringReader(json), 64);
+        BigDecimal amount = null;
+        reader.BeginObject();
+        while (reader.HasNext()) {
+            if (reader.NextName().equals("amount")) {
+                amount = reader.NextDecimal();
+            } else {
+                reader.SkipValue();
+            }
+        }
+        reader.EndObject();
+        reader.EndDocument();
+        return amount;
+    }
+}
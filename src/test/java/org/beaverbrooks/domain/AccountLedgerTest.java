@@ -0,0 +1,246 @@
+package org.beaverbrooks.domain;
+
+import org.beaverbrooks.domain.account.AccountLedger;
+import org.beaverbrooks.domain.account.CustomerAccount;
+import org.beaverbrooks.domain.account.LedgerEntryType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AccountLedger class.
+ * Tests appends, stored balances, retention, concurrent appends and range scans.
+ */
+public class AccountLedgerTest {
+
+    /**
+     * Tests that withdrawals and outgoing transfers are stored as negative amounts.
+     * Verifies the derived balance and the stored counterparty.
+     */
+    @Test
+    void Append_ShouldSignAmountsByEntryType() {
+        // Arrange
+        AccountLedger ledger = new AccountLedger();
+        UUID counterparty = UUID.randomUUID();
+
+        // Act
+        ledger.Append(LedgerEntryType.Deposit, 10_000, null);
+        ledger.Append(LedgerEntryType.Withdrawal, 2_500, null);
+        ledger.Append(LedgerEntryType.TransferOut, 1_000, counterparty);
+        ledger.Append(LedgerEntryType.TransferIn, 50, counterparty);
+
+        // Assert
+        assertEquals(4, ledger.GetEntryCount());
+        assertEquals(6_550, ledger.GetBalanceMinor());
+        ArrayList<Long> amounts = new ArrayList<>();
+        ledger.Scan(2, 3, (index, timestamp, type, amount, high, low) -> {
+            assertEquals(LedgerEntryType.TransferOut, type);
+            assertEquals(counterparty, new UUID(high, low));
+            amounts.add(amount);
+        });
+        assertEquals(List.of(-1_000L), amounts);
+    }
+
+    /**
+     * Tests deriving historical balances across several chunks, starting from an opening balance.
+     * Verifies every prefix balance matches a straightforward running sum.
+     */
+    @Test
+    void BalanceAfter_ShouldMatchRunningSum_AcrossChunks() {
+        // Arrange
+        AccountLedger ledger = new AccountLedger(System::currentTimeMillis, 1_000, AccountLedger.DEFAULT_RETAINED_ENTRIES, null);
+        int entries = 1024 * 3 + 17;
+        long[] expected = new long[entries + 1];
+        expected[0] = 1_000;
+
+        // Act
+        for (int i = 0; i < entries; i++) {
+            boolean deposit = i % 3 != 0;
+            ledger.Append(deposit ? LedgerEntryType.Deposit : LedgerEntryType.Withdrawal, i + 1, null);
+            expected[i + 1] = expected[i] + (deposit ? i + 1 : -(i + 1));
+        }
+
+        // Assert
+        for (int count = 0; count <= entries; count += 97) {
+            assertEquals(expected[count], ledger.BalanceAfter(count));
+        }
+        assertEquals(expected[entries], ledger.GetBalanceMinor());
+        assertThrows(IndexOutOfBoundsException.class, () -> ledger.BalanceAfter(entries + 1));
+        assertThrows(IllegalArgumentException.class, () -> ledger.Append(LedgerEntryType.Deposit, 0, null));
+    }
+
+    /**
+     * Tests appending more entries than the ledger retains.
+     * Verifies old entries are handed to the eviction visitor and the balance is still exact.
+     */
+    @Test
+    void Append_ShouldEvictOldestEntries_WhenRetentionExceeded() {
+        // Arrange
+        ArrayList<Long> evicted = new ArrayList<>();
+        AccountLedger ledger = new AccountLedger(System::currentTimeMillis, 0, 16,
+                (index, timestamp, type, amount, high, low) -> evicted.add(index));
+
+        // Act
+        for (int i = 0; i < 40; i++) {
+            ledger.Append(LedgerEntryType.Deposit, 1, null);
+        }
+
+        // Assert
+        assertEquals(40, ledger.GetEntryCount());
+        assertEquals(24, ledger.GetFirstRetainedIndex());
+        assertEquals(40, ledger.GetBalanceMinor());
+        assertEquals(30, ledger.BalanceAfter(30));
+        assertThrows(IndexOutOfBoundsException.class, () -> ledger.BalanceAfter(10));
+        assertEquals(24, evicted.size());
+        assertEquals(0L, evicted.getFirst());
+        ArrayList<Long> scanned = new ArrayList<>();
+        ledger.Scan(0, 40, (index, timestamp, type, amount, high, low) -> scanned.add(index));
+        assertEquals(16, scanned.size());
+        assertEquals(24L, scanned.getFirst());
+    }
+
+    /**
+     * Tests many threads appending at once to a ledger that retains far fewer entries than they add.
+     * Verifies every append is counted, evicted and retained entries add up, and each retained
+     * balance follows from the one before it.
+     */
+    @Test
+    void Append_ShouldKeepEveryEntryConsistent_WhenCalledConcurrently() throws Exception {
+        // Arrange
+        AtomicLong evictedSum = new AtomicLong();
+        AccountLedger ledger = new AccountLedger(System::currentTimeMillis, 0, 1_024,
+                (index, timestamp, type, amount, high, low) -> evictedSum.addAndGet(amount));
+        int threads = 8;
+        int appendsPerThread = 5_000;
+        CountDownLatch start = new CountDownLatch(1);
+        ArrayList<Future<?>> futures = new ArrayList<>();
+
+        // Act
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < appendsPerThread; i++) {
+                        ledger.Append(i % 2 == 0 ? LedgerEntryType.Deposit : LedgerEntryType.Withdrawal, 3, null);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        // Assert
+        long entries = (long) threads * appendsPerThread;
+        assertEquals(entries, ledger.GetEntryCount());
+        assertEquals(0, ledger.GetBalanceMinor());
+        assertEquals(entries - 1_024, ledger.GetFirstRetainedIndex());
+        long[] previous = {evictedSum.get(), Long.MIN_VALUE};
+        long[] visited = {0L};
+        ledger.Scan(0, entries, (index, timestamp, type, amount, high, low) -> {
+            long balance = ledger.BalanceAfter(index + 1);
+            assertEquals(previous[0] + amount, balance);
+            assertTrue(timestamp >= previous[1]);
+            previous[0] = balance;
+            previous[1] = timestamp;
+            visited[0]++;
+        });
+        assertEquals(1_024, visited[0]);
+    }
+
+    /**
+     * Tests scanning a time range with a controlled clock.
+     * Verifies only entries inside the half-open range are visited.
+     */
+    @Test
+    void ScanTimeRange_ShouldVisitEntriesInsideRange() {
+        // Arrange
+        AtomicLong clock = new AtomicLong(1_000);
+        AccountLedger ledger = new AccountLedger(clock::get);
+        for (int i = 0; i < 10; i++) {
+            clock.set(1_000 + i * 10L);
+            ledger.Append(LedgerEntryType.Deposit, i + 1, null);
+        }
+        ArrayList<Long> visited = new ArrayList<>();
+
+        // Act
+        ledger.ScanTimeRange(1_030, 1_060, (index, timestamp, type, amount, high, low) -> visited.add(index));
+
+        // Assert
+        assertEquals(List.of(3L, 4L, 5L), visited);
+        assertEquals(10, ledger.FirstIndexAtOrAfter(5_000));
+    }
+
+    /**
+     * Tests that a clock stepping backwards does not break timestamp ordering.
+     * Verifies the later entry is stamped with the previous timestamp.
+     */
+    @Test
+    void Append_ShouldKeepTimestampsMonotonic_WhenClockGoesBackwards() {
+        // Arrange
+        AtomicLong clock = new AtomicLong(2_000);
+        AccountLedger ledger = new AccountLedger(clock::get);
+
+        // Act
+        ledger.Append(LedgerEntryType.Deposit, 1, null);
+        clock.set(1_500);
+        ledger.Append(LedgerEntryType.Deposit, 1, null);
+
+        // Assert
+        ArrayList<Long> timestamps = new ArrayList<>();
+        ledger.Scan(0, 2, (index, timestamp, type, amount, high, low) -> timestamps.add(timestamp));
+        assertEquals(List.of(2_000L, 2_000L), timestamps);
+    }
+
+    /**
+     * Tests that account operations are recorded in the account's ledger.
+     * Verifies the ledger balance agrees with the account balance, and that amounts the ledger
+     * cannot hold are refused without changing either.
+     */
+    @Test
+    void CustomerAccount_ShouldRecordOperationsInLedger() {
+        // Arrange
+        CustomerAccount account = new CustomerAccount();
+
+        // Act
+        account.AddToAccount(new BigDecimal("100.50"));
+        account.SubtractFromAccount(new BigDecimal("20.25"));
+
+        // Assert
+        assertEquals(2, account.GetLedger().GetEntryCount());
+        assertEquals(8_025, account.GetLedger().GetBalanceMinor());
+        assertThrows(IllegalArgumentException.class, () -> account.AddToAccount(new BigDecimal("0.001")));
+        assertThrows(IllegalArgumentException.class, () -> account.SubtractFromAccount(new BigDecimal("-5.00")));
+        assertEquals(new BigDecimal("80.25"), account.GetAccountBalance());
+        assertEquals(2, account.GetLedger().GetEntryCount());
+    }
+
+    /**
+     * Tests an account restored with an existing balance.
+     * Verifies the balance becomes the ledger's opening balance with no entry recorded for it.
+     */
+    @Test
+    void CustomerAccount_ShouldOpenLedgerAtRestoredBalance() {
+        // Arrange & Act
+        CustomerAccount account = new CustomerAccount(new BigDecimal("-12.30"));
+        account.AddToAccount(new BigDecimal("2.30"));
+
+        // Assert
+        assertEquals(1, account.GetLedger().GetEntryCount());
+        assertEquals(-1_230, account.GetLedger().GetOpeningBalanceMinor());
+        assertEquals(-1_000, account.GetLedger().GetBalanceMinor());
+        assertEquals(0, new BigDecimal("-10.00").compareTo(account.GetAccountBalance()));
+    }
+}
@@ -0,0 +1,171 @@
+package org.beaverbrooks.domain;
+
+import org.beaverbrooks.domain.account.CustomerAccount;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CustomerAccount class.
+ * Tests balance operations, including concurrent updates to a single account.
+ */
+public class CustomerAccountTest {
+
+    /**
+     * Tests a deposit followed by a withdrawal.
+     * Verifies that each call returns the balance it produced.
+     */
+    @Test
+    void AddAndSubtract_ShouldReturnResultingBalance() {
+        // Arrange
+        CustomerAccount account = new CustomerAccount();
+
+        // Act
+        BigDecimal afterDeposit = account.AddToAccount(new BigDecimal("100.50"));
+        BigDecimal afterWithdrawal = account.SubtractFromAccount(new BigDecimal("20.25"));
+
+        // Assert
+        assertEquals(new BigDecimal("100.50"), afterDeposit);
+        assertEquals(new BigDecimal("80.25"), afterWithdrawal);
+        assertEquals(new BigDecimal("80.25"), account.GetAccountBalance());
+    }
+
+    /**
+     * Hammers one account with deposits and withdrawals from many threads.
+     * Verifies that no update is lost and the final balance is the exact sum.
+     */
+    @Test
+    void ConcurrentUpdates_ShouldNotLoseAnyUpdate() throws Exception {
+        // Arrange
+        CustomerAccount account = new CustomerAccount();
+        int threads = 16;
+        int operationsPerThread = 20_000;
+        BigDecimal deposit = new BigDecimal("0.03");
+        BigDecimal withdrawal = new BigDecimal("0.01");
+        CountDownLatch start = new CountDownLatch(1);
+        ArrayList<Future<?>> futures = new ArrayList<>();
+
+        // Act
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < operationsPerThread; i++) {
+                        account.AddToAccount(deposit);
+                        account.SubtractFromAccount(withdrawal);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        // Assert
+        BigDecimal expected = deposit.subtract(withdrawal).multiply(BigDecimal.valueOf((long) threads * operationsPerThread));
+        assertEquals(0, expected.compareTo(account.GetAccountBalance()));
+    }
+
+    /**
+     * Hammers one account in contended mode with deposits from many threads and periodic withdrawals.
+     * Verifies that the per-core cells reconcile to the exact sum.
+     */
+    @Test
+    void ContendedMode_ShouldReconcileCellsExactly() throws Exception {
+        // Arrange
+        // A window longer than the test, so a scheduling pause cannot switch the account back.
+        CustomerAccount account = new CustomerAccount(CustomerAccount.DEFAULT_CONTENTION_THRESHOLD, Long.MAX_VALUE, System::nanoTime);
+        account.EnableContendedMode();
+        int threads = 16;
+        int depositsPerThread = 20_000;
+        BigDecimal deposit = new BigDecimal("0.05");
+        BigDecimal withdrawal = new BigDecimal("0.20");
+        CountDownLatch start = new CountDownLatch(1);
+        ArrayList<Future<?>> futures = new ArrayList<>();
+
+        // Act
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < depositsPerThread; i++) {
+                        account.AddToAccount(deposit);
+                        if (i % 100 == 0) {
+                            account.SubtractFromAccount(withdrawal);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        // Assert
+        long deposits = (long) threads * depositsPerThread;
+        long withdrawals = (long) threads * (depositsPerThread / 100);
+        BigDecimal expected = deposit.multiply(BigDecimal.valueOf(deposits))
+                .subtract(withdrawal.multiply(BigDecimal.valueOf(withdrawals)));
+        assertTrue(account.IsContendedMode());
+        assertEquals(0, expected.compareTo(account.GetAccountBalance()));
+    }
+
+    /**
+     * Tests switching an account with an existing balance into contended mode.
+     * Verifies that the balance carries over and withdrawals see earlier deposits.
+     */
+    @Test
+    void EnableContendedMode_ShouldKeepExistingBalance() {
+        // Arrange
+        CustomerAccount account = new CustomerAccount();
+        account.AddToAccount(new BigDecimal("10.00"));
+
+        // Act
+        account.EnableContendedMode();
+        account.AddToAccount(new BigDecimal("5.00"));
+        BigDecimal afterWithdrawal = account.SubtractFromAccount(new BigDecimal("12.50"));
+
+        // Assert
+        assertEquals(0, new BigDecimal("2.50").compareTo(afterWithdrawal));
+        assertEquals(0, new BigDecimal("2.50").compareTo(account.GetAccountBalance()));
+    }
+
+    /**
+     * Tests an account in contended mode that then goes quiet for a full window.
+     * Verifies that it switches back to a single balance without losing the cells' deposits.
+     */
+    @Test
+    void ContendedMode_ShouldSwitchBack_WhenWindowIsQuiet() {
+        // Arrange
+        AtomicLong clock = new AtomicLong();
+        CustomerAccount account = new CustomerAccount(4, 1_000L, clock::get);
+        account.EnableContendedMode();
+        for (int i = 0; i < 10; i++) {
+            account.AddToAccount(new BigDecimal("1.00"));
+        }
+        clock.addAndGet(1_000L);
+        account.AddToAccount(new BigDecimal("1.00"));
+        assertTrue(account.IsContendedMode());
+
+        // Act
+        clock.addAndGet(1_000L);
+        BigDecimal balance = account.AddToAccount(new BigDecimal("1.00"));
+
+        // Assert
+        assertFalse(account.IsContendedMode());
+        assertEquals(0, new BigDecimal("12.00").compareTo(balance));
+        assertEquals(0, new BigDecimal("12.00").compareTo(account.GetAccountBalance()));
+    }
+}
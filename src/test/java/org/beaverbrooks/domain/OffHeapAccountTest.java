@@ -0,0 +1,111 @@
+package org.beaverbrooks.domain;
+
+import org.beaverbrooks.domain.account.OffHeapAccount;
+import org.beaverbrooks.domain.account.OffHeapBalanceStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for OffHeapAccount and OffHeapBalanceStore classes.
+ * Tests balance operations against off-heap slots.
+ */
+public class OffHeapAccountTest {
+
+    private OffHeapBalanceStore store;
+
+    /**
+     * Sets up a fresh balance store before each test method.
+     */
+    @BeforeEach
+    void SetupStore() {
+        store = new OffHeapBalanceStore();
+    }
+
+    /**
+     * Tests deposits and withdrawals on an off-heap account.
+     * Verifies that the balance is kept in minor units and returned at a scale of two.
+     */
+    @Test
+    void AddAndSubtract_ShouldUpdateBalance() {
+        // Arrange
+        OffHeapAccount account = new OffHeapAccount(store);
+
+        // Act
+        account.AddToAccount(new BigDecimal("100.25"));
+        BigDecimal balance = account.SubtractFromAccount(new BigDecimal("0.5"));
+
+        // Assert
+        assertEquals(new BigDecimal("99.75"), balance);
+        assertEquals(new BigDecimal("99.75"), account.GetAccountBalance());
+        assertEquals(9975L, store.Get(account.GetSlot()));
+    }
+
+    /**
+     * Tests that every account gets its own slot, including across chunk boundaries.
+     * Verifies that balances of neighbouring accounts do not interfere.
+     */
+    @Test
+    void AllocateSlot_ShouldIsolateAccounts_AcrossChunks() {
+        // Arrange
+        ArrayList<OffHeapAccount> accounts = new ArrayList<>();
+        for (int i = 0; i < (1 << 20) + 10; i++) {
+            accounts.add(new OffHeapAccount(store));
+        }
+
+        // Act
+        for (int i = accounts.size() - 20; i < accounts.size(); i++) {
+            accounts.get(i).AddToAccount(BigDecimal.valueOf(i));
+        }
+
+        // Assert
+        for (int i = accounts.size() - 20; i < accounts.size(); i++) {
+            assertEquals(BigDecimal.valueOf(i).setScale(2), accounts.get(i).GetAccountBalance());
+        }
+        assertEquals(BigDecimal.valueOf(0, 2), accounts.get(0).GetAccountBalance());
+        assertEquals(accounts.size(), store.GetSlotCount());
+    }
+
+    /**
+     * Tests amounts that cannot be represented exactly in minor units.
+     * Verifies that they are rejected and the balance is left unchanged.
+     */
+    @Test
+    void AddToAccount_ShouldReject_WhenAmountHasTooManyDecimals() {
+        // Arrange
+        OffHeapAccount account = new OffHeapAccount(store);
+        account.AddToAccount(BigDecimal.TEN);
+
+        // Act & Assert
+        assertThrows(ArithmeticException.class, () -> account.AddToAccount(new BigDecimal("0.001")));
+        assertEquals(new BigDecimal("10.00"), account.GetAccountBalance());
+    }
+
+    /**
+     * Tests releasing an account's slot and opening another account afterwards.
+     * Verifies that the slot is reused at a zero balance and the released account can no longer be used.
+     */
+    @Test
+    void Release_ShouldReuseSlot_AndRefuseFurtherUse() {
+        // Arrange
+        OffHeapAccount deleted = new OffHeapAccount(store);
+        deleted.AddToAccount(new BigDecimal("25.00"));
+        new OffHeapAccount(store);
+
+        // Act
+        deleted.Release();
+        deleted.Release();
+        OffHeapAccount reopened = new OffHeapAccount(store);
+
+        // Assert
+        assertEquals(deleted.GetSlot(), reopened.GetSlot());
+        assertEquals(new BigDecimal("0.00"), reopened.GetAccountBalance());
+        assertEquals(2, store.GetSlotCount());
+        assertEquals(0, store.GetFreeSlotCount());
+        assertThrows(IllegalStateException.class, () -> deleted.AddToAccount(BigDecimal.ONE));
+    }
+}
@@ -0,0 +1,81 @@
+package org.beaverbrooks.domain;
+
+import org.beaverbrooks.domain.user.PasswordHasher;
+import org.beaverbrooks.domain.user.UserAuth;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for UserAuth class.
+ * Tests salted password hashing, verification and cost migration.
+ */
+public class UserAuthTest {
+
+    private final UUID testUser1Id = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    /**
+     * Tests comparing passwords against a hashed credential.
+     * Verifies that only the original password matches and the plaintext is not stored.
+     */
+    @Test
+    void ComparePassword_ShouldMatchOnlyOriginalPassword() {
+        // Arrange
+        UserAuth auth = UserAuth.FromPassword(testUser1Id, "Pa55word!!1234", 1_000);
+
+        // Act & Assert
+        assertTrue(auth.ComparePassword("Pa55word!!1234"));
+        assertFalse(auth.ComparePassword("Pa55word!!1235"));
+        assertFalse(auth.ComparePassword(null));
+        assertFalse(auth.GetPasswordHash().contains("Pa55word"));
+        assertTrue(auth.GetPasswordHash().startsWith(PasswordHasher.PREFIX + "1000$"));
+    }
+
+    /**
+     * Tests hashing the same password twice.
+     * Verifies that each hash gets its own salt.
+     */
+    @Test
+    void Constructor_ShouldSaltEachHash() {
+        // Arrange & Act
+        UserAuth first = UserAuth.FromPassword(testUser1Id, "Pa55word!!1234", 1_000);
+        UserAuth second = UserAuth.FromPassword(testUser1Id, "Pa55word!!1234", 1_000);
+
+        // Assert
+        assertNotEquals(first.GetPasswordHash(), second.GetPasswordHash());
+    }
+
+    /**
+     * Tests rebuilding a credential from a stored hash.
+     * Verifies that the hash is kept as is and still verifies.
+     */
+    @Test
+    void FromHash_ShouldRestoreWithoutRehashing() {
+        // Arrange
+        UserAuth original = UserAuth.FromPassword(testUser1Id, "Pa55word!!1234", 1_000);
+
+        // Act
+        UserAuth restored = UserAuth.FromHash(testUser1Id, original.GetPasswordHash());
+
+        // Assert
+        assertEquals(original.GetPasswordHash(), restored.GetPasswordHash());
+        assertTrue(restored.ComparePassword("Pa55word!!1234"));
+        assertThrows(IllegalArgumentException.class, () -> UserAuth.FromHash(testUser1Id, "Pa55word!!1234"));
+    }
+
+    /**
+     * Tests checking a hash against the target cost.
+     * Verifies that only hashes made at a different cost need rehashing.
+     */
+    @Test
+    void NeedsRehash_ShouldCompareStoredCost() {
+        // Arrange
+        UserAuth auth = UserAuth.FromPassword(testUser1Id, "Pa55word!!1234", 1_000);
+
+        // Act & Assert
+        assertFalse(auth.NeedsRehash(1_000));
+        assertTrue(auth.NeedsRehash(2_000));
+    }
+}
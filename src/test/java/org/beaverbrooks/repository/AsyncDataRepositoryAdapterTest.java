@@ -0,0 +1,123 @@
+package org.beaverbrooks.repository;
+
+import org.beaverbrooks.domain.user.*;
+import org.beaverbrooks.shared.exceptions.VersionConflictException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AsyncDataRepositoryAdapter and BlockingDataRepository.
+ * Runs the adapter on its own single-thread executor and the blocking view over the adapter.
+ */
+public class AsyncDataRepositoryAdapterTest {
+
+    private IDataRepository repository;
+    private ExecutorService executor;
+    private IAsyncDataRepository asyncRepository;
+    private UUID testUser1Id;
+    private UUID testUser2Id;
+
+    /**
+     * Sets up test data before each test method.
+     * Creates a repository with two customers and wraps it in the asynchronous adapter.
+     */
+    @BeforeEach
+    void SetupRepository() {
+        testUser1Id = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        testUser2Id = UUID.fromString("00000000-0000-0000-0000-000000000002");
+        ArrayList<IUser> userData = new ArrayList<>();
+        ArrayList<IUserAuth> authData = new ArrayList<>();
+        userData.add(new Customer("TestUser1", "Test", "Tester", testUser1Id));
+        userData.add(new Customer("TestUser2", "Test", "Tester", testUser2Id));
+        authData.add(UserAuth.FromPassword(testUser1Id, "Pa55word!!1234", 1_000));
+        authData.add(UserAuth.FromPassword(testUser2Id, "Pa55word!!2234", 1_000));
+        repository = new StripedRepository(userData, authData);
+        executor = Executors.newSingleThreadExecutor();
+        asyncRepository = new AsyncDataRepositoryAdapter(repository, executor);
+    }
+
+    @AfterEach
+    void StopExecutor() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Tests reads and a transfer through the adapter.
+     * Verifies that results match the wrapped repository and are produced on the executor.
+     */
+    @Test
+    void Adapter_ShouldAnswerOnExecutor_WhenCalled() {
+        // Arrange
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+        IAsyncDataRepository recorded = new AsyncDataRepositoryAdapter(repository, command -> executor.execute(() -> {
+            ranOn.set(Thread.currentThread());
+            command.run();
+        }));
+
+        // Act
+        Optional<IUser> user = recorded.GetUserById(testUser1Id).join();
+        BigDecimal remaining = recorded.TransferBetweenAccounts(testUser1Id, testUser2Id, new BigDecimal("5.00")).join();
+
+        // Assert
+        assertNotNull(ranOn.get());
+        assertNotSame(Thread.currentThread(), ranOn.get());
+        assertEquals("TestUser1", user.orElseThrow().GetUsername());
+        assertEquals(0, new BigDecimal("-5.00").compareTo(remaining));
+        assertEquals(0, new BigDecimal("5.00").compareTo(repository.GetAccountBalance(testUser2Id)));
+    }
+
+    /**
+     * Tests a versioned save with a stale version.
+     * Verifies that the adapter fails its future and the blocking view throws the conflict itself.
+     */
+    @Test
+    void VersionConflict_ShouldFailFuture_AndBeRethrownByBlockingView() {
+        // Arrange
+        IUser user = repository.GetUserById(testUser1Id).orElseThrow();
+        long staleVersion = repository.GetUserVersion(testUser1Id) + 5;
+        IDataRepository blocking = new BlockingDataRepository(asyncRepository);
+
+        // Act
+        CompletableFuture<Long> failed = asyncRepository.SaveUpdateUser(user, staleVersion);
+
+        // Assert
+        CompletionException thrown = assertThrows(CompletionException.class, failed::join);
+        assertInstanceOf(VersionConflictException.class, thrown.getCause());
+        assertThrows(VersionConflictException.class, () -> blocking.SaveUpdateUser(user, staleVersion));
+    }
+
+    /**
+     * Tests the blocking view over the adapter for a round of writes and reads.
+     * Verifies that it behaves like the repository it ultimately wraps.
+     */
+    @Test
+    void BlockingView_ShouldMatchWrappedRepository_WhenRoundTripped() {
+        // Arrange
+        IDataRepository blocking = new BlockingDataRepository(asyncRepository);
+        UUID newId = UUID.fromString("00000000-0000-0000-0000-000000000003");
+        Customer newUser = new Customer("TestUser3", "Test", "Tester", newId);
+
+        // Act
+        blocking.SaveNewUser(UserAuth.FromPassword(newId, "Pa55word!!3234", 1_000), newUser);
+        blocking.DeleteAccount(repository.GetUserById(testUser2Id).orElseThrow());
+
+        // Assert
+        assertEquals(newId, blocking.FindByName("testuser3").orElseThrow().GetID());
+        assertTrue(blocking.GetUserById(testUser2Id).isEmpty());
+        assertEquals(2, blocking.GetAllUsers().size());
+        assertTrue(repository.GetUserAuthById(newId).isPresent());
+    }
+}
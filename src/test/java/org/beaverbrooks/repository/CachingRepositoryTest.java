@@ -0,0 +1,269 @@
+package org.beaverbrooks.repository;
+
+import org.beaverbrooks.domain.user.*;
+import org.beaverbrooks.shared.exceptions.DuplicateUserException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CachingRepository class.
+ * Wraps a repository that counts the calls reaching it, so each test can tell what the cache served.
+ */
+public class CachingRepositoryTest {
+
+    private CountingRepository delegate;
+    private CachingRepository repository;
+    private UUID testUser1Id;
+    private UUID testUser2Id;
+
+    /**
+     * Sets up test data before each test method.
+     * Creates twenty customers behind a write-through cache of five entries.
+     */
+    @BeforeEach
+    void SetupRepository() {
+        ArrayList<IUser> userData = new ArrayList<>();
+        ArrayList<IUserAuth> authData = new ArrayList<>();
+        String passwordHash = PasswordHasher.Hash("Pa55word!!1234", 1_000);
+        for (int i = 1; i <= 20; i++) {
+            UUID id = new UUID(0L, i);
+            userData.add(new Customer("TestUser" + i, "Test", "Tester", id));
+            authData.add(UserAuth.FromHash(id, passwordHash));
+        }
+        testUser1Id = new UUID(0L, 1);
+        testUser2Id = new UUID(0L, 2);
+        delegate = new CountingRepository(userData, authData);
+        repository = new CachingRepository(delegate, 5);
+    }
+
+    @AfterEach
+    void CloseRepository() {
+        repository.close();
+    }
+
+    /**
+     * Tests repeated logins and balance reads for one customer.
+     * Verifies that only the first lookup reaches the delegate and the rest count as hits.
+     */
+    @Test
+    void Reads_ShouldBeServedFromCache_AfterFirstLoad() {
+        // Arrange & Act
+        for (int i = 0; i < 10; i++) {
+            repository.FindByName("testuser1");
+            repository.GetAccountBalance(testUser1Id);
+        }
+
+        // Assert
+        assertEquals(1, delegate.Reads);
+        CachingRepository.CacheStats stats = repository.GetStats();
+        assertEquals(1, stats.Misses());
+        assertEquals(19, stats.Hits());
+    }
+
+    /**
+     * Tests looking up a username that does not exist, then creating it.
+     * Verifies that the miss is remembered and forgotten again once the user is saved.
+     */
+    @Test
+    void UnknownName_ShouldBeCachedNegatively_UntilUserCreated() {
+        // Arrange
+        UUID newId = new UUID(0L, 99);
+
+        // Act
+        Optional<IUser> first = repository.FindByName("NewUser");
+        Optional<IUser> second = repository.FindByName("newuser");
+        repository.SaveNewUser(UserAuth.FromPassword(newId, "Pa55word!!9999", 1_000), new Customer("NewUser", "New", "User", newId));
+        Optional<IUser> afterCreate = repository.FindByName("NEWUSER");
+
+        // Assert
+        assertTrue(first.isEmpty());
+        assertTrue(second.isEmpty());
+        assertEquals(newId, afterCreate.orElseThrow().GetID());
+        assertEquals(1, delegate.Reads);
+        assertEquals(1, repository.GetStats().NegativeHits());
+    }
+
+    /**
+     * Tests a scan over many customers read once while two customers are active.
+     * Verifies that the scan evicts only other scanned users and the active ones stay cached.
+     */
+    @Test
+    void Scan_ShouldNotEvictHotUsers_WhenProtected() {
+        // Arrange: two reads each promote the active customers to the protected segment
+        for (int i = 0; i < 2; i++) {
+            repository.GetUserById(testUser1Id);
+            repository.GetUserById(testUser2Id);
+        }
+
+        // Act
+        for (int i = 3; i <= 20; i++) {
+            repository.GetUserById(new UUID(0L, i));
+        }
+        int readsBefore = delegate.Reads;
+        repository.GetUserById(testUser1Id);
+        repository.GetUserById(testUser2Id);
+
+        // Assert
+        assertEquals(readsBefore, delegate.Reads);
+        assertEquals(5, repository.GetCachedUserCount());
+        assertEquals(15, repository.GetStats().Evictions());
+    }
+
+    /**
+     * Tests many saves of one customer with write-behind enabled.
+     * Verifies that they reach the delegate as a single save when flushed, and reads see them before that.
+     */
+    @Test
+    void WriteBehind_ShouldCoalesceSaves_UntilFlushed() {
+        // Arrange: an interval long enough that only the explicit flush writes
+        CachingRepository writeBehind = CachingRepository.WithWriteBehind(delegate, 5, 3_600_000);
+        IUser user = writeBehind.GetUserById(testUser1Id).orElseThrow();
+
+        // Act
+        for (int i = 0; i < 100; i++) {
+            user.GetAccount().orElseThrow().AddToAccount(new BigDecimal("1.00"));
+            writeBehind.SaveUpdateUser(user);
+        }
+        int savesBeforeFlush = delegate.Saves;
+        BigDecimal cachedBalance = writeBehind.GetAccountBalance(testUser1Id);
+        writeBehind.close();
+
+        // Assert
+        assertEquals(0, savesBeforeFlush);
+        assertEquals(1, delegate.Saves);
+        assertEquals(0, new BigDecimal("100.00").compareTo(cachedBalance));
+        assertEquals(99, writeBehind.GetStats().WritesCoalesced());
+        assertEquals(1, writeBehind.GetStats().WritesFlushed());
+    }
+
+    /**
+     * Tests a transfer while the sender has a pending write.
+     * Verifies that the pending write is saved first and both users are reloaded afterwards.
+     */
+    @Test
+    void Transfer_ShouldFlushPendingWrite_AndInvalidateBothUsers() {
+        // Arrange
+        CachingRepository writeBehind = CachingRepository.WithWriteBehind(delegate, 5, 3_600_000);
+        IUser sender = writeBehind.GetUserById(testUser1Id).orElseThrow();
+        writeBehind.GetUserById(testUser2Id);
+        sender.GetAccount().orElseThrow().AddToAccount(new BigDecimal("50.00"));
+        writeBehind.SaveUpdateUser(sender);
+        int readsBefore = delegate.Reads;
+
+        // Act
+        BigDecimal remaining = writeBehind.TransferBetweenAccounts(testUser1Id, testUser2Id, new BigDecimal("20.00"));
+        BigDecimal recipientBalance = writeBehind.GetAccountBalance(testUser2Id);
+
+        // Assert
+        assertEquals(1, delegate.Saves);
+        assertEquals(0, new BigDecimal("30.00").compareTo(remaining));
+        assertEquals(0, new BigDecimal("20.00").compareTo(recipientBalance));
+        assertEquals(readsBefore + 1, delegate.Reads);
+        writeBehind.close();
+    }
+
+    /**
+     * Tests a flush while the delegate refuses saves.
+     * Verifies that the failure is counted and the write stays pending until a later flush succeeds.
+     */
+    @Test
+    void Flush_ShouldCountFailure_AndRetryLater() {
+        // Arrange
+        CachingRepository writeBehind = CachingRepository.WithWriteBehind(delegate, 5, 3_600_000);
+        IUser user = writeBehind.GetUserById(testUser1Id).orElseThrow();
+        user.GetAccount().orElseThrow().AddToAccount(new BigDecimal("5.00"));
+        writeBehind.SaveUpdateUser(user);
+        delegate.FailSaves = true;
+
+        // Act
+        assertThrows(IllegalStateException.class, writeBehind::Flush);
+        delegate.FailSaves = false;
+        writeBehind.Flush();
+
+        // Assert
+        assertEquals(1, writeBehind.GetStats().FlushFailures());
+        assertEquals(1, writeBehind.GetStats().WritesFlushed());
+        assertEquals(1, delegate.Saves);
+        writeBehind.close();
+    }
+
+    /**
+     * Tests renaming a cached customer with write-behind enabled.
+     * Verifies that the rename is written through, the old name stops resolving and a cached miss on the new name is dropped.
+     */
+    @Test
+    void Rename_ShouldWriteThrough_AndMoveNameLookups() {
+        // Arrange
+        CachingRepository writeBehind = CachingRepository.WithWriteBehind(delegate, 5, 3_600_000);
+        writeBehind.GetUserById(testUser1Id);
+        Optional<IUser> beforeRename = writeBehind.FindByName("RenamedUser");
+
+        // Act
+        writeBehind.SaveUpdateUser(new Customer("RenamedUser", "Test", "Tester", testUser1Id));
+
+        // Assert
+        assertTrue(beforeRename.isEmpty());
+        assertEquals(1, delegate.Saves);
+        assertTrue(writeBehind.FindByName("testuser1").isEmpty());
+        assertEquals(testUser1Id, writeBehind.FindByName("renameduser").orElseThrow().GetID());
+        writeBehind.close();
+    }
+
+    /**
+     * Tests renaming a cached customer to a name another customer holds, with write-behind enabled.
+     * Verifies that the delegate refuses it and the cache still resolves the original name.
+     */
+    @Test
+    void Rename_ShouldBeRefused_WhenNameTaken() {
+        // Arrange
+        CachingRepository writeBehind = CachingRepository.WithWriteBehind(delegate, 5, 3_600_000);
+        writeBehind.GetUserById(testUser1Id);
+
+        // Act & Assert
+        assertThrows(DuplicateUserException.class,
+                () -> writeBehind.SaveUpdateUser(new Customer("TestUser2", "Test", "Tester", testUser1Id)));
+        assertEquals(testUser1Id, writeBehind.FindByName("testuser1").orElseThrow().GetID());
+        assertEquals(testUser2Id, writeBehind.FindByName("testuser2").orElseThrow().GetID());
+        writeBehind.close();
+    }
+
+    // Counts the lookups and plain saves that get past the cache, and can be made to refuse saves.
+    private static class CountingRepository extends StripedRepository {
+        private int Reads;
+        private int Saves;
+        private boolean FailSaves;
+
+        private CountingRepository(ArrayList<IUser> userData, ArrayList<IUserAuth> userAuthData) {
+            super(userData, userAuthData);
+        }
+
+        @Override
+        public Optional<IUser> FindByName(String name) {
+            Reads++;
+            return super.FindByName(name);
+        }
+
+        @Override
+        public Optional<IUser> GetUserById(UUID id) {
+            Reads++;
+            return super.GetUserById(id);
+        }
+
+        @Override
+        public void SaveUpdateUser(IUser user) {
+            if (FailSaves) {
+                throw new IllegalStateException("Store unavailable");
+            }
+            Saves++;
+            super.SaveUpdateUser(user);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.beaverbrooks.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for GroupCommitLog class.
+ * Tests that records appended and made durable are replayed intact on reopen.
+ */
+public class GroupCommitLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Tests a record writer that throws a runtime exception partway through its record.
+     * Verifies that none of the half-written record is kept and the records either side replay intact.
+     */
+    @Test
+    void Append_ShouldDropPartialRecord_WhenWriterThrows() throws IOException {
+        // Arrange
+        Path file = tempDir.resolve("records.log");
+        try (GroupCommitLog log = new GroupCommitLog(file, in -> { })) {
+            log.Append(out -> out.writeLong(1));
+
+            // Act
+            assertThrows(IllegalArgumentException.class, () -> log.Append(out -> {
+                out.writeLong(99);
+                throw new IllegalArgumentException("Cannot encode record");
+            }));
+            log.AwaitDurable(log.Append(out -> out.writeLong(2)));
+        }
+
+        // Assert
+        ArrayList<Long> replayed = new ArrayList<>();
+        try (GroupCommitLog ignored = new GroupCommitLog(file, in -> replayed.add(in.readLong()))) {
+            assertEquals(List.of(1L, 2L), replayed);
+        }
+    }
+}
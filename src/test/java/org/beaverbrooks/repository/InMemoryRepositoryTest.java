@@ -1,11 +1,15 @@
 package org.beaverbrooks.repository;
 
 import org.beaverbrooks.domain.user.*;
+import org.beaverbrooks.shared.exceptions.DuplicateUserException;
+import org.beaverbrooks.shared.exceptions.VersionConflictException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -39,9 +43,9 @@ public class InMemoryRepositoryTest {
         User testUser2 = new Customer("TestUser2", "Test", "Tester", testUser2Id);
         User testUser3 = new Customer("TestUser3", "Test", "Tester", testUser3Id);
         
-        UserAuth testUserAuth1 = new UserAuth(testUser1Id, "Pa55word!!1234");
-        UserAuth testUserAuth2 = new UserAuth(testUser2Id, "Pa55word!!2234");
-        UserAuth testUserAuth3 = new UserAuth(testUser3Id, "Pa55word!!3234");
+        UserAuth testUserAuth1 = UserAuth.FromPassword(testUser1Id, "Pa55word!!1234", 1_000);
+        UserAuth testUserAuth2 = UserAuth.FromPassword(testUser2Id, "Pa55word!!2234", 1_000);
+        UserAuth testUserAuth3 = UserAuth.FromPassword(testUser3Id, "Pa55word!!3234", 1_000);
 
         userData.add(testUser1);
         userData.add(testUser2);
@@ -104,7 +108,7 @@ public class InMemoryRepositoryTest {
         // Arrange
         UUID newUserId = UUID.fromString("00000000-0000-0000-0000-000000000004");
         IUser newUser = new Customer("NewUser", "New", "User", newUserId);
-        IUserAuth newUserAuth = new UserAuth(newUserId, "NewPassword123");
+        IUserAuth newUserAuth = UserAuth.FromPassword(newUserId, "NewPassword123", 1_000);
         int initialUserCount = repository.GetAllUsers().size();
         int initialAuthCount = repository.GetAllUserAuth().size();
         
@@ -124,11 +128,10 @@ public class InMemoryRepositoryTest {
 
     /**
      * Tests updating an existing user.
-     * Note: Current implementation adds the user again rather than updating.
-     * This test verifies the current behavior.
+     * Verifies that the update replaces the stored entry instead of adding another one.
      */
     @Test
-    void SaveUpdateUser_ShouldAddUser_WhenCalled() {
+    void SaveUpdateUser_ShouldReplaceUser_WhenUserExists() {
         // Arrange
         UUID existingUserId = testUser1Id;
         IUser updatedUser = new Customer("UpdatedUser1", "Updated", "Name", existingUserId);
@@ -138,9 +141,89 @@ public class InMemoryRepositoryTest {
         repository.SaveUpdateUser(updatedUser);
         
         // Assert
-        // Note: Current implementation adds rather than updates, so count increases
-        assertEquals(initialUserCount + 1, repository.GetAllUsers().size());
+        assertEquals(initialUserCount, repository.GetAllUsers().size());
         assertTrue(repository.GetAllUsers().contains(updatedUser));
+        assertSame(updatedUser, repository.GetUserById(existingUserId).orElseThrow());
+        assertSame(updatedUser, repository.FindByName("UpdatedUser1").orElseThrow());
+        assertFalse(repository.FindByName("TestUser1").isPresent());
+    }
+
+    /**
+     * Tests that repeated saves of the same user do not grow the repository.
+     * Verifies that each save bumps the version by one.
+     */
+    @Test
+    void SaveUpdateUser_ShouldIncrementVersion_WhenSavedRepeatedly() {
+        // Arrange
+        IUser testUser1 = repository.GetUserById(testUser1Id).orElseThrow();
+        long initialVersion = repository.GetUserVersion(testUser1Id);
+        int initialUserCount = repository.GetAllUsers().size();
+
+        // Act
+        for (int i = 0; i < 1000; i++) {
+            testUser1.GetAccount().orElseThrow().AddToAccount(BigDecimal.ONE);
+            repository.SaveUpdateUser(testUser1);
+        }
+
+        // Assert
+        assertEquals(initialUserCount, repository.GetAllUsers().size());
+        assertEquals(initialVersion + 1000, repository.GetUserVersion(testUser1Id));
+    }
+
+    /**
+     * Tests an optimistic update against the current version.
+     * Verifies that the write succeeds and returns the next version.
+     */
+    @Test
+    void SaveUpdateUser_ShouldReturnNextVersion_WhenExpectedVersionMatches() {
+        // Arrange
+        IUser testUser1 = repository.GetUserById(testUser1Id).orElseThrow();
+        long version = repository.GetUserVersion(testUser1Id);
+
+        // Act
+        long newVersion = repository.SaveUpdateUser(testUser1, version);
+
+        // Assert
+        assertEquals(version + 1, newVersion);
+        assertEquals(newVersion, repository.GetUserVersion(testUser1Id));
+    }
+
+    /**
+     * Tests an optimistic update against a stale version.
+     * Verifies that VersionConflictException is thrown and the stored user is unchanged.
+     */
+    @Test
+    void SaveUpdateUser_ShouldThrowVersionConflict_WhenExpectedVersionIsStale() {
+        // Arrange
+        IUser testUser1 = repository.GetUserById(testUser1Id).orElseThrow();
+        long staleVersion = repository.GetUserVersion(testUser1Id);
+        repository.SaveUpdateUser(testUser1);
+        IUser updatedUser = new Customer("UpdatedUser1", "Updated", "Name", testUser1Id);
+
+        // Act & Assert
+        assertThrows(VersionConflictException.class, () -> repository.SaveUpdateUser(updatedUser, staleVersion));
+        assertSame(testUser1, repository.GetUserById(testUser1Id).orElseThrow());
+        assertEquals(staleVersion + 1, repository.GetUserVersion(testUser1Id));
+    }
+
+    /**
+     * Tests the version reported for a user that is not stored.
+     * Verifies that unknown users report version zero, which an optimistic insert can expect.
+     */
+    @Test
+    void GetUserVersion_ShouldReturnZero_WhenUserDoesNotExist() {
+        // Arrange
+        UUID newUserId = UUID.fromString("00000000-0000-0000-0000-000000000004");
+        IUser newUser = new Customer("NewUser", "New", "User", newUserId);
+
+        // Act
+        long versionBefore = repository.GetUserVersion(newUserId);
+        long versionAfter = repository.SaveUpdateUser(newUser, 0L);
+
+        // Assert
+        assertEquals(0L, versionBefore);
+        assertEquals(1L, versionAfter);
+        assertTrue(repository.GetUserById(newUserId).isPresent());
     }
 
     /**
@@ -291,4 +374,170 @@ public class InMemoryRepositoryTest {
         assertTrue(allUserAuth.stream().anyMatch(auth -> 
             auth.GetID().isPresent() && auth.GetID().get().equals(testUser3Id)));
     }
+
+    /**
+     * Tests that a newly saved user is reachable through the name and id indexes.
+     * Verifies lookups by any casing of the username resolve to the saved user.
+     */
+    @Test
+    void FindByName_ShouldReturnUser_WhenSavedAfterConstruction() {
+        // Arrange
+        UUID newUserId = UUID.fromString("00000000-0000-0000-0000-000000000004");
+        IUser newUser = new Customer("NewUser", "New", "User", newUserId);
+        repository.SaveNewUser(UserAuth.FromPassword(newUserId, "NewPassword123", 1_000), newUser);
+
+        // Act
+        Optional<IUser> byName = repository.FindByName("NEWUSER");
+        Optional<IUserAuth> auth = repository.GetUserAuthById(newUserId);
+
+        // Assert
+        assertTrue(byName.isPresent());
+        assertSame(newUser, byName.get());
+        assertTrue(auth.isPresent());
+        assertEquals(newUserId, auth.get().GetID().orElseThrow());
+    }
+
+    /**
+     * Tests that deleting an account also removes it from the lookup indexes.
+     * Verifies that neither name, id nor auth lookups find the deleted user.
+     */
+    @Test
+    void DeleteAccount_ShouldRemoveUserFromIndexes() {
+        // Arrange
+        IUser testUser1 = repository.GetUserById(testUser1Id).orElseThrow();
+
+        // Act
+        repository.DeleteAccount(testUser1);
+
+        // Assert
+        assertFalse(repository.FindByName("TestUser1").isPresent());
+        assertFalse(repository.GetUserById(testUser1Id).isPresent());
+        assertFalse(repository.GetUserAuthById(testUser1Id).isPresent());
+        assertThrows(NoSuchElementException.class, () -> repository.GetAccountBalance(testUser1Id));
+    }
+
+    /**
+     * Tests that the username index folds case the same way equalsIgnoreCase does.
+     * Verifies that every name equalsIgnoreCase accepts maps to the same key.
+     */
+    @Test
+    void Normalise_ShouldMatchEqualsIgnoreCase() {
+        // Arrange
+        String[][] pairs = {
+                {"TestUser1", "tESTuSER1"},
+                {"Ärzte-Kasse", "äRZTE-kASSE"},
+                {"ΣΊΣΥΦΟΣ", "σίσυφος"},
+                {"straße", "STRASSE"}
+        };
+
+        // Act & Assert
+        for (String[] pair : pairs) {
+            boolean keysMatch = UsernameKey.Normalise(pair[0]).equals(UsernameKey.Normalise(pair[1]));
+            assertEquals(pair[0].equalsIgnoreCase(pair[1]), keysMatch, pair[0] + " / " + pair[1]);
+        }
+    }
+
+    /**
+     * Tests a transfer between two existing users.
+     * Verifies both balances move, both versions are bumped and the source balance is returned.
+     */
+    @Test
+    void TransferBetweenAccounts_ShouldMoveFundsAndBumpVersions() {
+        // Arrange
+        repository.GetUserById(testUser1Id).orElseThrow().GetAccount().orElseThrow().AddToAccount(new BigDecimal("100.00"));
+
+        // Act
+        BigDecimal sourceBalance = repository.TransferBetweenAccounts(testUser1Id, testUser2Id, new BigDecimal("30.50"));
+
+        // Assert
+        assertEquals(0, new BigDecimal("69.50").compareTo(sourceBalance));
+        assertEquals(0, new BigDecimal("69.50").compareTo(repository.GetAccountBalance(testUser1Id)));
+        assertEquals(0, new BigDecimal("30.50").compareTo(repository.GetAccountBalance(testUser2Id)));
+        assertEquals(2L, repository.GetUserVersion(testUser1Id));
+        assertEquals(2L, repository.GetUserVersion(testUser2Id));
+    }
+
+    /**
+     * Tests transfers that cannot be applied.
+     * Verifies each is rejected without touching either balance.
+     */
+    @Test
+    void TransferBetweenAccounts_ShouldReject_WhenTransferIsInvalid() {
+        // Arrange
+        UUID missingId = UUID.fromString("00000000-0000-0000-0000-000000000099");
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.TransferBetweenAccounts(testUser1Id, testUser1Id, BigDecimal.ONE));
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.TransferBetweenAccounts(testUser1Id, testUser2Id, BigDecimal.ZERO));
+        assertThrows(NoSuchElementException.class,
+                () -> repository.TransferBetweenAccounts(testUser1Id, missingId, BigDecimal.ONE));
+        assertEquals(0, BigDecimal.ZERO.compareTo(repository.GetAccountBalance(testUser1Id)));
+    }
+
+    /**
+     * Tests the username filter through creation, renaming and deletion.
+     * Verifies that current names are always reported and a deleted or replaced name is not.
+     */
+    @Test
+    void MightContainUsername_ShouldFollowNameChanges() {
+        // Arrange
+        IUser testUser1 = repository.GetUserById(testUser1Id).orElseThrow();
+
+        // Act
+        repository.SaveUpdateUser(new Customer("RenamedUser2", "Test", "Tester", testUser2Id));
+        repository.DeleteAccount(testUser1);
+
+        // Assert
+        assertTrue(repository.MightContainUsername("testuser3"));
+        assertTrue(repository.MightContainUsername("RENAMEDUSER2"));
+        assertFalse(repository.MightContainUsername("TestUser1"));
+        assertFalse(repository.MightContainUsername("TestUser2"));
+        assertFalse(repository.MightContainUsername(null));
+    }
+
+    /**
+     * Tests paging through the users one at a time, resuming each page from the previous token.
+     * Verifies the users come back in id order and the last page says there are no more.
+     */
+    @Test
+    void GetUsersPage_ShouldResumeFromToken_InIdOrder() {
+        // Arrange
+        ArrayList<UUID> seen = new ArrayList<>();
+        UserCursor cursor = UserCursor.Start();
+        UserPage page;
+
+        // Act
+        do {
+            page = repository.GetUsersPage(UserCursor.FromToken(cursor.ToToken()), 2);
+            page.Users().forEach(user -> seen.add(user.GetID()));
+            cursor = page.Next();
+        } while (page.HasMore());
+
+        // Assert
+        assertEquals(List.of(testUser1Id, testUser2Id, testUser3Id), seen);
+        assertEquals(testUser3Id, cursor.LastId());
+        assertTrue(repository.GetUsersPage(cursor, 2).Users().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> repository.GetUsersPage(UserCursor.Start(), 0));
+    }
+
+    /**
+     * Tests renaming a user to a name another user holds, in a different case.
+     * Verifies that the rename is rejected and both users keep their names.
+     */
+    @Test
+    void SaveUpdateUser_ShouldThrow_WhenRenamedToTakenName() {
+        // Arrange
+        Customer renamed = new Customer("TESTUSER1", "Test", "Tester", testUser2Id);
+
+        // Act & Assert
+        assertThrows(DuplicateUserException.class, () -> repository.SaveUpdateUser(renamed));
+        assertEquals(testUser1Id, repository.FindByName("TestUser1").orElseThrow().GetID());
+        assertEquals(testUser2Id, repository.FindByName("TestUser2").orElseThrow().GetID());
+        assertEquals("TestUser2", repository.GetUserById(testUser2Id).orElseThrow().GetUsername());
+
+        repository.SaveUpdateUser(new Customer("TESTUSER2", "Test", "Tester", testUser2Id));
+        assertEquals(testUser2Id, repository.FindByName("testuser2").orElseThrow().GetID());
+    }
 }
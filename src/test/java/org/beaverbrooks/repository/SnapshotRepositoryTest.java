@@ -0,0 +1,236 @@
+package org.beaverbrooks.repository;
+
+import org.beaverbrooks.domain.user.*;
+import org.beaverbrooks.shared.exceptions.DuplicateUserException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SnapshotFile and SnapshotRepository classes.
+ * Tests writing a snapshot from a repository and serving lookups from the mapped file.
+ */
+public class SnapshotRepositoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path snapshotPath;
+    private UUID testUser1Id;
+    private UUID testUser2Id;
+    private UUID testBusinessId;
+
+    /**
+     * Sets up a snapshot file before each test method.
+     * Writes two customers, one with a balance, and a business.
+     */
+    @BeforeEach
+    void SetupSnapshot() throws IOException {
+        testUser1Id = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        testUser2Id = UUID.fromString("f0000000-0000-0000-0000-000000000002");
+        testBusinessId = UUID.fromString("00000000-0000-0000-0000-000000000003");
+
+        ArrayList<IUser> userData = new ArrayList<>();
+        ArrayList<IUserAuth> userAuthData = new ArrayList<>();
+        Customer testUser1 = new Customer("TestUser1", "Test", "Tester", testUser1Id);
+        testUser1.GetAccount().orElseThrow().AddToAccount(new BigDecimal("42.50"));
+        userData.add(testUser1);
+        userData.add(new Customer("TestUser2", "Other", "Tester", testUser2Id));
+        userData.add(new Business("TestBusiness", testBusinessId));
+        userAuthData.add(UserAuth.FromPassword(testUser1Id, "Pa55word!!1234", 1_000));
+        userAuthData.add(UserAuth.FromPassword(testUser2Id, "Pa55word!!2234", 1_000));
+        userAuthData.add(UserAuth.FromPassword(testBusinessId, "Pa55word!!3234", 1_000));
+
+        snapshotPath = tempDir.resolve("accounts.snapshot");
+        SnapshotFile.Write(snapshotPath, new InMemoryRepository(userData, userAuthData));
+    }
+
+    /**
+     * Tests lookups by id and by name against the snapshot.
+     * Verifies that users, auth data and balances are decoded correctly.
+     */
+    @Test
+    void Lookups_ShouldDecodeUsersFromSnapshot() throws IOException {
+        // Arrange & Act
+        try (SnapshotRepository repository = new SnapshotRepository(snapshotPath)) {
+            Optional<IUser> byName = repository.FindByName("TESTUSER2");
+            Optional<IUser> byId = repository.GetUserById(testBusinessId);
+
+            // Assert
+            assertTrue(byName.isPresent());
+            assertEquals(testUser2Id, byName.get().GetID());
+            assertEquals("Other Tester", byName.get().GetName());
+            assertTrue(byId.isPresent());
+            assertEquals("TestBusiness", byId.get().GetName());
+            assertEquals(new BigDecimal("42.50"), repository.GetAccountBalance(testUser1Id));
+            assertTrue(repository.GetUserAuthById(testUser1Id).orElseThrow().ComparePassword("Pa55word!!1234"));
+            assertFalse(repository.FindByName("NoSuchUser").isPresent());
+            assertFalse(repository.GetUserById(UUID.fromString("00000000-0000-0000-0000-000000000999")).isPresent());
+        }
+    }
+
+    /**
+     * Tests that a user decoded once is the same object on later lookups.
+     * Verifies that balance changes made through it are visible afterwards.
+     */
+    @Test
+    void GetUserById_ShouldReturnSameInstance_AfterFirstAccess() throws IOException {
+        // Arrange
+        try (SnapshotRepository repository = new SnapshotRepository(snapshotPath)) {
+            IUser first = repository.GetUserById(testUser1Id).orElseThrow();
+
+            // Act
+            first.GetAccount().orElseThrow().AddToAccount(new BigDecimal("7.50"));
+            repository.SaveUpdateUser(first);
+
+            // Assert
+            assertSame(first, repository.FindByName("testuser1").orElseThrow());
+            assertEquals(new BigDecimal("50.00"), repository.GetAccountBalance(testUser1Id));
+            assertEquals(2L, repository.GetUserVersion(testUser1Id));
+        }
+    }
+
+    /**
+     * Tests deleting and renaming users that came from the snapshot.
+     * Verifies that the snapshot copy does not reappear under the old id or name.
+     */
+    @Test
+    void DeleteAndRename_ShouldHideSnapshotCopy() throws IOException {
+        // Arrange
+        try (SnapshotRepository repository = new SnapshotRepository(snapshotPath)) {
+            IUser testUser1 = repository.GetUserById(testUser1Id).orElseThrow();
+
+            // Act
+            repository.DeleteAccount(testUser1);
+            repository.SaveUpdateUser(new Customer("RenamedUser2", "Other", "Tester", testUser2Id));
+
+            // Assert
+            assertFalse(repository.GetUserById(testUser1Id).isPresent());
+            assertFalse(repository.FindByName("TestUser1").isPresent());
+            assertFalse(repository.FindByName("TestUser2").isPresent());
+            assertEquals(testUser2Id, repository.FindByName("RenamedUser2").orElseThrow().GetID());
+            assertEquals(2, repository.GetAllUsers().size());
+        }
+    }
+
+    /**
+     * Tests the username check for users in the snapshot and users created since.
+     * Verifies both are reported and an unknown name is not.
+     */
+    @Test
+    void MightContainUsername_ShouldCoverSnapshotAndLiveUsers() throws IOException {
+        // Arrange
+        try (SnapshotRepository repository = new SnapshotRepository(snapshotPath)) {
+            UUID newId = UUID.fromString("00000000-0000-0000-0000-000000000004");
+
+            // Act
+            repository.SaveNewUser(UserAuth.FromPassword(newId, "Pa55word!!4234", 1_000), new Customer("NewUser", "New", "User", newId));
+
+            // Assert
+            assertTrue(repository.MightContainUsername("testbusiness"));
+            assertTrue(repository.MightContainUsername("NEWUSER"));
+            assertFalse(repository.MightContainUsername("NoSuchUser"));
+        }
+    }
+
+    /**
+     * Tests opening a file that is not a snapshot.
+     * Verifies that an IOException is thrown instead of serving garbage.
+     */
+    @Test
+    void Open_ShouldThrow_WhenFileIsNotASnapshot() throws IOException {
+        // Arrange
+        Path notASnapshot = tempDir.resolve("garbage.bin");
+        Files.write(notASnapshot, new byte[128]);
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> new SnapshotRepository(notASnapshot));
+    }
+
+    /**
+     * Tests paging over snapshot users mixed with deleted and newly created ones.
+     * Verifies pages merge both sources in signed id order, skip the deleted user, and resume
+     * from the token.
+     */
+    @Test
+    void GetUsersPage_ShouldMergeSnapshotAndLiveUsers() throws IOException {
+        // Arrange
+        try (SnapshotRepository repository = new SnapshotRepository(snapshotPath)) {
+            UUID newId = UUID.fromString("00000000-0000-0000-0000-000000000002");
+            repository.SaveNewUser(UserAuth.FromPassword(newId, "Pa55word!!4234", 1_000), new Customer("NewUser", "New", "User", newId));
+            repository.DeleteAccount(repository.GetUserById(testBusinessId).orElseThrow());
+
+            // Act
+            UserPage first = repository.GetUsersPage(UserCursor.Start(), 2);
+            UserPage second = repository.GetUsersPage(UserCursor.FromToken(first.Next().ToToken()), 2);
+
+            // Assert: the f0... id has a negative most significant half, so it sorts first
+            assertEquals(List.of(testUser2Id, testUser1Id), first.Users().stream().map(IUser::GetID).toList());
+            assertTrue(first.HasMore());
+            assertEquals(List.of(newId), second.Users().stream().map(IUser::GetID).toList());
+            assertFalse(second.HasMore());
+            assertEquals(new BigDecimal("42.50"), first.Users().get(1).GetAccount().orElseThrow().GetAccountBalance());
+        }
+    }
+
+    /**
+     * Tests taking a name held by a snapshot user that has not been touched yet.
+     * Verifies that a rename or new user with that name is rejected and the owner stays readable.
+     */
+    @Test
+    void SaveUpdateUser_ShouldThrow_WhenRenamedToUnmaterialisedName() throws IOException {
+        // Arrange
+        UUID newId = UUID.fromString("00000000-0000-0000-0000-000000000004");
+        try (SnapshotRepository repository = new SnapshotRepository(snapshotPath)) {
+            // Act & Assert
+            assertThrows(DuplicateUserException.class,
+                    () -> repository.SaveUpdateUser(new Customer("testbusiness", "Other", "Tester", testUser2Id)));
+            assertThrows(DuplicateUserException.class,
+                    () -> repository.SaveNewUser(UserAuth.FromHash(newId, PasswordHasher.Hash("Pa55word!!4234", 1_000)),
+                            new Customer("TESTUSER1", "New", "Tester", newId)));
+            assertEquals(testBusinessId, repository.FindByName("TestBusiness").orElseThrow().GetID());
+            assertEquals(testUser1Id, repository.FindByName("TestUser1").orElseThrow().GetID());
+            assertEquals(testUser2Id, repository.FindByName("TestUser2").orElseThrow().GetID());
+            assertFalse(repository.GetUserById(newId).isPresent());
+        }
+    }
+
+    /**
+     * Tests opening a snapshot written in the first format version.
+     * Verifies that the file is rewritten at the current version and still serves the same users.
+     */
+    @Test
+    void Open_ShouldRewriteFile_WhenFormatVersionIsOld() throws IOException {
+        // Arrange
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, 1), 4);
+        }
+
+        // Act
+        try (SnapshotRepository repository = new SnapshotRepository(snapshotPath)) {
+            // Assert
+            assertEquals(new BigDecimal("42.50"), repository.GetAccountBalance(testUser1Id));
+            assertTrue(repository.GetUserAuthById(testUser2Id).orElseThrow().ComparePassword("Pa55word!!2234"));
+            assertEquals(testBusinessId, repository.FindByName("testbusiness").orElseThrow().GetID());
+        }
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            ByteBuffer version = ByteBuffer.allocate(4);
+            channel.read(version, 4);
+            assertEquals(SnapshotFile.FORMAT_VERSION, version.getInt(0));
+        }
+    }
+}
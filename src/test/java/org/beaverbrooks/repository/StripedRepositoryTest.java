@@ -0,0 +1,305 @@
+package org.beaverbrooks.repository;
+
+import org.beaverbrooks.domain.user.*;
+import org.beaverbrooks.shared.exceptions.DuplicateUserException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for StripedRepository class.
+ * Tests the repository operations and their behaviour under concurrent access.
+ */
+public class StripedRepositoryTest {
+
+    private IDataRepository repository;
+    private UUID testUser1Id;
+    private UUID testUser2Id;
+
+    /**
+     * Sets up test data before each test method.
+     * Creates two test users with corresponding authentication data.
+     */
+    @BeforeEach
+    void SetupRepository() {
+        ArrayList<IUser> userData = new ArrayList<>();
+        ArrayList<IUserAuth> userAuthData = new ArrayList<>();
+
+        testUser1Id = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        testUser2Id = UUID.fromString("00000000-0000-0000-0000-000000000002");
+
+        userData.add(new Customer("TestUser1", "Test", "Tester", testUser1Id));
+        userData.add(new Customer("TestUser2", "Test", "Tester", testUser2Id));
+        userAuthData.add(UserAuth.FromPassword(testUser1Id, "Pa55word!!1234", 1_000));
+        userAuthData.add(UserAuth.FromPassword(testUser2Id, "Pa55word!!2234", 1_000));
+
+        repository = new StripedRepository(userData, userAuthData, 8);
+    }
+
+    /**
+     * Tests finding a user by name with case-insensitive matching.
+     * Verifies that the search returns the stored user.
+     */
+    @Test
+    void FindByName_ShouldReturnUser_WhenCaseDiffers() {
+        // Arrange & Act
+        Optional<IUser> result = repository.FindByName("testuser1");
+
+        // Assert
+        assertTrue(result.isPresent());
+        assertEquals(testUser1Id, result.get().GetID());
+    }
+
+    /**
+     * Tests updating an existing user.
+     * Verifies that the update replaces the entry and bumps the version.
+     */
+    @Test
+    void SaveUpdateUser_ShouldReplaceUser_WhenUserExists() {
+        // Arrange
+        IUser updatedUser = new Customer("UpdatedUser1", "Updated", "Name", testUser1Id);
+        long version = repository.GetUserVersion(testUser1Id);
+
+        // Act
+        repository.SaveUpdateUser(updatedUser);
+
+        // Assert
+        assertEquals(2, repository.GetAllUsers().size());
+        assertEquals(version + 1, repository.GetUserVersion(testUser1Id));
+        assertSame(updatedUser, repository.FindByName("updateduser1").orElseThrow());
+        assertFalse(repository.FindByName("TestUser1").isPresent());
+    }
+
+    /**
+     * Tests deleting an account.
+     * Verifies that the user and auth data are no longer reachable.
+     */
+    @Test
+    void DeleteAccount_ShouldRemoveUserAndAuth() {
+        // Arrange
+        IUser testUser1 = repository.GetUserById(testUser1Id).orElseThrow();
+
+        // Act
+        repository.DeleteAccount(testUser1);
+
+        // Assert
+        assertFalse(repository.GetUserById(testUser1Id).isPresent());
+        assertFalse(repository.GetUserAuthById(testUser1Id).isPresent());
+        assertFalse(repository.FindByName("TestUser1").isPresent());
+        assertEquals(1, repository.GetAllUsers().size());
+        assertEquals(1, repository.GetAllUserAuth().size());
+    }
+
+    /**
+     * Tests concurrent signups and updates from many threads.
+     * Verifies that no user or version bump is lost.
+     */
+    @Test
+    void SaveNewUser_ShouldKeepEveryUser_WhenCalledConcurrently() throws Exception {
+        // Arrange
+        int threads = 8;
+        int usersPerThread = 500;
+        CountDownLatch start = new CountDownLatch(1);
+        ArrayList<Future<?>> futures = new ArrayList<>();
+
+        // Act
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < usersPerThread; i++) {
+                        UUID id = new UUID(thread + 1, i);
+                        IUser user = new Customer("user" + thread + "x" + i, "Con", "Current", id);
+                        repository.SaveNewUser(UserAuth.FromPassword(id, "Pa55word!!1234", 1_000), user);
+                        repository.SaveUpdateUser(user);
+                        repository.SaveUpdateUser(repository.GetUserById(testUser1Id).orElseThrow());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        // Assert
+        assertEquals(2 + threads * usersPerThread, repository.GetAllUsers().size());
+        assertEquals(2 + threads * usersPerThread, repository.GetAllUserAuth().size());
+        assertEquals(1 + threads * usersPerThread, repository.GetUserVersion(testUser1Id));
+        assertEquals(2L, repository.GetUserVersion(new UUID(3, 42)));
+        assertTrue(repository.FindByName("USER7X499").isPresent());
+    }
+
+    /**
+     * Tests saving a new user whose name differs from an existing one only in case.
+     * Verifies that nothing is saved and the existing user keeps the name.
+     */
+    @Test
+    void SaveNewUserIfAbsent_ShouldReturnFalse_WhenNameTaken() {
+        // Arrange
+        UUID id = UUID.fromString("00000000-0000-0000-0000-000000000003");
+        IUser user = new Customer("TESTUSER1", "Other", "Person", id);
+
+        // Act
+        boolean saved = repository.SaveNewUserIfAbsent(UserAuth.FromPassword(id, "Pa55word!!3234", 1_000), user);
+
+        // Assert
+        assertFalse(saved);
+        assertTrue(repository.GetUserById(id).isEmpty());
+        assertTrue(repository.GetUserAuthById(id).isEmpty());
+        assertEquals(testUser1Id, repository.FindByName("TestUser1").orElseThrow().GetID());
+    }
+
+    /**
+     * Tests many threads racing to claim the same set of names.
+     * Verifies that every name is won exactly once and each winner is stored with its auth.
+     */
+    @Test
+    void SaveNewUserIfAbsent_ShouldHaveOneWinnerPerName_WhenCalledConcurrently() throws Exception {
+        // Arrange
+        int threads = 8;
+        int names = 500;
+        CountDownLatch start = new CountDownLatch(1);
+        ArrayList<Future<Integer>> futures = new ArrayList<>();
+
+        // Act
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    int won = 0;
+                    for (int i = 0; i < names; i++) {
+                        UUID id = new UUID(thread + 1, i);
+                        String name = thread % 2 == 0 ? "shared" + i : "SHARED" + i;
+                        if (repository.SaveNewUserIfAbsent(UserAuth.FromPassword(id, "Pa55word!!1234", 1_000), new Customer(name, "Con", "Current", id))) {
+                            won++;
+                        }
+                    }
+                    return won;
+                }));
+            }
+            start.countDown();
+            int won = 0;
+            for (Future<Integer> future : futures) {
+                won += future.get();
+            }
+
+            // Assert
+            assertEquals(names, won);
+        }
+        assertEquals(2 + names, repository.GetAllUsers().size());
+        assertEquals(2 + names, repository.GetAllUserAuth().size());
+        for (int i = 0; i < names; i++) {
+            UUID winner = repository.FindByName("Shared" + i).orElseThrow().GetID();
+            assertTrue(repository.GetUserAuthById(winner).isPresent());
+        }
+    }
+
+    /**
+     * Tests many threads transferring in opposite directions between users on different stripes.
+     * Verifies the transfers finish without deadlocking and no money is created or lost.
+     */
+    @Test
+    void TransferBetweenAccounts_ShouldNotDeadlock_WhenTransfersOppose() {
+        // Arrange
+        int threads = 8;
+        int transfersPerThread = 2_000;
+        repository.GetUserById(testUser1Id).orElseThrow().GetAccount().orElseThrow().AddToAccount(new BigDecimal("1000.00"));
+        repository.GetUserById(testUser2Id).orElseThrow().GetAccount().orElseThrow().AddToAccount(new BigDecimal("1000.00"));
+        CountDownLatch start = new CountDownLatch(1);
+        ArrayList<Future<?>> futures = new ArrayList<>();
+
+        // Act
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+                for (int t = 0; t < threads; t++) {
+                    boolean forward = t % 2 == 0;
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        for (int i = 0; i < transfersPerThread; i++) {
+                            if (forward) {
+                                repository.TransferBetweenAccounts(testUser1Id, testUser2Id, new BigDecimal("0.01"));
+                            } else {
+                                repository.TransferBetweenAccounts(testUser2Id, testUser1Id, new BigDecimal("0.01"));
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+        });
+
+        // Assert
+        BigDecimal total = repository.GetAccountBalance(testUser1Id).add(repository.GetAccountBalance(testUser2Id));
+        assertEquals(0, new BigDecimal("2000.00").compareTo(total));
+        assertEquals(0, new BigDecimal("1000.00").compareTo(repository.GetAccountBalance(testUser1Id)));
+        assertEquals(1L + threads * transfersPerThread, repository.GetUserVersion(testUser1Id));
+    }
+
+    /**
+     * Tests streaming many users, sequentially and in parallel, with a page much smaller than the set.
+     * Verifies each user is visited once, in id order when sequential, and that a scan resumed
+     * after any user carries on with the next one.
+     */
+    @Test
+    void StreamUsers_ShouldVisitEveryUserOnce_WhenSequentialOrParallel() {
+        // Arrange
+        String passwordHash = PasswordHasher.Hash("Pa55word!!1234", 1_000);
+        for (int i = 0; i < 5_000; i++) {
+            UUID id = new UUID(7, i);
+            repository.SaveNewUser(UserAuth.FromHash(id, passwordHash), new Customer("paged" + i, "Page", "User", id));
+        }
+
+        // Act
+        List<UUID> sequential = repository.StreamUsers(UserCursor.Start(), 64).map(IUser::GetID).toList();
+        long parallel = repository.StreamUsers(UserCursor.Start(), 64).parallel().map(IUser::GetID).distinct().count();
+        List<UUID> resumed = repository.StreamUsers(UserCursor.After(new UUID(7, 2_999)), 64).map(IUser::GetID).toList();
+
+        // Assert
+        assertEquals(5_002, sequential.size());
+        for (int i = 1; i < sequential.size(); i++) {
+            assertTrue(sequential.get(i).compareTo(sequential.get(i - 1)) > 0);
+        }
+        assertEquals(5_002, parallel);
+        assertEquals(2_000, resumed.size());
+        assertEquals(new UUID(7, 3_000), resumed.getFirst());
+    }
+
+    /**
+     * Tests renaming a user to a name another user holds, in a different case.
+     * Verifies that the rename is rejected and both users keep their names.
+     */
+    @Test
+    void SaveUpdateUser_ShouldThrow_WhenRenamedToTakenName() {
+        // Arrange
+        Customer renamed = new Customer("TESTUSER1", "Test", "Tester", testUser2Id);
+
+        // Act & Assert
+        assertThrows(DuplicateUserException.class, () -> repository.SaveUpdateUser(renamed));
+        assertEquals(testUser1Id, repository.FindByName("TestUser1").orElseThrow().GetID());
+        assertEquals(testUser2Id, repository.FindByName("TestUser2").orElseThrow().GetID());
+        assertEquals("TestUser2", repository.GetUserById(testUser2Id).orElseThrow().GetUsername());
+
+        repository.SaveUpdateUser(new Customer("TESTUSER2", "Test", "Tester", testUser2Id));
+        assertEquals(testUser2Id, repository.FindByName("testuser2").orElseThrow().GetID());
+    }
+}
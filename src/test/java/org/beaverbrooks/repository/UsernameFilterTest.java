@@ -0,0 +1,135 @@
+package org.beaverbrooks.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for UsernameFilter class.
+ * Checks the guarantees account creation relies on: no false negatives, a small false-positive
+ * rate, and removal that leaves other names in place.
+ */
+public class UsernameFilterTest {
+
+    /**
+     * Tests a filter filled to the size it was built for.
+     * Verifies every added name is reported and absent names rarely are.
+     */
+    @Test
+    void MightContain_ShouldHaveNoFalseNegatives_AndFewFalsePositives() {
+        // Arrange
+        int names = 100_000;
+        UsernameFilter filter = new UsernameFilter(names);
+
+        // Act
+        for (int i = 0; i < names; i++) {
+            filter.Add("user" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < names; i++) {
+            if (filter.MightContain("absent" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Assert: 2 buckets x 4 slots / 2^16 fingerprints bounds the rate at about 0.012%
+        for (int i = 0; i < names; i++) {
+            assertTrue(filter.MightContain("user" + i), "user" + i);
+        }
+        assertTrue(falsePositives < 50, falsePositives + " false positives");
+        assertEquals(names, filter.GetCount());
+        assertEquals(1, filter.GetTableCount());
+    }
+
+    /**
+     * Tests adding many more names than the filter was sized for.
+     * Verifies that it grows by adding tables and still reports every name.
+     */
+    @Test
+    void Add_ShouldGrow_WhenExpectedCountExceeded() {
+        // Arrange
+        UsernameFilter filter = new UsernameFilter(100);
+
+        // Act
+        for (int i = 0; i < 20_000; i++) {
+            filter.Add("user" + i);
+        }
+
+        // Assert
+        assertTrue(filter.GetTableCount() > 1);
+        for (int i = 0; i < 20_000; i++) {
+            assertTrue(filter.MightContain("user" + i), "user" + i);
+        }
+    }
+
+    /**
+     * Tests removing half of the names from a full filter.
+     * Verifies the removed names are gone and the remaining ones are still reported.
+     */
+    @Test
+    void Remove_ShouldForgetOnlyThatName() {
+        // Arrange
+        UsernameFilter filter = new UsernameFilter(10_000);
+        for (int i = 0; i < 10_000; i++) {
+            filter.Add("user" + i);
+        }
+
+        // Act
+        for (int i = 0; i < 10_000; i += 2) {
+            assertTrue(filter.Remove("user" + i));
+        }
+
+        // Assert
+        int stillReported = 0;
+        for (int i = 0; i < 10_000; i++) {
+            boolean reported = filter.MightContain("user" + i);
+            if (i % 2 == 1) {
+                assertTrue(reported, "user" + i);
+            } else if (reported) {
+                stillReported++;
+            }
+        }
+        assertTrue(stillReported < 10, stillReported + " removed names still reported");
+        assertEquals(5_000, filter.GetCount());
+    }
+
+    /**
+     * Tests several threads adding and looking up names at once.
+     * Verifies that no name is lost and the count matches what was added.
+     */
+    @Test
+    void Add_ShouldKeepEveryName_WhenCalledConcurrently() throws Exception {
+        // Arrange
+        UsernameFilter filter = new UsernameFilter(1_000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        ArrayList<Future<?>> futures = new ArrayList<>();
+
+        // Act
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    filter.Add("user" + thread + "_" + i);
+                    filter.MightContain("absent" + thread + "_" + i);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(40_000, filter.GetCount());
+        for (int t = 0; t < 8; t++) {
+            for (int i = 0; i < 5_000; i++) {
+                assertTrue(filter.MightContain("user" + t + "_" + i), "user" + t + "_" + i);
+            }
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package org.beaverbrooks.repository;
+
+import org.beaverbrooks.domain.account.CustomerAccount;
+import org.beaverbrooks.domain.account.OffHeapAccount;
+import org.beaverbrooks.domain.account.OffHeapBalanceStore;
+import org.beaverbrooks.domain.user.*;
+import org.beaverbrooks.shared.exceptions.DuplicateUserException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for WriteAheadLogRepository class.
+ * Tests that writes survive a restart by replaying the log into a fresh repository.
+ */
+public class WriteAheadLogRepositoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private WriteAheadLogRepository Open(Path log) throws IOException {
+        return new WriteAheadLogRepository(log, new InMemoryRepository(new ArrayList<>(), new ArrayList<>()));
+    }
+
+    /**
+     * Tests that new users, balance changes and deletions are replayed on reopen.
+     * Verifies that the reopened repository matches the state before it was closed.
+     */
+    @Test
+    void Reopen_ShouldRestoreUsersBalancesAndDeletes() throws IOException {
+        // Arrange
+        Path log = tempDir.resolve("accounts.wal");
+        UUID customerId = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        UUID businessId = UUID.fromString("00000000-0000-0000-0000-000000000002");
+        UUID deletedId = UUID.fromString("00000000-0000-0000-0000-000000000003");
+
+        try (WriteAheadLogRepository repository = Open(log)) {
+            Customer customer = new Customer("TestUser1", "Test", "Tester", customerId);
+            repository.SaveNewUser(UserAuth.FromPassword(customerId, "Pa55word!!1234", 1_000), customer);
+            repository.SaveNewUser(UserAuth.FromPassword(businessId, "Pa55word!!2234", 1_000), new Business("TestBusiness", businessId));
+            Customer deleted = new Customer("TestUser3", "Test", "Tester", deletedId);
+            repository.SaveNewUser(UserAuth.FromPassword(deletedId, "Pa55word!!3234", 1_000), deleted);
+
+            customer.GetAccount().orElseThrow().AddToAccount(new BigDecimal("150.25"));
+            repository.SaveUpdateUser(customer);
+            customer.GetAccount().orElseThrow().SubtractFromAccount(new BigDecimal("50.00"));
+            repository.SaveUpdateUser(customer);
+            repository.DeleteAccount(deleted);
+        }
+
+        // Act
+        try (WriteAheadLogRepository reopened = Open(log)) {
+            // Assert
+            IUser customer = reopened.GetUserById(customerId).orElseThrow();
+            assertEquals("Test Tester", customer.GetName());
+            assertEquals(new BigDecimal("100.25"), reopened.GetAccountBalance(customerId));
+            CustomerAccount account = (CustomerAccount) customer.GetAccount().orElseThrow();
+            assertEquals(0, account.GetLedger().GetEntryCount());
+            assertEquals(10025, account.GetLedger().GetOpeningBalanceMinor());
+            assertTrue(reopened.GetUserAuthById(customerId).orElseThrow().ComparePassword("Pa55word!!1234"));
+            assertEquals("TestBusiness", reopened.FindByName("testbusiness").orElseThrow().GetName());
+            assertFalse(reopened.GetUserById(deletedId).isPresent());
+            assertFalse(reopened.GetUserAuthById(deletedId).isPresent());
+            assertEquals(2, reopened.GetAllUsers().size());
+        }
+    }
+
+    /**
+     * Tests that a transfer is replayed after reopening the log.
+     * Verifies that both sides of the transfer are restored.
+     */
+    @Test
+    void Reopen_ShouldRestoreBothSidesOfTransfer() throws IOException {
+        // Arrange
+        Path log = tempDir.resolve("accounts.wal");
+        UUID fromId = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        UUID toId = UUID.fromString("00000000-0000-0000-0000-000000000002");
+        try (WriteAheadLogRepository repository = Open(log)) {
+            Customer from = new Customer("TestUser1", "Test", "Tester", fromId);
+            repository.SaveNewUser(UserAuth.FromPassword(fromId, "Pa55word!!1234", 1_000), from);
+            repository.SaveNewUser(UserAuth.FromPassword(toId, "Pa55word!!2234", 1_000), new Customer("TestUser2", "Test", "Tester", toId));
+            from.GetAccount().orElseThrow().AddToAccount(new BigDecimal("80.00"));
+            repository.SaveUpdateUser(from);
+
+            // Act
+            repository.TransferBetweenAccounts(fromId, toId, new BigDecimal("12.34"));
+        }
+
+        // Assert
+        try (WriteAheadLogRepository reopened = Open(log)) {
+            assertEquals(0, new BigDecimal("67.66").compareTo(reopened.GetAccountBalance(fromId)));
+            assertEquals(0, new BigDecimal("12.34").compareTo(reopened.GetAccountBalance(toId)));
+        }
+    }
+
+    /**
+     * Tests reopening a log holding a transfer the delegate turned down.
+     * Verifies that replay accepts the refusal and restores the balances and later writes.
+     */
+    @Test
+    void Reopen_ShouldAcceptRefusedTransfer() throws IOException {
+        // Arrange
+        Path log = tempDir.resolve("accounts.wal");
+        UUID fromId = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        UUID toId = UUID.fromString("00000000-0000-0000-0000-000000000002");
+        try (WriteAheadLogRepository repository = Open(log)) {
+            Customer from = new Customer("TestUser1", "Test", "Tester", fromId);
+            repository.SaveNewUser(UserAuth.FromPassword(fromId, "Pa55word!!1234", 1_000), from);
+            repository.SaveNewUser(UserAuth.FromPassword(toId, "Pa55word!!2234", 1_000), new Customer("TestUser2", "Test", "Tester", toId));
+            from.GetAccount().orElseThrow().AddToAccount(new BigDecimal("10.00"));
+            repository.SaveUpdateUser(from);
+            assertThrows(IllegalArgumentException.class,
+                    () -> repository.TransferBetweenAccounts(fromId, toId, new BigDecimal("1.005")));
+            repository.TransferBetweenAccounts(fromId, toId, new BigDecimal("4.00"));
+        }
+
+        // Act
+        try (WriteAheadLogRepository reopened = Open(log)) {
+            // Assert
+            assertEquals(0, new BigDecimal("6.00").compareTo(reopened.GetAccountBalance(fromId)));
+            assertEquals(0, new BigDecimal("4.00").compareTo(reopened.GetAccountBalance(toId)));
+        }
+    }
+
+    /**
+     * Tests reopening a log over a delegate that turns down a write the log says was applied.
+     * Verifies that the log refuses to open rather than skipping the write.
+     */
+    @Test
+    void Reopen_ShouldFail_WhenLoggedWriteFailsOnReplay() throws IOException {
+        // Arrange
+        Path log = tempDir.resolve("accounts.wal");
+        UUID loggedId = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        UUID existingId = UUID.fromString("00000000-0000-0000-0000-000000000002");
+        try (WriteAheadLogRepository repository = Open(log)) {
+            repository.SaveNewUser(UserAuth.FromPassword(loggedId, "Pa55word!!1234", 1_000), new Customer("TestUser1", "Test", "Tester", loggedId));
+        }
+        InMemoryRepository delegate = new InMemoryRepository(new ArrayList<>(), new ArrayList<>());
+        delegate.SaveNewUser(UserAuth.FromPassword(existingId, "Pa55word!!2234", 1_000), new Customer("TestUser1", "Other", "Tester", existingId));
+
+        // Act & Assert
+        IOException thrown = assertThrows(IOException.class, () -> new WriteAheadLogRepository(log, delegate));
+        assertInstanceOf(DuplicateUserException.class, thrown.getCause());
+    }
+
+    /**
+     * Tests recovery from a record torn by a crash mid-append.
+     * Verifies that the intact prefix is replayed and later writes still replay.
+     */
+    @Test
+    void Reopen_ShouldDropTornTail_WhenLastRecordIsIncomplete() throws IOException {
+        // Arrange
+        Path log = tempDir.resolve("accounts.wal");
+        UUID firstId = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        UUID secondId = UUID.fromString("00000000-0000-0000-0000-000000000002");
+        try (WriteAheadLogRepository repository = Open(log)) {
+            repository.SaveNewUser(UserAuth.FromPassword(firstId, "Pa55word!!1234", 1_000), new Customer("TestUser1", "Test", "Tester", firstId));
+        }
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 40, 1, 2, 3}));
+        }
+
+        // Act
+        try (WriteAheadLogRepository repository = Open(log)) {
+            repository.SaveNewUser(UserAuth.FromPassword(secondId, "Pa55word!!2234", 1_000), new Customer("TestUser2", "Test", "Tester", secondId));
+        }
+
+        // Assert
+        try (WriteAheadLogRepository reopened = Open(log)) {
+            assertTrue(reopened.GetUserById(firstId).isPresent());
+            assertTrue(reopened.GetUserById(secondId).isPresent());
+        }
+    }
+
+    /**
+     * Tests many concurrent writers sharing group commits.
+     * Verifies that every acknowledged write is present after a restart.
+     */
+    @Test
+    void SaveNewUser_ShouldPersistEveryWrite_WhenCalledConcurrently() throws Exception {
+        // Arrange
+        Path log = tempDir.resolve("accounts.wal");
+        int threads = 8;
+        int usersPerThread = 200;
+        CountDownLatch start = new CountDownLatch(1);
+        ArrayList<Future<?>> futures = new ArrayList<>();
+
+        // Act
+        try (WriteAheadLogRepository repository = new WriteAheadLogRepository(log,
+                new StripedRepository(new ArrayList<>(), new ArrayList<>()));
+             ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < usersPerThread; i++) {
+                        UUID id = new UUID(thread + 1, i);
+                        repository.SaveNewUser(UserAuth.FromPassword(id, "Pa55word!!1234", 1_000), new Customer("user" + thread + "x" + i, "Con", "Current", id));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        // Assert
+        assertTrue(Files.size(log) > 0);
+        try (WriteAheadLogRepository reopened = Open(log)) {
+            assertEquals(threads * usersPerThread, reopened.GetAllUsers().size());
+            assertEquals(threads * usersPerThread, reopened.GetAllUserAuth().size());
+        }
+    }
+
+    /**
+     * Tests a write whose log record cannot be made durable.
+     * Verifies that the delegate never applies it, so readers cannot see a write a crash would lose.
+     */
+    @Test
+    void SaveNewUser_ShouldNotApply_WhenLogWriteFails() throws IOException {
+        // Arrange
+        Path log = tempDir.resolve("accounts.wal");
+        InMemoryRepository delegate = new InMemoryRepository(new ArrayList<>(), new ArrayList<>());
+        UUID id = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        WriteAheadLogRepository repository = new WriteAheadLogRepository(log, delegate);
+        repository.close();
+
+        // Act & Assert
+        assertThrows(UncheckedIOException.class, () -> repository.SaveNewUser(
+                UserAuth.FromHash(id, PasswordHasher.Hash("Pa55word!!1234", 1_000)), new Customer("TestUser1", "Test", "Tester", id)));
+        assertFalse(delegate.GetUserById(id).isPresent());
+        assertFalse(delegate.FindByName("TestUser1").isPresent());
+    }
+
+    /**
+     * Tests a new user whose username is already taken.
+     * Verifies that the write is refused before it is logged and replay keeps the first user.
+     */
+    @Test
+    void SaveNewUser_ShouldNotLog_WhenUsernameTaken() throws IOException {
+        // Arrange
+        Path log = tempDir.resolve("accounts.wal");
+        UUID firstId = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        UUID secondId = UUID.fromString("00000000-0000-0000-0000-000000000002");
+        try (WriteAheadLogRepository repository = Open(log)) {
+            repository.SaveNewUser(UserAuth.FromHash(firstId, PasswordHasher.Hash("Pa55word!!1234", 1_000)),
+                    new Customer("TestUser1", "Test", "Tester", firstId));
+            long logSize = Files.size(log);
+
+            // Act & Assert
+            assertThrows(DuplicateUserException.class, () -> repository.SaveNewUser(
+                    UserAuth.FromHash(secondId, PasswordHasher.Hash("Pa55word!!2234", 1_000)), new Customer("testuser1", "Other", "Tester", secondId)));
+            assertFalse(repository.SaveNewUserIfAbsent(
+                    UserAuth.FromHash(secondId, PasswordHasher.Hash("Pa55word!!2234", 1_000)), new Customer("TESTUSER1", "Other", "Tester", secondId)));
+            assertEquals(logSize, Files.size(log));
+        }
+        try (WriteAheadLogRepository reopened = Open(log)) {
+            assertEquals(firstId, reopened.FindByName("TestUser1").orElseThrow().GetID());
+            assertFalse(reopened.GetUserById(secondId).isPresent());
+        }
+    }
+
+    /**
+     * Tests a checkpoint followed by more writes and a restart from the snapshot.
+     * Verifies that the log is emptied and the snapshot plus the remaining log restore every write.
+     */
+    @Test
+    void Checkpoint_ShouldRestoreFromSnapshotAndLaterWrites() throws IOException {
+        // Arrange
+        Path log = tempDir.resolve("accounts.wal");
+        Path snapshot = tempDir.resolve("accounts.snapshot");
+        UUID fromId = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        UUID toId = UUID.fromString("00000000-0000-0000-0000-000000000002");
+        UUID laterId = UUID.fromString("00000000-0000-0000-0000-000000000003");
+        try (WriteAheadLogRepository repository = Open(log)) {
+            Customer from = new Customer("TestUser1", "Test", "Tester", fromId);
+            repository.SaveNewUser(UserAuth.FromHash(fromId, PasswordHasher.Hash("Pa55word!!1234", 1_000)), from);
+            repository.SaveNewUser(UserAuth.FromHash(toId, PasswordHasher.Hash("Pa55word!!2234", 1_000)), new Customer("TestUser2", "Test", "Tester", toId));
+            from.GetAccount().orElseThrow().AddToAccount(new BigDecimal("80.00"));
+            repository.SaveUpdateUser(from);
+            long logSize = Files.size(log);
+
+            // Act
+            repository.Checkpoint(snapshot);
+            assertTrue(Files.size(log) < logSize);
+            repository.TransferBetweenAccounts(fromId, toId, new BigDecimal("12.34"));
+            repository.SaveNewUser(UserAuth.FromHash(laterId, PasswordHasher.Hash("Pa55word!!3234", 1_000)), new Customer("TestUser3", "Test", "Tester", laterId));
+        }
+
+        // Assert
+        try (SnapshotRepository restored = new SnapshotRepository(snapshot);
+             WriteAheadLogRepository reopened = new WriteAheadLogRepository(log, restored, restored.GetGeneration())) {
+            assertEquals(1, reopened.GetGeneration());
+            assertEquals(0, new BigDecimal("67.66").compareTo(reopened.GetAccountBalance(fromId)));
+            assertEquals(0, new BigDecimal("12.34").compareTo(reopened.GetAccountBalance(toId)));
+            assertTrue(reopened.GetUserById(laterId).isPresent());
+        }
+    }
+
+    /**
+     * Tests a crash after a checkpoint's snapshot is written but before the log is emptied.
+     * Verifies that records the snapshot already holds are not applied a second time.
+     */
+    @Test
+    void Reopen_ShouldSkipRecordsInSnapshot_WhenCheckpointInterrupted() throws IOException {
+        // Arrange
+        Path log = tempDir.resolve("accounts.wal");
+        Path snapshot = tempDir.resolve("accounts.snapshot");
+        UUID fromId = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        UUID toId = UUID.fromString("00000000-0000-0000-0000-000000000002");
+        try (WriteAheadLogRepository repository = Open(log)) {
+            Customer from = new Customer("TestUser1", "Test", "Tester", fromId);
+            repository.SaveNewUser(UserAuth.FromHash(fromId, PasswordHasher.Hash("Pa55word!!1234", 1_000)), from);
+            repository.SaveNewUser(UserAuth.FromHash(toId, PasswordHasher.Hash("Pa55word!!2234", 1_000)), new Customer("TestUser2", "Test", "Tester", toId));
+            from.GetAccount().orElseThrow().AddToAccount(new BigDecimal("80.00"));
+            repository.SaveUpdateUser(from);
+            repository.TransferBetweenAccounts(fromId, toId, new BigDecimal("12.34"));
+            SnapshotFile.Write(snapshot, repository, 1);
+        }
+
+        // Act
+        try (SnapshotRepository restored = new SnapshotRepository(snapshot);
+             WriteAheadLogRepository reopened = new WriteAheadLogRepository(log, restored, restored.GetGeneration())) {
+            // Assert
+            assertEquals(0, new BigDecimal("67.66").compareTo(reopened.GetAccountBalance(fromId)));
+            assertEquals(0, new BigDecimal("12.34").compareTo(reopened.GetAccountBalance(toId)));
+        }
+        try (SnapshotRepository restored = new SnapshotRepository(snapshot);
+             WriteAheadLogRepository reopened = new WriteAheadLogRepository(log, restored, restored.GetGeneration())) {
+            assertEquals(0, new BigDecimal("12.34").compareTo(reopened.GetAccountBalance(toId)));
+        }
+    }
+
+    /**
+     * Tests replaying the log with an off-heap account factory.
+     * Verifies that restored users get off-heap accounts holding their logged balances.
+     */
+    @Test
+    void Reopen_ShouldRestoreOffHeapAccounts_WhenFactoryGiven() throws IOException {
+        // Arrange
+        Path log = tempDir.resolve("accounts.wal");
+        UUID id = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        try (WriteAheadLogRepository repository = Open(log)) {
+            Customer customer = new Customer("TestUser1", "Test", "Tester", id);
+            repository.SaveNewUser(UserAuth.FromHash(id, PasswordHasher.Hash("Pa55word!!1234", 1_000)), customer);
+            customer.GetAccount().orElseThrow().AddToAccount(new BigDecimal("42.50"));
+            repository.SaveUpdateUser(customer);
+        }
+        OffHeapBalanceStore store = new OffHeapBalanceStore();
+
+        // Act
+        try (WriteAheadLogRepository reopened = new WriteAheadLogRepository(log,
+                new InMemoryRepository(new ArrayList<>(), new ArrayList<>()), 0, balance -> new OffHeapAccount(store, balance))) {
+            // Assert
+            assertInstanceOf(OffHeapAccount.class, reopened.GetUserById(id).orElseThrow().GetAccount().orElseThrow());
+            assertEquals(new BigDecimal("42.50"), reopened.GetAccountBalance(id));
+        }
+    }
+}
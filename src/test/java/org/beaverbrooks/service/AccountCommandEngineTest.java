@@ -0,0 +1,261 @@
+package org.beaverbrooks.service;
+
+import org.beaverbrooks.domain.account.CustomerAccount;
+import org.beaverbrooks.domain.user.*;
+import org.beaverbrooks.repository.IDataRepository;
+import org.beaverbrooks.repository.StripedRepository;
+import org.beaverbrooks.service.auth.BasicAuthService;
+import org.beaverbrooks.service.auth.IAuthService;
+import org.beaverbrooks.service.data.AccountCommandEngine;
+import org.beaverbrooks.service.data.UserDataService;
+import org.beaverbrooks.shared.AuthToken;
+import org.beaverbrooks.shared.BankCommand;
+import org.beaverbrooks.shared.CommandResult;
+import org.beaverbrooks.shared.Money;
+import org.beaverbrooks.shared.exceptions.AuthorisationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AccountCommandEngine class.
+ * Uses a deliberately small ring so that callers wrap around it and wait for the writers.
+ */
+public class AccountCommandEngineTest {
+
+    private IDataRepository repository;
+    private AccountCommandEngine engine;
+    private UUID testUser1Id;
+    private UUID testUser2Id;
+
+    /**
+     * Sets up test data before each test method.
+     * Creates a repository with two customers and an engine with two partitions of eight slots.
+     */
+    @BeforeEach
+    void SetupEngine() {
+        testUser1Id = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        testUser2Id = UUID.fromString("00000000-0000-0000-0000-000000000002");
+        ArrayList<IUser> userData = new ArrayList<>();
+        ArrayList<IUserAuth> authData = new ArrayList<>();
+        userData.add(new Customer("TestUser1", "Test", "Tester", testUser1Id));
+        userData.add(new Customer("TestUser2", "Test", "Tester", testUser2Id));
+        authData.add(UserAuth.FromPassword(testUser1Id, "Pa55word!!1234", 1_000));
+        authData.add(UserAuth.FromPassword(testUser2Id, "Pa55word!!2234", 1_000));
+        repository = new StripedRepository(userData, authData);
+        engine = new AccountCommandEngine(repository, 2, 8);
+    }
+
+    @AfterEach
+    void CloseEngine() {
+        engine.close();
+    }
+
+    /**
+     * Tests many threads submitting deposits and withdrawals to two accounts at once.
+     * Verifies that every command completes and none is lost or applied twice.
+     */
+    @Test
+    void Submit_ShouldApplyEveryCommand_WhenCalledConcurrently() throws Exception {
+        // Arrange
+        int threads = 8;
+        int commandsPerThread = 500;
+
+        // Act
+        try (ExecutorService callers = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                UUID target = t % 2 == 0 ? testUser1Id : testUser2Id;
+                done.add(callers.submit(() -> {
+                    List<CompletableFuture<Money>> results = new ArrayList<>();
+                    for (int i = 0; i < commandsPerThread; i++) {
+                        results.add(i % 5 == 4 ? engine.Withdraw(target, Money.OfMinor(100)) : engine.Deposit(target, Money.OfMinor(100)));
+                    }
+                    results.forEach(CompletableFuture::join);
+                }));
+            }
+            for (Future<?> future : done) {
+                future.get();
+            }
+        }
+
+        // Assert: each thread nets three deposits per five commands
+        BigDecimal expected = new BigDecimal("1200.00");
+        assertEquals(0, expected.compareTo(repository.GetAccountBalance(testUser1Id)));
+        assertEquals(0, expected.compareTo(repository.GetAccountBalance(testUser2Id)));
+    }
+
+    /**
+     * Tests commands for one account submitted in sequence by one caller.
+     * Verifies that each result reflects exactly the commands before it.
+     */
+    @Test
+    void Submit_ShouldApplyInOrder_WhenSameAccount() {
+        // Arrange
+        List<CompletableFuture<Money>> results = new ArrayList<>();
+
+        // Act
+        for (int i = 1; i <= 20; i++) {
+            results.add(engine.Deposit(testUser1Id, Money.OfMinor(i)));
+        }
+
+        // Assert
+        long expected = 0;
+        for (int i = 1; i <= 20; i++) {
+            expected += i;
+            assertEquals(0, Money.OfMinor(expected).compareTo(results.get(i - 1).join()));
+        }
+    }
+
+    /**
+     * Tests a command for an account that does not exist, queued between valid ones.
+     * Verifies that it fails on its own and the commands around it still apply.
+     */
+    @Test
+    void Submit_ShouldFailOnlyThatCommand_WhenAccountMissing() {
+        // Arrange
+        UUID missing = UUID.fromString("00000000-0000-0000-0000-000000000999");
+
+        // Act
+        CompletableFuture<Money> before = engine.Deposit(testUser1Id, Money.OfMinor(500));
+        CompletableFuture<Money> failed = engine.Deposit(missing, Money.OfMinor(500));
+        CompletableFuture<Money> after = engine.Withdraw(testUser1Id, Money.OfMinor(200));
+
+        // Assert
+        assertEquals(0, Money.OfMinor(500).compareTo(before.join()));
+        CompletionException thrown = assertThrows(CompletionException.class, failed::join);
+        assertInstanceOf(NoSuchElementException.class, thrown.getCause());
+        assertEquals(0, Money.OfMinor(300).compareTo(after.join()));
+    }
+
+    /**
+     * Tests commands whose save fails, followed by the caller retrying them.
+     * Verifies that the failed commands are reversed, so the retry leaves each applied once.
+     */
+    @Test
+    void Submit_ShouldReverseCommands_WhenSaveFails() {
+        // Arrange
+        AtomicBoolean failSaves = new AtomicBoolean(true);
+        ArrayList<IUser> userData = new ArrayList<>(repository.GetAllUsers());
+        ArrayList<IUserAuth> authData = new ArrayList<>(repository.GetAllUserAuth());
+        IDataRepository flaky = new StripedRepository(userData, authData) {
+            @Override
+            public void SaveUpdateUser(IUser user) {
+                if (failSaves.get()) {
+                    throw new IllegalStateException("Disk full");
+                }
+                super.SaveUpdateUser(user);
+            }
+        };
+        try (AccountCommandEngine flakyEngine = new AccountCommandEngine(flaky, 1, 8)) {
+            // Act
+            CompletableFuture<Money> deposit = flakyEngine.Deposit(testUser1Id, Money.OfMinor(1_000));
+            CompletableFuture<Money> withdraw = flakyEngine.Withdraw(testUser1Id, Money.OfMinor(300));
+            CompletionException thrown = assertThrows(CompletionException.class, deposit::join);
+            assertThrows(CompletionException.class, withdraw::join);
+            Money afterFailure = flaky.GetUserById(testUser1Id).orElseThrow().GetAccount().orElseThrow().GetMoneyBalance();
+            failSaves.set(false);
+            Money retried = flakyEngine.Deposit(testUser1Id, Money.OfMinor(1_000)).join();
+
+            // Assert
+            assertInstanceOf(IllegalStateException.class, thrown.getCause());
+            assertEquals(0, afterFailure.Signum());
+            assertEquals(0, Money.OfMinor(1_000).compareTo(retried));
+        }
+    }
+
+    /**
+     * Tests closing the engine with commands still queued.
+     * Verifies that queued commands are applied and later submissions are refused.
+     */
+    @Test
+    void Close_ShouldDrainQueuedCommands_ThenRefuseNewOnes() {
+        // Arrange
+        List<CompletableFuture<Money>> results = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            results.add(engine.Deposit(testUser1Id, Money.OfMinor(100)));
+        }
+
+        // Act
+        engine.close();
+
+        // Assert
+        results.forEach(result -> assertTrue(result.isDone()));
+        assertEquals(0, new BigDecimal("6.00").compareTo(repository.GetAccountBalance(testUser1Id)));
+        assertThrows(IllegalStateException.class, () -> engine.Deposit(testUser1Id, Money.OfMinor(100)));
+    }
+
+    /**
+     * Tests UserDataService configured with the engine.
+     * Verifies that synchronous and submitted deposits go through it and authorisation still applies.
+     */
+    @Test
+    void UserDataService_ShouldRouteThroughEngine_WhenConfigured() throws Exception {
+        // Arrange
+        IAuthService authService = new BasicAuthService(repository);
+        UserDataService service = new UserDataService(repository, authService, CustomerAccount::new, engine);
+        authService.CreateUserSession(repository.GetUserAuthById(testUser1Id).orElseThrow());
+        AuthToken token = authService.GetSessionToken(testUser1Id).orElseThrow();
+        IUser user = repository.GetUserById(testUser1Id).orElseThrow();
+
+        // Act
+        Money afterSync = service.AddToUserAccountBalance(user, Money.OfMinor(1_000), token);
+        Money afterSubmit = service.SubmitWithdrawal(testUser1Id, Money.OfMinor(250), token).get();
+
+        // Assert
+        assertEquals(0, Money.OfMinor(1_000).compareTo(afterSync));
+        assertEquals(0, Money.OfMinor(750).compareTo(afterSubmit));
+        assertThrows(AuthorisationException.class, () -> service.SubmitDeposit(testUser2Id, Money.OfMinor(1), token));
+    }
+
+    /**
+     * Tests a batch through the engine with more deposits than the ring has slots, a balance
+     * part way through, a rejected withdrawal and a transfer.
+     * Verifies each result in order and that the balance and transfer see the queued deposits.
+     */
+    @Test
+    void UserDataService_ShouldQueueBatchCommands_WhenConfigured() {
+        // Arrange
+        IAuthService authService = new BasicAuthService(repository);
+        UserDataService service = new UserDataService(repository, authService, CustomerAccount::new, engine);
+        authService.CreateUserSession(repository.GetUserAuthById(testUser1Id).orElseThrow());
+        AuthToken token = authService.GetSessionToken(testUser1Id).orElseThrow();
+        IUser user = repository.GetUserById(testUser1Id).orElseThrow();
+        ArrayList<BankCommand> commands = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            commands.add(new BankCommand.Deposit(Money.OfMinor(100)));
+        }
+        commands.add(new BankCommand.Balance());
+        commands.add(new BankCommand.Withdraw(Money.OfMinor(-100)));
+        commands.add(new BankCommand.Withdraw(Money.OfMinor(500)));
+        commands.add(new BankCommand.Transfer(testUser2Id, Money.OfMinor(1_000)));
+
+        // Act
+        List<CommandResult> results = service.ExecuteBatch(user, commands, token);
+
+        // Assert
+        assertEquals(24, results.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(0, Money.OfMinor(100L * (i + 1)).compareTo(results.get(i).Balance()));
+        }
+        assertEquals(0, Money.OfMinor(2_000).compareTo(results.get(20).Balance()));
+        assertFalse(results.get(21).Succeeded());
+        assertEquals(0, Money.OfMinor(1_500).compareTo(results.get(22).Balance()));
+        assertEquals(0, Money.OfMinor(500).compareTo(results.get(23).Balance()));
+        assertEquals(0, new BigDecimal("10.00").compareTo(repository.GetAccountBalance(testUser2Id)));
+    }
+}
@@ -0,0 +1,220 @@
+package org.beaverbrooks.service;
+
+import org.beaverbrooks.domain.user.*;
+import org.beaverbrooks.repository.AsyncDataRepositoryAdapter;
+import org.beaverbrooks.repository.IDataRepository;
+import org.beaverbrooks.repository.StripedRepository;
+import org.beaverbrooks.service.auth.BasicAuthService;
+import org.beaverbrooks.service.auth.IAuthService;
+import org.beaverbrooks.service.data.AsyncUserDataService;
+import org.beaverbrooks.service.data.BlockingUserDataService;
+import org.beaverbrooks.service.data.IAsyncUserDataService;
+import org.beaverbrooks.service.data.IUserDataService;
+import org.beaverbrooks.shared.AuthToken;
+import org.beaverbrooks.shared.BankCommand;
+import org.beaverbrooks.shared.CommandResult;
+import org.beaverbrooks.shared.Money;
+import org.beaverbrooks.shared.exceptions.AuthorisationException;
+import org.beaverbrooks.shared.exceptions.DuplicateUserException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AsyncUserDataService class.
+ * Runs the service over a repository that answers every call 5 ms later on a pool of two threads,
+ * standing in for storage that is slow to reply.
+ */
+public class AsyncUserDataServiceTest {
+
+    private IDataRepository repository;
+    private ExecutorService storageThreads;
+    private IAuthService authService;
+    private IAsyncUserDataService service;
+    private UUID testUser1Id;
+    private UUID testUser2Id;
+    private AuthToken testUser1Token;
+
+    /**
+     * Sets up test data before each test method.
+     * Creates two customers, the slow repository and a session for the first customer.
+     */
+    @BeforeEach
+    void SetupService() {
+        testUser1Id = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        testUser2Id = UUID.fromString("00000000-0000-0000-0000-000000000002");
+        ArrayList<IUser> userData = new ArrayList<>();
+        ArrayList<IUserAuth> authData = new ArrayList<>();
+        userData.add(new Customer("TestUser1", "Test", "Tester", testUser1Id));
+        userData.add(new Customer("TestUser2", "Test", "Tester", testUser2Id));
+        authData.add(UserAuth.FromPassword(testUser1Id, "Pa55word!!1234", 1_000));
+        authData.add(UserAuth.FromPassword(testUser2Id, "Pa55word!!2234", 1_000));
+        repository = new StripedRepository(userData, authData);
+        storageThreads = Executors.newFixedThreadPool(2);
+        AsyncDataRepositoryAdapter slowRepository = new AsyncDataRepositoryAdapter(repository,
+                CompletableFuture.delayedExecutor(5, TimeUnit.MILLISECONDS, storageThreads));
+        authService = new BasicAuthService(repository);
+        service = new AsyncUserDataService(slowRepository, authService, storageThreads);
+        authService.CreateUserSession(authData.getFirst());
+        testUser1Token = authService.GetSessionToken(testUser1Id).orElseThrow();
+    }
+
+    @AfterEach
+    void StopStorageThreads() {
+        storageThreads.shutdownNow();
+    }
+
+    /**
+     * Tests thousands of deposits started at once against the slow repository.
+     * Verifies that all are in flight together on two threads and every one is applied.
+     */
+    @Test
+    void Deposits_ShouldAllComplete_WhenThousandsInFlight() {
+        // Arrange
+        int deposits = 4_000;
+        List<CompletableFuture<Money>> results = new ArrayList<>(deposits);
+        long started = System.nanoTime();
+
+        // Act
+        for (int i = 0; i < deposits; i++) {
+            results.add(service.AddToUserAccountBalance(testUser1Id, Money.OfMinor(1), testUser1Token));
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).join();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        // Assert: one at a time would take at least 4,000 x two 5 ms round trips
+        assertEquals(0, new BigDecimal("40.00").compareTo(repository.GetAccountBalance(testUser1Id)));
+        assertTrue(elapsedMillis < 10_000, "took " + elapsedMillis + " ms");
+    }
+
+    /**
+     * Tests operations that must fail.
+     * Verifies that an unauthorised deposit and a duplicate username fail their futures rather than throwing.
+     */
+    @Test
+    void Failures_ShouldFailFuture_WhenUnauthorisedOrDuplicate() {
+        // Arrange & Act
+        CompletableFuture<Money> unauthorised = service.AddToUserAccountBalance(testUser2Id, Money.OfMinor(100), testUser1Token);
+        CompletableFuture<Customer> duplicate = service.CreateCustomer("testuser1", "Pa55word!!9999", "Test", "Tester");
+
+        // Assert
+        CompletionException unauthorisedThrown = assertThrows(CompletionException.class, unauthorised::join);
+        assertInstanceOf(AuthorisationException.class, unauthorisedThrown.getCause());
+        CompletionException duplicateThrown = assertThrows(CompletionException.class, duplicate::join);
+        assertInstanceOf(DuplicateUserException.class, duplicateThrown.getCause());
+        assertEquals(0, BigDecimal.ZERO.compareTo(repository.GetAccountBalance(testUser2Id)));
+    }
+
+    /**
+     * Tests a batch with transfers between deposits, including a transfer to a missing account.
+     * Verifies results come back in order, the bad transfer is reported on its own and the account is saved.
+     */
+    @Test
+    void ExecuteBatch_ShouldRunCommandsInOrder_WhenTransfersInterleaved() {
+        // Arrange
+        UUID missing = UUID.fromString("00000000-0000-0000-0000-000000000999");
+        List<BankCommand> commands = List.of(
+                new BankCommand.Deposit(Money.OfMinor(10_000)),
+                new BankCommand.Transfer(testUser2Id, Money.OfMinor(2_500)),
+                new BankCommand.Transfer(missing, Money.OfMinor(100)),
+                new BankCommand.Withdraw(Money.OfMinor(500)),
+                new BankCommand.Balance());
+
+        // Act
+        List<CommandResult> results = service.ExecuteBatch(testUser1Id, commands, testUser1Token).join();
+
+        // Assert
+        assertEquals(5, results.size());
+        assertEquals(0, Money.OfMinor(7_500).compareTo(results.get(1).Balance()));
+        assertFalse(results.get(2).Succeeded());
+        assertEquals(0, Money.OfMinor(7_000).compareTo(results.get(4).Balance()));
+        assertEquals(0, new BigDecimal("70.00").compareTo(repository.GetAccountBalance(testUser1Id)));
+        assertEquals(0, new BigDecimal("25.00").compareTo(repository.GetAccountBalance(testUser2Id)));
+    }
+
+    /**
+     * Tests a long batch of transfers against a repository that answers every call before returning.
+     * Verifies that the batch runs to the end without its continuations nesting on the stack.
+     */
+    @Test
+    void ExecuteBatch_ShouldRunLongBatch_WhenRepositoryAnswersImmediately() {
+        // Arrange
+        IAsyncUserDataService immediateService = new AsyncUserDataService(
+                new AsyncDataRepositoryAdapter(repository, Runnable::run), authService, storageThreads);
+        ArrayList<BankCommand> commands = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            commands.add(new BankCommand.Deposit(Money.OfMinor(2)));
+            commands.add(new BankCommand.Transfer(testUser2Id, Money.OfMinor(1)));
+        }
+
+        // Act
+        List<CommandResult> results = immediateService.ExecuteBatch(testUser1Id, commands, testUser1Token).join();
+
+        // Assert
+        assertEquals(40_000, results.size());
+        assertTrue(results.stream().allMatch(CommandResult::Succeeded));
+        assertEquals(0, new BigDecimal("200.00").compareTo(repository.GetAccountBalance(testUser1Id)));
+        assertEquals(0, new BigDecimal("200.00").compareTo(repository.GetAccountBalance(testUser2Id)));
+    }
+
+    /**
+     * Tests the blocking view over the asynchronous service.
+     * Verifies that it creates a customer with a working session and rethrows a duplicate as itself.
+     */
+    @Test
+    void BlockingView_ShouldCreateCustomer_AndRethrowDuplicate() throws Exception {
+        // Arrange
+        IUserDataService blocking = new BlockingUserDataService(service);
+
+        // Act
+        Customer created = blocking.CreateCustomer("NewCustomer", "Pa55word!!5678", "New", "Customer");
+        AuthToken token = authService.GetSessionToken(created.GetID()).orElseThrow();
+        Money balance = blocking.AddToUserAccountBalance(created, Money.OfMinor(1_234), token);
+
+        // Assert
+        assertEquals(created.GetID(), repository.FindByName("newcustomer").orElseThrow().GetID());
+        assertEquals(0, Money.OfMinor(1_234).compareTo(balance));
+        assertThrows(DuplicateUserException.class, () -> blocking.CreateCustomer("NewCustomer", "Pa55word!!5678", "New", "Customer"));
+    }
+
+    /**
+     * Tests a deposit and a batch over a repository whose saves fail.
+     * Verifies that the futures fail and the balance changes are taken back out.
+     */
+    @Test
+    void BalanceChange_ShouldBeReversed_WhenSaveFails() {
+        // Arrange
+        IDataRepository failingSaves = new StripedRepository(new ArrayList<>(repository.GetAllUsers()),
+                new ArrayList<>(repository.GetAllUserAuth())) {
+            @Override
+            public void SaveUpdateUser(IUser user) {
+                throw new IllegalStateException("Repository unavailable");
+            }
+        };
+        IAsyncUserDataService failingService = new AsyncUserDataService(
+                new AsyncDataRepositoryAdapter(failingSaves, storageThreads), authService, storageThreads);
+
+        // Act
+        CompletableFuture<Money> deposit = failingService.AddToUserAccountBalance(testUser1Id, Money.OfMinor(2_500), testUser1Token);
+        CompletableFuture<List<CommandResult>> batch = failingService.ExecuteBatch(testUser1Id, List.of(
+                new BankCommand.Deposit(Money.OfMinor(10_000)),
+                new BankCommand.Withdraw(Money.OfMinor(2_500))), testUser1Token);
+
+        // Assert
+        assertThrows(CompletionException.class, deposit::join);
+        assertThrows(CompletionException.class, batch::join);
+        assertEquals(0, BigDecimal.ZERO.compareTo(failingSaves.GetAccountBalance(testUser1Id)));
+    }
+}
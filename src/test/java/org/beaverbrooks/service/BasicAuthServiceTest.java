@@ -5,12 +5,18 @@ import org.beaverbrooks.repository.IDataRepository;
 import org.beaverbrooks.repository.InMemoryRepository;
 import org.beaverbrooks.service.auth.BasicAuthService;
 import org.beaverbrooks.service.auth.IAuthService;
+import org.beaverbrooks.service.auth.LoginRateLimiter;
+import org.beaverbrooks.service.auth.PasswordHashingExecutor;
+import org.beaverbrooks.service.auth.SessionStore;
+import org.beaverbrooks.service.auth.TokenSigner;
 import org.beaverbrooks.shared.AuthToken;
 import org.beaverbrooks.shared.exceptions.PasswordMismatchException;
+import org.beaverbrooks.shared.exceptions.RateLimitedException;
 import org.beaverbrooks.shared.exceptions.UserNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.NoSuchElementException;
 import java.util.Optional;
@@ -50,8 +56,8 @@ public class BasicAuthServiceTest {
         User testUser1 = new Customer("TestUser1", "Test", "Tester", testUser1Id);
         User testUser2 = new Customer("TestUser2", "Test", "Tester", testUser2Id);
         
-        UserAuth testUserAuth1 = new UserAuth(testUser1Id, testUser1Password);
-        UserAuth testUserAuth2 = new UserAuth(testUser2Id, testUser2Password);
+        UserAuth testUserAuth1 = UserAuth.FromPassword(testUser1Id, testUser1Password, 1_000);
+        UserAuth testUserAuth2 = UserAuth.FromPassword(testUser2Id, testUser2Password, 1_000);
 
         userData.add(testUser1);
         userData.add(testUser2);
@@ -171,10 +177,10 @@ public class BasicAuthServiceTest {
 
     /**
      * Tests user logout.
-     * Note: Current implementation is empty, so this test verifies that behavior.
+     * Verifies that the session is removed and its token no longer authorises actions.
      */
     @Test
-    void UserLogout_ShouldComplete_WhenCalled() {
+    void UserLogout_ShouldEndSession_WhenCalled() {
         // Arrange
         // Create a session first
         try {
@@ -189,13 +195,12 @@ public class BasicAuthServiceTest {
         assertTrue(sessionBefore.isPresent());
         
         // Act
-        authService.UserLogout();
+        authService.UserLogout(testUser1Id);
         
         // Assert
-        // Note: Current implementation doesn't clear sessions, so session still exists
-        // Verify session still exists (current implementation doesn't clear on logout)
         Optional<AuthToken> sessionAfter = authService.GetSessionToken(testUser1Id);
-        assertTrue(sessionAfter.isPresent()); // Current implementation doesn't clear sessions
+        assertFalse(sessionAfter.isPresent());
+        assertFalse(authService.AuthAction(testUser1Id, sessionBefore.get()));
     }
 
     /**
@@ -390,4 +395,65 @@ public class BasicAuthServiceTest {
         // Both tokens should be valid (implementation may reuse or create new token)
         assertTrue(secondToken.get().IsAuthed());
     }
+
+    /**
+     * Tests login in token mode.
+     * Verifies that the session token is signed, authorises on its own and is revoked by logout.
+     */
+    @Test
+    void AuthAction_ShouldVerifySignedToken_WhenInTokenMode() throws UserNotFoundException, PasswordMismatchException {
+        // Arrange
+        IAuthService tokenAuthService = new BasicAuthService(repository, new SessionStore(), TokenSigner.WithRandomKey());
+        tokenAuthService.UserLogin("TestUser1", testUser1Password);
+        AuthToken token = tokenAuthService.GetSessionToken(testUser1Id).orElseThrow();
+
+        // Act
+        boolean authorised = tokenAuthService.AuthAction(testUser1Id, token);
+        tokenAuthService.UserLogout(testUser1Id);
+
+        // Assert
+        assertTrue(token.IsSigned());
+        assertTrue(authorised);
+        assertFalse(tokenAuthService.AuthAction(testUser2Id, token));
+        assertFalse(tokenAuthService.AuthAction(testUser1Id, token));
+        assertFalse(tokenAuthService.AuthAction(testUser1Id, new AuthToken(testUser1Id, true)));
+    }
+
+    /**
+     * Tests logging in after the hashing cost has been raised.
+     * Verifies that the stored hash is replaced with one at the new cost and still verifies.
+     */
+    @Test
+    void UserLogin_ShouldRehashPassword_WhenCostHasChanged() throws UserNotFoundException, PasswordMismatchException {
+        // Arrange
+        PasswordHashingExecutor hashing = new PasswordHashingExecutor(1, 4, 2_000);
+        IAuthService migratingAuthService = new BasicAuthService(repository, new SessionStore(), null, hashing);
+        assertTrue(repository.GetUserAuthById(testUser1Id).orElseThrow().NeedsRehash(2_000));
+
+        // Act
+        migratingAuthService.UserLogin("TestUser1", testUser1Password);
+
+        // Assert
+        IUserAuth migrated = repository.GetUserAuthById(testUser1Id).orElseThrow();
+        assertFalse(migrated.NeedsRehash(2_000));
+        assertTrue(migrated.ComparePassword(testUser1Password));
+        assertTrue(repository.GetUserAuthById(testUser2Id).orElseThrow().NeedsRehash(2_000));
+    }
+
+    /**
+     * Tests repeated failed logins for one user.
+     * Verifies that attempts past the limit are refused even with the correct password.
+     */
+    @Test
+    void UserLogin_ShouldRejectAttempts_WhenRateLimitExceeded() {
+        // Arrange
+        LoginRateLimiter limiter = new LoginRateLimiter(Duration.ofMinutes(1), 2, Duration.ofMillis(1), 100, 100, System::nanoTime);
+        IAuthService limitedAuthService = new BasicAuthService(repository, new SessionStore(), null, new PasswordHashingExecutor(), limiter);
+        assertThrows(PasswordMismatchException.class, () -> limitedAuthService.UserLogin("TestUser1", "wrong"));
+        assertThrows(PasswordMismatchException.class, () -> limitedAuthService.UserLogin("TestUser1", "wrong"));
+
+        // Act & Assert
+        assertThrows(RateLimitedException.class, () -> limitedAuthService.UserLogin("TestUser1", testUser1Password));
+        assertDoesNotThrow(() -> limitedAuthService.UserLogin("TestUser2", testUser2Password));
+    }
 }
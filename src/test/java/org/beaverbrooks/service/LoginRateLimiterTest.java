@@ -0,0 +1,108 @@
+package org.beaverbrooks.service;
+
+import org.beaverbrooks.service.auth.LoginRateLimiter;
+import org.beaverbrooks.shared.exceptions.RateLimitedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LoginRateLimiter class.
+ * Tests per-user and global limits, refill over time and eviction of idle buckets.
+ */
+public class LoginRateLimiterTest {
+
+    private AtomicLong clock;
+    private LoginRateLimiter limiter;
+
+    /**
+     * Sets up a limiter allowing 3 attempts per user then one every 10 seconds, and 5 attempts
+     * globally then one every second.
+     */
+    @BeforeEach
+    void SetupLimiter() {
+        clock = new AtomicLong(0);
+        limiter = new LoginRateLimiter(Duration.ofSeconds(10), 3, Duration.ofSeconds(1), 5, 100, clock::get);
+    }
+
+    /**
+     * Tests repeated attempts for one username.
+     * Verifies the burst is allowed, the next attempt is refused, and case variants share a bucket.
+     */
+    @Test
+    void Acquire_ShouldRejectUser_WhenBurstIsUsed() {
+        // Arrange
+        limiter.Acquire("TestUser1");
+        limiter.Acquire("testuser1");
+        limiter.Acquire("TESTUSER1");
+
+        // Act & Assert
+        assertThrows(RateLimitedException.class, () -> limiter.Acquire("TestUser1"));
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertDoesNotThrow(() -> limiter.Acquire("TestUser1"));
+    }
+
+    /**
+     * Tests attempts spread over many usernames.
+     * Verifies the global limit applies even though no single user is over theirs.
+     */
+    @Test
+    void Acquire_ShouldRejectEveryone_WhenGlobalBurstIsUsed() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            limiter.Acquire("user" + i);
+        }
+
+        // Act & Assert
+        assertThrows(RateLimitedException.class, () -> limiter.Acquire("user99"));
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertDoesNotThrow(() -> limiter.Acquire("user99"));
+    }
+
+    /**
+     * Tests a user whose attempts are refused by the global limit.
+     * Verifies that those attempts do not count against the user's own burst.
+     */
+    @Test
+    void Acquire_ShouldNotSpendUserBurst_WhenGlobalLimitRejects() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            limiter.Acquire("user" + i);
+        }
+        for (int i = 0; i < 3; i++) {
+            assertThrows(RateLimitedException.class, () -> limiter.Acquire("TestUser1"));
+        }
+
+        // Act
+        clock.addAndGet(Duration.ofSeconds(5).toNanos());
+
+        // Assert
+        for (int i = 0; i < 3; i++) {
+            assertDoesNotThrow(() -> limiter.Acquire("TestUser1"));
+        }
+    }
+
+    /**
+     * Tests the per-user map once attempts stop.
+     * Verifies that buckets which have refilled are evicted by the periodic sweep.
+     */
+    @Test
+    void Acquire_ShouldEvictIdleBuckets() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            limiter.Acquire("user" + i);
+        }
+        assertEquals(5, limiter.GetTrackedUserCount());
+
+        // Act
+        clock.addAndGet(Duration.ofMinutes(1).toNanos());
+        limiter.Acquire("late");
+
+        // Assert
+        assertEquals(1, limiter.GetTrackedUserCount());
+    }
+}
@@ -0,0 +1,96 @@
+package org.beaverbrooks.service;
+
+import org.beaverbrooks.domain.user.IUserAuth;
+import org.beaverbrooks.service.auth.PasswordHashingExecutor;
+import org.beaverbrooks.shared.exceptions.ServiceBusyException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PasswordHashingExecutor class.
+ * Tests hashing on the pool, admission control and the reported metrics.
+ */
+public class PasswordHashingExecutorTest {
+
+    /**
+     * Tests hashing and verifying through the executor.
+     * Verifies the target cost is used and the work is counted.
+     */
+    @Test
+    void HashAndVerify_ShouldRunOnPool() {
+        // Arrange
+        try (PasswordHashingExecutor hashing = new PasswordHashingExecutor(2, 4, 1_000)) {
+            UUID id = UUID.randomUUID();
+
+            // Act
+            IUserAuth auth = hashing.Hash(id, "Pa55word!!1234");
+
+            // Assert
+            assertTrue(hashing.Verify(auth, "Pa55word!!1234"));
+            assertFalse(hashing.Verify(auth, "wrong"));
+            assertFalse(auth.NeedsRehash(1_000));
+            assertEquals(3, hashing.GetMetrics().Completed());
+            assertTrue(hashing.GetMetrics().TotalHashNanos() > 0);
+        }
+    }
+
+    /**
+     * Tests submitting more work than the pool and queue can hold.
+     * Verifies the excess is refused immediately and counted as rejected.
+     */
+    @Test
+    void Verify_ShouldRejectWork_WhenQueueIsFull() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        IUserAuth blocking = new IUserAuth() {
+            @Override
+            public Boolean ComparePassword(String password) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+
+            @Override
+            public boolean NeedsRehash(int targetIterations) {
+                return false;
+            }
+
+            @Override
+            public Optional<UUID> GetID() {
+                return Optional.empty();
+            }
+        };
+
+        try (PasswordHashingExecutor hashing = new PasswordHashingExecutor(1, 1, 1_000);
+             ExecutorService callers = Executors.newFixedThreadPool(2)) {
+            Future<Boolean> running = callers.submit(() -> hashing.Verify(blocking, "x"));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            Future<Boolean> queued = callers.submit(() -> hashing.Verify(blocking, "x"));
+            while (hashing.GetMetrics().QueueDepth() == 0) {
+                Thread.onSpinWait();
+            }
+
+            // Act & Assert
+            assertThrows(ServiceBusyException.class, () -> hashing.Verify(blocking, "x"));
+            assertEquals(1, hashing.GetMetrics().Rejected());
+            assertEquals(1, hashing.GetMetrics().PeakQueueDepth());
+            release.countDown();
+            assertTrue(running.get());
+            assertTrue(queued.get());
+        }
+    }
+}
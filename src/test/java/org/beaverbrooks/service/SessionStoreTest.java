@@ -0,0 +1,206 @@
+package org.beaverbrooks.service;
+
+import org.beaverbrooks.service.auth.SessionStore;
+import org.beaverbrooks.shared.AuthToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SessionStore class.
+ * Tests idle and absolute expiry, logout and the session cap using a controlled clock.
+ */
+public class SessionStoreTest {
+
+    private AtomicLong clock;
+    private SessionStore store;
+    private UUID testUser1Id;
+    private UUID testUser2Id;
+
+    /**
+     * Sets up a store with a 10 minute idle TTL, a 1 hour absolute TTL and room for three sessions.
+     */
+    @BeforeEach
+    void SetupStore() {
+        clock = new AtomicLong(1_700_000_000_000L);
+        store = new SessionStore(Duration.ofMinutes(10), Duration.ofHours(1), 3, clock::get);
+        testUser1Id = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        testUser2Id = UUID.fromString("00000000-0000-0000-0000-000000000002");
+    }
+
+    /**
+     * Tests a session that is not used for longer than the idle TTL.
+     * Verifies that the sweep removes it without it being looked up.
+     */
+    @Test
+    void ExpireDue_ShouldRemoveSession_WhenIdleTtlPasses() {
+        // Arrange
+        store.Put(testUser1Id, new AuthToken(testUser1Id, true));
+
+        // Act
+        clock.addAndGet(Duration.ofMinutes(10).plusSeconds(1).toMillis());
+        store.ExpireDue();
+
+        // Assert
+        assertEquals(0, store.Size());
+        assertTrue(store.Get(testUser1Id).isEmpty());
+    }
+
+    /**
+     * Tests a session kept busy past its original idle deadline.
+     * Verifies that activity extends it but the absolute TTL still ends it.
+     */
+    @Test
+    void Get_ShouldExtendIdleDeadline_UntilAbsoluteTtl() {
+        // Arrange
+        store.Put(testUser1Id, new AuthToken(testUser1Id, true));
+
+        // Act & Assert
+        for (int minute = 5; minute < 60; minute += 5) {
+            clock.addAndGet(Duration.ofMinutes(5).toMillis());
+            store.ExpireDue();
+            assertTrue(store.Get(testUser1Id).isPresent(), "Session should be live at minute " + minute);
+        }
+        clock.addAndGet(Duration.ofMinutes(5).toMillis());
+        store.ExpireDue();
+        assertEquals(0, store.Size());
+        assertTrue(store.Get(testUser1Id).isEmpty());
+    }
+
+    /**
+     * Tests removing a session explicitly.
+     * Verifies that it is gone and a second removal reports nothing removed.
+     */
+    @Test
+    void Remove_ShouldEndSession() {
+        // Arrange
+        store.Put(testUser1Id, new AuthToken(testUser1Id, true));
+
+        // Act
+        boolean removed = store.Remove(testUser1Id);
+
+        // Assert
+        assertTrue(removed);
+        assertFalse(store.Remove(testUser1Id));
+        assertTrue(store.Get(testUser1Id).isEmpty());
+    }
+
+    /**
+     * Tests logging in more users than the cap allows.
+     * Verifies that the session closest to expiry is evicted and the size stays at the cap.
+     */
+    @Test
+    void Put_ShouldEvictEarliestSession_WhenCapReached() {
+        // Arrange
+        store.Put(testUser1Id, new AuthToken(testUser1Id, true));
+        clock.addAndGet(Duration.ofMinutes(2).toMillis());
+        store.Put(testUser2Id, new AuthToken(testUser2Id, true));
+        clock.addAndGet(Duration.ofMinutes(2).toMillis());
+        UUID thirdId = UUID.randomUUID();
+        store.Put(thirdId, new AuthToken(thirdId, true));
+
+        // Act
+        UUID fourthId = UUID.randomUUID();
+        store.Put(fourthId, new AuthToken(fourthId, true));
+
+        // Assert
+        assertEquals(3, store.Size());
+        assertTrue(store.Get(testUser1Id).isEmpty());
+        assertTrue(store.Get(testUser2Id).isPresent());
+        assertTrue(store.Get(fourthId).isPresent());
+    }
+
+    /**
+     * Tests reaching the cap while the latest session sits in the slot at the wheel's current position.
+     * Verifies that the earlier session is evicted, not the one a full turn of the wheel ahead.
+     */
+    @Test
+    void Put_ShouldEvictEarliestSession_WhenLatestIsInCurrentSlot() {
+        // Arrange: 4,033 s of idle TTL from tick 64 * 100 + 63 lands on tick 64 * 164, which
+        // shares its second-level slot with the current tick
+        AtomicLong wheelClock = new AtomicLong((64L * 100 + 63 - 3_000) * 1_000);
+        SessionStore wheelStore = new SessionStore(Duration.ofSeconds(4_033), Duration.ofHours(12), 2, wheelClock::get);
+        wheelStore.Put(testUser1Id, new AuthToken(testUser1Id, true));
+        wheelClock.addAndGet(3_000_000);
+        wheelStore.Put(testUser2Id, new AuthToken(testUser2Id, true));
+
+        // Act
+        UUID thirdId = UUID.randomUUID();
+        wheelStore.Put(thirdId, new AuthToken(thirdId, true));
+
+        // Assert
+        assertEquals(2, wheelStore.Size());
+        assertTrue(wheelStore.Get(testUser1Id).isEmpty());
+        assertTrue(wheelStore.Get(testUser2Id).isPresent());
+        assertTrue(wheelStore.Get(thirdId).isPresent());
+    }
+
+    /**
+     * Tests logging the same user in twice.
+     * Verifies that the newer token replaces the old one without growing the store.
+     */
+    @Test
+    void Put_ShouldReplaceSession_WhenUserLogsInAgain() {
+        // Arrange
+        store.Put(testUser1Id, new AuthToken(testUser1Id, true));
+
+        // Act
+        store.Put(testUser1Id, new AuthToken(testUser1Id, false));
+
+        // Assert
+        assertEquals(1, store.Size());
+        assertFalse(store.Get(testUser1Id).orElseThrow().IsAuthed());
+    }
+
+    /**
+     * Tests a long idle period with many sessions due at different times.
+     * Verifies that sessions spread across the wheel levels expire exactly when due.
+     */
+    @Test
+    void ExpireDue_ShouldExpireSessionsAcrossWheelLevels() {
+        // Arrange
+        SessionStore large = new SessionStore(Duration.ofHours(100), Duration.ofHours(100), 1_000, clock::get);
+        UUID[] ids = new UUID[200];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = new UUID(7, i);
+            large.Put(ids[i], new AuthToken(ids[i], true));
+            clock.addAndGet(Duration.ofMinutes(7).toMillis());
+        }
+
+        // Act
+        clock.addAndGet(Duration.ofHours(100).minus(Duration.ofMinutes(7L * ids.length + 1)).toMillis());
+        large.ExpireDue();
+
+        // Assert
+        assertEquals(ids.length, large.Size());
+        clock.addAndGet(Duration.ofMinutes(7L * 50).toMillis());
+        large.ExpireDue();
+        assertEquals(ids.length - 50, large.Size());
+    }
+
+    /**
+     * Tests a store left idle for months with a session parked beyond the wheel's span.
+     * Verifies that one sweep jumps to the current time and expires the session only once it is due.
+     */
+    @Test
+    void ExpireDue_ShouldJumpToNow_AfterMonthsIdle() {
+        // Arrange
+        SessionStore longLived = new SessionStore(Duration.ofDays(400), Duration.ofDays(400), 10, clock::get);
+        longLived.Put(testUser1Id, new AuthToken(testUser1Id, true));
+
+        // Act
+        clock.addAndGet(Duration.ofDays(250).toMillis());
+        longLived.ExpireDue();
+
+        // Assert
+        assertEquals(1, longLived.Size());
+        clock.addAndGet(Duration.ofDays(150).toMillis());
+        longLived.ExpireDue();
+        assertEquals(0, longLived.Size());
+    }
+}
@@ -0,0 +1,127 @@
+package org.beaverbrooks.service;
+
+import org.beaverbrooks.service.auth.TokenSigner;
+import org.beaverbrooks.shared.AuthToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TokenSigner class.
+ * Tests issuing, verifying, expiring and revoking signed tokens using a controlled clock.
+ */
+public class TokenSignerTest {
+
+    private AtomicLong clock;
+    private TokenSigner signer;
+    private UUID testUser1Id;
+
+    /**
+     * Sets up a signer with a fixed key and a 10 minute token lifetime.
+     */
+    @BeforeEach
+    void SetupSigner() {
+        clock = new AtomicLong(1_700_000_000_000L);
+        byte[] key = new byte[32];
+        Arrays.fill(key, (byte) 7);
+        signer = new TokenSigner(key, Duration.ofMinutes(10), clock::get);
+        testUser1Id = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    }
+
+    /**
+     * Tests verifying a freshly issued token.
+     * Verifies that it is signed, authenticated and accepted.
+     */
+    @Test
+    void Verify_ShouldAccept_WhenTokenIsFresh() {
+        // Arrange & Act
+        AuthToken token = signer.Issue(testUser1Id);
+
+        // Assert
+        assertTrue(token.IsSigned());
+        assertTrue(token.IsAuthed());
+        assertTrue(signer.Verify(token));
+    }
+
+    /**
+     * Tests tokens whose fields were altered after signing.
+     * Verifies that each altered token is rejected.
+     */
+    @Test
+    void Verify_ShouldReject_WhenTokenIsTampered() {
+        // Arrange
+        AuthToken token = signer.Issue(testUser1Id);
+        UUID otherId = UUID.fromString("00000000-0000-0000-0000-000000000002");
+
+        // Act & Assert
+        assertFalse(signer.Verify(new AuthToken(otherId, true, token.IssuedAt(), token.ExpiresAt(), token.Signature())));
+        assertFalse(signer.Verify(new AuthToken(testUser1Id, true, token.IssuedAt(), token.ExpiresAt() + 60_000, token.Signature())));
+        assertFalse(signer.Verify(new AuthToken(testUser1Id, true, token.IssuedAt(), token.ExpiresAt(), "not-a-signature!")));
+        assertFalse(signer.Verify(new AuthToken(testUser1Id, true)));
+    }
+
+    /**
+     * Tests a token used after its lifetime.
+     * Verifies that it is rejected.
+     */
+    @Test
+    void Verify_ShouldReject_WhenTokenHasExpired() {
+        // Arrange
+        AuthToken token = signer.Issue(testUser1Id);
+
+        // Act
+        clock.addAndGet(Duration.ofMinutes(10).toMillis());
+
+        // Assert
+        assertFalse(signer.Verify(token));
+    }
+
+    /**
+     * Tests revoking a user and then issuing them a new token in the same millisecond.
+     * Verifies that only tokens issued before the revocation are rejected.
+     */
+    @Test
+    void Revoke_ShouldRejectEarlierTokensOnly() {
+        // Arrange
+        AuthToken before = signer.Issue(testUser1Id);
+
+        // Act
+        signer.Revoke(testUser1Id);
+        AuthToken after = signer.Issue(testUser1Id);
+
+        // Assert
+        assertFalse(signer.Verify(before));
+        assertTrue(signer.Verify(after));
+    }
+
+    /**
+     * Tests the revocation set after many logouts spread over time.
+     * Verifies that revocations older than a token lifetime are pruned.
+     */
+    @Test
+    void Revoke_ShouldPruneRevocations_WhenOlderThanTokenLifetime() {
+        // Arrange
+        for (int i = 0; i < 1_000; i++) {
+            UUID id = new UUID(1, i);
+            signer.Issue(id);
+            signer.Revoke(id);
+        }
+        clock.addAndGet(Duration.ofMinutes(11).toMillis());
+
+        // Act
+        for (int i = 0; i < 100; i++) {
+            UUID id = new UUID(2, i);
+            signer.Issue(id);
+            signer.Revoke(id);
+        }
+
+        // Assert
+        assertTrue(signer.GetRevocationCount() <= 100, "Stale revocations should have been pruned");
+    }
+}
@@ -3,11 +3,15 @@ package org.beaverbrooks.service;
 import org.beaverbrooks.domain.user.*;
 import org.beaverbrooks.repository.IDataRepository;
 import org.beaverbrooks.repository.InMemoryRepository;
+import org.beaverbrooks.repository.StripedRepository;
 import org.beaverbrooks.service.auth.BasicAuthService;
 import org.beaverbrooks.service.auth.IAuthService;
 import org.beaverbrooks.service.data.IUserDataService;
 import org.beaverbrooks.service.data.UserDataService;
 import org.beaverbrooks.shared.AuthToken;
+import org.beaverbrooks.shared.BankCommand;
+import org.beaverbrooks.shared.CommandResult;
+import org.beaverbrooks.shared.Money;
 import org.beaverbrooks.shared.exceptions.AuthorisationException;
 import org.beaverbrooks.shared.exceptions.DuplicateUserException;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,9 +19,14 @@ import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -52,8 +61,8 @@ public class UserDataServiceTest {
         User testUser1 = new Customer("TestUser1", "Test", "Tester", testUser1Id);
         User testUser2 = new Customer("TestUser2", "Test", "Tester", testUser2Id);
         
-        UserAuth testUserAuth1 = new UserAuth(testUser1Id, "Pa55word!!1234");
-        UserAuth testUserAuth2 = new UserAuth(testUser2Id, "Pa55word!!2234");
+        UserAuth testUserAuth1 = UserAuth.FromPassword(testUser1Id, "Pa55word!!1234", 1_000);
+        UserAuth testUserAuth2 = UserAuth.FromPassword(testUser2Id, "Pa55word!!2234", 1_000);
 
         userData.add(testUser1);
         userData.add(testUser2);
@@ -78,28 +87,31 @@ public class UserDataServiceTest {
 
     /**
      * Tests getting user data by ID.
-     * Note: Current implementation returns null, so this test verifies that behavior.
+     * Verifies that the stored user is returned, and a missing user is reported.
      */
     @Test
-    void GetUserData_ById_ShouldReturnNull_WhenMethodNotImplemented() {
+    void GetUserData_ById_ShouldReturnUser_WhenUserExists() {
         // Arrange & Act
         IUser result = userDataService.GetUserData(testUser1Id);
         
         // Assert
-        assertNull(result);
+        assertEquals(testUser1Id, result.GetID());
+        assertThrows(NoSuchElementException.class,
+                () -> userDataService.GetUserData(UUID.fromString("00000000-0000-0000-0000-000000000999")));
     }
 
     /**
      * Tests getting user data by username.
-     * Note: Current implementation returns null, so this test verifies that behavior.
+     * Verifies that the lookup ignores case, and a missing user is reported.
      */
     @Test
-    void GetUserData_ByUsername_ShouldReturnNull_WhenMethodNotImplemented() {
+    void GetUserData_ByUsername_ShouldReturnUser_WhenUserExists() {
         // Arrange & Act
-        IUser result = userDataService.GetUserData("TestUser1");
+        IUser result = userDataService.GetUserData("testuser1");
         
         // Assert
-        assertNull(result);
+        assertEquals(testUser1Id, result.GetID());
+        assertThrows(NoSuchElementException.class, () -> userDataService.GetUserData("NoSuchUser"));
     }
 
     /**
@@ -210,6 +222,47 @@ public class UserDataServiceTest {
         assertEquals(2, repository.GetAllUsers().size());
     }
 
+    /**
+     * Tests many threads signing up with the same new username at once over a striped repository.
+     * Verifies that exactly one sign-up succeeds and the others get DuplicateUserException.
+     */
+    @Test
+    void CreateCustomer_ShouldAdmitOneSignup_WhenSameNameRequestedConcurrently() throws Exception {
+        // Arrange
+        IDataRepository stripedRepository = new StripedRepository(new ArrayList<>(), new ArrayList<>());
+        IUserDataService service = new UserDataService(stripedRepository, new BasicAuthService(stripedRepository));
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ArrayList<Future<Boolean>> futures = new ArrayList<>();
+
+        // Act
+        int created = 0;
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        service.CreateCustomer("RaceUser", "Password123", "Race", "User");
+                        return true;
+                    } catch (DuplicateUserException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Boolean> future : futures) {
+                if (future.get()) {
+                    created++;
+                }
+            }
+        }
+
+        // Assert
+        assertEquals(1, created);
+        assertEquals(1, stripedRepository.GetAllUsers().size());
+        assertEquals(1, stripedRepository.GetAllUserAuth().size());
+    }
+
     /**
      * Tests getting user account balance with valid authorization.
      * Verifies that the balance is returned when the user is authorized.
@@ -371,6 +424,74 @@ public class UserDataServiceTest {
         assertEquals("Not authorised to perform this action", exception.getMessage());
     }
 
+    /**
+     * Tests depositing and withdrawing through the Money overloads.
+     * Verifies that the returned and stored balances match.
+     */
+    @Test
+    void MoneyOverloads_ShouldUpdateBalance_WhenAuthorized() {
+        // Arrange
+        IUser user = repository.GetUserById(testUser1Id).get();
+
+        // Act
+        userDataService.AddToUserAccountBalance(user, Money.OfMinor(20_050), validToken);
+        Money returned = userDataService.WithdrawFromUserAccountBalance(user, Money.OfMinor(5_025), validToken);
+
+        // Assert
+        assertEquals(0, Money.OfMinor(15_025).compareTo(returned));
+        assertEquals(0, Money.OfMinor(15_025).compareTo(userDataService.GetUserAccountMoneyBalance(testUser1Id, validToken)));
+        assertEquals(0, new BigDecimal("150.25").compareTo(repository.GetAccountBalance(testUser1Id)));
+    }
+
+    /**
+     * Tests the Money overloads with an unauthorized token.
+     * Verifies that AuthorisationException is thrown and the balance is untouched.
+     */
+    @Test
+    void MoneyOverloads_ShouldThrowException_WhenTokenForDifferentUser() {
+        // Arrange
+        IUser user = repository.GetUserById(testUser1Id).get();
+
+        // Act & Assert
+        assertThrows(AuthorisationException.class, () ->
+                userDataService.AddToUserAccountBalance(user, Money.OfMinor(100), unauthorizedToken));
+        assertThrows(AuthorisationException.class, () ->
+                userDataService.GetUserAccountMoneyBalance(testUser1Id, unauthorizedToken));
+        assertEquals(0, BigDecimal.ZERO.compareTo(repository.GetAccountBalance(testUser1Id)));
+    }
+
+    /**
+     * Tests deposits, withdrawals and transfers of zero, negative and sub-penny amounts.
+     * Verifies that each is rejected and no balance moves, including through a batch.
+     */
+    @Test
+    void BalanceOperations_ShouldThrowException_WhenAmountInvalid() {
+        // Arrange
+        IUser user = repository.GetUserById(testUser1Id).get();
+        userDataService.AddToUserAccountBalance(user, new BigDecimal("10.00"), validToken);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () ->
+                userDataService.WithdrawFromUserAccountBalance(user, new BigDecimal("-5.00"), validToken));
+        assertThrows(IllegalArgumentException.class, () ->
+                userDataService.AddToUserAccountBalance(user, Money.OfMinor(-500), validToken));
+        assertThrows(IllegalArgumentException.class, () ->
+                userDataService.AddToUserAccountBalance(user, BigDecimal.ZERO, validToken));
+        assertThrows(IllegalArgumentException.class, () ->
+                userDataService.AddToUserAccountBalance(user, new Money(1, 3), validToken));
+        assertThrows(IllegalArgumentException.class, () ->
+                userDataService.TransferBetweenUserAccounts(user, testUser2Id, Money.OfMinor(-100), validToken));
+        assertThrows(IllegalArgumentException.class, () ->
+                userDataService.SubmitDeposit(testUser1Id, Money.OfMinor(-100), validToken));
+        List<CommandResult> results = userDataService.ExecuteBatch(user, List.of(
+                new BankCommand.Withdraw(Money.OfMinor(-100)),
+                new BankCommand.Transfer(testUser2Id, Money.OfMinor(-100))), validToken);
+        assertFalse(results.get(0).Succeeded());
+        assertFalse(results.get(1).Succeeded());
+        assertEquals(0, new BigDecimal("10.00").compareTo(repository.GetAccountBalance(testUser1Id)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(repository.GetAccountBalance(testUser2Id)));
+    }
+
     /**
      * Tests deleting a user account with valid authorization.
      * Verifies that the account is removed from the repository.
@@ -459,4 +580,142 @@ public class UserDataServiceTest {
         BigDecimal finalBalance = repository.GetAccountBalance(testUser1Id);
         assertEquals(expectedFinalBalance, finalBalance);
     }
+
+    /**
+     * Tests a Money transfer from the token holder to another user.
+     * Verifies the sender's balance is returned and the recipient is credited.
+     */
+    @Test
+    void TransferBetweenUserAccounts_ShouldMoveFunds_WhenAuthorized() {
+        // Arrange
+        IUser user = repository.GetUserById(testUser1Id).get();
+        userDataService.AddToUserAccountBalance(user, Money.OfMinor(4_000), validToken);
+
+        // Act
+        Money balance = userDataService.TransferBetweenUserAccounts(user, testUser2Id, Money.OfMinor(1_525), validToken);
+
+        // Assert
+        assertEquals(0, Money.OfMinor(2_475).compareTo(balance));
+        assertEquals(0, new BigDecimal("15.25").compareTo(repository.GetAccountBalance(testUser2Id)));
+    }
+
+    /**
+     * Tests a transfer attempted with another user's token.
+     * Verifies it is rejected and no funds move.
+     */
+    @Test
+    void TransferBetweenUserAccounts_ShouldThrowException_WhenTokenForDifferentUser() {
+        // Arrange
+        IUser user = repository.GetUserById(testUser1Id).get();
+
+        // Act & Assert
+        assertThrows(AuthorisationException.class,
+                () -> userDataService.TransferBetweenUserAccounts(user, testUser2Id, BigDecimal.ONE, unauthorizedToken));
+        assertEquals(0, BigDecimal.ZERO.compareTo(repository.GetAccountBalance(testUser2Id)));
+    }
+
+    /**
+     * Tests a batch mixing every command type, including one that fails.
+     * Verifies per-command results, that the failure does not stop the batch, and the final balances.
+     */
+    @Test
+    void ExecuteBatch_ShouldReturnResultPerCommand_WhenAuthorized() {
+        // Arrange
+        IUser user = repository.GetUserById(testUser1Id).get();
+        UUID missingId = UUID.fromString("00000000-0000-0000-0000-000000000999");
+        List<BankCommand> commands = List.of(
+                new BankCommand.Deposit(Money.OfMinor(10_000)),
+                new BankCommand.Withdraw(Money.OfMinor(2_500)),
+                new BankCommand.Transfer(missingId, Money.OfMinor(100)),
+                new BankCommand.Transfer(testUser2Id, Money.OfMinor(1_500)),
+                new BankCommand.Balance());
+        long versionBefore = repository.GetUserVersion(testUser1Id);
+
+        // Act
+        List<CommandResult> results = userDataService.ExecuteBatch(user, commands, validToken);
+
+        // Assert
+        assertEquals(5, results.size());
+        assertEquals(0, Money.OfMinor(10_000).compareTo(results.get(0).Balance()));
+        assertEquals(0, Money.OfMinor(7_500).compareTo(results.get(1).Balance()));
+        assertFalse(results.get(2).Succeeded());
+        assertNotNull(results.get(2).Error());
+        assertEquals(0, Money.OfMinor(6_000).compareTo(results.get(3).Balance()));
+        assertEquals(0, Money.OfMinor(6_000).compareTo(results.get(4).Balance()));
+        assertEquals(0, new BigDecimal("15.00").compareTo(repository.GetAccountBalance(testUser2Id)));
+        // One version for the transfer and one for the single save at the end of the batch
+        assertEquals(versionBefore + 2, repository.GetUserVersion(testUser1Id));
+    }
+
+    /**
+     * Tests a batch submitted with another user's token.
+     * Verifies that nothing in it runs.
+     */
+    @Test
+    void ExecuteBatch_ShouldThrowException_WhenTokenForDifferentUser() {
+        // Arrange
+        IUser user = repository.GetUserById(testUser1Id).get();
+
+        // Act & Assert
+        assertThrows(AuthorisationException.class, () -> userDataService.ExecuteBatch(
+                user, List.of(new BankCommand.Deposit(Money.OfMinor(100))), unauthorizedToken));
+        assertEquals(0, BigDecimal.ZERO.compareTo(repository.GetAccountBalance(testUser1Id)));
+    }
+
+    /**
+     * Tests a batch whose transfer fails with an exception the batch does not report per command.
+     * Verifies that the deposit before it was saved first and the exception still reaches the caller.
+     */
+    @Test
+    void ExecuteBatch_ShouldSaveEarlierChanges_WhenTransferThrows() {
+        // Arrange
+        ArrayList<IUser> userData = new ArrayList<>(repository.GetAllUsers());
+        ArrayList<IUserAuth> authData = new ArrayList<>(repository.GetAllUserAuth());
+        IDataRepository failingTransfers = new InMemoryRepository(userData, authData) {
+            @Override
+            public BigDecimal TransferBetweenAccounts(UUID fromId, UUID toId, BigDecimal amount) {
+                throw new IllegalStateException("Repository unavailable");
+            }
+        };
+        IUserDataService service = new UserDataService(failingTransfers, authService);
+        IUser user = failingTransfers.GetUserById(testUser1Id).get();
+        long versionBefore = failingTransfers.GetUserVersion(testUser1Id);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> service.ExecuteBatch(user, List.of(
+                new BankCommand.Deposit(Money.OfMinor(10_000)),
+                new BankCommand.Transfer(testUser2Id, Money.OfMinor(100))), validToken));
+        assertEquals(versionBefore + 1, failingTransfers.GetUserVersion(testUser1Id));
+        assertEquals(0, new BigDecimal("100.00").compareTo(failingTransfers.GetAccountBalance(testUser1Id)));
+    }
+
+    /**
+     * Tests deposits and a batch whose save fails.
+     * Verifies that the balance change is taken back out rather than left unsaved.
+     */
+    @Test
+    void BalanceChange_ShouldBeReversed_WhenSaveFails() {
+        // Arrange
+        ArrayList<IUser> userData = new ArrayList<>(repository.GetAllUsers());
+        ArrayList<IUserAuth> authData = new ArrayList<>(repository.GetAllUserAuth());
+        IDataRepository failingSaves = new InMemoryRepository(userData, authData) {
+            @Override
+            public void SaveUpdateUser(IUser user) {
+                throw new IllegalStateException("Repository unavailable");
+            }
+        };
+        IUserDataService service = new UserDataService(failingSaves, authService);
+        IUser user = failingSaves.GetUserById(testUser1Id).get();
+        BigDecimal balanceBefore = user.GetAccount().get().GetAccountBalance();
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class,
+                () -> service.AddToUserAccountBalance(user, new BigDecimal("25.00"), validToken));
+        assertThrows(IllegalStateException.class,
+                () -> service.WithdrawFromUserAccountBalance(user, Money.OfMinor(500), validToken));
+        assertThrows(IllegalStateException.class, () -> service.ExecuteBatch(user, List.of(
+                new BankCommand.Deposit(Money.OfMinor(10_000)),
+                new BankCommand.Withdraw(Money.OfMinor(2_500))), validToken));
+        assertEquals(0, balanceBefore.compareTo(user.GetAccount().get().GetAccountBalance()));
+    }
 }
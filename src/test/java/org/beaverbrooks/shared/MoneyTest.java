@@ -0,0 +1,122 @@
+package org.beaverbrooks.shared;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Money record.
+ * Tests arithmetic, scale handling, rounding and overflow checks.
+ */
+public class MoneyTest {
+
+    /**
+     * Tests adding and subtracting amounts of the same scale.
+     * Verifies that the result keeps the scale and is exact.
+     */
+    @Test
+    void PlusAndMinus_ShouldBeExact_WhenScalesMatch() {
+        // Arrange
+        Money a = Money.OfMinor(1050);
+        Money b = Money.OfMinor(275);
+
+        // Act & Assert
+        assertEquals(new Money(1325, 2), a.Plus(b));
+        assertEquals(new Money(775, 2), a.Minus(b));
+        assertEquals("13.25", a.Plus(b).toString());
+    }
+
+    /**
+     * Tests adding amounts of different scales.
+     * Verifies that the result uses the larger scale.
+     */
+    @Test
+    void Plus_ShouldUseLargerScale_WhenScalesDiffer() {
+        // Arrange
+        Money cents = Money.OfMinor(100);
+        Money mills = new Money(5, 3);
+
+        // Act
+        Money sum = cents.Plus(mills);
+
+        // Assert
+        assertEquals(new Money(1005, 3), sum);
+        assertEquals(new BigDecimal("1.005"), sum.ToBigDecimal());
+    }
+
+    /**
+     * Tests arithmetic that would overflow a long.
+     * Verifies that ArithmeticException is thrown instead of wrapping.
+     */
+    @Test
+    void Plus_ShouldThrow_WhenResultOverflows() {
+        // Arrange
+        Money max = new Money(Long.MAX_VALUE, 2);
+
+        // Act & Assert
+        assertThrows(ArithmeticException.class, () -> max.Plus(Money.OfMinor(1)));
+        assertThrows(ArithmeticException.class, () -> max.Plus(new Money(1, 3)));
+        assertThrows(ArithmeticException.class, () -> new Money(Long.MIN_VALUE, 2).Negate());
+    }
+
+    /**
+     * Tests converting from BigDecimal.
+     * Verifies that exact conversion keeps the scale and rounding only happens when asked for.
+     */
+    @Test
+    void Of_ShouldRoundOnlyWhenRequested() {
+        // Arrange
+        BigDecimal amount = new BigDecimal("10.555");
+
+        // Act & Assert
+        assertEquals(new Money(10555, 3), Money.Of(amount));
+        assertEquals(new Money(1056, 2), Money.Of(amount, 2, RoundingMode.HALF_EVEN));
+        assertEquals(new Money(1055, 2), Money.Of(amount, 2, RoundingMode.DOWN));
+        assertEquals(new Money(1056, 2), Money.Parse(" 10.555 ", RoundingMode.HALF_UP));
+        assertThrows(ArithmeticException.class, () -> Money.Of(new BigDecimal("1e30")));
+    }
+
+    /**
+     * Tests rescaling to fewer decimal places.
+     * Verifies that exact rescales succeed and inexact ones use the given rounding mode.
+     */
+    @Test
+    void Rescale_ShouldApplyRounding_WhenPrecisionIsLost() {
+        // Arrange
+        Money exact = new Money(12300, 3);
+        Money inexact = new Money(12345, 3);
+
+        // Act & Assert
+        assertEquals(new Money(1230, 2), exact.Rescale(2, RoundingMode.UNNECESSARY));
+        assertEquals(new Money(1234, 2), inexact.Rescale(2, RoundingMode.HALF_EVEN));
+        assertThrows(ArithmeticException.class, () -> inexact.Rescale(2, RoundingMode.UNNECESSARY));
+        assertEquals(new Money(123450, 4), inexact.Rescale(4, RoundingMode.UNNECESSARY));
+    }
+
+    /**
+     * Tests equal amounts written at different scales.
+     * Verifies that equals and hashCode agree with compareTo, so sets treat them as one amount.
+     */
+    @Test
+    void Equals_ShouldMatchCompareTo_WhenScalesDiffer() {
+        // Arrange
+        Money cents = new Money(100, 2);
+        Money mills = new Money(1000, 3);
+
+        // Act
+        HashSet<Money> amounts = new HashSet<>(List.of(cents, mills, Money.OfMinor(0), new Money(0, 5)));
+
+        // Assert
+        assertEquals(0, cents.compareTo(mills));
+        assertEquals(cents, mills);
+        assertEquals(cents.hashCode(), mills.hashCode());
+        assertNotEquals(cents, new Money(1001, 3));
+        assertEquals(2, amounts.size());
+        assertEquals("1.000", mills.toString());
+    }
+}
@@ -0,0 +1,100 @@
+package org.beaverbrooks.shared;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for UuidV7 class.
+ * Tests the id layout, ordering under a stalled or backward clock, and uniqueness across threads.
+ */
+public class UuidV7Test {
+
+    /**
+     * Tests the fields of a generated id.
+     * Verifies the version, the variant and the embedded timestamp.
+     */
+    @Test
+    void Next_ShouldSetVersionVariantAndTimestamp() {
+        // Arrange
+        UuidV7 generator = new UuidV7(() -> 1_700_000_000_123L);
+
+        // Act
+        UUID id = generator.Next();
+
+        // Assert
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        assertEquals(1_700_000_000_123L, UuidV7.TimestampMillis(id));
+    }
+
+    /**
+     * Tests generating ids while the clock stands still and then steps back.
+     * Verifies that every id is greater than the one before it.
+     */
+    @Test
+    void Next_ShouldIncrease_WhenClockStallsOrGoesBack() {
+        // Arrange
+        AtomicLong now = new AtomicLong(1_700_000_000_000L);
+        UuidV7 generator = new UuidV7(now::get);
+        UUID previous = generator.Next();
+
+        // Act & Assert: 10,000 ids overflow the 12-bit counter within the stalled millisecond
+        for (int i = 0; i < 10_000; i++) {
+            if (i == 5_000) {
+                now.addAndGet(-1_000);
+            }
+            UUID id = generator.Next();
+            assertTrue(id.compareTo(previous) > 0, id + " after " + previous);
+            previous = id;
+        }
+    }
+
+    /**
+     * Tests many threads drawing ids from the shared generator at once.
+     * Verifies that no id is handed out twice and each thread sees its own ids in order.
+     */
+    @Test
+    void Generate_ShouldBeUniqueAndOrderedPerThread_WhenCalledConcurrently() throws Exception {
+        // Arrange
+        int threads = 8;
+        int idsPerThread = 10_000;
+        CountDownLatch start = new CountDownLatch(1);
+        ArrayList<Future<ArrayList<UUID>>> futures = new ArrayList<>();
+
+        // Act
+        HashSet<UUID> all = new HashSet<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    ArrayList<UUID> ids = new ArrayList<>(idsPerThread);
+                    for (int i = 0; i < idsPerThread; i++) {
+                        ids.add(UuidV7.Generate());
+                    }
+                    return ids;
+                }));
+            }
+            start.countDown();
+
+            // Assert
+            for (Future<ArrayList<UUID>> future : futures) {
+                ArrayList<UUID> ids = future.get();
+                for (int i = 1; i < ids.size(); i++) {
+                    assertTrue(ids.get(i).compareTo(ids.get(i - 1)) > 0);
+                }
+                all.addAll(ids);
+            }
+        }
+        assertEquals(threads * idsPerThread, all.size());
+    }
+}